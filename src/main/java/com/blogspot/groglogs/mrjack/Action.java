@@ -0,0 +1,277 @@
+package com.blogspot.groglogs.mrjack;
+
+import com.blogspot.groglogs.mrjack.structures.board.BoardTopology;
+import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+
+/**
+ * A complete game action packed in a long, to be played with Game.apply without asking the players.
+ * There are three kinds of action:
+ * - PLAY: the current player picks a character from the batch, then moves it and uses its ability in the given order
+ * - ACCUSE: the INSPECTOR uses a character from the batch to accuse the target character of being JACK
+ * - DEAL: the batches of the new turn are drawn, this is the only random event of a game
+ *
+ * Layout:
+ * - kind (2 bits), character (3 bits), order of move and ability (3 bits), move destination cell id (8 bits)
+ * - ability, depending on the character:
+ *   - LESTRADE: bit of the blocked exit to open (4 bits), bit of the open exit to block (4 bits), see BoardTopology
+ *   - BERT: bit of the closed hole to open (4 bits), bit of the open hole to close (4 bits), see Board.getHoleBit
+ *   - SMITH: bit of the lamp to turn OFF (4 bits), bit of the lamp to turn ON (4 bits), see BoardTopology
+ *   - WATSON: the lamp direction (4 bits)
+ *   - GULL: the character to swap place with (4 bits)
+ *   - GOODLEY: number of pulls (2 bits), then for each pull the character (3 bits) and its destination (8 bits)
+ *   - HOLMES and STEALTHY have nothing to choose
+ * - ACCUSE: the accused character (4 bits)
+ * - DEAL: the characters of the first batch (8 bits) and of the second batch (8 bits), one bit per CharacterType
+ */
+public final class Action {
+
+    public static final int PLAY = 0, ACCUSE = 1, DEAL = 2;
+
+    //order of move and ability when playing a character
+    public static final int NONE = 0, MOVE = 1, ABILITY = 2, MOVE_ABILITY = 3, ABILITY_MOVE = 4;
+
+    public static final int MAX_PULLS = 3;
+
+    private static final int KIND = 0, CHARACTER = 2, ORDER = 5, DESTINATION = 8, PARAM_A = 16, PARAM_B = 20,
+            NUM_PULLS = 16, PULLS = 18, PULL_BITS = 11, BATCH = 16, NEXT_BATCH = 24;
+
+    private Action(){
+    }
+
+    private static int get(long action, int offset, int bits){
+        return (int)(action >>> offset) & ((1 << bits) - 1);
+    }
+
+    /**
+     * Plays a character: move and ability in the given order.
+     * @param characterType the character to play.
+     * @param order NONE, MOVE, ABILITY, MOVE_ABILITY or ABILITY_MOVE.
+     * @param destination the id of the cell to move to, ignored if the character does not move.
+     * @return the action, the ability choices must be added with the with* methods.
+     */
+    public static long play(CharacterType characterType, int order, int destination){
+        return (long)PLAY << KIND | (long)characterType.getNumVal() << CHARACTER | (long)order << ORDER
+                | (long)(destination & 0xFF) << DESTINATION;
+    }
+
+    /**
+     * The INSPECTOR uses the given character to accuse the target.
+     * @param characterType the character used to accuse.
+     * @param target the accused character.
+     * @return the action.
+     */
+    public static long accuse(CharacterType characterType, CharacterType target){
+        return (long)ACCUSE << KIND | (long)characterType.getNumVal() << CHARACTER | (long)target.getNumVal() << PARAM_A;
+    }
+
+    /**
+     * Draws the batches of a new turn.
+     * @param batch the characters of the first batch, one bit per CharacterType.
+     * @param nextBatch the characters of the second batch, one bit per CharacterType.
+     * @return the action.
+     */
+    public static long deal(int batch, int nextBatch){
+        return (long)DEAL << KIND | (long)batch << BATCH | (long)nextBatch << NEXT_BATCH;
+    }
+
+    /**
+     * Sets the cell the character moves to, replacing the one already in the action.
+     * @param action the action.
+     * @param destination the id of the cell to move to.
+     * @return the action with the new destination.
+     */
+    public static long withDestination(long action, int destination){
+        return action & ~(0xFFL << DESTINATION) | (long)(destination & 0xFF) << DESTINATION;
+    }
+
+    /**
+     * Sets the order of move and ability, replacing the one already in the action.
+     * @param action the action.
+     * @param order NONE, MOVE, ABILITY, MOVE_ABILITY or ABILITY_MOVE.
+     * @return the action with the new order.
+     */
+    public static long withOrder(long action, int order){
+        return action & ~(7L << ORDER) | (long)order << ORDER;
+    }
+
+    /**
+     * Adds the two choices of a LESTRADE, BERT or SMITH ability: the source and the destination of the swap.
+     * @param action the action.
+     * @param source the bit of the exit, hole or lamp to open, open or turn OFF.
+     * @param dest the bit of the exit, hole or lamp to block, close or turn ON.
+     * @return the action with the ability choices.
+     */
+    public static long withSwap(long action, int source, int dest){
+        return action | (long)source << PARAM_A | (long)dest << PARAM_B;
+    }
+
+    /**
+     * Adds the direction of WATSON's lamp.
+     * @param action the action.
+     * @param d the lamp direction.
+     * @return the action with the ability choice.
+     */
+    public static long withDirection(long action, Direction d){
+        return action | (long)d.getNumVal() << PARAM_A;
+    }
+
+    /**
+     * Adds the character GULL swaps place with.
+     * @param action the action.
+     * @param target the character to swap place with.
+     * @return the action with the ability choice.
+     */
+    public static long withTarget(long action, CharacterType target){
+        return action | (long)target.getNumVal() << PARAM_A;
+    }
+
+    /**
+     * Adds one of GOODLEY's pulls, pulls are played in the order they are added.
+     * @param action the action.
+     * @param characterType the character to pull.
+     * @param destination the id of the cell the character is pulled to.
+     * @return the action with the pull.
+     * @throws IllegalStateException if the action already has MAX_PULLS pulls.
+     */
+    public static long withPull(long action, CharacterType characterType, int destination){
+        int pulls = getNumPulls(action);
+        if(pulls == MAX_PULLS){
+            throw new IllegalStateException(String.format("No more than %d pulls allowed", MAX_PULLS));
+        }
+        int offset = PULLS + pulls * PULL_BITS;
+        action &= ~(3L << NUM_PULLS);
+        return action | (long)(pulls + 1) << NUM_PULLS | (long)characterType.getNumVal() << offset
+                | (long)destination << offset + 3;
+    }
+
+    public static int getKind(long action){
+        return get(action, KIND, 2);
+    }
+
+    public static CharacterType getCharacter(long action){
+        return CharacterType.fromNumVal(get(action, CHARACTER, 3));
+    }
+
+    public static int getOrder(long action){
+        return get(action, ORDER, 3);
+    }
+
+    public static int getDestination(long action){
+        return get(action, DESTINATION, 8);
+    }
+
+    /**
+     * Returns the source of a LESTRADE, BERT or SMITH swap, the direction of WATSON's lamp, the target of GULL or
+     * the accused character.
+     * @param action the action.
+     * @return the first ability choice.
+     */
+    public static int getParamA(long action){
+        return get(action, PARAM_A, 4);
+    }
+
+    /**
+     * Returns the destination of a LESTRADE, BERT or SMITH swap.
+     * @param action the action.
+     * @return the second ability choice.
+     */
+    public static int getParamB(long action){
+        return get(action, PARAM_B, 4);
+    }
+
+    public static int getNumPulls(long action){
+        return get(action, NUM_PULLS, 2);
+    }
+
+    public static CharacterType getPullCharacter(long action, int pull){
+        return CharacterType.fromNumVal(get(action, PULLS + pull * PULL_BITS, 3));
+    }
+
+    public static int getPullDestination(long action, int pull){
+        return get(action, PULLS + pull * PULL_BITS + 3, 8);
+    }
+
+    public static int getBatch(long action){
+        return get(action, BATCH, 8);
+    }
+
+    public static int getNextBatch(long action){
+        return get(action, NEXT_BATCH, 8);
+    }
+
+    /**
+     * Checks whether the given order includes a move.
+     * @param order the order of move and ability.
+     * @return true if the character moves.
+     */
+    public static boolean hasMove(int order){
+        return order == MOVE || order == MOVE_ABILITY || order == ABILITY_MOVE;
+    }
+
+    /**
+     * Checks whether the given order includes the use of the ability.
+     * @param order the order of move and ability.
+     * @return true if the character uses its ability.
+     */
+    public static boolean hasAbility(int order){
+        return order == ABILITY || order == MOVE_ABILITY || order == ABILITY_MOVE;
+    }
+
+    /**
+     * Describes the given action, for logs and debugging.
+     * @param action the action.
+     * @return the description of the action.
+     */
+    public static String toString(long action){
+        switch(getKind(action)){
+            case DEAL:
+                return String.format("DEAL %s | %s", Integer.toBinaryString(getBatch(action)),
+                        Integer.toBinaryString(getNextBatch(action)));
+            case ACCUSE:
+                return String.format("%s ACCUSES %s", getCharacter(action), CharacterType.fromNumVal(getParamA(action)));
+            default:
+                break;
+        }
+
+        StringBuilder sb = new StringBuilder(getCharacter(action).toString());
+        int order = getOrder(action);
+        if(order == ABILITY || order == ABILITY_MOVE){
+            sb.append(" ").append(abilityToString(action));
+        }
+        if(hasMove(order)){
+            sb.append(" MOVE ").append(CellCoordinate.of(getDestination(action)));
+        }
+        if(order == MOVE_ABILITY){
+            sb.append(" ").append(abilityToString(action));
+        }
+        return sb.toString();
+    }
+
+    private static String abilityToString(long action){
+        switch(getCharacter(action)){
+            case LESTRADE:
+                return String.format("BARRIER %s -> %s", CellCoordinate.of(BoardTopology.getExitCell(getParamA(action))),
+                        CellCoordinate.of(BoardTopology.getExitCell(getParamB(action))));
+            case BERT:
+                return String.format("COVER %s -> %s", BoardTopology.getHoleCoordinate(getParamA(action)),
+                        BoardTopology.getHoleCoordinate(getParamB(action)));
+            case SMITH:
+                return String.format("LAMP %s -> %s", CellCoordinate.of(BoardTopology.getLampCell(getParamA(action))),
+                        CellCoordinate.of(BoardTopology.getLampCell(getParamB(action))));
+            case WATSON:
+                return String.format("LAMP %s", Direction.fromNumVal(getParamA(action)));
+            case GULL:
+                return String.format("SWAP %s", CharacterType.fromNumVal(getParamA(action)));
+            case GOODLEY:
+                StringBuilder sb = new StringBuilder("PULL");
+                for(int i = 0; i < getNumPulls(action); i++){
+                    sb.append(String.format(" %s %s", getPullCharacter(action, i), CellCoordinate.of(getPullDestination(action, i))));
+                }
+                return sb.toString();
+            default:
+                return "ABILITY";
+        }
+    }
+}
@@ -0,0 +1,544 @@
+package com.blogspot.groglogs.mrjack;
+
+import com.blogspot.groglogs.mrjack.structures.board.Bitboard;
+import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.structures.board.BoardTopology;
+import com.blogspot.groglogs.mrjack.structures.board.DistanceAtlas;
+import com.blogspot.groglogs.mrjack.structures.board.PathFinder;
+import com.blogspot.groglogs.mrjack.structures.board.ThreatMatrix;
+import com.blogspot.groglogs.mrjack.structures.board.Zobrist;
+import com.blogspot.groglogs.mrjack.structures.common.LongHashSet;
+import com.blogspot.groglogs.mrjack.structures.common.LongStack;
+import com.blogspot.groglogs.mrjack.structures.deck.CharacterDeck;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+
+import java.util.SplittableRandom;
+
+/**
+ * Lists all legal actions of a game, to be played with Game.apply.
+ * Each character plays move and ability in the orders its CharacterAbilityType allows:
+ * - AFTER_MOVE (WATSON, HOLMES): move, then ability
+ * - ANY_MOVE (LESTRADE, BERT, SMITH, GOODLEY): both, in either order
+ * - INSTEAD_OF_MOVE (GULL): move or ability
+ * - ALWAYS (STEALTHY): move
+ * Actions leading to the same outcome are listed once: exits and lamps do not change where characters can move, so
+ * LESTRADE and SMITH always move first, BERT only uses his ability first to reach cells he could not reach otherwise
+ * and GOODLEY's actions are compared by the positions they end with.
+ * GOODLEY spends all his movement points on pulls, unless no character can be pulled closer with the points left.
+ * A character that cannot move only uses its ability, one that can do neither does nothing.
+ * JACK escaping is NOT considered: it is decided by the game before the action is played, whatever the action is.
+ *
+ * A generator keeps its scratch space between calls to never allocate, each thread must use its own.
+ */
+public final class ActionGenerator {
+
+    private static final Direction[] directions = Direction.values();
+    private static final CharacterType[] characterTypes = CharacterType.values();
+    private static final int GOODLEY_MOVEMENT = 3;
+
+    private final Bitboard destinations = new Bitboard(), abilityDestinations = new Bitboard();
+    private final Bitboard occupied = new Bitboard();
+    //one per pull, GOODLEY pulls at most once per movement point
+    private final Bitboard[] pullDestinations = new Bitboard[GOODLEY_MOVEMENT];
+    private final int[] positions = new int[CharacterDeck.NUM_CHARACTERS];
+    private final LongHashSet outcomes = new LongHashSet(1024);
+
+    //the game being generated for, only set for the duration of a call
+    private Board board;
+    private LongStack out;
+
+    public ActionGenerator(){
+        for(int i = 0; i < pullDestinations.length; i++){
+            pullDestinations[i] = new Bitboard();
+        }
+    }
+
+    /**
+     * Adds all legal actions of the current player to the given buffer: every character left in the batch and, for
+     * the INSPECTOR, the accusations. Nothing is added if the game is over or the batches of a new turn must be dealt.
+     * @param game the game.
+     * @param out the buffer where actions are added, it is not cleared.
+     * @return the number of actions added.
+     */
+    public int generate(final Game game, final LongStack out){
+        if(game.isOver()){
+            return 0;
+        }
+
+        int count = 0;
+        for(int batch = game.getBatchCharacters(); batch != 0; batch &= batch - 1){
+            count += this.generate(game, CharacterType.fromNumVal(Integer.numberOfTrailingZeros(batch)), out);
+        }
+        if(game.getCurrentPlayer() == Game.PLAYER_INSPECTOR && !game.hasAttemptedToAccuseJack()){
+            count += this.generateAccusations(game, out);
+        }
+
+        return count;
+    }
+
+    /**
+     * Adds all accusations the INSPECTOR can make with the characters left in the batch to the given buffer.
+     * Each reachable character is accused once, whoever accuses him the outcome is the same.
+     * @param game the game.
+     * @param out the buffer where actions are added, it is not cleared.
+     * @return the number of actions added.
+     */
+    public int generateAccusations(final Game game, final LongStack out){
+        ThreatMatrix threats = game.getBoard().getThreatMatrix();
+        int accused = 0, count = 0;
+
+        for(int batch = game.getBatchCharacters(); batch != 0; batch &= batch - 1){
+            CharacterType from = CharacterType.fromNumVal(Integer.numberOfTrailingZeros(batch));
+            int maxMovement = game.getCharacterToken(from).getMaxMovement();
+
+            for(CharacterType to : characterTypes){
+                if((accused & 1 << to.getNumVal()) == 0 && threats.canReach(from, to, maxMovement)){
+                    accused |= 1 << to.getNumVal();
+                    out.push(Action.accuse(from, to));
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Adds all legal actions of the given character to the given buffer, whether it is in the batch or not.
+     * @param game the game.
+     * @param characterType the character to play.
+     * @param out the buffer where actions are added, it is not cleared.
+     * @return the number of actions added.
+     */
+    public int generate(final Game game, CharacterType characterType, final LongStack out){
+        this.board = game.getBoard();
+        this.out = out;
+        int size = out.size();
+
+        try {
+            for(CharacterType t : characterTypes){
+                this.positions[t.getNumVal()] = game.getCharacterToken(t).getCurrentPosition().getId();
+            }
+            this.moveDestinations(characterType, game.getCharacterToken(characterType).getMaxMovement(),
+                    this.board.getHoleMask(), this.destinations);
+
+            switch(characterType){
+                case LESTRADE:
+                    //barriers go from a blocked exit to an open one
+                    int exits = this.board.getExitMask();
+                    this.generateSwaps(characterType, ~exits & ((1 << BoardTopology.getNumExits()) - 1), exits);
+                    break;
+                case BERT:
+                    this.generateBert(game.getCharacterToken(characterType).getMaxMovement());
+                    break;
+                case SMITH:
+                    //lamps go from ON to OFF
+                    int lamps = this.board.getLampMask();
+                    this.generateSwaps(characterType, lamps, ~lamps & ((1 << BoardTopology.getNumLamps()) - 1));
+                    break;
+                case WATSON:
+                    if(this.destinations.isEmpty()){
+                        for(Direction direction : directions){
+                            out.push(Action.withDirection(Action.play(characterType, Action.ABILITY, 0), direction));
+                        }
+                    }
+                    for(int d = this.destinations.nextSetBit(0); d >= 0; d = this.destinations.nextSetBit(d + 1)){
+                        for(Direction direction : directions){
+                            out.push(Action.withDirection(Action.play(characterType, Action.MOVE_ABILITY, d), direction));
+                        }
+                    }
+                    break;
+                case HOLMES:
+                    if(this.destinations.isEmpty()){
+                        out.push(Action.play(characterType, Action.ABILITY, 0));
+                    }
+                    this.generateMoves(characterType, Action.MOVE_ABILITY);
+                    break;
+                case GULL:
+                    this.generateMoves(characterType, Action.MOVE);
+                    for(CharacterType target : characterTypes){
+                        if(target != characterType){
+                            out.push(Action.withTarget(Action.play(characterType, Action.ABILITY, 0), target));
+                        }
+                    }
+                    break;
+                case GOODLEY:
+                    this.generateGoodley();
+                    break;
+                case STEALTHY:
+                    this.generateMoves(characterType, Action.MOVE);
+                    break;
+                default:
+                    throw new IllegalStateException(String.format("Unknown character %s", characterType));
+            }
+
+            if(out.size() == size){
+                out.push(Action.play(characterType, Action.NONE, 0));
+            }
+        } finally {
+            this.board = null;
+            this.out = null;
+        }
+
+        return out.size() - size;
+    }
+
+    /**
+     * Returns a random legal action of the given character without listing all of them, for fast playouts.
+     * Choices are drawn one by one, so actions are not equally likely: the destination first, then the ability.
+     * BERT never uses his ability before moving, GOODLEY draws his order, move and pulls one at a time, characters that
+     * cannot move draw among all their actions.
+     * @param game the game.
+     * @param characterType the character to play.
+     * @param gen the random generator.
+     * @param scratch a buffer used when all actions must be listed or GOODLEY pulls, it is cleared.
+     * @return the action.
+     */
+    public long randomAction(final Game game, CharacterType characterType, final SplittableRandom gen, final LongStack scratch){
+        Board board = game.getBoard();
+        int d;
+
+        this.board = board;
+        try {
+            if(characterType == CharacterType.GOODLEY){
+                for(CharacterType t : characterTypes){
+                    this.positions[t.getNumVal()] = game.getCharacterToken(t).getCurrentPosition().getId();
+                }
+            }
+            else {
+                this.positions[characterType.getNumVal()] = game.getCharacterToken(characterType).getCurrentPosition().getId();
+            }
+            this.moveDestinations(characterType, game.getCharacterToken(characterType).getMaxMovement(),
+                    board.getHoleMask(), this.destinations);
+
+            if(characterType == CharacterType.GOODLEY){
+                long action = this.randomGoodley(gen, scratch);
+                if(action != 0){
+                    return action;
+                }
+                d = -1;
+            }
+            else {
+                d = randomCell(this.destinations, gen);
+            }
+        } finally {
+            this.board = null;
+        }
+
+        if(d != -1){
+            long action = Action.play(characterType, Action.MOVE_ABILITY, d);
+            switch(characterType){
+                case LESTRADE:
+                    //barriers go from a blocked exit to an open one
+                    int exits = board.getExitMask();
+                    return randomSwap(action, ~exits & ((1 << BoardTopology.getNumExits()) - 1), exits, gen, d);
+                case BERT:
+                    //covers go from a closed hole to an open one
+                    int holes = board.getHoleMask();
+                    return randomSwap(action, ~holes & ((1 << BoardTopology.getNumHoles()) - 1), holes, gen, d);
+                case SMITH:
+                    //lamps go from ON to OFF
+                    int lamps = board.getLampMask();
+                    return randomSwap(action, lamps, ~lamps & ((1 << BoardTopology.getNumLamps()) - 1), gen, d);
+                case WATSON:
+                    return Action.withDirection(action, directions[gen.nextInt(directions.length)]);
+                case HOLMES:
+                    return action;
+                case GULL:
+                    //a move or a swap with any other character
+                    int target = gen.nextInt(this.destinations.cardinality() + characterTypes.length - 1);
+                    if(target < characterTypes.length - 1){
+                        CharacterType t = characterTypes[target >= characterType.getNumVal() ? target + 1 : target];
+                        return Action.withTarget(Action.play(characterType, Action.ABILITY, 0), t);
+                    }
+                    return Action.play(characterType, Action.MOVE, d);
+                default:
+                    return Action.play(characterType, Action.MOVE, d);
+            }
+        }
+
+        scratch.clear();
+        this.generate(game, characterType, scratch);
+        return scratch.get(gen.nextInt(scratch.size()));
+    }
+
+    /**
+     * GOODLEY: a random order, then random pulls closer to him until no movement points are left or nobody can be
+     * pulled, then a random move if he moves last.
+     * Positions and occupied are left dirty, they are filled again before every use.
+     * @param gen the random generator.
+     * @param scratch a buffer for the pulls to draw from, it is cleared.
+     * @return the action, 0 if he moves last and cannot move after the pulls.
+     */
+    private long randomGoodley(final SplittableRandom gen, final LongStack scratch){
+        int goodley = CharacterType.GOODLEY.getNumVal();
+        int start = this.positions[goodley];
+        int holeMask = this.board.getHoleMask();
+        this.occupied.clear();
+        this.occupied.or(this.board.getOccupied());
+
+        long action;
+        int d = gen.nextBoolean() ? randomCell(this.destinations, gen) : -1;
+        if(d != -1){
+            action = Action.play(CharacterType.GOODLEY, Action.MOVE_ABILITY, d);
+            this.positions[goodley] = d;
+            this.occupied.set(start, false);
+            this.occupied.set(d, true);
+        }
+        else {
+            action = Action.play(CharacterType.GOODLEY, this.destinations.isEmpty() ? Action.ABILITY : Action.ABILITY_MOVE, 0);
+        }
+
+        int target = this.positions[goodley];
+        Bitboard reachable = this.pullDestinations[0];
+        for(int movement = GOODLEY_MOVEMENT; movement > 0; ){
+            //every pull as character and destination
+            scratch.clear();
+            for(int i = 0; i < this.positions.length; i++){
+                int from = this.positions[i];
+                int distance = DistanceAtlas.distance(from, target, holeMask, false, false);
+                if(i == goodley || distance < 0){
+                    continue;
+                }
+
+                PathFinder.reachable(from, holeMask, false, false, movement, reachable);
+                reachable.andNot(this.occupied);
+                for(int to = reachable.nextSetBit(0); to >= 0; to = reachable.nextSetBit(to + 1)){
+                    int closer = DistanceAtlas.distance(to, target, holeMask, false, false);
+                    if(closer >= 0 && closer < distance){
+                        scratch.push((long)i << Integer.SIZE | to);
+                    }
+                }
+            }
+            if(scratch.isEmpty()){
+                break;
+            }
+
+            long pull = scratch.get(gen.nextInt(scratch.size()));
+            int i = (int)(pull >>> Integer.SIZE), to = (int)pull, from = this.positions[i];
+            movement -= DistanceAtlas.distance(from, to, holeMask, false, false);
+            this.positions[i] = to;
+            this.occupied.set(from, false);
+            this.occupied.set(to, true);
+            action = Action.withPull(action, CharacterType.fromNumVal(i), to);
+        }
+
+        if(Action.getOrder(action) != Action.ABILITY_MOVE){
+            return action;
+        }
+
+        //GOODLEY moves last, around the characters he just pulled
+        PathFinder.reachable(start, holeMask, true, false, GOODLEY_MOVEMENT, this.abilityDestinations);
+        this.abilityDestinations.andNot(Board.getObstacles());
+        this.abilityDestinations.andNot(this.occupied);
+        d = randomCell(this.abilityDestinations, gen);
+
+        return d == -1 ? 0 : Action.withDestination(action, d);
+    }
+
+    //a random cell of the given set, -1 if empty
+    private static int randomCell(final Bitboard cells, final SplittableRandom gen){
+        int count = cells.cardinality();
+        if(count == 0){
+            return -1;
+        }
+
+        int id = cells.nextSetBit(0);
+        for(int n = gen.nextInt(count); n > 0; n--){
+            id = cells.nextSetBit(id + 1);
+        }
+        return id;
+    }
+
+    //a random bit of the given mask, which must not be empty
+    private static int randomBit(int mask, final SplittableRandom gen){
+        for(int n = gen.nextInt(Integer.bitCount(mask)); n > 0; n--){
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    //the move with a random swap, only the move if there is nothing to swap
+    private static long randomSwap(long action, int sources, int dests, final SplittableRandom gen, int d){
+        if(sources == 0 || dests == 0){
+            return Action.play(Action.getCharacter(action), Action.MOVE, d);
+        }
+        return Action.withSwap(action, randomBit(sources, gen), randomBit(dests, gen));
+    }
+
+    //cells the character can move to with the given holes open, in a single search
+    private void moveDestinations(CharacterType characterType, int maxMovement, int holeMask, final Bitboard result){
+        PathFinder.reachable(this.positions[characterType.getNumVal()], holeMask, true,
+                characterType == CharacterType.STEALTHY, maxMovement, result);
+        result.andNot(Board.getObstacles());
+        result.andNot(this.board.getOccupied());
+    }
+
+    private void generateMoves(CharacterType characterType, int order){
+        for(int d = this.destinations.nextSetBit(0); d >= 0; d = this.destinations.nextSetBit(d + 1)){
+            this.out.push(Action.play(characterType, order, d));
+        }
+    }
+
+    //every move with every swap of exits, holes or lamps, see Action.withSwap
+    private void generateSwaps(CharacterType characterType, int sources, int dests){
+        if(this.destinations.isEmpty()){
+            this.pushSwaps(Action.play(characterType, Action.ABILITY, 0), sources, dests);
+            return;
+        }
+        for(int d = this.destinations.nextSetBit(0); d >= 0; d = this.destinations.nextSetBit(d + 1)){
+            this.pushSwaps(Action.play(characterType, Action.MOVE_ABILITY, d), sources, dests);
+        }
+    }
+
+    private void pushSwaps(long action, int sources, int dests){
+        for(int s = sources; s != 0; s &= s - 1){
+            for(int d = dests; d != 0; d &= d - 1){
+                this.out.push(Action.withSwap(action, Integer.numberOfTrailingZeros(s), Integer.numberOfTrailingZeros(d)));
+            }
+        }
+    }
+
+    //BERT: moving first, then moving after the covers were swapped only to cells that were not reachable before
+    private void generateBert(int maxMovement){
+        int holeMask = this.board.getHoleMask();
+        int all = (1 << BoardTopology.getNumHoles()) - 1;
+        int closed = ~holeMask & all;
+
+        //covers go from a closed hole to an open one
+        this.generateSwaps(CharacterType.BERT, closed, holeMask);
+
+        for(int s = closed; s != 0; s &= s - 1){
+            int source = Integer.numberOfTrailingZeros(s);
+            for(int o = holeMask; o != 0; o &= o - 1){
+                int dest = Integer.numberOfTrailingZeros(o);
+                this.moveDestinations(CharacterType.BERT, maxMovement, holeMask | 1 << source & ~(1 << dest),
+                        this.abilityDestinations);
+                this.abilityDestinations.andNot(this.destinations);
+
+                long action = Action.withSwap(Action.play(CharacterType.BERT, Action.ABILITY_MOVE, 0), source, dest);
+                for(int d = this.abilityDestinations.nextSetBit(0); d >= 0; d = this.abilityDestinations.nextSetBit(d + 1)){
+                    this.out.push(Action.withDestination(action, d));
+                }
+            }
+        }
+    }
+
+    //GOODLEY: moving then pulling, or pulling then moving, each outcome once
+    private void generateGoodley(){
+        int goodley = CharacterType.GOODLEY.getNumVal();
+        int start = this.positions[goodley];
+        this.outcomes.clear();
+        this.occupied.clear();
+        this.occupied.or(this.board.getOccupied());
+
+        long base = 0;
+        for(int i = 0; i < this.positions.length; i++){
+            base ^= Zobrist.position(CharacterType.fromNumVal(i), this.positions[i]);
+        }
+
+        //move, then pull towards the new position
+        this.occupied.set(start, false);
+        for(int d = this.destinations.nextSetBit(0); d >= 0; d = this.destinations.nextSetBit(d + 1)){
+            this.positions[goodley] = d;
+            this.occupied.set(d, true);
+            this.pull(Action.play(CharacterType.GOODLEY, Action.MOVE_ABILITY, d), 0, GOODLEY_MOVEMENT,
+                    base ^ Zobrist.position(CharacterType.GOODLEY, start) ^ Zobrist.position(CharacterType.GOODLEY, d));
+            this.occupied.set(d, false);
+        }
+        this.positions[goodley] = start;
+        this.occupied.set(start, true);
+
+        //pull towards the current position, then move, or just pull if he cannot move
+        this.pull(Action.play(CharacterType.GOODLEY, Action.ABILITY_MOVE, 0), 0, GOODLEY_MOVEMENT, base);
+        if(this.destinations.isEmpty()){
+            this.pull(Action.play(CharacterType.GOODLEY, Action.ABILITY, 0), 0, GOODLEY_MOVEMENT, base);
+        }
+    }
+
+    /**
+     * Tries every pull of a character closer to GOODLEY with the movement points left, then the next ones.
+     * Pulled characters are tracked in positions and occupied, which are restored before returning.
+     * @param action the action with the pulls done so far.
+     * @param numPulls the number of pulls done so far.
+     * @param movement the movement points left.
+     * @param outcome the hash of the positions after the pulls done so far.
+     */
+    private void pull(long action, int numPulls, int movement, long outcome){
+        if(movement == 0){
+            this.pushGoodley(action, outcome);
+            return;
+        }
+
+        int goodley = this.positions[CharacterType.GOODLEY.getNumVal()];
+        int holeMask = this.board.getHoleMask();
+        Bitboard reachable = this.pullDestinations[numPulls];
+        boolean hasPulled = false;
+
+        for(int i = 0; i < this.positions.length; i++){
+            CharacterType t = CharacterType.fromNumVal(i);
+            if(t == CharacterType.GOODLEY){
+                continue;
+            }
+
+            int from = this.positions[i];
+            int distance = DistanceAtlas.distance(from, goodley, holeMask, false, false);
+            PathFinder.reachable(from, holeMask, false, false, movement, reachable);
+            reachable.andNot(this.occupied);
+
+            for(int to = reachable.nextSetBit(0); to >= 0; to = reachable.nextSetBit(to + 1)){
+                int closer = DistanceAtlas.distance(to, goodley, holeMask, false, false);
+                if(distance < 0 || closer < 0 || closer >= distance){
+                    continue;
+                }
+                hasPulled = true;
+
+                this.positions[i] = to;
+                this.occupied.set(from, false);
+                this.occupied.set(to, true);
+                this.pull(Action.withPull(action, t, to), numPulls + 1,
+                        movement - DistanceAtlas.distance(from, to, holeMask, false, false),
+                        outcome ^ Zobrist.position(t, from) ^ Zobrist.position(t, to));
+                this.occupied.set(to, false);
+                this.occupied.set(from, true);
+                this.positions[i] = from;
+            }
+        }
+
+        if(!hasPulled){
+            this.pushGoodley(action, outcome);
+        }
+    }
+
+    private void pushGoodley(long action, long outcome){
+        if(Action.getOrder(action) != Action.ABILITY_MOVE){
+            if(this.outcomes.add(outcome)){
+                this.out.push(action);
+            }
+            return;
+        }
+
+        //GOODLEY moves last, around the characters he just pulled
+        int goodley = CharacterType.GOODLEY.getNumVal();
+        int start = this.positions[goodley];
+        PathFinder.reachable(start, this.board.getHoleMask(), true, false, GOODLEY_MOVEMENT, this.abilityDestinations);
+        this.abilityDestinations.andNot(Board.getObstacles());
+        this.abilityDestinations.andNot(this.occupied);
+
+        //the pulls left him boxed in, he skips the move
+        if(this.abilityDestinations.isEmpty()){
+            if(this.outcomes.add(outcome)){
+                this.out.push(Action.withOrder(action, Action.ABILITY));
+            }
+            return;
+        }
+
+        for(int d = this.abilityDestinations.nextSetBit(0); d >= 0; d = this.abilityDestinations.nextSetBit(d + 1)){
+            long moved = outcome ^ Zobrist.position(CharacterType.GOODLEY, start) ^ Zobrist.position(CharacterType.GOODLEY, d);
+            if(this.outcomes.add(moved)){
+                this.out.push(Action.withDestination(action, d));
+            }
+        }
+    }
+}
@@ -1,128 +1,677 @@
 package com.blogspot.groglogs.mrjack;
 
 import com.blogspot.groglogs.mrjack.input.ChoicePrompts;
+import com.blogspot.groglogs.mrjack.input.ConsolePlayer;
+import com.blogspot.groglogs.mrjack.input.Player;
 import com.blogspot.groglogs.mrjack.input.Stdinputter;
 import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.structures.board.BoardTopology;
 import com.blogspot.groglogs.mrjack.structures.board.Cell;
 import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
+import com.blogspot.groglogs.mrjack.structures.board.Zobrist;
+import com.blogspot.groglogs.mrjack.structures.common.LongStack;
 import com.blogspot.groglogs.mrjack.structures.deck.CharacterDeck;
 import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
-import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
 import com.blogspot.groglogs.mrjack.structures.characters.JohnHWatson;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
 import com.blogspot.groglogs.mrjack.structures.enums.PlayerActionType;
 
-import java.util.HashMap;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.TreeMap;
 
 /**
  * Drives the game logic.
- * Status is static, can be accessed from everywhere.
+ * Each game owns its whole state: board, deck, characters and players, so that many games can be played
+ * concurrently in the same JVM. Characters reach the state through the game they are played in.
+ * Every decision is asked to the Player of the current pick, games between programmatic players print nothing.
  */
 public class Game {
 
-    private final static int MAX_TURNS = 8;
+    public final static int MAX_TURNS = 8;
     private final static int CHARACTER_BATCH_SIZE = 4;
     public final static boolean PLAYER_JACK = false;
     public final static boolean PLAYER_INSPECTOR = true;
 
+    //undo records of the game state, pushed on the undo stack before the board records of the same action
+    //the low bits are Board.JOURNAL_OWNER_ENTRY so that they are never mistaken for a board record
+    private final static int UNDO_TURN = 2, UNDO_PLAYER = 6, UNDO_JACK_VISIBLE = 7, UNDO_ACCUSED = 8, UNDO_OVER = 9,
+            UNDO_WINNER = 10, UNDO_BATCH = 11, UNDO_NEXT_BATCH = 19, UNDO_REVEALED = 27, UNDO_JACK_INNOCENTS = 30,
+            UNDO_INSPECTOR_INNOCENTS = 38, UNDO_VISIBLE = 46, UNDO_NEXT_TIMED_LAMP = 54, UNDO_WATSON = 57;
+
     //game state
-    private static Board board;
-    private static int turn;
-    private static CharacterDeck characterDeck;
-    private static CharacterToken jack;
-    //HOLMES can peek here to gain data
-    private static Queue<CharacterToken> innocents;
-    //for each player track here the data gathered through HOLMES
-    private static Map<Boolean, Set<CharacterToken>> playerRevealedInnocents;
-    private static Map<CharacterType, CharacterToken> characters;
+    private final Board board;
+    //the input console players read from, null if players are programmatic
+    private final Stdinputter input;
+    private final Player inspectorPlayer, jackPlayer;
+    //if true, boards, prompts and messages are shown on System.out
+    private final boolean isInteractive;
+    private int turn;
+    private final CharacterDeck characterDeck;
+    private CharacterToken jack;
+    //HOLMES can peek here to gain data, innocents are revealed in this order
+    private final CharacterToken[] innocents;
+    private int revealedInnocents;
+    //for each player track here the data gathered through HOLMES, one bit per CharacterType, indexed by player
+    private final int[] playerRevealedInnocents;
+    //indexed by CharacterType
+    private final CharacterToken[] characters;
+    private boolean isOver;
+    private boolean winner;
     //turn state
-    private static boolean isJackVisible; //must be kept separated from actual character status to avoid leaking info
-    private static boolean hasAttemptedToAccuseJack;
-    private static Queue<CharacterToken> turnCharacters;
-    private static boolean currentPlayer;
+    private boolean isJackVisible; //must be kept separated from actual character status to avoid leaking info
+    private boolean hasAttemptedToAccuseJack;
+    //characters still available in the batch being played and in the next batch of this turn, one bit per CharacterType
+    //when both are empty, the turn is over and new batches are drawn before the next pick
+    private int batchCharacters, nextBatchCharacters;
+    //the player choosing the next character
+    private boolean currentPlayer;
+    //everything needed to take back the actions played with apply, see undo
+    private final LongStack undoStack = new LongStack();
+    //Zobrist hash of the turn state, the board hashes its own state, see Zobrist
+    private long controlHash;
+    //if true, the hash is verified against a full recompute after every pick, action and restore
+    private boolean verifyHash = false;
 
     /**
-     * Initializes the game
+     * Initializes a random game, players input from System.IN.
      */
     public Game(){
-        turn = 1;
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Initializes the game, players input from System.IN.
+     * @param seed the seed for all random choices in this game, the same seed always deals the same cards.
+     */
+    public Game(long seed){
+        this(seed, new Stdinputter());
+    }
+
+    /**
+     * Initializes the game, both players play on the console reading from the given input.
+     * @param seed the seed for all random choices in this game, the same seed always deals the same cards.
+     * @param input the input of the players.
+     */
+    public Game(long seed, final Stdinputter input){
+        this(seed, input, new ConsolePlayer(input), null);
+    }
+
+    /**
+     * Initializes the game between the given players.
+     * @param seed the seed for all random choices in this game, the same seed always deals the same cards.
+     * @param inspectorPlayer the player making the decisions of the INSPECTOR.
+     * @param jackPlayer the player making the decisions of JACK.
+     */
+    public Game(long seed, final Player inspectorPlayer, final Player jackPlayer){
+        this(seed, null, inspectorPlayer, jackPlayer);
+    }
+
+    /**
+     * Initializes a game without players in the given state, to be played on with apply and undo, eg by searches.
+     * @param state the state of the game.
+     */
+    public Game(final GameState state){
+        this(0, null, null, null);
+        this.setState(state);
+    }
+
+    //jackPlayer is null when both sides are played by the same player, both are null for games without players
+    private Game(long seed, final Stdinputter input, final Player inspectorPlayer, final Player jackPlayer){
+        this.turn = 1;
+        this.input = input;
+        this.inspectorPlayer = inspectorPlayer;
+        this.jackPlayer = jackPlayer == null ? inspectorPlayer : jackPlayer;
+        this.isInteractive = inspectorPlayer != null && (this.inspectorPlayer.isInteractive() || this.jackPlayer.isInteractive());
 
         //for each player track here the data gathered through HOLMES
-        playerRevealedInnocents = new HashMap<>();
+        this.playerRevealedInnocents = new int[2];
 
         //initialize board
-        board = new Board();
+        this.board = new Board();
 
         //init deck and pick random jack card
-        characterDeck = new CharacterDeck();
-        innocents = this.characterDeck.shuffle();
-        jack = innocents.poll();
-        jack.setJack();
-        printJack();
+        this.characterDeck = new CharacterDeck(new SplittableRandom(seed));
+        this.characterDeck.shuffle();
+        this.jack = this.characterDeck.draw(0);
+        this.jack.setJack();
+        this.innocents = new CharacterToken[CharacterDeck.NUM_CHARACTERS - 1];
+        for(int i = 0; i < this.innocents.length; i++){
+            this.innocents[i] = this.characterDeck.draw(i + 1);
+        }
+        this.revealedInnocents = 0;
+        if(this.isInteractive){
+            this.printJack();
+        }
 
         //place the characters on the board, we reuse the deck here
-        characters = new TreeMap<>();
+        this.characters = new CharacterToken[CharacterDeck.NUM_CHARACTERS];
         this.initCharactersPositions();
 
         //calculate initial visibility state for all characters
         this.checkCharactersVisible();
         //at the beginning jack is ALWAYS visible
-        isJackVisible = true;
+        this.isJackVisible = true;
 
         //inspector ALWAYS starts
-        currentPlayer = PLAYER_INSPECTOR;
-        hasAttemptedToAccuseJack = false;
+        this.currentPlayer = PLAYER_INSPECTOR;
+        this.hasAttemptedToAccuseJack = false;
+        this.isOver = false;
+
+        this.controlHash = Zobrist.control(this.turn, this.currentPlayer == PLAYER_INSPECTOR, this.isJackVisible,
+                this.hasAttemptedToAccuseJack, this.batchCharacters, this.nextBatchCharacters);
     }
 
     /**
      * Place characters on the board in their initial position.
-     * We use the deck to loop over all of them, then place them in a TreeMap
-     * to have them ordered by CharacterType (roughly equal to name) for pretty printing
-     * and easier access later.
+     * We use the deck to loop over all of them, then place them in an array indexed by CharacterType
+     * to have them ordered (roughly equal to name) for pretty printing and easier access later.
      */
     private void initCharactersPositions(){
         for(int i = 0; i < CharacterDeck.NUM_CHARACTERS; i++){
             CharacterToken c = characterDeck.getCharacterTokenAtPosition(i);
 
-            characters.put(c.getCharacterType(), c);
+            c.setGame(this);
+            this.characters[c.getCharacterType().getNumVal()] = c;
 
             CellCoordinate pos = c.getCurrentPosition();
 
-            Cell cell = Board.getCell(pos);
+            Cell cell = this.board.getCell(pos);
             cell.setCharacterToken(c);
         }
     }
 
-    public static boolean getCurrentPlayer(){
-        return currentPlayer;
+    public Board getBoard(){
+        return this.board;
+    }
+
+    /**
+     * Returns the input the console players read from.
+     * @return the input of the players, null if the players are programmatic.
+     */
+    public Stdinputter getInput(){
+        return this.input;
+    }
+
+    /**
+     * Returns the player making the decisions of the current pick.
+     * @return the current player, null if the game has no players.
+     */
+    public Player getPlayer(){
+        return this.currentPlayer == PLAYER_INSPECTOR ? this.inspectorPlayer : this.jackPlayer;
+    }
+
+    /**
+     * Whether boards, prompts and messages are shown on System.out, only if at least one player is interactive.
+     * @return true if the game is followed on the console.
+     */
+    public boolean isInteractive(){
+        return this.isInteractive;
+    }
+
+    public int getTurn(){
+        return this.turn;
+    }
+
+    public CharacterToken getJack(){
+        return this.jack;
+    }
+
+    public boolean getCurrentPlayer(){
+        return this.currentPlayer;
+    }
+
+    /**
+     * Returns whether JACK was visible at the end of the previous turn, this is public information.
+     * @return true if JACK was visible at the end of the previous turn.
+     */
+    public boolean isJackVisible(){
+        return this.isJackVisible;
+    }
+
+    /**
+     * Returns whether the INSPECTOR already attempted to accuse JACK this turn.
+     * @return true if the INSPECTOR already attempted to accuse JACK this turn.
+     */
+    public boolean hasAttemptedToAccuseJack(){
+        return this.hasAttemptedToAccuseJack;
+    }
+
+    /**
+     * Returns the characters that can still be chosen in the batch being played.
+     * @return the characters still available in this batch, bit i is set for CharacterType.fromNumVal(i).
+     */
+    public int getBatchCharacters(){
+        return this.batchCharacters;
+    }
+
+    /**
+     * Returns the characters of the second batch of this turn, if the first one is being played.
+     * @return the characters of the next batch, bit i is set for CharacterType.fromNumVal(i).
+     */
+    public int getNextBatchCharacters(){
+        return this.nextBatchCharacters;
+    }
+
+    /**
+     * Checks whether the game is finished: JACK was accused, escaped or the last turn was played.
+     * @return true if the game is finished.
+     */
+    public boolean isOver(){
+        return this.isOver;
+    }
+
+    /**
+     * Returns the winner of a finished game.
+     * @return PLAYER_JACK or PLAYER_INSPECTOR.
+     * @throws IllegalStateException if the game is not finished yet.
+     */
+    public boolean getWinner(){
+        if(!this.isOver){
+            throw new IllegalStateException("Game is not finished yet.");
+        }
+        return this.winner;
+    }
+
+    private void endGame(boolean winner){
+        this.isOver = true;
+        this.winner = winner;
+    }
+
+    private static int playerIndex(boolean player){
+        return player == PLAYER_INSPECTOR ? 1 : 0;
     }
 
     /**
      * Returns the revealed innocents through HOLMES for the current player.
      * @return the revealed innocents through HOLMES for the current player.
      */
-    public static Set<CharacterToken> getPlayerInnocents(){
-        return playerRevealedInnocents.get(currentPlayer);
+    public Set<CharacterToken> getPlayerInnocents(){
+        Set<CharacterToken> chars = new HashSet<>();
+        int revealed = this.getRevealedInnocents(this.currentPlayer);
+
+        for(CharacterToken c : this.characters){
+            if((revealed & 1 << c.getCharacterType().getNumVal()) != 0){
+                chars.add(c);
+            }
+        }
+
+        return chars;
+    }
+
+    /**
+     * Returns the innocents revealed through HOLMES to the given player.
+     * @param player PLAYER_JACK or PLAYER_INSPECTOR.
+     * @return the revealed innocents, bit i is set for CharacterType.fromNumVal(i).
+     */
+    public int getRevealedInnocents(boolean player){
+        return this.playerRevealedInnocents[playerIndex(player)];
     }
 
     /**
      * When HOLMES reveals an innocent, we track it in the data for the current player for later review.
      * @param c the revealed innocent character.
      */
-    private static void addCharacterToPlayerInnocents(final CharacterToken c){
-        Set<CharacterToken> chars = playerRevealedInnocents.get(currentPlayer);
+    private void addCharacterToPlayerInnocents(final CharacterToken c){
+        this.playerRevealedInnocents[playerIndex(this.currentPlayer)] |= 1 << c.getCharacterType().getNumVal();
+    }
+
+    /**
+     * Returns the number of innocents HOLMES can still reveal.
+     * @return the number of innocents HOLMES can still reveal.
+     */
+    int getNumInnocents(){
+        return this.innocents.length - this.revealedInnocents;
+    }
+
+    /**
+     * Returns the innocent HOLMES will reveal after the given number of other reveals.
+     * @param i the number of reveals before this one, less than getNumInnocents().
+     * @return the innocent character.
+     */
+    CharacterToken getInnocent(int i){
+        return this.innocents[this.revealedInnocents + i];
+    }
+
+    /**
+     * Returns the complete state of this game, packed.
+     * @return the complete state of this game.
+     */
+    public GameState getState(){
+        return GameState.encode(this);
+    }
+
+    /**
+     * Restores the given state on this game, the state can come from any game.
+     * Only what differs from the current state is changed, the board keeps all its derived state in sync.
+     * The actions played so far can no longer be taken back.
+     * @param state the state to restore.
+     */
+    public void setState(final GameState state){
+        this.undoStack.clear();
+
+        //board, flip only what changed
+        int changed = this.board.getLampMask() ^ state.getLampMask();
+        for(int lamp = 0; lamp < BoardTopology.getNumLamps(); lamp++){
+            int id = BoardTopology.getLampCell(lamp);
+            if((changed & 1 << lamp) != 0){
+                this.board.getCell(id).flipLamp();
+            }
+            if(this.board.getLampOffTurn(id) != state.getLampOffTurn(lamp)){
+                this.board.getCell(id).setLampOffTurn(state.getLampOffTurn(lamp));
+            }
+        }
+        changed = this.board.getHoleMask() ^ state.getHoleMask();
+        for(int hole = 0; hole < Board.getNumHoles(); hole++){
+            if((changed & 1 << hole) != 0){
+                this.board.getCell(Board.getHoleCoordinate(hole)).flipHole();
+            }
+        }
+        changed = this.board.getExitMask() ^ state.getExitMask();
+        for(int exit = 0; exit < BoardTopology.getNumExits(); exit++){
+            if((changed & 1 << exit) != 0){
+                this.board.getCell(BoardTopology.getExitCell(exit)).flipExit();
+            }
+        }
+        this.board.setNextTimedLamp(state.getNextTimedLamp());
+
+        //characters, first lift all the ones that moved so that they can take each other's place
+        int moved = 0;
+        for(CharacterToken c : this.characters){
+            if(c.getCurrentPosition().getId() != state.getPosition(c.getCharacterType())){
+                this.board.getCell(c.getCurrentPosition()).setCharacterToken(null);
+                moved |= 1 << c.getCharacterType().getNumVal();
+            }
+        }
+        for(CharacterToken c : this.characters){
+            if((moved & 1 << c.getCharacterType().getNumVal()) != 0){
+                this.board.getCell(state.getPosition(c.getCharacterType())).setCharacterToken(c);
+            }
+            if((state.getVisibleCharacters() & 1 << c.getCharacterType().getNumVal()) != 0){
+                c.markVisible();
+            }
+            else {
+                c.markInvisible();
+            }
+            c.resetCharacterTurn();
+        }
+        JohnHWatson watson = (JohnHWatson)this.characters[CharacterType.WATSON.getNumVal()];
+        if(watson.getLampDirection() != state.getWatsonDirection()){
+            watson.setLampDirection(state.getWatsonDirection());
+        }
+
+        //JACK and innocents, the ones already revealed are not in any specific order
+        if(this.jack.getCharacterType() != state.getJack()){
+            this.jack.setJack(false);
+            this.jack = this.characters[state.getJack().getNumVal()];
+            this.jack.setJack(true);
+        }
+        this.revealedInnocents = this.innocents.length - state.getNumInnocents();
+        int hidden = 1 << this.jack.getCharacterType().getNumVal();
+        for(int i = 0; i < state.getNumInnocents(); i++){
+            this.innocents[this.revealedInnocents + i] = this.characters[state.getInnocent(i).getNumVal()];
+            hidden |= 1 << state.getInnocent(i).getNumVal();
+        }
+        int revealed = 0;
+        for(CharacterToken c : this.characters){
+            if((hidden & 1 << c.getCharacterType().getNumVal()) == 0){
+                this.innocents[revealed++] = c;
+            }
+        }
+        this.playerRevealedInnocents[playerIndex(PLAYER_JACK)] = state.getRevealedInnocents(PLAYER_JACK);
+        this.playerRevealedInnocents[playerIndex(PLAYER_INSPECTOR)] = state.getRevealedInnocents(PLAYER_INSPECTOR);
+
+        //turn
+        this.setTurn(state.getTurn());
+        this.setCurrentPlayer(state.getCurrentPlayer());
+        this.setJackVisible(state.isJackVisible());
+        this.setAttemptedToAccuseJack(state.hasAttemptedToAccuseJack());
+        this.isOver = state.isOver();
+        this.winner = state.isOver() && state.getWinner();
+        this.setBatches(state.getBatchCharacters(), state.getNextBatchCharacters());
+
+        this.checkHash();
+    }
+
+    /**
+     * Makes the given character JACK, as the INSPECTOR could imagine it, same as setState(getState().withJack(jack))
+     * without rebuilding anything: only the hidden information is swapped, the hash does not change.
+     * @param jack the new JACK.
+     * @throws IllegalStateException if actions can still be taken back or jack was revealed innocent to the INSPECTOR.
+     */
+    public void setJack(CharacterType jack){
+        CharacterToken old = this.jack;
+        if(old.getCharacterType() == jack){
+            return;
+        }
+        //undo entries hold the innocents revealed to JACK as they were
+        if(!this.undoStack.isEmpty()){
+            throw new IllegalStateException("JACK can only change when no action can be taken back.");
+        }
+        if((this.getRevealedInnocents(PLAYER_INSPECTOR) & 1 << jack.getNumVal()) != 0){
+            throw new IllegalStateException(String.format("%s was revealed innocent.", jack));
+        }
+
+        this.jack = this.characters[jack.getNumVal()];
+        for(int i = 0; i < this.innocents.length; i++){
+            if(this.innocents[i] == this.jack){
+                this.innocents[i] = old;
+            }
+        }
+        int jackInnocents = this.getRevealedInnocents(PLAYER_JACK);
+        if((jackInnocents & 1 << jack.getNumVal()) != 0){
+            this.playerRevealedInnocents[playerIndex(PLAYER_JACK)] = jackInnocents & ~(1 << jack.getNumVal())
+                    | 1 << old.getCharacterType().getNumVal();
+        }
+
+        old.setJack(false);
+        this.jack.setJack(true);
+    }
+
+    /**
+     * Plays the given action without asking the players, it can be taken back with undo.
+     * Actions are trusted, as produced by the action generator: only cheap checks are done and an invalid action can
+     * leave the game in an invalid state.
+     * Nothing is copied, only the previous state of what the action changes is recorded.
+     * @param action the action to play, see Action.
+     * @throws IllegalStateException if the game is over.
+     */
+    public void apply(long action){
+        if(this.isOver){
+            throw new IllegalStateException("Game is already finished.");
+        }
+
+        this.undoStack.push(this.getUndoEntry());
+        //from here on the board records the previous state of everything that changes
+        this.board.setJournal(this.undoStack);
+        try {
+            switch(Action.getKind(action)){
+                case Action.DEAL:
+                    this.setBatches(Action.getBatch(action), Action.getNextBatch(action));
+                    break;
+                case Action.ACCUSE:
+                    this.setAttemptedToAccuseJack(true);
+                    this.endGame(this.characters[Action.getParamA(action)].isJack() ? PLAYER_INSPECTOR : PLAYER_JACK);
+                    break;
+                case Action.PLAY:
+                    CharacterToken c = this.characters[Action.getCharacter(action).getNumVal()];
+                    this.setBatches(this.batchCharacters & ~(1 << c.getCharacterType().getNumVal()), this.nextBatchCharacters);
+
+                    if(this.canJackEscape(c)){
+                        this.endGame(PLAYER_JACK);
+                        break;
+                    }
+
+                    c.executeCharacterActions(action);
+                    this.endCharacterPick();
+                    //if inspector did not catch Jack in time, he wins
+                    if(this.turn > MAX_TURNS){
+                        this.endGame(PLAYER_JACK);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException(String.format("Unknown action kind %d", Action.getKind(action)));
+            }
+        } finally {
+            this.board.setJournal(null);
+        }
+
+        this.checkHash();
+    }
+
+    /**
+     * Takes back the last action played with apply, the whole game goes back to the state it had before that action.
+     * @throws IllegalStateException if there is no action to take back.
+     */
+    public void undo(){
+        if(this.undoStack.isEmpty()){
+            throw new IllegalStateException("No action to undo.");
+        }
 
-        if(chars == null){
-            chars = new HashSet<>();
+        //board records first, they were pushed after the game record of the same action
+        long entry = this.undoStack.pop();
+        while((entry & ((1 << Board.JOURNAL_TYPE_BITS) - 1)) != Board.JOURNAL_OWNER_ENTRY){
+            this.board.undoJournalEntry(entry);
+            entry = this.undoStack.pop();
         }
 
-        chars.add(c);
+        this.setTurn(get(entry, UNDO_TURN, 4));
+        this.setCurrentPlayer(get(entry, UNDO_PLAYER, 1) == 1);
+        this.setJackVisible(get(entry, UNDO_JACK_VISIBLE, 1) == 1);
+        this.setAttemptedToAccuseJack(get(entry, UNDO_ACCUSED, 1) == 1);
+        this.isOver = get(entry, UNDO_OVER, 1) == 1;
+        this.winner = get(entry, UNDO_WINNER, 1) == 1;
+        this.setBatches(get(entry, UNDO_BATCH, 8), get(entry, UNDO_NEXT_BATCH, 8));
+        this.revealedInnocents = get(entry, UNDO_REVEALED, 3);
+        this.playerRevealedInnocents[playerIndex(PLAYER_JACK)] = get(entry, UNDO_JACK_INNOCENTS, 8);
+        this.playerRevealedInnocents[playerIndex(PLAYER_INSPECTOR)] = get(entry, UNDO_INSPECTOR_INNOCENTS, 8);
+        int visible = get(entry, UNDO_VISIBLE, 8);
+        for(CharacterToken c : this.characters){
+            if((visible & 1 << c.getCharacterType().getNumVal()) != 0){
+                c.markVisible();
+            }
+            else {
+                c.markInvisible();
+            }
+        }
+        this.board.setNextTimedLamp(get(entry, UNDO_NEXT_TIMED_LAMP, 3));
+        JohnHWatson watson = (JohnHWatson)this.characters[CharacterType.WATSON.getNumVal()];
+        Direction d = Direction.fromNumVal(get(entry, UNDO_WATSON, 3));
+        if(watson.getLampDirection() != d){
+            watson.setLampDirection(d);
+        }
 
-        playerRevealedInnocents.put(currentPlayer, chars);
+        this.checkHash();
+    }
+
+    /**
+     * Checks whether there is an action played with apply that can be taken back.
+     * @return true if undo can be called.
+     */
+    public boolean canUndo(){
+        return !this.undoStack.isEmpty();
+    }
+
+    private static int get(long entry, int offset, int bits){
+        return (int)(entry >>> offset) & ((1 << bits) - 1);
+    }
+
+    /**
+     * Packs the game state that an action can change and that the board does not record.
+     * @return the undo record of the current game state.
+     */
+    private long getUndoEntry(){
+        int visible = 0;
+        for(CharacterToken c : this.characters){
+            if(c.isVisible()){
+                visible |= 1 << c.getCharacterType().getNumVal();
+            }
+        }
+
+        return Board.JOURNAL_OWNER_ENTRY | (long)this.turn << UNDO_TURN
+                | (this.currentPlayer ? 1L << UNDO_PLAYER : 0) | (this.isJackVisible ? 1L << UNDO_JACK_VISIBLE : 0)
+                | (this.hasAttemptedToAccuseJack ? 1L << UNDO_ACCUSED : 0) | (this.isOver ? 1L << UNDO_OVER : 0)
+                | (this.winner ? 1L << UNDO_WINNER : 0) | (long)this.batchCharacters << UNDO_BATCH
+                | (long)this.nextBatchCharacters << UNDO_NEXT_BATCH | (long)this.revealedInnocents << UNDO_REVEALED
+                | (long)this.playerRevealedInnocents[playerIndex(PLAYER_JACK)] << UNDO_JACK_INNOCENTS
+                | (long)this.playerRevealedInnocents[playerIndex(PLAYER_INSPECTOR)] << UNDO_INSPECTOR_INNOCENTS
+                | (long)visible << UNDO_VISIBLE | (long)this.board.getNextTimedLamp() << UNDO_NEXT_TIMED_LAMP
+                | (long)this.characters[CharacterType.WATSON.getNumVal()].getLampDirection().getNumVal() << UNDO_WATSON;
+    }
+
+    private void setTurn(int turn){
+        this.controlHash ^= Zobrist.turn(this.turn) ^ Zobrist.turn(turn);
+        this.turn = turn;
+    }
+
+    private void setCurrentPlayer(boolean player){
+        this.controlHash ^= Zobrist.player(this.currentPlayer == PLAYER_INSPECTOR) ^ Zobrist.player(player == PLAYER_INSPECTOR);
+        this.currentPlayer = player;
+    }
+
+    private void setJackVisible(boolean isJackVisible){
+        this.controlHash ^= Zobrist.jackVisible(this.isJackVisible) ^ Zobrist.jackVisible(isJackVisible);
+        this.isJackVisible = isJackVisible;
+    }
+
+    private void setAttemptedToAccuseJack(boolean hasAttemptedToAccuseJack){
+        this.controlHash ^= Zobrist.accused(this.hasAttemptedToAccuseJack) ^ Zobrist.accused(hasAttemptedToAccuseJack);
+        this.hasAttemptedToAccuseJack = hasAttemptedToAccuseJack;
+    }
+
+    private void setBatches(int batch, int nextBatch){
+        this.controlHash ^= Zobrist.batch(this.batchCharacters ^ batch) ^ Zobrist.nextBatch(this.nextBatchCharacters ^ nextBatch);
+        this.batchCharacters = batch;
+        this.nextBatchCharacters = nextBatch;
+    }
+
+    /**
+     * Returns the Zobrist hash of the current position: board, turn, current player and characters left to play.
+     * It is kept up to date by every change, two games in the same position have the same hash.
+     * @return the hash of the current position.
+     */
+    public long getHash(){
+        return this.board.getHash() ^ this.controlHash;
+    }
+
+    /**
+     * Calculates the hash of the current position from scratch.
+     * Must always be equal to getHash(), used to verify it.
+     * @return the hash of the current position.
+     */
+    public long computeHash(){
+        return this.board.computeHash() ^ Zobrist.control(this.turn, this.currentPlayer == PLAYER_INSPECTOR,
+                this.isJackVisible, this.hasAttemptedToAccuseJack, this.batchCharacters, this.nextBatchCharacters);
+    }
+
+    /**
+     * Verifies that the incrementally updated hash matches a full recompute.
+     * @throws IllegalStateException if the hashes do not match.
+     */
+    public void verifyHash(){
+        long expected = this.computeHash();
+        if(this.getHash() != expected){
+            throw new IllegalStateException(String.format("Hash is %016x but expected %016x", this.getHash(), expected));
+        }
+    }
+
+    /**
+     * Debug mode: when enabled, the hash is verified after every character pick, action played, action taken back and
+     * state restored. This is slow, use it only to find bugs.
+     * @param verifyHash true to verify the hash.
+     */
+    public void setHashVerification(boolean verifyHash){
+        this.verifyHash = verifyHash;
+    }
+
+    private void checkHash(){
+        if(this.verifyHash){
+            this.verifyHash();
+        }
     }
 
     /**
@@ -130,18 +679,18 @@ public class Game {
      * @param characterType the character to pick.
      * @return the character token for the given character.
      */
-    public static CharacterToken getCharacterToken(CharacterType characterType){
-        return characters.get(characterType);
+    public CharacterToken getCharacterToken(CharacterType characterType){
+        return this.characters[characterType.getNumVal()];
     }
 
     /**
      * Used by HOLMES to pick an innocent card from our queue and reveal it.
      * @return the revealed innocent character.
      */
-    public static CharacterToken revealInnocent(){
-        if(!innocents.isEmpty()){
-            CharacterToken c = innocents.poll();
-            Game.addCharacterToPlayerInnocents(c);
+    public CharacterToken revealInnocent(){
+        if(this.revealedInnocents < this.innocents.length){
+            CharacterToken c = this.innocents[this.revealedInnocents++];
+            this.addCharacterToPlayerInnocents(c);
             return c;
         }
         return null;
@@ -150,23 +699,23 @@ public class Game {
     /**
      * Prints game information at this turn.
      */
-    private static void printGameStatus(){
-        System.out.println(String.format("Turn: %d", turn));
-        System.out.println(String.format("Jack is visible: %b", isJackVisible));
+    private void printGameStatus(){
+        System.out.println(String.format("Turn: %d", this.turn));
+        System.out.println(String.format("Jack is visible: %b", this.isJackVisible));
 
-        for(CharacterToken c : characters.values()){
+        for(CharacterToken c : this.characters){
             System.out.println(String.format("%s isVisible: %b", c.getName(), c.isVisible()));
         }
 
         System.out.println();
     }
 
-    private static void printJack(){
-        System.out.println(String.format("JACK is: %s", jack.getName()));
+    private void printJack(){
+        System.out.println(String.format("JACK is: %s", this.jack.getName()));
     }
 
-    private static void printPlayerRevealedInnocents(){
-        if(getPlayerInnocents() == null){
+    private void printPlayerRevealedInnocents(){
+        if(getPlayerInnocents().isEmpty()){
             System.out.println("No innocents discovered so far");
             return;
         }
@@ -175,8 +724,8 @@ public class Game {
         }
     }
 
-    public static void printBoard(){
-        Board.printBoard();
+    public void printBoard(){
+        this.board.printBoard();
     }
 
     /**
@@ -184,16 +733,16 @@ public class Game {
      */
     private void endTurn(){
         //reset character ability uses and moves
-        for(CharacterToken c : characters.values()){
+        for(CharacterToken c : this.characters){
             c.resetCharacterTurn();
         }
         //order is important, first we must check visibility THEN we can turn off a lamp if necessary
         this.checkCharactersVisible();
         this.turnOffTimedLamp();
         //move to next player for this turn
-        currentPlayer = !currentPlayer;
-        hasAttemptedToAccuseJack = false;
-        turn++;
+        this.setCurrentPlayer(!this.currentPlayer);
+        this.setAttemptedToAccuseJack(false);
+        this.setTurn(this.turn + 1);
     }
 
     /**
@@ -202,22 +751,27 @@ public class Game {
      * so the only visible ones are the ones close to an ON lamp.
      */
     private void checkCharactersVisible(){
-        for(CharacterToken c : characters.values()){
-            c.checkIsVisible();
+        //visibility of each cell, WATSON's light included, is tracked incrementally by the board
+        for(CharacterToken c : this.characters){
+            if(this.board.getVisibility().isVisible(c.getCurrentPosition().getId())){
+                c.markVisible();
+            }
+            else {
+                c.markInvisible();
+            }
         }
 
-        ((JohnHWatson)characters.get(CharacterType.WATSON)).checkVisibleUnderLampRange();
-
         //update jack visibility status
-        isJackVisible = characters.get(jack.getCharacterType()).isVisible();
+        this.setJackVisible(this.characters[this.jack.getCharacterType().getNumVal()].isVisible());
     }
 
     /**
      * Turns off, if any, the timed lamp that has timer = this turn.
      */
     private void turnOffTimedLamp(){
-        Cell c = board.getNextLampToTurnOff();
-        if(c != null){
+        Cell c = this.board.getNextLampToTurnOff();
+        //the timer only turns lamps OFF, never back ON
+        if(c != null && c.isLampOn()){
             c.flipLamp();
         }
     }
@@ -228,39 +782,38 @@ public class Game {
      * @param currCharacter the current character.
      * @return true if the current character is JACK and can escape.
      */
-    public static boolean canJackEscape(final CharacterToken currCharacter){
-        if(!currCharacter.isJack() || isJackVisible){
+    public boolean canJackEscape(final CharacterToken currCharacter){
+        if(!currCharacter.isJack() || this.isJackVisible){
             return false;
         }
 
-        //check JACK's distance from all exits. He can use special abilities and holes to travel.
+        //check JACK's distance from the nearest open exit. He can use special abilities and holes to travel.
         //he must make 1 EXTRA move to leave the exit and win.
-        for(CellCoordinate exitCoordinate : Board.getExitCells()){
-            int distance = CellCoordinate.distance(jack.getCurrentPosition(), exitCoordinate, true, jack.getCharacterType() == CharacterType.STEALTHY);
-            if(!isJackVisible && distance + 1 <= jack.getMaxMovement()){
-                return true;
-            }
-        }
-
-        return false;
+        return this.board.getExitField().canEscape(this.jack.getCurrentPosition().getId(), this.jack.getMaxMovement(),
+                this.jack.getCharacterType() == CharacterType.STEALTHY);
     }
 
     /**
-     * Each turn shuffle the deck and draw CHARACTER_BATCH_SIZE characters. There will be two batches for a full turn.
+     * Each turn shuffle the deck and draw two batches of CHARACTER_BATCH_SIZE characters.
      */
     private void initCharacterChoices(){
-        turnCharacters = characterDeck.shuffle();
+        this.characterDeck.shuffle();
+
+        this.setBatches(this.characterDeck.draw(0, CHARACTER_BATCH_SIZE),
+                this.characterDeck.draw(CHARACTER_BATCH_SIZE, CHARACTER_BATCH_SIZE));
     }
 
     /**
      * Each turn we present two batches of CHARACTER_BATCH_SIZE characters as choices.
-     * @return CHARACTER_BATCH_SIZE characters batch from the shuffled deck.
+     * @return the characters still available in the batch being played, ordered by CharacterType.
      */
-    private Map<Integer, CharacterToken> drawBatchCharacterChoices(){
+    public Map<Integer, CharacterToken> getBatchCharacterChoices(){
         Map<Integer, CharacterToken> characterBatch = new TreeMap<>();
 
-        for(int i = 0; i < CHARACTER_BATCH_SIZE; i++){
-            characterBatch.put(i, turnCharacters.poll());
+        for(CharacterType t : CharacterType.values()){
+            if((this.batchCharacters & 1 << t.getNumVal()) != 0){
+                characterBatch.put(characterBatch.size(), this.characters[t.getNumVal()]);
+            }
         }
 
         return characterBatch;
@@ -269,84 +822,102 @@ public class Game {
     /**
      * 2 batches of CHARACTER_BATCH_SIZE characters each turn.
      * pattern is: ODD turns inspector starts 1 - 2 - 1 choices then jack. EVEN turns is the opposite.
-     * @param currCharacterChoices
+     * Plays the next pick of the current batch.
      */
-    private static void playCharacterBatch(final Map<Integer, CharacterToken> currCharacterChoices){
-        while(!currCharacterChoices.isEmpty()) {
+    private void playCharacterPick(){
+        //show the available characters in case INSPECTOR wants to accuse JACK
+        if(this.isInteractive){
+            System.out.println(ChoicePrompts.promptBatchCharacterChoice(this, this.getBatchCharacterChoices(), false));
+        }
 
-            //alternate between players after their choices are done
-            //of course this is tied to the CHARACTER_BATCH_SIZE, should that ever change, this must be adapted
-            if(currCharacterChoices.size() == 3 || currCharacterChoices.size() == 1){
-                currentPlayer = !currentPlayer;
-            }
+        //first, ask player if he wants to do anything BEFORE playing a character
+        //until he decides to play a character he can keep doing other actions
+        this.playPlayerAction();
 
-            //show the available characters in case INSPECTOR wants to accuse JACK
-            System.out.println(ChoicePrompts.promptBatchCharacterChoice(currCharacterChoices, false));
+        //when he decides to play a character, play it, unless JACK was accused
+        if(!this.isOver) {
+            this.playCharacter();
+        }
 
-            //first, ask player if he wants to do anything BEFORE playing a character
-            //until he decides to play a character he can keep doing other actions
-            playPlayerAction(currCharacterChoices);
+        if(!this.isOver) {
+            this.endCharacterPick();
+        }
 
-            //when he decides to play a character, play it
-            playCharacter(currCharacterChoices);
+        this.checkHash();
+    }
+
+    /**
+     * Passes the choice to the next player after a character was played.
+     * Players alternate after the 1st and 3rd choice of a batch and next batch players are inverted.
+     * When the batch is over the next one is played, when both are over the turn ends.
+     * Of course this is tied to the CHARACTER_BATCH_SIZE, should that ever change, this must be adapted.
+     */
+    private void endCharacterPick(){
+        int remaining = Integer.bitCount(this.batchCharacters);
+        if(remaining == 3 || remaining == 1 || remaining == 0){
+            this.setCurrentPlayer(!this.currentPlayer);
         }
 
-        //next batch players are inverted
-        currentPlayer = !currentPlayer;
+        if(remaining == 0){
+            this.setBatches(this.nextBatchCharacters, 0);
+
+            if(this.batchCharacters == 0){
+                this.endTurn();
+            }
+        }
     }
 
     /**
      * Prompts the player for a player action. He can keep doing actions until he decides to play a character,
      * at that point, switch control to character player and continue.
      */
-    private static void playPlayerAction(final Map<Integer, CharacterToken> currCharacterChoices){
-        int choice;
+    private void playPlayerAction(){
         PlayerActionType playerAction = null;
 
-        while(playerAction == null){
-            //only inspector can attempt to accuse JACK
-            int upperBound = PlayerActionType.values().length - 1;
-            if(currentPlayer == PLAYER_JACK){
-                upperBound--;
-            }
-
-            choice = Stdinputter.getIntInput(0, upperBound, ChoicePrompts.promptPlayerAction(), "Invalid choice.");
-
-            playerAction = PlayerActionType.fromNumVal(choice);
+        while(playerAction == null && !this.isOver){
+            playerAction = this.getPlayer().choosePlayerAction(this);
 
             switch (playerAction){
                 case VIEW_JACK:
                     //only JACK can view its card
-                    if(currentPlayer == PLAYER_JACK) {
-                        printJack();
-                    }
-                    else {
-                        System.out.println("Only JACK can view its card.");
+                    if(this.isInteractive){
+                        if(this.currentPlayer == PLAYER_JACK) {
+                            this.printJack();
+                        }
+                        else {
+                            System.out.println("Only JACK can view its card.");
+                        }
                     }
                     playerAction = null;
                     break;
                 case VIEW_INNOCENTS:
-                    printPlayerRevealedInnocents();
+                    if(this.isInteractive){
+                        this.printPlayerRevealedInnocents();
+                    }
                     playerAction = null;
                     break;
                 case VIEW_GAME_STATUS:
-                    printGameStatus();
+                    if(this.isInteractive){
+                        this.printGameStatus();
+                    }
                     playerAction = null;
                     break;
                 case VIEW_GAME_BOARD:
-                    printBoard();
+                    if(this.isInteractive){
+                        this.printBoard();
+                    }
                     playerAction = null;
                     break;
                 case ACCUSE_JACK:
                     //can only attempt once per turn to accuse jack
-                    if(!hasAttemptedToAccuseJack){
+                    if(!this.hasAttemptedToAccuseJack){
                         //after this, either a winner was found, or player canceled and we can continue the game
-                        playAccuseJack(currCharacterChoices);
+                        this.playAccuseJack();
                     }
-                    else {
+                    else if(this.isInteractive){
                         System.out.println("You can only attempt to accuse JACK once per turn.");
                     }
-                    hasAttemptedToAccuseJack = true;
+                    this.setAttemptedToAccuseJack(true);
                     playerAction = null;
                     break;
                 case PLAY_CHARACTER:
@@ -363,108 +934,168 @@ public class Game {
      * If target character is JACK, INSPECTOR wins, otherwise JACK wins.
      * If no valid choice can be made, player can continue playing other choices.
      * Only the inspector can attempt to accuse jack.
+     * Only the characters that can be reached from the chosen one are presented as possible characters to accuse.
      */
-    //TODO would be nice if the choices presented as possible characters to accuse are only all valid reachable characters from the chosen one
-    private static void playAccuseJack(final Map<Integer, CharacterToken> currCharacterChoices){
-        if(currentPlayer != PLAYER_INSPECTOR){
+    private void playAccuseJack(){
+        if(this.currentPlayer != PLAYER_INSPECTOR){
             throw new IllegalStateException("Only the INSPECTOR can attempt to accuse JACK.");
         }
 
-        int choice = promptBatchCharacter(currCharacterChoices);
-        CharacterToken currCharacter = currCharacterChoices.get(choice);
+        CharacterToken currCharacter = this.getBatchCharacter();
 
         //player must now choose another character to accuse. This character must be reachable using holes and special abilities
-        int distance = -1;
+        Set<CharacterType> targets = this.getAccusableCharacters(currCharacter);
+
+        if(targets.isEmpty()){
+            if(this.isInteractive){
+                System.out.println(String.format("%s cannot reach any character to accuse.", currCharacter.getName()));
+            }
+            return;
+        }
 
-        while(distance == -1){
+        if(this.isInteractive){
             System.out.println("You can accuse Jack only if you can reach him, choose Jack:");
-            CharacterToken characterToAccuse = CharacterToken.askCharacterToken(currCharacter.getCharacterType(), true);
+        }
+        CharacterToken characterToAccuse = this.askCharacterToken(targets, true);
+
+        if(characterToAccuse == null){
+            return;
+        }
 
-            if(characterToAccuse == null){
-                return;
+        if(characterToAccuse.isJack()){
+            if(this.isInteractive){
+                System.out.println("JACK IS CAUGHT - INSPECTOR WON");
+            }
+            this.endGame(PLAYER_INSPECTOR);
+        }
+        else {
+            if(this.isInteractive){
+                System.out.println(String.format("%s IS INNOCENT, JACK ESCAPES", characterToAccuse.getName()));
             }
+            this.endGame(PLAYER_JACK);
+        }
+    }
 
-            distance = CellCoordinate.distance(currCharacter.getCurrentPosition(), characterToAccuse.getCurrentPosition(), true, currCharacter.getCharacterType() == CharacterType.STEALTHY);
+    /**
+     * Returns all characters that the given character can reach within its movement allowance, using holes and
+     * special abilities. These are the characters that can be accused using the given character.
+     * @param c the character used to accuse.
+     * @return all characters that can be accused using the given character.
+     */
+    public Set<CharacterType> getAccusableCharacters(final CharacterToken c){
+        //distances between all characters are maintained by the board
+        return this.board.getThreatMatrix().getReachableCharacters(c.getCharacterType(), c.getMaxMovement());
+    }
 
-            if(distance > 0 && distance <= currCharacter.getMaxMovement()){
-                if(characterToAccuse.isJack()){
-                    System.out.println("JACK IS CAUGHT - INSPECTOR WON");
-                }
-                else {
-                    System.out.println(String.format("%s IS INNOCENT, JACK ESCAPES", characterToAccuse.getName()));
-                }
+    /**
+     * Used to prompt player to choose a character token among the given choices, without the excluded one.
+     * @param exclude the character token to exclude from available choices.
+     * @param allowCancel true if the player should be presented with the choice to cancel the action. In this case
+     *                    it returns null.
+     * @return the character token chosen by the player or null if player canceled the action.
+     */
+    public CharacterToken askCharacterToken(CharacterType exclude, boolean allowCancel){
+        return this.askCharacterToken(EnumSet.complementOf(EnumSet.of(exclude)), allowCancel);
+    }
 
-                System.exit(0);
-            }
+    /**
+     * Used to prompt player to choose a character token among the given choices.
+     * @param choices the characters that can be chosen.
+     * @param allowCancel true if the player should be presented with the choice to cancel the action. In this case
+     *                    it returns null.
+     * @return the character token chosen by the player or null if player canceled the action.
+     */
+    public CharacterToken askCharacterToken(final Set<CharacterType> choices, boolean allowCancel){
+        CharacterType choice = this.getPlayer().chooseCharacter(this, choices, allowCancel);
 
-            //reset our marker to keep prompting user
-            distance = -1;
+        if(choice == null){
+            if(!allowCancel){
+                throw new IllegalStateException("Character choice cannot be canceled.");
+            }
+            return null;
+        }
+        if(!choices.contains(choice)){
+            throw new IllegalStateException(String.format("Character %s cannot be chosen now.", choice));
         }
+
+        return this.getCharacterToken(choice);
     }
 
     /**
-     * Prompts the player to choose a character from the available batch to play.
-     * @param currCharacterChoices the available batch of characters to choose from.
-     * @return the chosen character to play.
+     * Asks the current player to choose a character from the available batch.
+     * @return the chosen character.
+     * @throws IllegalStateException if the chosen character is not in the batch.
      */
-    private static int promptBatchCharacter(final Map<Integer, CharacterToken> currCharacterChoices){
-        int choice = -1;
-        CharacterToken currCharacter = null;
+    private CharacterToken getBatchCharacter(){
+        CharacterType choice = this.getPlayer().chooseBatchCharacter(this);
 
-        while(currCharacter == null) {
-            choice = Stdinputter.getIntInput(0, 3, ChoicePrompts.promptBatchCharacterChoice(currCharacterChoices, true), "Invalid character.");
-            currCharacter = currCharacterChoices.get(choice);
-            if(currCharacter == null){
-                System.out.println("Invalid character.");
-            }
+        if((this.batchCharacters & 1 << choice.getNumVal()) == 0){
+            throw new IllegalStateException(String.format("Character %s is not in the batch.", choice));
         }
 
-        return choice;
+        return this.characters[choice.getNumVal()];
     }
 
     /**
      * Prompts the player for a character action. He must do the actions according to character specific logic.
      * If chosen character is JACK, it automatically attempts to escape.
      */
-    private static void playCharacter(final Map<Integer, CharacterToken> currCharacterChoices){
-        int choice = promptBatchCharacter(currCharacterChoices);
-        CharacterToken currCharacter = currCharacterChoices.get(choice);
+    private void playCharacter(){
+        CharacterToken currCharacter = this.getBatchCharacter();
 
         //this charatcer is no longer available this turn, remove it from the choices
-        currCharacterChoices.remove(choice);
+        this.setBatches(this.batchCharacters & ~(1 << currCharacter.getCharacterType().getNumVal()), this.nextBatchCharacters);
 
         //if jack can escape, game is finished, no need to ask the player if he wants to try and win
         //therefore there is no ESCAPE_JACK player action
-        if(Game.canJackEscape(currCharacter)){
-            System.out.println("JACK ESCAPED");
-            System.exit(0);
+        if(this.canJackEscape(currCharacter)){
+            if(this.isInteractive){
+                System.out.println("JACK ESCAPED");
+            }
+            this.endGame(PLAYER_JACK);
+            return;
         }
 
         //otherwise, play this character
         currCharacter.executeCharacterActions();
     }
 
-    public static void main(String args[]){
-        Game g = new Game();
-
-        while(turn <= MAX_TURNS){
-            printBoard();
-            printGameStatus();
-
-            g.initCharacterChoices();
+    /**
+     * Plays the game until JACK is accused, escapes or the last turn is played.
+     * @return the winner, PLAYER_JACK or PLAYER_INSPECTOR.
+     * @throws IllegalStateException if the game has no players.
+     */
+    public boolean play(){
+        if(this.inspectorPlayer == null){
+            throw new IllegalStateException("Game has no players.");
+        }
 
-            //first batch
-            Map<Integer, CharacterToken> currCharacterChoices = g.drawBatchCharacterChoices();
-            playCharacterBatch(currCharacterChoices);
+        while(!this.isOver && this.turn <= MAX_TURNS){
+            //new turn, draw the batches
+            if(this.batchCharacters == 0){
+                if(this.isInteractive){
+                    this.printBoard();
+                    this.printGameStatus();
+                }
 
-            //second batch
-            currCharacterChoices = g.drawBatchCharacterChoices();
-            playCharacterBatch(currCharacterChoices);
+                this.initCharacterChoices();
+            }
 
-            g.endTurn();
+            this.playCharacterPick();
         }
 
         //if inspector did not catch Jack in time, he wins
-        System.out.println("JACK WON");
+        if(!this.isOver){
+            if(this.isInteractive){
+                System.out.println("JACK WON");
+            }
+            this.endGame(PLAYER_JACK);
+        }
+
+        return this.winner;
+    }
+
+    public static void main(String args[]){
+        new Game().play();
     }
 }
@@ -0,0 +1,635 @@
+package com.blogspot.groglogs.mrjack;
+
+import com.blogspot.groglogs.mrjack.structures.board.Bitboard;
+import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.structures.board.BoardTopology;
+import com.blogspot.groglogs.mrjack.structures.board.DistanceAtlas;
+import com.blogspot.groglogs.mrjack.structures.board.LampRays;
+import com.blogspot.groglogs.mrjack.structures.board.Zobrist;
+import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
+import com.blogspot.groglogs.mrjack.structures.deck.CharacterDeck;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+
+/**
+ * Immutable, canonical copy of the complete state of a game between two character picks, packed in 4 longs.
+ * Two games in the same state always give equal GameStates, so they can be compared, hashed and used as keys.
+ * Encoding and decoding only touch a fixed number of fields, independently of how far the game went.
+ *
+ * Layout, characters are indexed by CharacterType.getNumVal():
+ * - positions: 8 bits per character, the id of the cell it stands on
+ * - board: lamps ON (8 bits), open holes (9 bits), open exits (4 bits), as in Board.getLampMask, getHoleMask and
+ *   getExitMask; turn after which each lamp shuts OFF + 1 (3 bits per lamp), position of the next lamp to turn off
+ *   in the timed lamps order (3 bits), WATSON's lamp direction (3 bits), characters visible at the end of the last
+ *   turn (8 bits)
+ * - control: turn (4 bits), current player, JACK visible, attempted accusation, game over, winner (1 bit each),
+ *   characters left in this batch (8 bits), characters of the next batch (8 bits), JACK (3 bits), innocents revealed
+ *   to JACK (8 bits), innocents revealed to the INSPECTOR (8 bits), innocents still hidden (3 bits)
+ * - innocents: the hidden innocents in the order HOLMES will reveal them (3 bits each), unused slots are 0
+ *
+ * Characters only play once per turn and their move and ability flags are reset at the end of every turn, so they are
+ * not part of the state between two picks.
+ *
+ * States are also snapshots of a game that can be played on without a Game: the with* methods return a new state with
+ * the given move, ability or whole action played, following the same rules as Game.apply. The board layout is shared
+ * through BoardTopology and the rest is copied by value, so each derived state is a single small allocation.
+ * States are immutable and can be read and derived from any thread without locking.
+ */
+public final class GameState {
+
+    private static final int CHARACTER_BITS = 3, CELL_BITS = 8, MASK_BITS = 8, TIMER_BITS = 3;
+
+    //board
+    private static final int LAMPS = 0, HOLES = 8, EXITS = 17, TIMERS = 21, NEXT_TIMED_LAMP = 45, WATSON = 48,
+            VISIBLE = 51;
+    //control
+    private static final int TURN = 0, PLAYER = 4, JACK_VISIBLE = 5, ACCUSED = 6, OVER = 7, WINNER = 8, BATCH = 9,
+            NEXT_BATCH = 17, JACK = 25, JACK_INNOCENTS = 28, INSPECTOR_INNOCENTS = 36, NUM_INNOCENTS = 44;
+
+    //movement allowance of each character, indexed by CharacterType
+    private static final int[] maxMovements = new int[CharacterDeck.NUM_CHARACTERS];
+    static {
+        CharacterDeck deck = new CharacterDeck();
+        for(int i = 0; i < CharacterDeck.NUM_CHARACTERS; i++){
+            CharacterToken c = deck.getCharacterTokenAtPosition(i);
+            maxMovements[c.getCharacterType().getNumVal()] = c.getMaxMovement();
+        }
+    }
+
+    private final long positions, board, control, innocents;
+
+    GameState(long positions, long board, long control, long innocents){
+        this.positions = positions;
+        this.board = board;
+        this.control = control;
+        this.innocents = innocents;
+    }
+
+    private static int get(long word, int offset, int bits){
+        return (int)(word >>> offset) & ((1 << bits) - 1);
+    }
+
+    private static long put(int value, int offset){
+        return (long)value << offset;
+    }
+
+    private static long put(boolean value, int offset){
+        return value ? 1L << offset : 0L;
+    }
+
+    private static long set(long word, int offset, int bits, int value){
+        long mask = ((1L << bits) - 1) << offset;
+        return word & ~mask | (long)value << offset & mask;
+    }
+
+    private static long set(long word, int offset, boolean value){
+        return set(word, offset, 1, value ? 1 : 0);
+    }
+
+    /**
+     * Packs the current state of the given game.
+     * @param game the game.
+     * @return the packed state of the game.
+     */
+    static GameState encode(final Game game){
+        Board b = game.getBoard();
+
+        long positions = 0;
+        int visible = 0;
+        Direction watsonDirection = null;
+        for(int i = 0; i < CharacterDeck.NUM_CHARACTERS; i++){
+            CharacterToken c = game.getCharacterToken(CharacterType.fromNumVal(i));
+            positions |= put(c.getCurrentPosition().getId(), i * CELL_BITS);
+            if(c.isVisible()){
+                visible |= 1 << i;
+            }
+            if(c.getCharacterType() == CharacterType.WATSON){
+                watsonDirection = c.getLampDirection();
+            }
+        }
+
+        long board = put(b.getLampMask(), LAMPS) | put(b.getHoleMask(), HOLES) | put(b.getExitMask(), EXITS)
+                | put(b.getNextTimedLamp(), NEXT_TIMED_LAMP) | put(watsonDirection.getNumVal(), WATSON)
+                | put(visible, VISIBLE);
+        for(int lamp = 0; lamp < BoardTopology.getNumLamps(); lamp++){
+            board |= put(b.getLampOffTurn(BoardTopology.getLampCell(lamp)) + 1, TIMERS + lamp * TIMER_BITS);
+        }
+
+        int numInnocents = game.getNumInnocents();
+        long control = put(game.getTurn(), TURN) | put(game.getCurrentPlayer(), PLAYER)
+                | put(game.isJackVisible(), JACK_VISIBLE) | put(game.hasAttemptedToAccuseJack(), ACCUSED)
+                | put(game.isOver(), OVER) | put(game.isOver() && game.getWinner(), WINNER)
+                | put(game.getBatchCharacters(), BATCH) | put(game.getNextBatchCharacters(), NEXT_BATCH)
+                | put(game.getJack().getCharacterType().getNumVal(), JACK)
+                | put(game.getRevealedInnocents(Game.PLAYER_JACK), JACK_INNOCENTS)
+                | put(game.getRevealedInnocents(Game.PLAYER_INSPECTOR), INSPECTOR_INNOCENTS)
+                | put(numInnocents, NUM_INNOCENTS);
+
+        long innocents = 0;
+        for(int i = 0; i < numInnocents; i++){
+            innocents |= put(game.getInnocent(i).getCharacterType().getNumVal(), i * CHARACTER_BITS);
+        }
+
+        return new GameState(positions, board, control, innocents);
+    }
+
+    /**
+     * Returns the cell where the given character stands.
+     * @param characterType the character.
+     * @return the id of the cell where the character stands.
+     */
+    public int getPosition(CharacterType characterType){
+        return get(this.positions, characterType.getNumVal() * CELL_BITS, CELL_BITS);
+    }
+
+    /**
+     * Returns the lamps ON, see Board.getLampMask.
+     * @return the lamps ON.
+     */
+    public int getLampMask(){
+        return get(this.board, LAMPS, BoardTopology.getNumLamps());
+    }
+
+    /**
+     * Returns the open holes, see Board.getHoleMask.
+     * @return the open holes.
+     */
+    public int getHoleMask(){
+        return get(this.board, HOLES, BoardTopology.getNumHoles());
+    }
+
+    /**
+     * Returns the open exits, see Board.getExitMask.
+     * @return the open exits.
+     */
+    public int getExitMask(){
+        return get(this.board, EXITS, BoardTopology.getNumExits());
+    }
+
+    /**
+     * Returns the turn after which the given lamp shuts OFF.
+     * @param lamp the bit tracking the lamp, see BoardTopology.getLampCell.
+     * @return the turn after which the lamp shuts OFF, -1 if the lamp is not on a timer.
+     */
+    public int getLampOffTurn(int lamp){
+        return get(this.board, TIMERS + lamp * TIMER_BITS, TIMER_BITS) - 1;
+    }
+
+    /**
+     * Returns the position in the timed lamps order of the next lamp to turn off, see Board.getNextTimedLamp.
+     * @return the position in the timed lamps order of the next lamp to turn off.
+     */
+    public int getNextTimedLamp(){
+        return get(this.board, NEXT_TIMED_LAMP, 3);
+    }
+
+    public Direction getWatsonDirection(){
+        return Direction.fromNumVal(get(this.board, WATSON, 3));
+    }
+
+    /**
+     * Returns the characters that were visible at the end of the last turn.
+     * @return the visible characters, bit i is set for CharacterType.fromNumVal(i).
+     */
+    public int getVisibleCharacters(){
+        return get(this.board, VISIBLE, MASK_BITS);
+    }
+
+    public int getTurn(){
+        return get(this.control, TURN, 4);
+    }
+
+    public boolean getCurrentPlayer(){
+        return get(this.control, PLAYER, 1) == 1;
+    }
+
+    public boolean isJackVisible(){
+        return get(this.control, JACK_VISIBLE, 1) == 1;
+    }
+
+    public boolean hasAttemptedToAccuseJack(){
+        return get(this.control, ACCUSED, 1) == 1;
+    }
+
+    public boolean isOver(){
+        return get(this.control, OVER, 1) == 1;
+    }
+
+    /**
+     * Returns the winner of a finished game.
+     * @return PLAYER_JACK or PLAYER_INSPECTOR.
+     * @throws IllegalStateException if the game is not finished.
+     */
+    public boolean getWinner(){
+        if(!this.isOver()){
+            throw new IllegalStateException("Game is not finished yet.");
+        }
+        return get(this.control, WINNER, 1) == 1;
+    }
+
+    /**
+     * Returns the characters still available in the batch being played, see Game.getBatchCharacters.
+     * @return the characters still available in the batch.
+     */
+    public int getBatchCharacters(){
+        return get(this.control, BATCH, MASK_BITS);
+    }
+
+    /**
+     * Returns the characters of the next batch, see Game.getNextBatchCharacters.
+     * @return the characters of the next batch.
+     */
+    public int getNextBatchCharacters(){
+        return get(this.control, NEXT_BATCH, MASK_BITS);
+    }
+
+    public CharacterType getJack(){
+        return CharacterType.fromNumVal(get(this.control, JACK, CHARACTER_BITS));
+    }
+
+    /**
+     * Returns the innocents revealed through HOLMES to the given player.
+     * @param player PLAYER_JACK or PLAYER_INSPECTOR.
+     * @return the revealed innocents, bit i is set for CharacterType.fromNumVal(i).
+     */
+    public int getRevealedInnocents(boolean player){
+        return get(this.control, player == Game.PLAYER_INSPECTOR ? INSPECTOR_INNOCENTS : JACK_INNOCENTS, MASK_BITS);
+    }
+
+    /**
+     * Returns the number of innocents HOLMES can still reveal.
+     * @return the number of innocents HOLMES can still reveal.
+     */
+    public int getNumInnocents(){
+        return get(this.control, NUM_INNOCENTS, 3);
+    }
+
+    /**
+     * Returns the innocent HOLMES will reveal after the given number of other reveals.
+     * @param i the number of reveals before this one, less than getNumInnocents().
+     * @return the innocent character.
+     */
+    public CharacterType getInnocent(int i){
+        return CharacterType.fromNumVal(get(this.innocents, i * CHARACTER_BITS, CHARACTER_BITS));
+    }
+
+    /**
+     * Returns this state with the given character moved to the given cell, no matter the distance.
+     * @param characterType the character to move.
+     * @param id the id of the destination cell.
+     * @return the new state.
+     */
+    public GameState withPosition(CharacterType characterType, int id){
+        return new GameState(set(this.positions, characterType.getNumVal() * CELL_BITS, CELL_BITS, id), this.board,
+                this.control, this.innocents);
+    }
+
+    /**
+     * Returns this state with the given characters swapping place, as SIR WILLIAM GULL does.
+     * @param a the first character.
+     * @param b the second character.
+     * @return the new state.
+     */
+    public GameState withCharactersSwapped(CharacterType a, CharacterType b){
+        int posA = this.getPosition(a);
+        return this.withPosition(a, this.getPosition(b)).withPosition(b, posA);
+    }
+
+    /**
+     * Returns this state with a police barrier moved from a blocked exit to an open one, as INSPECTEUR LESTRADE does.
+     * @param source the bit of the blocked exit to open, see BoardTopology.getExitCell.
+     * @param dest the bit of the open exit to block.
+     * @return the new state.
+     * @throws IllegalStateException if the barrier is not moved from a blocked exit to an open one.
+     */
+    public GameState withExitsSwapped(int source, int dest){
+        int exits = this.getExitMask();
+        if((exits & 1 << source) != 0 || (exits & 1 << dest) == 0){
+            throw new IllegalStateException("Barrier must be moved from a blocked exit to an open one");
+        }
+        return new GameState(this.positions, this.board ^ 1L << EXITS + source ^ 1L << EXITS + dest, this.control,
+                this.innocents);
+    }
+
+    /**
+     * Returns this state with a cover moved from a closed hole to an open one, as JEREMY BERT does.
+     * @param source the bit of the closed hole to open, see Board.getHoleCoordinate.
+     * @param dest the bit of the open hole to close.
+     * @return the new state.
+     * @throws IllegalStateException if the cover is not moved from a closed hole to an open one.
+     */
+    public GameState withHolesSwapped(int source, int dest){
+        int holes = this.getHoleMask();
+        if((holes & 1 << source) != 0 || (holes & 1 << dest) == 0){
+            throw new IllegalStateException("Cover must be moved from a closed hole to an open one");
+        }
+        return new GameState(this.positions, this.board ^ 1L << HOLES + source ^ 1L << HOLES + dest, this.control,
+                this.innocents);
+    }
+
+    /**
+     * Returns this state with a lamp turned OFF and another one turned ON, as JOHN SMITH does.
+     * The turn after which the lamp shuts OFF moves with it.
+     * @param source the bit of the lamp to turn OFF, see BoardTopology.getLampCell.
+     * @param dest the bit of the lamp to turn ON.
+     * @return the new state.
+     * @throws IllegalStateException if the first lamp is not ON or the second one is not OFF.
+     */
+    public GameState withLampsSwapped(int source, int dest){
+        int lamps = this.getLampMask();
+        if((lamps & 1 << source) == 0 || (lamps & 1 << dest) != 0){
+            throw new IllegalStateException("Lamp must be moved from an ON lamp to an OFF one");
+        }
+        long b = this.board ^ 1L << LAMPS + source ^ 1L << LAMPS + dest;
+        b = set(b, TIMERS + dest * TIMER_BITS, TIMER_BITS, this.getLampOffTurn(source) + 1);
+        b = set(b, TIMERS + source * TIMER_BITS, TIMER_BITS, 0);
+        return new GameState(this.positions, b, this.control, this.innocents);
+    }
+
+    /**
+     * Returns this state with WATSON's lamp pointing in the given direction.
+     * @param d the lamp direction.
+     * @return the new state.
+     */
+    public GameState withWatsonDirection(Direction d){
+        return new GameState(this.positions, set(this.board, WATSON, 3, d.getNumVal()), this.control, this.innocents);
+    }
+
+    /**
+     * Returns this state with the next innocent revealed to the current player, as SHERLOCK HOLMES does.
+     * When all innocents were revealed already, nothing changes.
+     * @return the new state.
+     */
+    public GameState withInnocentRevealed(){
+        int numInnocents = this.getNumInnocents();
+        if(numInnocents == 0){
+            return this;
+        }
+
+        int offset = this.getCurrentPlayer() == Game.PLAYER_INSPECTOR ? INSPECTOR_INNOCENTS : JACK_INNOCENTS;
+        long c = set(this.control, NUM_INNOCENTS, 3, numInnocents - 1);
+        c |= 1L << offset + this.getInnocent(0).getNumVal();
+        return new GameState(this.positions, this.board, c, this.innocents >>> CHARACTER_BITS);
+    }
+
+    /**
+     * Returns this state with the given character as JACK, as the INSPECTOR could imagine it: the given character and
+     * JACK swap their places in all hidden information, the innocents still to reveal and the innocents revealed to JACK.
+     * Everything the INSPECTOR can see is unchanged.
+     * @param jack the new JACK.
+     * @return the new state.
+     * @throws IllegalStateException if the given character was revealed innocent to the INSPECTOR.
+     */
+    public GameState withJack(CharacterType jack){
+        CharacterType old = this.getJack();
+        if(jack == old){
+            return this;
+        }
+        if((this.getRevealedInnocents(Game.PLAYER_INSPECTOR) & 1 << jack.getNumVal()) != 0){
+            throw new IllegalStateException(String.format("%s was revealed innocent.", jack));
+        }
+
+        long c = set(this.control, JACK, CHARACTER_BITS, jack.getNumVal());
+        int jackInnocents = this.getRevealedInnocents(Game.PLAYER_JACK);
+        if((jackInnocents & 1 << jack.getNumVal()) != 0){
+            c = set(c, JACK_INNOCENTS, MASK_BITS, jackInnocents & ~(1 << jack.getNumVal()) | 1 << old.getNumVal());
+        }
+
+        long innocents = this.innocents;
+        for(int i = 0; i < this.getNumInnocents(); i++){
+            if(this.getInnocent(i) == jack){
+                innocents = set(innocents, i * CHARACTER_BITS, CHARACTER_BITS, old.getNumVal());
+            }
+        }
+
+        return new GameState(this.positions, this.board, c, innocents);
+    }
+
+    /**
+     * Returns this state with the given action played, following the same rules as Game.apply.
+     * @param action the action to play, see Action.
+     * @return the new state.
+     * @throws IllegalStateException if the game is over.
+     */
+    public GameState withAction(long action){
+        if(this.isOver()){
+            throw new IllegalStateException("Game is already finished.");
+        }
+
+        switch(Action.getKind(action)){
+            case Action.DEAL:
+                return new GameState(this.positions, this.board,
+                        set(set(this.control, BATCH, MASK_BITS, Action.getBatch(action)), NEXT_BATCH, MASK_BITS,
+                                Action.getNextBatch(action)), this.innocents);
+            case Action.ACCUSE:
+                boolean caught = Action.getParamA(action) == this.getJack().getNumVal();
+                return this.withWinner(caught ? Game.PLAYER_INSPECTOR : Game.PLAYER_JACK, true);
+            case Action.PLAY:
+                break;
+            default:
+                throw new IllegalStateException(String.format("Unknown action kind %d", Action.getKind(action)));
+        }
+
+        CharacterType t = Action.getCharacter(action);
+        GameState s = new GameState(this.positions, this.board,
+                this.control & ~(1L << BATCH + t.getNumVal()), this.innocents);
+
+        if(s.canJackEscape(t)){
+            return s.withWinner(Game.PLAYER_JACK, false);
+        }
+
+        int order = Action.getOrder(action);
+        if(order == Action.ABILITY || order == Action.ABILITY_MOVE){
+            s = s.withAbility(action);
+        }
+        if(Action.hasMove(order)){
+            s = s.withPosition(t, Action.getDestination(action));
+        }
+        if(order == Action.MOVE_ABILITY){
+            s = s.withAbility(action);
+        }
+
+        s = s.withCharacterPickEnded();
+        //if inspector did not catch Jack in time, he wins
+        if(s.getTurn() > Game.MAX_TURNS){
+            s = s.withWinner(Game.PLAYER_JACK, false);
+        }
+        return s;
+    }
+
+    private GameState withWinner(boolean winner, boolean accused){
+        long c = set(set(this.control, OVER, true), WINNER, winner);
+        if(accused){
+            c = set(c, ACCUSED, true);
+        }
+        return new GameState(this.positions, this.board, c, this.innocents);
+    }
+
+    //same as Game.canJackEscape
+    private boolean canJackEscape(CharacterType t){
+        if(t != this.getJack() || this.isJackVisible()){
+            return false;
+        }
+
+        int position = this.getPosition(t);
+        int holeMask = this.getHoleMask();
+        int exits = this.getExitMask();
+        for(int exit = 0; exit < BoardTopology.getNumExits(); exit++){
+            if((exits & 1 << exit) != 0){
+                int distance = DistanceAtlas.distance(position, BoardTopology.getExitCell(exit), holeMask, true,
+                        t == CharacterType.STEALTHY);
+                //he must make 1 EXTRA move to leave the exit and win
+                if(distance != -1 && distance + 1 <= maxMovements[t.getNumVal()]){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private GameState withAbility(long action){
+        switch(Action.getCharacter(action)){
+            case LESTRADE:
+                return this.withExitsSwapped(Action.getParamA(action), Action.getParamB(action));
+            case BERT:
+                return this.withHolesSwapped(Action.getParamA(action), Action.getParamB(action));
+            case SMITH:
+                return this.withLampsSwapped(Action.getParamA(action), Action.getParamB(action));
+            case WATSON:
+                return this.withWatsonDirection(Direction.fromNumVal(Action.getParamA(action)));
+            case GULL:
+                return this.withCharactersSwapped(CharacterType.GULL, CharacterType.fromNumVal(Action.getParamA(action)));
+            case GOODLEY:
+                GameState s = this;
+                for(int i = 0; i < Action.getNumPulls(action); i++){
+                    s = s.withPosition(Action.getPullCharacter(action, i), Action.getPullDestination(action, i));
+                }
+                return s;
+            case HOLMES:
+                return this.withInnocentRevealed();
+            default:
+                throw new UnsupportedOperationException(String.format("Cannot use %s ability", Action.getCharacter(action)));
+        }
+    }
+
+    //same as Game.endCharacterPick
+    private GameState withCharacterPickEnded(){
+        long c = this.control;
+        int remaining = Integer.bitCount(this.getBatchCharacters());
+        if(remaining == 3 || remaining == 1 || remaining == 0){
+            c ^= 1L << PLAYER;
+        }
+
+        if(remaining == 0){
+            c = set(set(c, BATCH, MASK_BITS, this.getNextBatchCharacters()), NEXT_BATCH, MASK_BITS, 0);
+            if(this.getNextBatchCharacters() == 0){
+                return new GameState(this.positions, this.board, c, this.innocents).withTurnEnded();
+            }
+        }
+
+        return new GameState(this.positions, this.board, c, this.innocents);
+    }
+
+    //same as Game.endTurn
+    private GameState withTurnEnded(){
+        Bitboard occupied = new Bitboard();
+        for(int i = 0; i < CharacterDeck.NUM_CHARACTERS; i++){
+            occupied.set(get(this.positions, i * CELL_BITS, CELL_BITS), true);
+        }
+        Bitboard litLamps = new Bitboard();
+        int lamps = this.getLampMask();
+        for(int lamp = 0; lamp < BoardTopology.getNumLamps(); lamp++){
+            if((lamps & 1 << lamp) != 0){
+                litLamps.set(BoardTopology.getLampCell(lamp), true);
+            }
+        }
+
+        //order is important, first we must check visibility THEN we can turn off a lamp if necessary
+        Bitboard watsonLight = LampRays.getRayMask(this.getPosition(CharacterType.WATSON), this.getWatsonDirection());
+        int visible = 0;
+        for(int i = 0; i < CharacterDeck.NUM_CHARACTERS; i++){
+            int id = get(this.positions, i * CELL_BITS, CELL_BITS);
+            Bitboard neighbors = Board.getNeighborMask(id, true);
+            if(neighbors.intersects(occupied) || neighbors.intersects(litLamps) || watsonLight.get(id)){
+                visible |= 1 << i;
+            }
+        }
+        long b = set(this.board, VISIBLE, MASK_BITS, visible);
+
+        int nextTimedLamp = this.getNextTimedLamp();
+        if(nextTimedLamp < BoardTopology.getNumTimedLamps()){
+            nextTimedLamp++;
+            b = set(b, NEXT_TIMED_LAMP, 3, nextTimedLamp);
+            for(int lamp = 0; lamp < BoardTopology.getNumLamps(); lamp++){
+                if(this.getLampOffTurn(lamp) == nextTimedLamp){
+                    b &= ~(1L << LAMPS + lamp);
+                    break;
+                }
+            }
+        }
+
+        long c = this.control ^ 1L << PLAYER;
+        c = set(c, ACCUSED, false);
+        c = set(c, JACK_VISIBLE, (visible & 1 << this.getJack().getNumVal()) != 0);
+        c = set(c, TURN, 4, this.getTurn() + 1);
+        return new GameState(this.positions, b, c, this.innocents);
+    }
+
+    /**
+     * Returns the packed state, 4 longs: positions, board, control and innocents.
+     * @return the packed state.
+     */
+    public long[] toLongs(){
+        return new long[]{this.positions, this.board, this.control, this.innocents};
+    }
+
+    /**
+     * Creates a state from its packed form, as returned by toLongs.
+     * @param packed the packed state.
+     * @return the state.
+     */
+    public static GameState fromLongs(final long[] packed){
+        return new GameState(packed[0], packed[1], packed[2], packed[3]);
+    }
+
+    /**
+     * Returns the Zobrist hash of this state, equal to Game.getHash of a game in the same state.
+     * @return the Zobrist hash of this state.
+     */
+    public long getHash(){
+        long h = Zobrist.lamps(this.getLampMask()) ^ Zobrist.holes(this.getHoleMask()) ^ Zobrist.exits(this.getExitMask());
+        for(int lamp = 0; lamp < BoardTopology.getNumLamps(); lamp++){
+            h ^= Zobrist.timer(lamp, this.getLampOffTurn(lamp));
+        }
+        for(CharacterType t : CharacterType.values()){
+            h ^= Zobrist.position(t, this.getPosition(t));
+        }
+        h ^= Zobrist.watson(this.getWatsonDirection());
+
+        return h ^ Zobrist.control(this.getTurn(), this.getCurrentPlayer() == Game.PLAYER_INSPECTOR, this.isJackVisible(),
+                this.hasAttemptedToAccuseJack(), this.getBatchCharacters(), this.getNextBatchCharacters());
+    }
+
+    @Override
+    public int hashCode() {
+        long h = this.positions;
+        h = h * 31 + this.board;
+        h = h * 31 + this.control;
+        h = h * 31 + this.innocents;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof GameState)) return false;
+        GameState other = (GameState)o;
+        return this.positions == other.positions && this.board == other.board && this.control == other.control
+                && this.innocents == other.innocents;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("%016x:%016x:%016x:%016x", this.positions, this.board, this.control, this.innocents);
+    }
+}
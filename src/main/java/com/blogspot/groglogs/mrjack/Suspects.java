@@ -0,0 +1,73 @@
+package com.blogspot.groglogs.mrjack;
+
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+
+/**
+ * Tracks the characters the INSPECTOR cannot rule out from being JACK, using public information only:
+ * - the innocents HOLMES revealed to the INSPECTOR
+ * - at the end of each turn, the characters whose visibility differs from JACK's
+ * Visibility is only known at the end of a turn, so the game must be observed at least once per turn to not miss any.
+ */
+public final class Suspects {
+
+    public static final int ALL = (1 << CharacterType.values().length) - 1;
+
+    //one bit per CharacterType
+    private int suspects;
+    //the turn whose visibility was already used
+    private int lastTurn;
+
+    /**
+     * Starts tracking a new game, everybody is a suspect.
+     */
+    public Suspects(){
+        this(ALL, 1);
+    }
+
+    /**
+     * Starts tracking from the given suspects.
+     * @param suspects the characters that can still be JACK, bit i is set for CharacterType.fromNumVal(i).
+     * @param turn the turn whose visibility was already used to rule out characters.
+     */
+    public Suspects(int suspects, int turn){
+        this.reset(suspects, turn);
+    }
+
+    /**
+     * Starts again from the given suspects, eg at every playout of a search.
+     * @param suspects the characters that can still be JACK, bit i is set for CharacterType.fromNumVal(i).
+     * @param turn the turn whose visibility was already used to rule out characters.
+     */
+    public void reset(int suspects, int turn){
+        this.suspects = suspects;
+        this.lastTurn = turn;
+    }
+
+    /**
+     * Rules out the characters that cannot be JACK in the current state of the game.
+     * @param game the game.
+     * @return the characters that can still be JACK, bit i is set for CharacterType.fromNumVal(i).
+     */
+    public int update(final Game game){
+        //nothing is visible before the end of the first turn
+        if(game.getTurn() != this.lastTurn && game.getTurn() > 1){
+            this.lastTurn = game.getTurn();
+            for(CharacterType t : CharacterType.values()){
+                if(game.getCharacterToken(t).isVisible() != game.isJackVisible()){
+                    this.suspects &= ~(1 << t.getNumVal());
+                }
+            }
+        }
+
+        this.suspects &= ~game.getRevealedInnocents(Game.PLAYER_INSPECTOR);
+        return this.suspects;
+    }
+
+    public int get(){
+        return this.suspects;
+    }
+
+    public int getTurn(){
+        return this.lastTurn;
+    }
+}
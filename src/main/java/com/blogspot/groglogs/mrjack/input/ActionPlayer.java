@@ -0,0 +1,115 @@
+package com.blogspot.groglogs.mrjack.input;
+
+import com.blogspot.groglogs.mrjack.Action;
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.structures.board.Bitboard;
+import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
+import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterActionType;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+import com.blogspot.groglogs.mrjack.structures.enums.PlayerActionType;
+
+import java.util.Set;
+
+/**
+ * A programmatic player deciding a whole pick at once as an action, see Action and ActionGenerator.
+ * The action is chosen when the game asks for the player action, then each following choice is answered from it.
+ * Choices the action does not cover are random as in RandomPlayer.
+ */
+public abstract class ActionPlayer extends RandomPlayer {
+
+    //the action of the pick being played and the pulls of GOODLEY already done
+    private long action;
+    private int pulls;
+
+    /**
+     * Creates the player.
+     * @param seed the seed for the choices the actions do not cover.
+     */
+    protected ActionPlayer(long seed){
+        super(seed);
+    }
+
+    /**
+     * Chooses the action of the current pick, the batch was already dealt.
+     * @param game the game.
+     * @return a PLAY or ACCUSE action.
+     */
+    protected abstract long chooseAction(final Game game);
+
+    @Override
+    public PlayerActionType choosePlayerAction(final Game game){
+        this.action = this.chooseAction(game);
+        this.pulls = 0;
+
+        return Action.getKind(this.action) == Action.ACCUSE ? PlayerActionType.ACCUSE_JACK : PlayerActionType.PLAY_CHARACTER;
+    }
+
+    @Override
+    public CharacterType chooseBatchCharacter(final Game game){
+        return Action.getCharacter(this.action);
+    }
+
+    @Override
+    public CharacterType chooseCharacter(final Game game, final Set<CharacterType> choices, boolean allowCancel){
+        CharacterType choice = null;
+
+        if(Action.getKind(this.action) == Action.ACCUSE || Action.getCharacter(this.action) == CharacterType.GULL){
+            choice = CharacterType.fromNumVal(Action.getParamA(this.action));
+        }
+        else if(Action.getCharacter(this.action) == CharacterType.GOODLEY && this.pulls < Action.getNumPulls(this.action)){
+            choice = Action.getPullCharacter(this.action, this.pulls);
+        }
+
+        return choice != null && choices.contains(choice) ? choice : super.chooseCharacter(game, choices, allowCancel);
+    }
+
+    @Override
+    public CharacterActionType chooseCharacterAction(final CharacterToken c){
+        int order = Action.getOrder(this.action);
+        CharacterActionType first = order == Action.ABILITY || order == Action.ABILITY_MOVE ? CharacterActionType.USE_ABILITY
+                : CharacterActionType.MOVE;
+        CharacterActionType second = first == CharacterActionType.MOVE ? CharacterActionType.USE_ABILITY : CharacterActionType.MOVE;
+
+        if(c.getAvailableActions().contains(first)){
+            return first;
+        }
+        return c.getAvailableActions().contains(second) ? second : super.chooseCharacterAction(c);
+    }
+
+    @Override
+    public CellCoordinate chooseDestination(final CharacterToken c, final Bitboard destinations){
+        int destination = Action.getDestination(this.action);
+
+        return destinations.get(destination) ? CellCoordinate.of(destination) : super.chooseDestination(c, destinations);
+    }
+
+    @Override
+    public int chooseSwapSource(final CharacterToken c, int sources){
+        int source = Action.getParamA(this.action);
+
+        return (sources & 1 << source) != 0 ? source : super.chooseSwapSource(c, sources);
+    }
+
+    @Override
+    public int chooseSwapDest(final CharacterToken c, int dests){
+        int dest = Action.getParamB(this.action);
+
+        return (dests & 1 << dest) != 0 ? dest : super.chooseSwapDest(c, dests);
+    }
+
+    @Override
+    public CellCoordinate choosePullDestination(final CharacterToken goodley, final CharacterToken pulled, int movement){
+        if(this.pulls < Action.getNumPulls(this.action) && Action.getPullCharacter(this.action, this.pulls) == pulled.getCharacterType()){
+            return CellCoordinate.of(Action.getPullDestination(this.action, this.pulls++));
+        }
+
+        return super.choosePullDestination(goodley, pulled, movement);
+    }
+
+    @Override
+    public Direction chooseLampDirection(final CharacterToken watson){
+        return Direction.fromNumVal(Action.getParamA(this.action));
+    }
+}
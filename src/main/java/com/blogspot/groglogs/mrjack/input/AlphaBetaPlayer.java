@@ -0,0 +1,33 @@
+package com.blogspot.groglogs.mrjack.input;
+
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.search.AlphaBetaSearch;
+
+/**
+ * A programmatic JACK choosing each pick with an alpha-beta search within a fixed time, see AlphaBetaSearch.
+ * The search keeps its table and the suspects between picks, a player tracks a single game.
+ */
+public class AlphaBetaPlayer extends ActionPlayer {
+
+    private final AlphaBetaSearch search = new AlphaBetaSearch();
+    private final long millis;
+
+    /**
+     * Creates the player.
+     * @param seed the seed for the choices the actions do not cover.
+     * @param millis the time budget of each pick.
+     */
+    public AlphaBetaPlayer(long seed, long millis){
+        super(seed);
+        this.millis = millis;
+    }
+
+    @Override
+    protected long chooseAction(final Game game){
+        return this.search.search(game, this.millis);
+    }
+
+    public AlphaBetaSearch getSearch(){
+        return this.search;
+    }
+}
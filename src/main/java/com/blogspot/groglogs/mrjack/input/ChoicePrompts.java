@@ -7,7 +7,9 @@ import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
 import com.blogspot.groglogs.mrjack.structures.enums.Direction;
 import com.blogspot.groglogs.mrjack.structures.enums.PlayerActionType;
 
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Contains the logic necessary to issue player prompts.
@@ -17,12 +19,13 @@ public class ChoicePrompts {
     /**
      * Present possible actions to the player and accept valid inputs only.
      * Only the inspector can attempt to accuse JACK.
+     * @param game the current game.
      * @return the text to present to the player describing the currently available player actions to choose from.
      */
-    public static String promptPlayerAction(){
+    public static String promptPlayerAction(final Game game){
         StringBuffer sb = new StringBuffer();
 
-        if(Game.getCurrentPlayer() == Game.PLAYER_JACK){
+        if(game.getCurrentPlayer() == Game.PLAYER_JACK){
             sb.append("JACK ");
         } else {
             sb.append("INSPECTOR ");
@@ -32,7 +35,7 @@ public class ChoicePrompts {
 
         for(PlayerActionType action : PlayerActionType.values()){
             //only the inspector can attempt to accuse JACK
-            if(action == PlayerActionType.ACCUSE_JACK && Game.getCurrentPlayer() != Game.PLAYER_INSPECTOR){
+            if(action == PlayerActionType.ACCUSE_JACK && game.getCurrentPlayer() != Game.PLAYER_INSPECTOR){
                 continue;
             }
             sb.append(String.format("%d: %s\n", action.getNumVal(), action));
@@ -68,20 +71,32 @@ public class ChoicePrompts {
 
     /**
      * Present possible characters to choose from excluding the given character to the player.
+     * @param game the current game.
      * @param exclude the character to exclude from the available choices.
      * @param allowCancel true if the player should be presented with the choice to cancel the action.
      * @return the text to present to the player describing the currently available characters to choose from.
      */
-    public static String promptCharacterChoice(CharacterType exclude, boolean allowCancel){
+    public static String promptCharacterChoice(final Game game, CharacterType exclude, boolean allowCancel){
+        return promptCharacterChoice(game, EnumSet.complementOf(EnumSet.of(exclude)), allowCancel);
+    }
+
+    /**
+     * Present the given characters to choose from to the player.
+     * @param game the current game.
+     * @param choices the characters that can be chosen.
+     * @param allowCancel true if the player should be presented with the choice to cancel the action.
+     * @return the text to present to the player describing the currently available characters to choose from.
+     */
+    public static String promptCharacterChoice(final Game game, final Set<CharacterType> choices, boolean allowCancel){
         StringBuffer sb = new StringBuffer();
 
         sb.append("Choose a character:\n");
 
         for(CharacterType c : CharacterType.values()){
-            if(c != exclude){
+            if(choices.contains(c)){
                 sb.append(c.getNumVal());
                 sb.append(": ");
-                sb.append(Game.getCharacterToken(c).getName());
+                sb.append(game.getCharacterToken(c).getName());
                 sb.append("\n");
             }
         }
@@ -97,15 +112,16 @@ public class ChoicePrompts {
 
     /**
      * Given the current batch of character choices, present them to the player and accept valid inputs only.
+     * @param game the current game.
      * @param currCharacterChoices the currently available characters to choose from, each turn is two batches of four.
      * @param isPrompt true if we are asking for input, false if we are only displaying the choices.
      * @return the text to present to the player describing the currently available characters to choose from.
      */
-    public static String promptBatchCharacterChoice(final Map<Integer, CharacterToken> currCharacterChoices, boolean isPrompt){
+    public static String promptBatchCharacterChoice(final Game game, final Map<Integer, CharacterToken> currCharacterChoices, boolean isPrompt){
         StringBuffer sb = new StringBuffer();
 
         if(isPrompt) {
-            if (Game.getCurrentPlayer() == Game.PLAYER_JACK) {
+            if (game.getCurrentPlayer() == Game.PLAYER_JACK) {
                 sb.append("JACK ");
             } else {
                 sb.append("INSPECTOR ");
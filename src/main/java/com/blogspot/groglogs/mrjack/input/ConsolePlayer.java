@@ -0,0 +1,183 @@
+package com.blogspot.groglogs.mrjack.input;
+
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.structures.board.Bitboard;
+import com.blogspot.groglogs.mrjack.structures.board.BoardTopology;
+import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
+import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterActionType;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+import com.blogspot.groglogs.mrjack.structures.enums.PlayerActionType;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A player reading all choices from an input, prompting on System.out and asking again on invalid choices.
+ * The same console player can play both sides of a game.
+ */
+public class ConsolePlayer implements Player {
+
+    private final Stdinputter input;
+
+    public ConsolePlayer(final Stdinputter input){
+        this.input = input;
+    }
+
+    public Stdinputter getInput(){
+        return this.input;
+    }
+
+    @Override
+    public boolean isInteractive(){
+        return true;
+    }
+
+    @Override
+    public PlayerActionType choosePlayerAction(final Game game){
+        //only inspector can attempt to accuse JACK
+        int upperBound = PlayerActionType.values().length - 1;
+        if(game.getCurrentPlayer() == Game.PLAYER_JACK){
+            upperBound--;
+        }
+
+        int choice = this.input.getIntInput(0, upperBound, ChoicePrompts.promptPlayerAction(game), "Invalid choice.");
+
+        return PlayerActionType.fromNumVal(choice);
+    }
+
+    @Override
+    public CharacterType chooseBatchCharacter(final Game game){
+        Map<Integer, CharacterToken> currCharacterChoices = game.getBatchCharacterChoices();
+        CharacterToken currCharacter = null;
+
+        while(currCharacter == null) {
+            int choice = this.input.getIntInput(0, 3, ChoicePrompts.promptBatchCharacterChoice(game, currCharacterChoices, true), "Invalid character.");
+            currCharacter = currCharacterChoices.get(choice);
+            if(currCharacter == null){
+                System.out.println("Invalid character.");
+            }
+        }
+
+        return currCharacter.getCharacterType();
+    }
+
+    @Override
+    public CharacterType chooseCharacter(final Game game, final Set<CharacterType> choices, boolean allowCancel){
+        CharacterType character = null;
+
+        while(character == null) {
+            //lower bound is either 0 or -1 depending on whether player can cancel the action or not
+            int lowerBound = 0;
+            if(allowCancel){
+                lowerBound--;
+            }
+
+            int choice = this.input.getIntInput(lowerBound, CharacterType.values().length - 1, ChoicePrompts.promptCharacterChoice(game, choices, allowCancel), "Invalid character.");
+
+            if (choice == -1 && allowCancel) {
+                return null;
+            }
+
+            character = CharacterType.fromNumVal(choice);
+
+            if(!choices.contains(character)){
+                System.out.println("This character cannot be chosen now.");
+                character = null;
+            }
+        }
+
+        return character;
+    }
+
+    @Override
+    public CharacterActionType chooseCharacterAction(final CharacterToken c){
+        int choice = this.input.getIntInput(0, CharacterActionType.values().length - 1, ChoicePrompts.promptCharacterAction(c), "Invalid action.");
+
+        return CharacterActionType.fromNumVal(choice);
+    }
+
+    @Override
+    public CellCoordinate chooseDestination(final CharacterToken c, final Bitboard destinations){
+        System.out.println("Enter destination coordinates to move this character:");
+        CellCoordinate destCoordinate = CellCoordinate.askInputCoordinate(this.input);
+
+        while(!destinations.get(destCoordinate.getId())){
+            System.out.println("Invalid move, enter valid coordinates within the reach of this character's movement:");
+
+            destCoordinate = CellCoordinate.askInputCoordinate(this.input);
+        }
+
+        return destCoordinate;
+    }
+
+    //the bit tracking the exit, hole or lamp on the given cell, depending on the character
+    private static int getBit(final CharacterToken c, final CellCoordinate coordinate){
+        switch(c.getCharacterType()){
+            case LESTRADE:
+                return BoardTopology.getExitBit(coordinate.getId());
+            case BERT:
+                return BoardTopology.getHoleBit(coordinate.getId());
+            case SMITH:
+                return BoardTopology.getLampBit(coordinate.getId());
+            default:
+                throw new IllegalStateException(String.format("%s cannot swap exits, holes or lamps", c.getName()));
+        }
+    }
+
+    //asks coordinates until they point to one of the allowed choices
+    private int askBit(final CharacterToken c, int choices, String askMessage, String errorMessage){
+        System.out.println(askMessage);
+        int bit = getBit(c, CellCoordinate.askInputCoordinate(this.input));
+
+        while(bit == -1 || (choices & 1 << bit) == 0){
+            System.out.println(errorMessage);
+            bit = getBit(c, CellCoordinate.askInputCoordinate(this.input));
+        }
+
+        return bit;
+    }
+
+    @Override
+    public int chooseSwapSource(final CharacterToken c, int sources){
+        switch(c.getCharacterType()){
+            case LESTRADE:
+                //old barrier must be present where we want to remove it from
+                return this.askBit(c, sources, "Enter barrier coordinate of blocked exit to open:", "Barrier must be moved from a blocked exit:");
+            case BERT:
+                //old hole must be covered
+                return this.askBit(c, sources, "Enter hole coordinate to move open:", "Cover must be moved from a closed hole:");
+            default:
+                //old lamp must be ON
+                return this.askBit(c, sources, "Enter lamp coordinate to turn OFF:", "Lamp must be ON:");
+        }
+    }
+
+    @Override
+    public int chooseSwapDest(final CharacterToken c, int dests){
+        switch(c.getCharacterType()){
+            case LESTRADE:
+                //new barrier must not be present where we want to place it
+                return this.askBit(c, dests, "Enter barrier coordinate of open exit to close:", "Barrier must be moved to an open exit:");
+            case BERT:
+                //new hole must not be covered
+                return this.askBit(c, dests, "Enter hole coordinate to close:", "Cover must be placed on an open hole:");
+            default:
+                //new lamp must be OFF
+                return this.askBit(c, dests, "Enter lamp coordinate to turn ON:", "Lamp must be OFF:");
+        }
+    }
+
+    @Override
+    public CellCoordinate choosePullDestination(final CharacterToken goodley, final CharacterToken pulled, int movement){
+        return CellCoordinate.askInputCoordinate(this.input);
+    }
+
+    @Override
+    public Direction chooseLampDirection(final CharacterToken watson){
+        int choice = this.input.getIntInput(0, Direction.values().length - 1, ChoicePrompts.promptLampDirection(), "Invalid direction");
+
+        return Direction.fromNumVal(choice);
+    }
+}
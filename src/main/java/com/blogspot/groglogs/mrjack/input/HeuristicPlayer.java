@@ -0,0 +1,82 @@
+package com.blogspot.groglogs.mrjack.input;
+
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.Suspects;
+import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.PlayerActionType;
+
+import java.util.Set;
+
+/**
+ * A programmatic player following two simple rules, all other choices are random as in RandomPlayer:
+ * - JACK plays his character as soon as he can escape with it
+ * - the INSPECTOR accuses JACK as soon as a single suspect is left and a character in the batch can reach him
+ * Suspects are tracked from public information only, see Suspects.
+ * A player tracks a single game, use a new one for each game.
+ */
+public class HeuristicPlayer extends RandomPlayer {
+
+    private final Suspects suspects = new Suspects();
+    //the character to accuse and the one used to reach him, while an accusation is being made
+    private CharacterType suspect = null;
+    private CharacterType accuser = null;
+
+    /**
+     * Creates a heuristic player.
+     * @param seed the seed for all random choices of this player, the same seed always makes the same choices.
+     */
+    public HeuristicPlayer(long seed){
+        super(seed);
+    }
+
+    @Override
+    public PlayerActionType choosePlayerAction(final Game game){
+        this.suspect = null;
+        this.accuser = null;
+
+        int suspects = this.suspects.update(game);
+        if(game.getCurrentPlayer() != Game.PLAYER_INSPECTOR || game.hasAttemptedToAccuseJack() || Integer.bitCount(suspects) != 1){
+            return PlayerActionType.PLAY_CHARACTER;
+        }
+
+        CharacterType target = CharacterType.fromNumVal(Integer.numberOfTrailingZeros(suspects));
+        for(CharacterToken c : game.getBatchCharacterChoices().values()){
+            if(c.getCharacterType() != target && game.getAccusableCharacters(c).contains(target)){
+                this.suspect = target;
+                this.accuser = c.getCharacterType();
+                return PlayerActionType.ACCUSE_JACK;
+            }
+        }
+
+        return PlayerActionType.PLAY_CHARACTER;
+    }
+
+    @Override
+    public CharacterType chooseBatchCharacter(final Game game){
+        if(this.accuser != null){
+            return this.accuser;
+        }
+
+        //JACK escapes as soon as he can
+        CharacterToken jack = game.getJack();
+        if(game.getCurrentPlayer() == Game.PLAYER_JACK && (game.getBatchCharacters() & 1 << jack.getCharacterType().getNumVal()) != 0
+                && game.canJackEscape(jack)){
+            return jack.getCharacterType();
+        }
+
+        return super.chooseBatchCharacter(game);
+    }
+
+    @Override
+    public CharacterType chooseCharacter(final Game game, final Set<CharacterType> choices, boolean allowCancel){
+        if(this.suspect != null && allowCancel){
+            CharacterType target = this.suspect;
+            this.suspect = null;
+            this.accuser = null;
+            return choices.contains(target) ? target : null;
+        }
+
+        return super.chooseCharacter(game, choices, allowCancel);
+    }
+}
@@ -0,0 +1,46 @@
+package com.blogspot.groglogs.mrjack.input;
+
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.search.MctsSearch;
+
+/**
+ * A programmatic player choosing each pick with a Monte Carlo Tree Search within a fixed time, see MctsSearch.
+ * The search keeps its tree and the suspects between picks, a player tracks a single game.
+ */
+public class MctsPlayer extends ActionPlayer {
+
+    private final MctsSearch search;
+    private final long millis;
+
+    /**
+     * Creates the player.
+     * @param seed the seed of all random choices of the player.
+     * @param threads the number of threads searching.
+     * @param millis the time budget of each pick.
+     */
+    public MctsPlayer(long seed, int threads, long millis){
+        this(seed, threads, millis, false);
+    }
+
+    /**
+     * Creates the player.
+     * @param seed the seed of all random choices of the player.
+     * @param threads the number of threads searching.
+     * @param millis the time budget of each pick.
+     * @param determinized whether the INSPECTOR searches a tree per thread, each with a fixed JACK, see MctsSearch.
+     */
+    public MctsPlayer(long seed, int threads, long millis, boolean determinized){
+        super(seed);
+        this.search = new MctsSearch(threads, seed, determinized);
+        this.millis = millis;
+    }
+
+    @Override
+    protected long chooseAction(final Game game){
+        return this.search.search(game, this.millis);
+    }
+
+    public MctsSearch getSearch(){
+        return this.search;
+    }
+}
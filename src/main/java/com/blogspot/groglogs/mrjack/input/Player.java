@@ -0,0 +1,99 @@
+package com.blogspot.groglogs.mrjack.input;
+
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.structures.board.Bitboard;
+import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
+import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterActionType;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+import com.blogspot.groglogs.mrjack.structures.enums.PlayerActionType;
+
+import java.util.Set;
+
+/**
+ * Makes all decisions of a player, the game asks the player of the current pick at every choice point.
+ * Where the legal options are cheap to list they are given, players must choose among them.
+ * Console players read the choices from an input, programmatic players decide without any I/O.
+ */
+public interface Player {
+
+    /**
+     * Whether the game should show boards, prompts and messages on System.out for this player.
+     * Nothing is printed or even formatted for games without interactive players.
+     * @return true if the player follows the game on the console.
+     */
+    boolean isInteractive();
+
+    /**
+     * Chooses what to do before playing a character, the game keeps asking until PLAY_CHARACTER is chosen.
+     * Only the INSPECTOR can choose ACCUSE_JACK.
+     * @param game the game.
+     * @return the player action.
+     */
+    PlayerActionType choosePlayerAction(final Game game);
+
+    /**
+     * Chooses a character from the batch, to play it or to accuse with it.
+     * @param game the game, see Game.getBatchCharacters.
+     * @return the chosen character.
+     */
+    CharacterType chooseBatchCharacter(final Game game);
+
+    /**
+     * Chooses a character among the given ones: the one to accuse, GULL's target or the character GOODLEY pulls.
+     * @param game the game.
+     * @param choices the characters that can be chosen.
+     * @param allowCancel true if the player can cancel the choice.
+     * @return the chosen character, null if the player canceled.
+     */
+    CharacterType chooseCharacter(final Game game, final Set<CharacterType> choices, boolean allowCancel);
+
+    /**
+     * Chooses whether the character moves or uses its ability next, among its available actions.
+     * @param c the character being played.
+     * @return the character action.
+     */
+    CharacterActionType chooseCharacterAction(final CharacterToken c);
+
+    /**
+     * Chooses where the character moves.
+     * @param c the character being played.
+     * @param destinations all cells the character can move to, never empty.
+     * @return the chosen destination, one of the given ones.
+     */
+    CellCoordinate chooseDestination(final CharacterToken c, final Bitboard destinations);
+
+    /**
+     * Chooses the exit to open, the hole to open or the lamp to turn OFF for LESTRADE, BERT or SMITH.
+     * @param c the character being played.
+     * @param sources the allowed choices, bit i is set if the exit, hole or lamp tracked by bit i can be chosen.
+     * @return the chosen bit, see Action.withSwap.
+     */
+    int chooseSwapSource(final CharacterToken c, int sources);
+
+    /**
+     * Chooses the exit to block, the hole to close or the lamp to turn ON for LESTRADE, BERT or SMITH.
+     * @param c the character being played.
+     * @param dests the allowed choices, bit i is set if the exit, hole or lamp tracked by bit i can be chosen.
+     * @return the chosen bit, see Action.withSwap.
+     */
+    int chooseSwapDest(final CharacterToken c, int dests);
+
+    /**
+     * Chooses where GOODLEY pulls the given character. The destination must be closer to GOODLEY, reachable within
+     * the movement points left without using holes, otherwise the game asks for another pull.
+     * @param goodley GOODLEY.
+     * @param pulled the character to pull.
+     * @param movement the movement points left.
+     * @return the chosen destination.
+     */
+    CellCoordinate choosePullDestination(final CharacterToken goodley, final CharacterToken pulled, int movement);
+
+    /**
+     * Chooses where WATSON points his lamp.
+     * @param watson WATSON.
+     * @return the lamp direction.
+     */
+    Direction chooseLampDirection(final CharacterToken watson);
+}
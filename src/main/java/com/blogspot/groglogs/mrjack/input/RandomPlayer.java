@@ -0,0 +1,128 @@
+package com.blogspot.groglogs.mrjack.input;
+
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.structures.board.Bitboard;
+import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
+import com.blogspot.groglogs.mrjack.structures.board.DistanceAtlas;
+import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterActionType;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+import com.blogspot.groglogs.mrjack.structures.enums.PlayerActionType;
+
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * A programmatic player choosing uniformly at random among the legal options of each choice, without any I/O.
+ * It never accuses JACK, the game is decided by escapes and turns.
+ */
+public class RandomPlayer implements Player {
+
+    private static final Direction[] directions = Direction.values();
+
+    private final SplittableRandom gen;
+
+    /**
+     * Creates a random player.
+     * @param seed the seed for all choices of this player, the same seed always makes the same choices.
+     */
+    public RandomPlayer(long seed){
+        this.gen = new SplittableRandom(seed);
+    }
+
+    @Override
+    public boolean isInteractive(){
+        return false;
+    }
+
+    //a random set bit of the given mask, which must not be empty
+    private int randomBit(int mask){
+        int n = this.gen.nextInt(Integer.bitCount(mask));
+        for(int i = 0; i < n; i++){
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    //a random cell of the given set, -1 if empty
+    private int randomCell(final Bitboard cells){
+        int count = cells.cardinality();
+        if(count == 0){
+            return -1;
+        }
+
+        int id = cells.nextSetBit(0);
+        for(int n = this.gen.nextInt(count); n > 0; n--){
+            id = cells.nextSetBit(id + 1);
+        }
+        return id;
+    }
+
+    @Override
+    public PlayerActionType choosePlayerAction(final Game game){
+        return PlayerActionType.PLAY_CHARACTER;
+    }
+
+    @Override
+    public CharacterType chooseBatchCharacter(final Game game){
+        return CharacterType.fromNumVal(this.randomBit(game.getBatchCharacters()));
+    }
+
+    @Override
+    public CharacterType chooseCharacter(final Game game, final Set<CharacterType> choices, boolean allowCancel){
+        int mask = 0;
+        for(CharacterType t : choices){
+            mask |= 1 << t.getNumVal();
+        }
+        return mask == 0 ? null : CharacterType.fromNumVal(this.randomBit(mask));
+    }
+
+    @Override
+    public CharacterActionType chooseCharacterAction(final CharacterToken c){
+        int mask = 0;
+        for(CharacterActionType action : c.getAvailableActions()){
+            mask |= 1 << action.getNumVal();
+        }
+        return CharacterActionType.fromNumVal(this.randomBit(mask));
+    }
+
+    @Override
+    public CellCoordinate chooseDestination(final CharacterToken c, final Bitboard destinations){
+        return CellCoordinate.of(this.randomCell(destinations));
+    }
+
+    @Override
+    public int chooseSwapSource(final CharacterToken c, int sources){
+        return this.randomBit(sources);
+    }
+
+    @Override
+    public int chooseSwapDest(final CharacterToken c, int dests){
+        return this.randomBit(dests);
+    }
+
+    @Override
+    public CellCoordinate choosePullDestination(final CharacterToken goodley, final CharacterToken pulled, int movement){
+        int holeMask = goodley.getGame().getBoard().getHoleMask();
+        int target = goodley.getCurrentPosition().getId();
+        int distance = DistanceAtlas.distance(pulled.getCurrentPosition().getId(), target, holeMask, false, false);
+
+        //only the cells closer to GOODLEY, if there are none the game asks for another pull
+        Bitboard destinations = pulled.getMoveDestinationsNoHoles(movement);
+        for(int id = destinations.nextSetBit(0); id >= 0; id = destinations.nextSetBit(id + 1)){
+            int closer = DistanceAtlas.distance(id, target, holeMask, false, false);
+            if(distance < 0 || closer < 0 || closer >= distance){
+                destinations.set(id, false);
+            }
+        }
+
+        int id = this.randomCell(destinations);
+        return id == -1 ? pulled.getCurrentPosition() : CellCoordinate.of(id);
+    }
+
+    @Override
+    public Direction chooseLampDirection(final CharacterToken watson){
+        return directions[this.gen.nextInt(directions.length)];
+    }
+}
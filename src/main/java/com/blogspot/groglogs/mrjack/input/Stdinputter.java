@@ -7,17 +7,33 @@ import java.util.Scanner;
 
 /**
  * Handles user input from System.IN.
+ * Each game has its own inputter, subclasses can provide input from elsewhere eg a simulated player.
  */
 public class Stdinputter {
 
-    private static Scanner s = new Scanner(System.in);
+    private Scanner s;
+
+    /**
+     * Reads input from System.IN.
+     */
+    public Stdinputter(){
+        this.s = new Scanner(System.in);
+    }
+
+    /**
+     * Reads input from the given string.
+     * @param string the string to use as input stream for this scanner.
+     */
+    public Stdinputter(String string){
+        this.setStringAsInputStream(string);
+    }
 
     /**
      * Used in testing, there is no actual need to offer this high level wrapping otherwise.
      * @param string the string to use as input stream for this scanner.
      */
-    public static void setStringAsInputStream(String string){
-        s = new Scanner(new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8)));
+    public void setStringAsInputStream(String string){
+        this.s = new Scanner(new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8)));
     }
 
     /**
@@ -30,7 +46,7 @@ public class Stdinputter {
      * @param errorMessage the message to display when user inputs an invalid value
      * @return the integer representing the user input
      */
-    public static int getIntInput(int lowerBound, int upperBound, String askMessage, String errorMessage){
+    public int getIntInput(int lowerBound, int upperBound, String askMessage, String errorMessage){
         //no matter what is the lower bound, this won't be an available choice for sure
         int choice = lowerBound - 1;
 
@@ -41,7 +57,7 @@ public class Stdinputter {
             System.out.println(askMessage);
 
             try {
-                choice = s.nextInt();
+                choice = this.s.nextInt();
 
                 if (choice < lowerBound || choice > upperBound) {
                     throw new IllegalArgumentException();
@@ -52,7 +68,7 @@ public class Stdinputter {
                 choice = lowerBound - 1;
             }
             //always consume the newline character no matter if input was good or bad
-            s.nextLine();
+            this.s.nextLine();
         }
 
         return choice;
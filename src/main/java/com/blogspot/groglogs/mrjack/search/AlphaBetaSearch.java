@@ -0,0 +1,532 @@
+package com.blogspot.groglogs.mrjack.search;
+
+import com.blogspot.groglogs.mrjack.Action;
+import com.blogspot.groglogs.mrjack.ActionGenerator;
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.Suspects;
+import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
+import com.blogspot.groglogs.mrjack.structures.common.LongStack;
+import com.blogspot.groglogs.mrjack.structures.deck.CharacterDeck;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+
+import java.util.Arrays;
+
+/**
+ * Alpha-beta search over the actions of a game for JACK, see ActionGenerator.
+ * Values are for JACK: he maximizes, the INSPECTOR minimizes.
+ * - iterative deepening, one pick per ply, until the time is up or the end of the game is reached
+ * - the batches of a new turn are a chance node: the average of a few deals drawn from the position, deals do not
+ *   count in the depth and the same position always gets the same deals
+ * - positions are stored in a TranspositionTable, with the suspects mixed in the hash
+ * - actions are ordered: best action of the table, killers, escape threats, then the history heuristic
+ * - a hard time limit is checked at every node, the iteration in progress is dropped when it is hit
+ * - the last pick of the game is not played: JACK wins whatever it is, only the accusations are valued
+ *
+ * JACK knows everything, the INSPECTOR is modeled from the public information only, see Suspects:
+ * - he plays knowing the positions, but accuses only characters he cannot rule out
+ * - an accusation is worth what he expects: a win with one chance out of the number of suspects, as he cannot tell them
+ *   apart, the true outcome is only used when a single suspect is left
+ * The suspects are tracked from the positions the search is called on, so it should be called at least once per turn.
+ *
+ * A search uses a single thread and keeps its table between calls, a search tracks a single game.
+ */
+public final class AlphaBetaSearch {
+
+    //a win is worth more than any evaluation, sooner wins more than later ones
+    public static final int WIN = 1000000;
+    private static final int INFINITY = WIN + 1;
+    //longest line searched, deals included
+    private static final int MAX_PLY = 64;
+    //deals searched at each new turn
+    private static final int DEALS = 3;
+    private static final int BATCH_SIZE = 4;
+
+    //evaluation: the more suspects, the further the game went and the closer an unseen JACK is to an exit the better
+    private static final int SUSPECT_VALUE = 100, TURN_VALUE = 10, EXIT_VALUE = 20, EXIT_RANGE = 10;
+
+    //ordering, from the first tried: best action of the table, killers, accusations and escape threats, history
+    private static final int TABLE_SCORE = 1 << 30, KILLER_SCORE = 1 << 29, THREAT_SCORE = 1 << 28, HISTORY_MAX = 1 << 16;
+
+    private final TranspositionTable table;
+    private final TranspositionTable.Entry entry = new TranspositionTable.Entry();
+    private final ActionGenerator generator = new ActionGenerator();
+    private final Suspects suspects = new Suspects();
+    //actions and their ordering scores, one buffer per ply
+    private final LongStack[] actions = new LongStack[MAX_PLY];
+    private final int[][] scores = new int[MAX_PLY][];
+    //two per ply, the most recent first
+    private final long[][] killers = new long[MAX_PLY][2];
+    //by player, then by character and destination
+    private final int[][] history = new int[2][CharacterDeck.NUM_CHARACTERS << 8];
+
+    private Game game;
+    private long deadline;
+    private boolean stopped;
+
+    //statistics of the last search
+    private long nodes, elapsedNanos;
+    private int depth, value;
+
+    /**
+     * Creates a search with a table of 2^18 entries.
+     */
+    public AlphaBetaSearch(){
+        this(1 << 18);
+    }
+
+    /**
+     * Creates a search.
+     * @param capacity the minimum number of entries of the transposition table.
+     */
+    public AlphaBetaSearch(int capacity){
+        this.table = new TranspositionTable(capacity, TranspositionTable.ReplacementPolicy.DEPTH_PREFERRED);
+        for(int i = 0; i < MAX_PLY; i++){
+            this.actions[i] = new LongStack();
+            this.scores[i] = new int[64];
+        }
+    }
+
+    /**
+     * Searches the current position of the game and returns the best action for JACK.
+     * The game is not changed, the search plays on its own copy.
+     * @param game the game, JACK must be playing and the batch must have been dealt already.
+     * @param millis the time budget of the search, the search returns as soon as it is spent.
+     * @return the best action of the deepest search completed, the first action in search order if none completed,
+     * a PLAY action.
+     * @throws IllegalStateException if the game is over, the batch was not dealt or the INSPECTOR is playing.
+     */
+    public long search(final Game game, long millis){
+        if(game.isOver() || game.getBatchCharacters() == 0){
+            throw new IllegalStateException("Nothing to search, the game is over or the batch was not dealt.");
+        }
+        if(game.getCurrentPlayer() != Game.PLAYER_JACK){
+            throw new IllegalStateException("Only JACK can be searched.");
+        }
+
+        long start = System.nanoTime();
+        this.deadline = start + millis * 1000000;
+        this.stopped = false;
+        this.nodes = 0;
+        this.depth = 0;
+        this.value = 0;
+
+        this.suspects.update(game);
+        this.game = new Game(game.getState());
+        this.table.newSearch();
+        for(long[] k : this.killers){
+            Arrays.fill(k, 0);
+        }
+        this.ageHistory(Game.PLAYER_JACK);
+        this.ageHistory(Game.PLAYER_INSPECTOR);
+
+        //JACK escapes whatever the action is
+        if(this.canEscape()){
+            this.value = WIN;
+            this.game = null;
+            return Action.play(game.getJack().getCharacterType(), Action.NONE, 0);
+        }
+
+        //at most the picks left in the game, deals do not count
+        int maxDepth = Math.min(MAX_PLY / 2, Integer.bitCount(game.getBatchCharacters())
+                + Integer.bitCount(game.getNextBatchCharacters()) + (Game.MAX_TURNS - game.getTurn()) * CharacterDeck.NUM_CHARACTERS);
+        long best = -1;
+        for(int d = 1; d <= maxDepth && !this.stopped; d++){
+            long action = this.searchRoot(d);
+            if(action != -1){
+                best = action;
+            }
+        }
+
+        this.elapsedNanos = System.nanoTime() - start;
+        this.game = null;
+
+        return best != -1 ? best : this.actions[0].get(0);
+    }
+
+    /**
+     * Searches the root to the given depth.
+     * @param depth the depth in picks.
+     * @return the best action, -1 if the time ran out before the search completed.
+     */
+    private long searchRoot(int depth){
+        int count = this.order(0, this.table.probe(this.key(), this.entry) ? this.entry.getAction() : -1);
+        long best = -1;
+        int alpha = -INFINITY;
+
+        for(int i = 0; i < count; i++){
+            long action = this.next(0, i, count);
+            int value = this.searchChild(action, depth, 0, alpha, INFINITY);
+            if(this.stopped){
+                break;
+            }
+            if(value > alpha){
+                alpha = value;
+                best = action;
+            }
+        }
+
+        if(!this.stopped){
+            this.table.store(this.key(), depth, TranspositionTable.EXACT, toTable(alpha, 0), best);
+            this.depth = depth;
+            this.value = alpha;
+            return best;
+        }
+        return -1;
+    }
+
+    private int alphaBeta(int depth, int ply, int alpha, int beta){
+        this.nodes++;
+        if(this.game.isOver()){
+            return this.game.getWinner() == Game.PLAYER_JACK ? WIN - ply : ply - WIN;
+        }
+        if(System.nanoTime() > this.deadline){
+            this.stopped = true;
+            return 0;
+        }
+        if(this.game.getBatchCharacters() == 0){
+            return this.chance(depth, ply);
+        }
+
+        //exact values first, they are cheaper than the evaluation
+        boolean isJack = this.game.getCurrentPlayer() == Game.PLAYER_JACK;
+        if(isJack && this.canEscape()){
+            return WIN - ply;
+        }
+        if(this.isLastPick()){
+            return this.lastPickValue(isJack, ply);
+        }
+        if(depth == 0 || ply >= MAX_PLY - 1){
+            return this.evaluate();
+        }
+
+        //nobody won yet, so the game ends with the next pick at the soonest: JACK can pick twice in a row and escape,
+        //the INSPECTOR can accuse with this pick and be right or wrong
+        alpha = Math.max(alpha, ply + 1 - WIN);
+        beta = Math.min(beta, WIN - ply - 1);
+        if(alpha >= beta){
+            return isJack ? beta : alpha;
+        }
+
+        long key = this.key();
+        long tableAction = -1;
+        if(this.table.probe(key, this.entry)){
+            tableAction = this.entry.getAction();
+            if(this.entry.getDepth() >= depth){
+                int stored = fromTable(this.entry.getValue(), ply);
+                int bound = this.entry.getBound();
+                if(bound == TranspositionTable.EXACT || bound == TranspositionTable.LOWER && stored >= beta
+                        || bound == TranspositionTable.UPPER && stored <= alpha){
+                    return stored;
+                }
+            }
+        }
+
+        int alphaStart = alpha, betaStart = beta;
+        int best = isJack ? -INFINITY : INFINITY;
+        long bestAction = -1;
+        int count = this.order(ply, tableAction);
+
+        for(int i = 0; i < count; i++){
+            long action = this.next(ply, i, count);
+            int value = this.searchChild(action, depth, ply, alpha, beta);
+            if(this.stopped){
+                return 0;
+            }
+
+            if(isJack ? value > best : value < best){
+                best = value;
+                bestAction = action;
+            }
+            if(isJack){
+                alpha = Math.max(alpha, value);
+            }
+            else {
+                beta = Math.min(beta, value);
+            }
+            if(alpha >= beta){
+                this.onCutoff(action, depth, ply, isJack);
+                break;
+            }
+        }
+
+        int bound = best <= alphaStart ? TranspositionTable.UPPER : best >= betaStart ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        this.table.store(key, depth, bound, toTable(best, ply), bestAction);
+        return best;
+    }
+
+    //the value of the given action, played and taken back unless it is an accusation
+    private int searchChild(long action, int depth, int ply, int alpha, int beta){
+        if(Action.getKind(action) == Action.ACCUSE){
+            return this.accusationValue(action, ply + 1);
+        }
+
+        int suspects = this.suspects.get(), turn = this.suspects.getTurn();
+        this.game.apply(action);
+        this.suspects.update(this.game);
+        int value = this.alphaBeta(depth - 1, ply + 1, alpha, beta);
+        this.game.undo();
+        this.suspects.reset(suspects, turn);
+        return value;
+    }
+
+    //the average over a few deals of the new turn
+    private int chance(int depth, int ply){
+        long hash = this.game.getHash();
+        long sum = 0;
+
+        for(int i = 0; i < DEALS; i++){
+            int batch = deal(hash, i);
+            this.game.apply(Action.deal(batch, ~batch & Suspects.ALL));
+            int value = this.alphaBeta(depth, ply + 1, -INFINITY, INFINITY);
+            this.game.undo();
+            if(this.stopped){
+                return 0;
+            }
+            sum += value;
+        }
+
+        return (int)(sum / DEALS);
+    }
+
+    //what the INSPECTOR expects from accusing, he can only tell JACK apart when a single suspect is left
+    private int accusationValue(long action, int ply){
+        int suspects = this.suspects.get();
+        int k = Integer.bitCount(suspects);
+
+        if(k == 1){
+            return Action.getParamA(action) == this.game.getJack().getCharacterType().getNumVal() ? ply - WIN : WIN - ply;
+        }
+        return (int)((long)WIN * (k - 2) / k);
+    }
+
+    private boolean isLastPick(){
+        return this.game.getTurn() == Game.MAX_TURNS && this.game.getNextBatchCharacters() == 0
+                && Integer.bitCount(this.game.getBatchCharacters()) == 1;
+    }
+
+    //JACK wins whatever the last pick of the game is, unless the INSPECTOR accuses, nothing needs to be played
+    private int lastPickValue(boolean isJack, int ply){
+        int value = WIN - ply - 1;
+        if(isJack || this.game.hasAttemptedToAccuseJack()){
+            return value;
+        }
+
+        LongStack actions = this.actions[ply];
+        actions.clear();
+        this.generator.generateAccusations(this.game, actions);
+        for(int i = 0; i < actions.size(); i++){
+            if((this.suspects.get() & 1 << Action.getParamA(actions.get(i))) != 0){
+                value = Math.min(value, this.accusationValue(actions.get(i), ply + 1));
+            }
+        }
+        return value;
+    }
+
+    private boolean canEscape(){
+        CharacterToken jack = this.game.getJack();
+        return (this.game.getBatchCharacters() & 1 << jack.getCharacterType().getNumVal()) != 0
+                && this.game.canJackEscape(jack);
+    }
+
+    private int evaluate(){
+        CharacterToken jack = this.game.getJack();
+        int value = SUSPECT_VALUE * (Integer.bitCount(this.suspects.get()) - 1) + TURN_VALUE * this.game.getTurn();
+
+        if(!this.game.isJackVisible()){
+            int distance = this.exitDistance(jack.getCharacterType(), jack.getCurrentPosition().getId());
+            if(distance >= 0){
+                value += EXIT_VALUE * Math.max(0, EXIT_RANGE - distance);
+            }
+        }
+        return value;
+    }
+
+    private int exitDistance(CharacterType characterType, int id){
+        return this.game.getBoard().getExitField().getExitDistance(id, characterType == CharacterType.STEALTHY);
+    }
+
+    /**
+     * Lists and scores the actions of the current position in the buffers of the given ply.
+     * Accusations of characters the INSPECTOR already ruled out are dropped.
+     * @param ply the ply.
+     * @param tableAction the best action stored for the position, -1 if none.
+     * @return the number of actions.
+     */
+    private int order(int ply, long tableAction){
+        LongStack actions = this.actions[ply];
+        actions.clear();
+        this.generator.generate(this.game, actions);
+
+        int count = actions.size();
+        if(this.scores[ply].length < count){
+            this.scores[ply] = new int[Integer.highestOneBit(count) << 1];
+        }
+        int[] scores = this.scores[ply];
+
+        boolean isJack = this.game.getCurrentPlayer() == Game.PLAYER_JACK;
+        CharacterType jack = this.game.getJack().getCharacterType();
+        int[] history = this.history[isJack ? 0 : 1];
+
+        for(int i = 0; i < count; i++){
+            long action = actions.get(i);
+            int score;
+
+            if(action == tableAction){
+                score = TABLE_SCORE;
+            }
+            else if(action == this.killers[ply][0] || action == this.killers[ply][1]){
+                score = KILLER_SCORE;
+            }
+            else if(Action.getKind(action) == Action.ACCUSE){
+                //cheap to value and often decisive, unless the INSPECTOR knows the character is innocent
+                score = (this.suspects.get() & 1 << Action.getParamA(action)) != 0 ? THREAT_SCORE : Integer.MIN_VALUE;
+            }
+            else {
+                score = history[historyIndex(action)];
+                //escape threats: JACK moving towards an exit, the INSPECTOR moving barriers
+                if(isJack && Action.getCharacter(action) == jack && Action.getOrder(action) != Action.ABILITY
+                        && Action.getOrder(action) != Action.NONE){
+                    int distance = this.exitDistance(jack, Action.getDestination(action));
+                    score += distance >= 0 ? THREAT_SCORE - distance * HISTORY_MAX : 0;
+                }
+                else if(!isJack && !this.game.isJackVisible() && Action.getCharacter(action) == CharacterType.LESTRADE){
+                    score += THREAT_SCORE;
+                }
+            }
+            scores[i] = score;
+        }
+
+        //dropped accusations are moved to the end and cut
+        for(int i = 0; i < count; ){
+            if(scores[i] == Integer.MIN_VALUE){
+                count--;
+                swap(actions, scores, i, count);
+            }
+            else {
+                i++;
+            }
+        }
+        return count;
+    }
+
+    //the best scored action left, moved to the given index
+    private long next(int ply, int i, int count){
+        LongStack actions = this.actions[ply];
+        int[] scores = this.scores[ply];
+
+        int best = i;
+        for(int j = i + 1; j < count; j++){
+            if(scores[j] > scores[best]){
+                best = j;
+            }
+        }
+        swap(actions, scores, i, best);
+        return actions.get(i);
+    }
+
+    private static void swap(final LongStack actions, final int[] scores, int i, int j){
+        if(i == j){
+            return;
+        }
+        long action = actions.get(i);
+        actions.set(i, actions.get(j));
+        actions.set(j, action);
+        int score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+
+    private void onCutoff(long action, int depth, int ply, boolean isJack){
+        if(Action.getKind(action) == Action.ACCUSE){
+            return;
+        }
+
+        if(this.killers[ply][0] != action){
+            this.killers[ply][1] = this.killers[ply][0];
+            this.killers[ply][0] = action;
+        }
+
+        int player = isJack ? 0 : 1;
+        int[] history = this.history[player];
+        history[historyIndex(action)] += depth * depth;
+        if(history[historyIndex(action)] >= HISTORY_MAX){
+            this.ageHistory(isJack ? Game.PLAYER_JACK : Game.PLAYER_INSPECTOR);
+        }
+    }
+
+    private void ageHistory(boolean player){
+        int[] history = this.history[player == Game.PLAYER_JACK ? 0 : 1];
+        for(int i = 0; i < history.length; i++){
+            history[i] >>= 1;
+        }
+    }
+
+    private static int historyIndex(long action){
+        return Action.getCharacter(action).getNumVal() << 8 | Action.getDestination(action);
+    }
+
+    //the hash of the position with the suspects, the INSPECTOR plays differently with different suspects
+    private long key(){
+        return this.game.getHash() ^ mix(this.suspects.get() + 1);
+    }
+
+    //wins are stored as distance from the position, not from the root
+    private static int toTable(int value, int ply){
+        return value > WIN - MAX_PLY ? value + ply : value < MAX_PLY - WIN ? value - ply : value;
+    }
+
+    private static int fromTable(int value, int ply){
+        return value > WIN - MAX_PLY ? value - ply : value < MAX_PLY - WIN ? value + ply : value;
+    }
+
+    //the i-th deal drawn from the position
+    private static int deal(long hash, int i){
+        long z = hash + (i + 1) * 0x9E3779B97F4A7C15L;
+        int batch = 0;
+        while(Integer.bitCount(batch) < BATCH_SIZE){
+            z = mix(z);
+            batch |= 1 << (int)((z >>> 1) % CharacterDeck.NUM_CHARACTERS);
+        }
+        return batch;
+    }
+
+    //splitmix64 finalizer
+    private static long mix(long z){
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        return z ^ z >>> 31;
+    }
+
+    /**
+     * Forgets the table and the suspects, to search a new game.
+     */
+    public void clear(){
+        this.table.clear();
+        this.suspects.reset(Suspects.ALL, 1);
+    }
+
+    /**
+     * Returns the depth in picks of the deepest search completed by the last search.
+     * @return the depth, 0 if not even the first one completed.
+     */
+    public int getDepth(){
+        return this.depth;
+    }
+
+    /**
+     * Returns the value for JACK of the deepest search completed by the last search.
+     * @return the value, WIN minus the picks to the end for a sure win.
+     */
+    public int getValue(){
+        return this.value;
+    }
+
+    public long getNodes(){
+        return this.nodes;
+    }
+
+    public double getNodesPerSecond(){
+        return this.elapsedNanos == 0 ? 0 : this.nodes * 1e9 / this.elapsedNanos;
+    }
+}
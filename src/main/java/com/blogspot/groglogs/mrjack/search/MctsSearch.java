@@ -0,0 +1,578 @@
+package com.blogspot.groglogs.mrjack.search;
+
+import com.blogspot.groglogs.mrjack.Action;
+import com.blogspot.groglogs.mrjack.ActionGenerator;
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.GameState;
+import com.blogspot.groglogs.mrjack.Suspects;
+import com.blogspot.groglogs.mrjack.structures.common.LongStack;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Monte Carlo Tree Search over the actions of a game, see ActionGenerator.
+ * All threads grow a single shared tree:
+ * - selection follows UCT, the value of a node is the win rate of the player choosing it
+ * - a leaf is expanded after a few playouts, its actions are listed at once and its children are created the first
+ *   time they are chosen
+ * - a position with an immediate win, JACK escaping or the INSPECTOR accusing the last suspect, has only that action,
+ *   when the tree is about a single JACK or at the root, whose suspects are public
+ * - the batches of a new turn are a chance node, the deal is drawn at random and each deal has its own child
+ * - playouts are fast random games, see ActionGenerator.randomAction, where JACK escapes and the INSPECTOR accuses
+ *   as soon as they can
+ * - threads going through a node add a virtual loss to it, so that the other threads spread over other nodes
+ * Node statistics are atomic counters, children are created with a compare and set and expansion locks the single
+ * node being expanded, nothing else is shared.
+ *
+ * When the INSPECTOR searches, he does not know who JACK is, the suspects are tracked from the positions the search
+ * is called on, see Suspects, so it should be called at least once per turn. Two modes sample JACK among them:
+ * - shared tree (default): every iteration swaps in a JACK drawn among the suspects, see Game.setJack, so the single
+ *   tree averages over every JACK he cannot rule out
+ * - determinized: each thread grows its own tree with a JACK of its own, the suspects are spread evenly over the
+ *   threads, and the visits of the root actions are summed over all trees to choose the action
+ * JACK's searches always use the shared tree, he knows who he is.
+ *
+ * The shared tree is kept between searches: when the new position was already reached in the tree, its subtree is
+ * reused. Determinized trees are dropped after each search.
+ */
+public final class MctsSearch {
+
+    //UCT exploration constant, values are win rates in [0, 1]
+    private static final double EXPLORATION = 0.7;
+    private static final int VIRTUAL_LOSS = 3;
+    //playouts from a leaf before it is expanded
+    private static final int EXPAND_VISITS = 2;
+    //how many picks and deals deep the new position is looked for in the previous tree
+    private static final int REUSE_DEPTH = 6;
+    //one child per first batch, the second batch is the rest of the deck
+    private static final int DEALS = 1 << CharacterType.values().length;
+    private static final int BATCH_SIZE = 4;
+    //no action packs to -1, LESTRADE playing with no move nor ability packs to 0
+    private static final long NO_ACTION = -1;
+
+    private final int threads;
+    private final boolean determinized;
+    private final SplittableRandom gen;
+    private final Suspects suspects = new Suspects();
+    private Node root = null;
+
+    //statistics of the last search
+    private long iterations, nodes, elapsedNanos;
+    private int rootVisits;
+
+    /**
+     * A position of the tree, reached by the action of its parent.
+     */
+    static final class Node {
+        private static final AtomicIntegerFieldUpdater<Node> VISITS = AtomicIntegerFieldUpdater.newUpdater(Node.class, "visits");
+        private static final AtomicIntegerFieldUpdater<Node> WINS = AtomicIntegerFieldUpdater.newUpdater(Node.class, "wins");
+        private static final long[] NO_ACTIONS = new long[0];
+
+        final long action;
+        //visits, virtual ones included, and wins of the INSPECTOR
+        volatile int visits = 0, wins = 0;
+        //hash of the position, 0 until a thread reaches it
+        volatile long hash = 0;
+        //the player choosing among the children, meaningless for chance nodes
+        volatile boolean player;
+        volatile boolean chance;
+        //created the first time they are chosen, chance nodes are indexed by the first batch of the deal
+        volatile AtomicReferenceArray<Node> children = null;
+        //the actions of the children, null until expanded, set last so that a node with actions is fully expanded
+        volatile long[] actions = null;
+
+        Node(long action){
+            this.action = action;
+        }
+
+        private void addVisits(int visits, int wins){
+            VISITS.addAndGet(this, visits);
+            if(wins != 0){
+                WINS.addAndGet(this, wins);
+            }
+        }
+
+        //the child playing the given action, created if missing
+        private Node getChild(int i, long action, final long[] nodes){
+            Node child = this.children.get(i);
+            if(child == null){
+                child = new Node(action);
+                if(this.children.compareAndSet(i, null, child)){
+                    nodes[0]++;
+                }
+                else {
+                    child = this.children.get(i);
+                }
+            }
+            return child;
+        }
+    }
+
+    /**
+     * Creates a search growing a single shared tree.
+     * @param threads the number of threads searching, the calling thread included.
+     * @param seed the seed of all random choices of the search.
+     */
+    public MctsSearch(int threads, long seed){
+        this(threads, seed, false);
+    }
+
+    /**
+     * Creates a search.
+     * @param threads the number of threads searching, the calling thread included.
+     * @param seed the seed of all random choices of the search.
+     * @param determinized whether the INSPECTOR grows a tree per thread, each with a fixed JACK, see MctsSearch.
+     */
+    public MctsSearch(int threads, long seed, boolean determinized){
+        if(threads < 1){
+            throw new IllegalStateException("At least one thread is needed.");
+        }
+
+        this.threads = threads;
+        this.determinized = determinized;
+        this.gen = new SplittableRandom(seed);
+    }
+
+    /**
+     * Searches the current position of the game and returns the best action for the current player.
+     * The game is not changed.
+     * @param game the game, the batch must have been dealt already.
+     * @param millis the time budget of the search.
+     * @return the action visited most often, a PLAY or ACCUSE action.
+     * @throws IllegalStateException if the game is over or the batch was not dealt.
+     */
+    public long search(final Game game, long millis){
+        if(game.isOver() || game.getBatchCharacters() == 0){
+            throw new IllegalStateException("Nothing to search, the game is over or the batch was not dealt.");
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + millis * 1000000;
+
+        GameState state = game.getState();
+        //JACK knows who he is, the suspects of his playouts start from the current turn
+        boolean inspector = state.getCurrentPlayer() == Game.PLAYER_INSPECTOR;
+        int candidates = inspector ? this.suspects.update(game) : 0;
+        int turn = inspector ? this.suspects.getTurn() : 0;
+
+        //a tree per thread, each JACK goes to as many threads as the others, give or take one
+        boolean determinized = this.determinized && Integer.bitCount(candidates) > 1;
+        int offset = determinized ? this.gen.nextInt(Integer.bitCount(candidates)) : 0;
+        this.root = determinized ? null : this.findRoot(game.getHash());
+
+        Worker[] workers = new Worker[this.threads];
+        Node[] roots = new Node[this.threads];
+        for(int i = 0; i < this.threads; i++){
+            int jack = -1;
+            roots[i] = this.root;
+            if(determinized){
+                jack = nthBit(candidates, (offset + i) % Integer.bitCount(candidates));
+                roots[i] = this.findRoot(game.getHash());
+            }
+            workers[i] = new Worker(roots[i], state, candidates, turn, jack, this.gen.split(), deadline);
+        }
+        Thread[] helpers = new Thread[this.threads - 1];
+        for(int i = 0; i < helpers.length; i++){
+            helpers[i] = new Thread(workers[i + 1], "mcts-" + i);
+            helpers[i].start();
+        }
+        workers[0].run();
+        for(Thread t : helpers){
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Search was interrupted.", e);
+            }
+        }
+
+        this.iterations = 0;
+        this.nodes = 0;
+        for(Worker w : workers){
+            if(w.error.get() != null){
+                throw new IllegalStateException("Search failed.", w.error.get());
+            }
+            this.iterations += w.iterations;
+            this.nodes += w.nodes[0];
+        }
+        this.elapsedNanos = System.nanoTime() - start;
+
+        this.rootVisits = 0;
+        for(int i = 0; i < roots.length && (i == 0 || roots[i] != roots[0]); i++){
+            this.rootVisits += roots[i].visits;
+        }
+
+        return this.getBestAction(roots);
+    }
+
+    //the bit set after skipping the given number of bits of the mask
+    private static int nthBit(int mask, int n){
+        for(; n > 0; n--){
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    /**
+     * Returns the root action with the most visits summed over all the trees, the roots are the same position and the
+     * same suspects, so they list the same actions in the same order.
+     * @param roots the root of each thread, threads sharing a tree share the root.
+     * @return the most visited action.
+     */
+    private long getBestAction(final Node[] roots){
+        long[] actions = roots[0].actions;
+        long best = 0;
+        long bestVisits = -1;
+
+        for(int c = 0; c < actions.length; c++){
+            long visits = 0;
+            for(int i = 0; i < roots.length && (i == 0 || roots[i] != roots[0]); i++){
+                if(roots[i].actions.length != actions.length){
+                    throw new IllegalStateException("Trees of the same position have different actions.");
+                }
+                Node child = roots[i].children.get(c);
+                visits += child == null ? 0 : child.visits;
+            }
+
+            if(visits > bestVisits){
+                bestVisits = visits;
+                best = actions[c];
+            }
+        }
+        return best;
+    }
+
+    //the node of the previous tree in the given position, a new root if there is none
+    private Node findRoot(long hash){
+        if(this.root != null){
+            ArrayDeque<Node> level = new ArrayDeque<>();
+            level.add(this.root);
+            for(int depth = 0; depth <= REUSE_DEPTH && !level.isEmpty(); depth++){
+                for(int i = level.size(); i > 0; i--){
+                    Node n = level.poll();
+                    if(n.hash == hash && !n.chance && n.actions != null){
+                        return n;
+                    }
+                    AtomicReferenceArray<Node> children = n.children;
+                    if(n.actions != null){
+                        for(int c = 0; c < children.length(); c++){
+                            Node child = children.get(c);
+                            if(child != null && child.visits > 0){
+                                level.add(child);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        Node root = new Node(0);
+        root.hash = hash;
+        return root;
+    }
+
+    /**
+     * Forgets the tree and the suspects, to search a new game.
+     */
+    public void clear(){
+        this.root = null;
+        this.suspects.reset(Suspects.ALL, 1);
+    }
+
+    public long getIterations(){
+        return this.iterations;
+    }
+
+    /**
+     * Returns the number of nodes added to the tree by the last search.
+     * @return the number of new nodes.
+     */
+    public long getNodes(){
+        return this.nodes;
+    }
+
+    /**
+     * Returns the playouts per second of the last search.
+     * @return the throughput of the last search.
+     */
+    public double getIterationsPerSecond(){
+        return this.elapsedNanos == 0 ? 0 : this.iterations * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * Returns the nodes added to the tree per second by the last search.
+     * @return the growth rate of the tree during the last search.
+     */
+    public double getNodesPerSecond(){
+        return this.elapsedNanos == 0 ? 0 : this.nodes * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * Returns the visits of the root after the last search, visits of a reused subtree included, summed over all trees
+     * for a determinized search.
+     * @return the visits of the root.
+     */
+    public int getRootVisits(){
+        return this.rootVisits;
+    }
+
+    //one search thread, with its own copy of the game
+    private final class Worker implements Runnable {
+
+        private final Node root;
+        private final GameState state;
+        private final int candidates, turn;
+        //the JACK of this thread, -1 to draw one among the candidates at every iteration
+        private final int jack;
+        //whether the JACK of the game is the one the tree is about, so that immediate wins can be pruned
+        private final boolean jackKnown;
+        private final SplittableRandom gen;
+        private final long deadline;
+        private final ActionGenerator generator = new ActionGenerator();
+        private final LongStack actions = new LongStack();
+        private final Suspects suspects = new Suspects();
+        private Node[] path = new Node[64];
+        private long iterations = 0;
+        //in an array so that nodes can count the children they create for this worker
+        private final long[] nodes = new long[1];
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        Worker(final Node root, final GameState state, int candidates, int turn, int jack, final SplittableRandom gen,
+               long deadline){
+            this.root = root;
+            this.state = state;
+            this.candidates = candidates;
+            this.turn = turn;
+            this.jack = jack;
+            this.jackKnown = candidates == 0 || jack != -1 || Integer.bitCount(candidates) == 1;
+            this.gen = gen;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run(){
+            try {
+                Game game = new Game(this.state);
+                if(this.jack != -1){
+                    game.setJack(CharacterType.fromNumVal(this.jack));
+                }
+                do {
+                    //a new JACK for every iteration, the game is back at the root
+                    if(this.candidates != 0 && this.jack == -1){
+                        game.setJack(CharacterType.fromNumVal(this.randomBit(this.candidates)));
+                    }
+                    this.iterate(game);
+                    this.iterations++;
+                } while(System.nanoTime() < this.deadline);
+            } catch (Throwable t) {
+                this.error.set(t);
+            }
+        }
+
+        private int randomBit(int mask){
+            return nthBit(mask, this.gen.nextInt(Integer.bitCount(mask)));
+        }
+
+        //a random deal of the next turn, packed as the first batch
+        private int randomDeal(){
+            int batch = 0;
+            for(int drawn = 0; drawn < BATCH_SIZE; drawn++){
+                batch |= 1 << this.randomBit(~batch & Suspects.ALL);
+            }
+            return batch;
+        }
+
+        private void push(int depth, final Node node){
+            if(depth == this.path.length){
+                Node[] path = new Node[depth * 2];
+                System.arraycopy(this.path, 0, path, 0, depth);
+                this.path = path;
+            }
+            this.path[depth] = node;
+        }
+
+        //selection, expansion, playout and backpropagation, then the game is taken back to the root
+        private void iterate(final Game game){
+            int depth = 0, applied = 0;
+            Node node = this.root;
+            this.suspects.reset(this.candidates == 0 ? Suspects.ALL : this.candidates, this.turn);
+            node.addVisits(VIRTUAL_LOSS, 0);
+            this.push(depth++, node);
+
+            while(!game.isOver()){
+                long[] actions = node.actions;
+                if(actions == null){
+                    //leaves are expanded once they were played out a few times, the root right away
+                    if(depth > 1 && node.visits - VIRTUAL_LOSS < EXPAND_VISITS){
+                        break;
+                    }
+                    actions = this.expand(node, game);
+                }
+
+                Node child = node.chance ? this.getDeal(node) : this.select(node, actions);
+
+                //a virtual loss for the player choosing the child
+                child.addVisits(VIRTUAL_LOSS, !node.chance && node.player == Game.PLAYER_JACK ? VIRTUAL_LOSS : 0);
+                this.push(depth++, child);
+                game.apply(child.action);
+                applied++;
+                this.suspects.update(game);
+                if(child.hash == 0){
+                    child.hash = game.getHash();
+                }
+                node = child;
+            }
+
+            int result = game.isOver() ? (game.getWinner() == Game.PLAYER_INSPECTOR ? 1 : 0) : this.playout(game);
+
+            //the virtual losses become a real visit
+            for(int i = 0; i < depth; i++){
+                boolean jackChose = i > 0 && !this.path[i - 1].chance && this.path[i - 1].player == Game.PLAYER_JACK;
+                this.path[i].addVisits(1 - VIRTUAL_LOSS, result - (jackChose ? VIRTUAL_LOSS : 0));
+            }
+            for(int i = 0; i < depth; i++){
+                this.path[i] = null;
+            }
+
+            for(; applied > 0; applied--){
+                game.undo();
+            }
+        }
+
+        //lists the actions of the node, only one thread expands it
+        private long[] expand(final Node node, final Game game){
+            synchronized(node){
+                if(node.actions != null){
+                    return node.actions;
+                }
+
+                long[] actions;
+                if(game.getBatchCharacters() == 0){
+                    node.chance = true;
+                    node.children = new AtomicReferenceArray<>(DEALS);
+                    actions = Node.NO_ACTIONS;
+                }
+                else {
+                    //an immediate win is the only action worth searching, but nodes are shared by every JACK drawn and
+                    //the suspects along the path depend on him, only the root ones are public
+                    long win = this.jackKnown || node == this.root ? this.winningAction(game, this.jackKnown) : NO_ACTION;
+                    this.actions.clear();
+                    if(win != NO_ACTION){
+                        this.actions.push(win);
+                    }
+                    else {
+                        this.generator.generate(game, this.actions);
+                    }
+                    actions = new long[this.actions.size()];
+                    for(int i = 0; i < actions.length; i++){
+                        actions[i] = this.actions.get(i);
+                    }
+                    node.player = game.getCurrentPlayer();
+                    node.children = new AtomicReferenceArray<>(actions.length);
+                }
+
+                node.actions = actions;
+                return actions;
+            }
+        }
+
+        //the child of a random deal
+        private Node getDeal(final Node node){
+            int batch = this.randomDeal();
+            return node.getChild(batch, Action.deal(batch, ~batch & Suspects.ALL), this.nodes);
+        }
+
+        //UCT, unvisited children first
+        private Node select(final Node node, final long[] actions){
+            AtomicReferenceArray<Node> children = node.children;
+            double logVisits = Math.log(Math.max(1, node.visits));
+            boolean inspector = node.player == Game.PLAYER_INSPECTOR;
+
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            int offset = this.gen.nextInt(actions.length);
+            for(int i = 0; i < actions.length; i++){
+                int c = i + offset < actions.length ? i + offset : i + offset - actions.length;
+                Node child = children.get(c);
+                int visits = child == null ? 0 : child.visits;
+                if(visits == 0){
+                    return node.getChild(c, actions[c], this.nodes);
+                }
+
+                double winRate = (double)child.wins / visits;
+                double value = (inspector ? winRate : 1 - winRate) + EXPLORATION * Math.sqrt(logVisits / visits);
+                if(value > bestValue){
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        //plays a fast game to the end from the suspects of the path, the game is restored
+        private int playout(final Game game){
+            int applied = 0;
+
+            while(!game.isOver()){
+                game.apply(this.playoutAction(game));
+                applied++;
+                this.suspects.update(game);
+            }
+
+            int result = game.getWinner() == Game.PLAYER_INSPECTOR ? 1 : 0;
+            for(; applied > 0; applied--){
+                game.undo();
+            }
+            return result;
+        }
+
+        /**
+         * Returns an action winning right away, JACK escaping or the INSPECTOR accusing the last suspect.
+         * @param game the game, the batch was dealt.
+         * @param jackKnown whether JACK's escapes are considered, only the JACK of the game can tell.
+         * @return the action, NO_ACTION if there is none.
+         */
+        private long winningAction(final Game game, boolean jackKnown){
+            if(game.getCurrentPlayer() == Game.PLAYER_JACK){
+                //JACK escapes whatever the action is
+                CharacterType jack = game.getJack().getCharacterType();
+                if(jackKnown && (game.getBatchCharacters() & 1 << jack.getNumVal()) != 0 && game.canJackEscape(game.getJack())){
+                    return Action.play(jack, Action.NONE, 0);
+                }
+                return NO_ACTION;
+            }
+
+            int suspects = this.suspects.get();
+            if(Integer.bitCount(suspects) == 1 && !game.hasAttemptedToAccuseJack()){
+                this.actions.clear();
+                this.generator.generateAccusations(game, this.actions);
+                for(int i = 0; i < this.actions.size(); i++){
+                    if((suspects & 1 << Action.getParamA(this.actions.get(i))) != 0){
+                        return this.actions.get(i);
+                    }
+                }
+            }
+            return NO_ACTION;
+        }
+
+        private long playoutAction(final Game game){
+            int batch = game.getBatchCharacters();
+            if(batch == 0){
+                int deal = this.randomDeal();
+                return Action.deal(deal, ~deal & Suspects.ALL);
+            }
+
+            long win = this.winningAction(game, true);
+            if(win != NO_ACTION){
+                return win;
+            }
+
+            return this.generator.randomAction(game, CharacterType.fromNumVal(this.randomBit(batch)), this.gen, this.actions);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.blogspot.groglogs.mrjack.search;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size table of search results indexed by the Zobrist hash of a position, see Game.getHash.
+ * It can be shared by any number of search threads without locks.
+ *
+ * Each slot is 3 longs in a single array:
+ * - check: the hash of the position XOR the other two words
+ * - data: value (32 bits), depth (8 bits), bound (2 bits), search generation (8 bits)
+ * - action: the best action found, see Action
+ * Writes are not atomic: two threads storing in the same slot at the same time can leave a mix of both entries.
+ * Readers recompute the hash from the three words and ignore the slot if it does not match, so a torn entry is seen
+ * as a miss and never as a wrong result.
+ */
+public final class TranspositionTable {
+
+    /**
+     * Decides whether a new entry overwrites the one already stored in its slot.
+     * Empty slots, entries for the same position and entries from an older search are always overwritten.
+     */
+    public enum ReplacementPolicy {
+        //the new entry always wins
+        ALWAYS,
+        //keep the entry that was searched deeper, on equal depth the new entry wins
+        DEPTH_PREFERRED
+    }
+
+    //exact value, value is a lower bound (search failed high), value is an upper bound (search failed low)
+    public static final int EXACT = 1, LOWER = 2, UPPER = 3;
+
+    public static final int MAX_DEPTH = 255;
+
+    private static final int SLOT_SIZE = 3, CHECK = 0, DATA = 1, ACTION = 2;
+    private static final int DEPTH = 32, BOUND = 40, GENERATION = 42;
+
+    private final long[] slots;
+    private final int mask;
+    private final ReplacementPolicy policy;
+    //bumped at every new search so entries from older searches can be replaced first
+    private volatile int generation = 0;
+
+    /**
+     * A search result read from the table, reused by the caller to avoid allocating on every probe.
+     * Each thread must use its own.
+     */
+    public static final class Entry {
+        private int value, depth, bound;
+        private long action;
+
+        public int getValue(){
+            return this.value;
+        }
+
+        public int getDepth(){
+            return this.depth;
+        }
+
+        /**
+         * Returns whether the value is exact or a bound.
+         * @return EXACT, LOWER or UPPER.
+         */
+        public int getBound(){
+            return this.bound;
+        }
+
+        public long getAction(){
+            return this.action;
+        }
+    }
+
+    /**
+     * Creates an empty table.
+     * @param capacity the minimum number of entries, rounded up to a power of 2.
+     * @param policy the replacement policy.
+     * @throws IllegalStateException if the capacity is not positive or too big.
+     */
+    public TranspositionTable(int capacity, ReplacementPolicy policy){
+        if(capacity <= 0 || capacity > Integer.MAX_VALUE / SLOT_SIZE / 2){
+            throw new IllegalStateException(String.format("Invalid capacity %d", capacity));
+        }
+        int size = Integer.highestOneBit(capacity);
+        if(size < capacity){
+            size <<= 1;
+        }
+
+        this.slots = new long[size * SLOT_SIZE];
+        this.mask = size - 1;
+        this.policy = policy;
+    }
+
+    private static int get(long word, int offset, int bits){
+        return (int)(word >>> offset) & ((1 << bits) - 1);
+    }
+
+    private int slot(long hash){
+        //high bits are mixed in so tables of every size use the whole hash
+        return (int)(hash ^ hash >>> 32) & this.mask;
+    }
+
+    public int getCapacity(){
+        return this.mask + 1;
+    }
+
+    /**
+     * Starts a new search: entries stored from now on take precedence over all the existing ones.
+     */
+    public void newSearch(){
+        this.generation = (this.generation + 1) & 0xFF;
+    }
+
+    /**
+     * Empties the table, must not be called while other threads are using it.
+     */
+    public void clear(){
+        Arrays.fill(this.slots, 0);
+        this.generation = 0;
+    }
+
+    /**
+     * Looks up the given position.
+     * @param hash the hash of the position.
+     * @param entry filled with the stored result if found, left untouched otherwise.
+     * @return true if a result for the position was found.
+     */
+    public boolean probe(long hash, Entry entry){
+        int i = this.slot(hash) * SLOT_SIZE;
+        long check = this.slots[i + CHECK], data = this.slots[i + DATA], action = this.slots[i + ACTION];
+
+        //empty slots have no bound and torn entries do not give back the hash
+        if(data == 0 || (check ^ data ^ action) != hash){
+            return false;
+        }
+
+        entry.value = (int)data;
+        entry.depth = get(data, DEPTH, 8);
+        entry.bound = get(data, BOUND, 2);
+        entry.action = action;
+        return true;
+    }
+
+    /**
+     * Stores the result of a search, unless the replacement policy keeps the entry already in its slot.
+     * @param hash the hash of the position.
+     * @param depth the depth the position was searched to.
+     * @param bound EXACT, LOWER or UPPER.
+     * @param value the value of the position.
+     * @param action the best action found.
+     * @throws IllegalStateException if depth or bound are not valid.
+     */
+    public void store(long hash, int depth, int bound, int value, long action){
+        if(depth < 0 || depth > MAX_DEPTH){
+            throw new IllegalStateException(String.format("Invalid depth %d", depth));
+        }
+        if(bound != EXACT && bound != LOWER && bound != UPPER){
+            throw new IllegalStateException(String.format("Invalid bound %d", bound));
+        }
+
+        int i = this.slot(hash) * SLOT_SIZE;
+        int generation = this.generation;
+
+        if(this.policy == ReplacementPolicy.DEPTH_PREFERRED){
+            long oldData = this.slots[i + DATA];
+            boolean isSamePosition = (this.slots[i + CHECK] ^ oldData ^ this.slots[i + ACTION]) == hash;
+            if(oldData != 0 && !isSamePosition && get(oldData, GENERATION, 8) == generation
+                    && get(oldData, DEPTH, 8) > depth){
+                return;
+            }
+        }
+
+        long data = (value & 0xFFFFFFFFL) | (long)depth << DEPTH | (long)bound << BOUND | (long)generation << GENERATION;
+        this.slots[i + DATA] = data;
+        this.slots[i + ACTION] = action;
+        this.slots[i + CHECK] = hash ^ data ^ action;
+    }
+}
@@ -0,0 +1,140 @@
+package com.blogspot.groglogs.mrjack.simulation;
+
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.input.HeuristicPlayer;
+import com.blogspot.groglogs.mrjack.input.Player;
+import com.blogspot.groglogs.mrjack.input.RandomPlayer;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Plays many complete games between programmatic players on a fork/join pool.
+ * Games follow the real rules, see Game.play, and never print anything.
+ * The range of games is split in tasks, each one plays its games in sequence and fills its own SimulationResult, the
+ * results are merged while joining, so threads share nothing while playing.
+ * Each game and its players get their own seeds derived from the master seed and the game index: any game can be
+ * replayed alone with play, and results do not depend on the pool or on how games are split.
+ */
+public final class Simulation {
+
+    //games played by a single task are at most this many, split finer when there are few games per thread
+    private static final int MAX_TASK_GAMES = 64;
+    //tasks per thread, to balance games of different length
+    private static final int TASKS_PER_THREAD = 8;
+    //spreads the seeds of consecutive games apart before mixing them
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final ForkJoinPool pool;
+    private final LongFunction<Player> inspectorPlayers, jackPlayers;
+
+    /**
+     * Creates a simulation.
+     * @param pool the pool running the games.
+     * @param inspectorPlayers creates the INSPECTOR player of each game from its seed.
+     * @param jackPlayers creates the JACK player of each game from its seed.
+     */
+    public Simulation(final ForkJoinPool pool, final LongFunction<Player> inspectorPlayers, final LongFunction<Player> jackPlayers){
+        this.pool = pool;
+        this.inspectorPlayers = inspectorPlayers;
+        this.jackPlayers = jackPlayers;
+    }
+
+    /**
+     * Plays the given number of games and waits for all of them to finish.
+     * @param games the number of games.
+     * @param seed the seed all game and player seeds are derived from.
+     * @return the statistics of all games, timed.
+     */
+    public SimulationResult run(int games, long seed){
+        int taskGames = Math.max(1, Math.min(MAX_TASK_GAMES, games / (this.pool.getParallelism() * TASKS_PER_THREAD)));
+
+        long start = System.nanoTime();
+        SimulationResult result = this.pool.invoke(new Games(seed, 0, games, taskGames));
+        result.setElapsedNanos(System.nanoTime() - start);
+
+        return result;
+    }
+
+    /**
+     * Plays a single game.
+     * @param seed the seed all game and player seeds are derived from.
+     * @param index the index of the game.
+     * @return the finished game.
+     */
+    public Game play(long seed, int index){
+        //seeds are mixed, so that no generator of a game replays the stream of another one
+        long gameSeed = mix(seed + index * GOLDEN_GAMMA);
+        Game game = new Game(gameSeed, this.inspectorPlayers.apply(mix(gameSeed ^ 1)), this.jackPlayers.apply(mix(gameSeed ^ 2)));
+
+        game.play();
+
+        return game;
+    }
+
+    //scrambles consecutive values into unrelated seeds, SplitMix64 finalizer
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    //plays the games with index in [from, to)
+    private final class Games extends RecursiveTask<SimulationResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long seed;
+        private final int from, to, taskGames;
+
+        Games(long seed, int from, int to, int taskGames){
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+            this.taskGames = taskGames;
+        }
+
+        @Override
+        protected SimulationResult compute(){
+            if(this.to - this.from <= this.taskGames){
+                SimulationResult result = new SimulationResult();
+                for(int i = this.from; i < this.to; i++){
+                    result.add(play(this.seed, i));
+                }
+                return result;
+            }
+
+            int mid = (this.from + this.to) >>> 1;
+            Games left = new Games(this.seed, this.from, mid, this.taskGames);
+            left.fork();
+            SimulationResult right = new Games(this.seed, mid, this.to, this.taskGames).compute();
+
+            return left.join().merge(right);
+        }
+    }
+
+    private static LongFunction<Player> players(String kind){
+        switch(kind){
+            case "random":
+                return RandomPlayer::new;
+            case "heuristic":
+                return HeuristicPlayer::new;
+            default:
+                throw new IllegalStateException(String.format("Unknown player %s, use random or heuristic", kind));
+        }
+    }
+
+    /**
+     * Runs a simulation on the common pool and prints its statistics.
+     * @param args number of games (default 10000), INSPECTOR and JACK players: random or heuristic (default heuristic).
+     */
+    public static void main(String args[]){
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        LongFunction<Player> inspector = players(args.length > 1 ? args[1] : "heuristic");
+        LongFunction<Player> jack = players(args.length > 2 ? args[2] : "heuristic");
+
+        SimulationResult result = new Simulation(ForkJoinPool.commonPool(), inspector, jack).run(games, System.nanoTime());
+        System.out.println(result);
+    }
+}
@@ -0,0 +1,158 @@
+package com.blogspot.groglogs.mrjack.simulation;
+
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+
+/**
+ * Statistics of a batch of finished games.
+ * Each simulation task fills its own result without any synchronization, results are then merged pairwise.
+ */
+public final class SimulationResult {
+
+    private static final int NUM_CHARACTERS = CharacterType.values().length;
+
+    private long games = 0, inspectorWins = 0, totalTurns = 0, elapsedNanos = 0;
+    //indexed by CharacterType of JACK
+    private final long[] jackGames = new long[NUM_CHARACTERS];
+    private final long[] jackWins = new long[NUM_CHARACTERS];
+    //indexed by the turn the game ended in - 1, games JACK wins by running out the clock end in the last turn
+    private final long[] inspectorWinsByTurn = new long[Game.MAX_TURNS];
+    private final long[] jackWinsByTurn = new long[Game.MAX_TURNS];
+
+    /**
+     * Records a finished game.
+     * @param game the game, must be over.
+     * @throws IllegalStateException if the game is not over.
+     */
+    public void add(final Game game){
+        if(!game.isOver()){
+            throw new IllegalStateException("Game is not finished.");
+        }
+
+        int jack = game.getJack().getCharacterType().getNumVal();
+        int turn = Math.min(game.getTurn(), Game.MAX_TURNS);
+
+        this.games++;
+        this.totalTurns += turn;
+        this.jackGames[jack]++;
+        if(game.getWinner() == Game.PLAYER_INSPECTOR){
+            this.inspectorWins++;
+            this.inspectorWinsByTurn[turn - 1]++;
+        }
+        else {
+            this.jackWins[jack]++;
+            this.jackWinsByTurn[turn - 1]++;
+        }
+    }
+
+    /**
+     * Adds all games of the given result to this one.
+     * @param other the result to add.
+     * @return this result.
+     */
+    public SimulationResult merge(final SimulationResult other){
+        this.games += other.games;
+        this.inspectorWins += other.inspectorWins;
+        this.totalTurns += other.totalTurns;
+        for(int i = 0; i < NUM_CHARACTERS; i++){
+            this.jackGames[i] += other.jackGames[i];
+            this.jackWins[i] += other.jackWins[i];
+        }
+        for(int i = 0; i < Game.MAX_TURNS; i++){
+            this.inspectorWinsByTurn[i] += other.inspectorWinsByTurn[i];
+            this.jackWinsByTurn[i] += other.jackWinsByTurn[i];
+        }
+        return this;
+    }
+
+    void setElapsedNanos(long elapsedNanos){
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getGames(){
+        return this.games;
+    }
+
+    public long getInspectorWins(){
+        return this.inspectorWins;
+    }
+
+    public long getJackWins(){
+        return this.games - this.inspectorWins;
+    }
+
+    /**
+     * Returns the number of games where JACK was the given character.
+     * @param jack the character.
+     * @return the number of games.
+     */
+    public long getJackGames(CharacterType jack){
+        return this.jackGames[jack.getNumVal()];
+    }
+
+    /**
+     * Returns the number of games JACK won as the given character.
+     * @param jack the character.
+     * @return the number of games won.
+     */
+    public long getJackWins(CharacterType jack){
+        return this.jackWins[jack.getNumVal()];
+    }
+
+    /**
+     * Returns the number of games the given player won in the given turn.
+     * @param player PLAYER_JACK or PLAYER_INSPECTOR.
+     * @param turn the turn, from 1 to Game.MAX_TURNS.
+     * @return the number of games won.
+     */
+    public long getWinsByTurn(boolean player, int turn){
+        return player == Game.PLAYER_INSPECTOR ? this.inspectorWinsByTurn[turn - 1] : this.jackWinsByTurn[turn - 1];
+    }
+
+    /**
+     * Returns the average number of turns played per game.
+     * @return the average game length in turns, 0 if there are no games.
+     */
+    public double getAverageTurns(){
+        return this.games == 0 ? 0 : (double)this.totalTurns / this.games;
+    }
+
+    public long getElapsedNanos(){
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Returns the number of games played per second of wall clock time.
+     * @return the throughput, 0 if the simulation was not timed.
+     */
+    public double getGamesPerSecond(){
+        return this.elapsedNanos == 0 ? 0 : this.games * 1e9 / this.elapsedNanos;
+    }
+
+    private static double rate(long count, long total){
+        return total == 0 ? 0 : 100.0 * count / total;
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format("Games: %d, %.1f games/s, %.2f turns per game%n", this.games, this.getGamesPerSecond(), this.getAverageTurns()));
+        sb.append(String.format("INSPECTOR wins: %.2f%%, JACK wins: %.2f%%%n", rate(this.inspectorWins, this.games),
+                rate(this.getJackWins(), this.games)));
+
+        sb.append(String.format("%nJACK wins by character:%n"));
+        for(CharacterType t : CharacterType.values()){
+            sb.append(String.format("%-10s %.2f%% of %d%n", t, rate(this.jackWins[t.getNumVal()], this.jackGames[t.getNumVal()]),
+                    this.jackGames[t.getNumVal()]));
+        }
+
+        sb.append(String.format("%nWins by turn, INSPECTOR - JACK:%n"));
+        for(int i = 0; i < Game.MAX_TURNS; i++){
+            sb.append(String.format("%d: %.2f%% - %.2f%%%n", i + 1, rate(this.inspectorWinsByTurn[i], this.games),
+                    rate(this.jackWinsByTurn[i], this.games)));
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,211 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+/**
+ * Represents a set of board cells as a 256 bit mask, bit i is set if the cell with id i is in the set.
+ * The board has Board.NUM_CELLS = 221 cells, so 4 longs are enough to track all of them.
+ * Cell ids are assigned by Board.getCellId.
+ */
+public final class Bitboard {
+
+    private long w0, w1, w2, w3;
+
+    /**
+     * Creates an empty Bitboard.
+     */
+    public Bitboard(){
+    }
+
+    /**
+     * Creates a copy of the given Bitboard.
+     * @param other the Bitboard to copy.
+     */
+    public Bitboard(final Bitboard other){
+        this.w0 = other.w0;
+        this.w1 = other.w1;
+        this.w2 = other.w2;
+        this.w3 = other.w3;
+    }
+
+    private long getWord(int word){
+        switch(word){
+            case 0: return this.w0;
+            case 1: return this.w1;
+            case 2: return this.w2;
+            case 3: return this.w3;
+            default: throw new IllegalArgumentException(String.format("Invalid word %d", word));
+        }
+    }
+
+    private void setWord(int word, long value){
+        switch(word){
+            case 0: this.w0 = value; break;
+            case 1: this.w1 = value; break;
+            case 2: this.w2 = value; break;
+            case 3: this.w3 = value; break;
+            default: throw new IllegalArgumentException(String.format("Invalid word %d", word));
+        }
+    }
+
+    /**
+     * Checks whether the given cell is in this set.
+     * @param id the cell id.
+     * @return true if the cell is in this set.
+     */
+    public boolean get(int id){
+        return (this.getWord(id >>> 6) & (1L << id)) != 0;
+    }
+
+    /**
+     * Adds or removes the given cell from this set.
+     * @param id the cell id.
+     * @param value true to add the cell, false to remove it.
+     */
+    public void set(int id, boolean value){
+        long word = this.getWord(id >>> 6);
+        if(value){
+            word |= 1L << id;
+        }
+        else {
+            word &= ~(1L << id);
+        }
+        this.setWord(id >>> 6, word);
+    }
+
+    /**
+     * Checks whether this set and the given one have at least one cell in common.
+     * @param other the other set.
+     * @return true if the two sets have at least one cell in common.
+     */
+    public boolean intersects(final Bitboard other){
+        return (this.w0 & other.w0) != 0 || (this.w1 & other.w1) != 0 || (this.w2 & other.w2) != 0 || (this.w3 & other.w3) != 0;
+    }
+
+    /**
+     * Checks whether this set, the first and the second given sets have at least one cell in common.
+     * @param first the first other set.
+     * @param second the second other set.
+     * @return true if the three sets have at least one cell in common.
+     */
+    public boolean intersects(final Bitboard first, final Bitboard second){
+        return (this.w0 & first.w0 & second.w0) != 0 || (this.w1 & first.w1 & second.w1) != 0 ||
+                (this.w2 & first.w2 & second.w2) != 0 || (this.w3 & first.w3 & second.w3) != 0;
+    }
+
+    /**
+     * Keeps in this set only the cells that are also in the given one.
+     * @param other the other set.
+     */
+    public void and(final Bitboard other){
+        this.w0 &= other.w0;
+        this.w1 &= other.w1;
+        this.w2 &= other.w2;
+        this.w3 &= other.w3;
+    }
+
+    /**
+     * Adds to this set all the cells in the given one.
+     * @param other the other set.
+     */
+    public void or(final Bitboard other){
+        this.w0 |= other.w0;
+        this.w1 |= other.w1;
+        this.w2 |= other.w2;
+        this.w3 |= other.w3;
+    }
+
+    /**
+     * Removes from this set all the cells in the given one.
+     * @param other the other set.
+     */
+    public void andNot(final Bitboard other){
+        this.w0 &= ~other.w0;
+        this.w1 &= ~other.w1;
+        this.w2 &= ~other.w2;
+        this.w3 &= ~other.w3;
+    }
+
+    /**
+     * Removes all cells from this set.
+     */
+    public void clear(){
+        this.w0 = 0;
+        this.w1 = 0;
+        this.w2 = 0;
+        this.w3 = 0;
+    }
+
+    public boolean isEmpty(){
+        return (this.w0 | this.w1 | this.w2 | this.w3) == 0;
+    }
+
+    /**
+     * Returns the number of cells in this set.
+     * @return the number of cells in this set.
+     */
+    public int cardinality(){
+        return Long.bitCount(this.w0) + Long.bitCount(this.w1) + Long.bitCount(this.w2) + Long.bitCount(this.w3);
+    }
+
+    /**
+     * Returns the number of cells in both this set and the given one, without modifying either.
+     * @param other the other set.
+     * @return the number of cells in common.
+     */
+    public int andCardinality(final Bitboard other){
+        return Long.bitCount(this.w0 & other.w0) + Long.bitCount(this.w1 & other.w1) +
+                Long.bitCount(this.w2 & other.w2) + Long.bitCount(this.w3 & other.w3);
+    }
+
+    /**
+     * Returns the id of the first cell in this set with id greater or equal to the given one.
+     * Use it to iterate over the set: for(int id = b.nextSetBit(0); id >= 0; id = b.nextSetBit(id + 1))
+     * @param from the id to start searching from.
+     * @return the id of the next cell in this set, -1 if there is none.
+     */
+    public int nextSetBit(int from){
+        if(from < 0){
+            from = 0;
+        }
+
+        for(int word = from >>> 6; word < 4; word++){
+            long bits = this.getWord(word);
+            //on the first word, skip the bits before our start
+            if(word == from >>> 6){
+                bits &= -1L << from;
+            }
+            if(bits != 0){
+                return word * 64 + Long.numberOfTrailingZeros(bits);
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = this.w0 * 31 + this.w1;
+        h = h * 31 + this.w2;
+        h = h * 31 + this.w3;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof Bitboard)) return false;
+        Bitboard other = (Bitboard)o;
+        return this.w0 == other.w0 && this.w1 == other.w1 && this.w2 == other.w2 && this.w3 == other.w3;
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder("[");
+        for(int id = this.nextSetBit(0); id >= 0; id = this.nextSetBit(id + 1)){
+            if(sb.length() > 1){
+                sb.append(",");
+            }
+            sb.append(id);
+        }
+        return sb.append("]").toString();
+    }
+}
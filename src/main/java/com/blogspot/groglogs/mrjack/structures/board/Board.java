@@ -1,10 +1,12 @@
 package com.blogspot.groglogs.mrjack.structures.board;
 
+import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
+import com.blogspot.groglogs.mrjack.structures.common.LongStack;
 import com.blogspot.groglogs.mrjack.structures.enums.CellType;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
 
-import java.util.ArrayDeque;
-import java.util.HashSet;
-import java.util.Queue;
+import java.util.Collections;
 import java.util.Set;
 
 /**
@@ -36,135 +38,117 @@ import java.util.Set;
 public class Board {
 
     public static final int ROWS = 17, COLUMNS = 13;
+    public static final int NUM_CELLS = ROWS * COLUMNS;
 
-    /////// INITIAL BOARD STATE /////////
-
-    //we use sets for these to make handling easier later on since we query them often
-    //location of all holes that are NOT on an exit, they are open
-    protected static final Set<CellCoordinate> holeCells = new HashSet<>();
-    //location of all exists that do NOT have a hole, they are open
-    protected static final Set<CellCoordinate> exitCells = new HashSet<>();
-    //location of all exists that DO have a hole, both exit and hole are closed
-    protected static final Set<CellCoordinate> exitHoleCells = new HashSet<>();
-    static {
-        //holes
-        holeCells.add(new CellCoordinate(0,5));
-        holeCells.add(new CellCoordinate(4,1));
-        holeCells.add(new CellCoordinate(7,10));
-        holeCells.add(new CellCoordinate(9,2));
-        holeCells.add(new CellCoordinate(9,6));
-        holeCells.add(new CellCoordinate(12,11));
-        holeCells.add(new CellCoordinate(16,7));
-        //exits
-        exitCells.add(new CellCoordinate(2,1));
-        exitCells.add(new CellCoordinate(14,11));
-        //exits with holes
-        exitHoleCells.add(new CellCoordinate(2,11));
-        exitHoleCells.add(new CellCoordinate(14,1));
-    }
-
-    //location of all lamps that are on a timer
-    //lamps are added to the array in the order they will shut off
-    protected static final CellCoordinate[] orderedOnLampCells = new CellCoordinate[]{
-            new CellCoordinate(12,1),
-            new CellCoordinate(4,11),
-            new CellCoordinate(3,2),
-            new CellCoordinate(13,10)
-    };
-
-    //location of all lamps that are ON and NOT on a timer
-    protected static final CellCoordinate[] onLampCells = new CellCoordinate[]{
-            new CellCoordinate(6,7),
-            new CellCoordinate(10,5)
-    };
-
-    //location of all lamps that are OFF
-    protected static final CellCoordinate[] offLampCells = new CellCoordinate[]{
-            new CellCoordinate(2,5),
-            new CellCoordinate(14,7)
-    };
-
-    //location of all houses
-    protected static final CellCoordinate[] houseCells = new CellCoordinate[]{
-            new CellCoordinate(2,3),
-            new CellCoordinate(4,5),
-            new CellCoordinate(4,7),
-            new CellCoordinate(6,1),
-            new CellCoordinate(6,3),
-            new CellCoordinate(6,9),
-            new CellCoordinate(7,2),
-            new CellCoordinate(8,1),
-            new CellCoordinate(8,5),
-            new CellCoordinate(8,7),
-            new CellCoordinate(8,11),
-            new CellCoordinate(9,10),
-            new CellCoordinate(10,3),
-            new CellCoordinate(10,9),
-            new CellCoordinate(10,11),
-            new CellCoordinate(12,5),
-            new CellCoordinate(12,7),
-            new CellCoordinate(14,9),
-            //these are all border houses
-            new CellCoordinate(0,3),
-            new CellCoordinate(3,0),
-            new CellCoordinate(1,12),
-            new CellCoordinate(0,1),
-            new CellCoordinate(1,0),
-            new CellCoordinate(1,2),
-            new CellCoordinate(0,7),
-            new CellCoordinate(0,9),
-            new CellCoordinate(0,11),
-            new CellCoordinate(1,10),
-            new CellCoordinate(2,9),
-            new CellCoordinate(1,8),
-            new CellCoordinate(16,1),
-            new CellCoordinate(15,0),
-            new CellCoordinate(15,2),
-            new CellCoordinate(14,3),
-            new CellCoordinate(16,3),
-            new CellCoordinate(15,4),
-            new CellCoordinate(16,5),
-            new CellCoordinate(16,9),
-            new CellCoordinate(15,10),
-            new CellCoordinate(16,11),
-            new CellCoordinate(15,12),
-            new CellCoordinate(13,12)
-
-    };
-    /////// END INITIAL BOARD STATE /////////
-
-    //the actual board
-    private static Cell[][] grid = new Cell[ROWS][COLUMNS];
-    //we need to track this in a specific order since we turn one of them off after each turn
-    private Queue<Cell> timedLamps;
-
-    /**
-     * Initializes the board placing all cells in it.
+    /**
+     * Journal entries: the low JOURNAL_TYPE_BITS are the entry type, then the cell id (8 bits), then:
+     * - JOURNAL_CELL: hole open, lamp ON, exit open (1 bit each) and the character on the cell + 1 (4 bits), 0 if empty
+     * - JOURNAL_LAMP_OFF_TURN: the turn after which the lamp shuts OFF + 1 (3 bits)
+     * The board never records entries of type JOURNAL_OWNER_ENTRY, the owner of the journal can use them as markers.
      */
-    public Board(){
-        this.timedLamps = new ArrayDeque<>();
-        this.initBoard();
-    }
+    public static final int JOURNAL_TYPE_BITS = 2, JOURNAL_OWNER_ENTRY = 3;
+    private static final int JOURNAL_CELL = 0, JOURNAL_LAMP_OFF_TURN = 1;
+    private static final int JOURNAL_ID = 2, JOURNAL_HOLE = 10, JOURNAL_LAMP = 11, JOURNAL_EXIT = 12, JOURNAL_OCCUPANT = 13,
+            JOURNAL_LAMP_OFF_TURN_VALUE = 10;
+
+    /////// STATE OF THIS BOARD /////////
+    //the layout is in BoardTopology and shared by all boards, everything below belongs to a single game
+
+    //the cells of this board, each one is created the first time it is read
+    protected final Cell[][] grid = new Cell[ROWS][COLUMNS];
+    //bit i is set if the hole in BoardTopology.getHoleCoordinate(i) is open, kept in sync by Cell.flipHole
+    private int holeMask;
+    //same for lamps and exits, see BoardTopology.getLampCell and BoardTopology.getExitCell
+    private int lampMask, exitMask;
+    //state of the cells on the board as bitboards, kept in sync by Cell every time its state changes
+    //cells that were never created still have the state they got from the topology at the start of the game
+    private final Bitboard openHoles, litLamps, openExits;
+    private final Bitboard occupied = new Bitboard();
+    //incremented every time a hole or an exit is opened or closed
+    private int modificationCount = 0;
+    //open holes and open exits, rebuilt only when the modification count changes
+    private int cachedModificationCount = -1;
+    private Set<CellCoordinate> openHoleCells = Collections.emptySet();
+    private Set<CellCoordinate> openExitCells = Collections.emptySet();
+    //derived state, kept in sync with the cells of this board
+    private final Visibility visibility;
+    private final ThreatMatrix threatMatrix;
+    private final ExitField exitField;
+    //we turn off one timed lamp after each turn, this is the number of lamps that already had their turn
+    private int nextTimedLamp = 0;
+    //when set, the previous state of every cell that changes is recorded here, see undoJournalEntry
+    private LongStack journal = null;
+    //the character on each cell, so that we know who left a cell when its state changes
+    private final CharacterToken[] occupants = new CharacterToken[NUM_CELLS];
+    //every character ever placed on this board, indexed by CharacterType, to put them back from a journal entry
+    private final CharacterToken[] tokens = new CharacterToken[CharacterType.values().length];
+    //Zobrist hash of the state of this board, kept in sync by every cell change, see Zobrist
+    private long hash = Zobrist.getInitialBoardHash();
 
     /**
-     * Used for testing, we will recreate the board multiple times, therefore we need logic to clear it too.
+     * Initializes the board in its starting state.
+     * Only the state that changes during a game is copied from the shared BoardTopology, cells are created lazily.
+     * Each board is independent, many boards can be used at the same time by different games.
      */
-    public static void clearBoard(){
-        grid = new Cell[ROWS][COLUMNS];
+    public Board(){
+        this.holeMask = BoardTopology.getInitialHoleMask();
+        this.lampMask = BoardTopology.getInitialLampMask();
+        this.exitMask = BoardTopology.getInitialExitMask();
+        this.openHoles = new Bitboard(BoardTopology.getInitialOpenHoles());
+        this.litLamps = new Bitboard(BoardTopology.getInitialLitLamps());
+        this.openExits = new Bitboard(BoardTopology.getInitialOpenExits());
+        this.visibility = new Visibility();
+        this.threatMatrix = new ThreatMatrix(this);
+        this.exitField = new ExitField(this);
     }
 
     /**
      * Returns the next lamp to turn off at the end of the turn.
-     * @return the next lamp to turn off at the end of the turn.
+     * Timers move with the lamps when SMITH swaps them, so we look for the lamp that currently has the timer and NOT
+     * at the lamp that had it at the start of the game. The lamp might be OFF already.
+     * @return the next lamp to turn off at the end of the turn, null if no more lamps are on a timer.
      */
     public Cell getNextLampToTurnOff(){
-        if(!timedLamps.isEmpty()){
-            return timedLamps.poll();
+        if(nextTimedLamp < BoardTopology.getNumTimedLamps()){
+            nextTimedLamp++;
+            for(int lamp = 0; lamp < BoardTopology.getNumLamps(); lamp++){
+                int id = BoardTopology.getLampCell(lamp);
+                if(getLampOffTurn(id) == nextTimedLamp){
+                    return getCell(id);
+                }
+            }
         }
 
         return null;
     }
 
+    /**
+     * Returns how many timed lamps already had their turn in getNextLampToTurnOff.
+     * @return the position in the timed lamps order of the next lamp to turn off.
+     */
+    public int getNextTimedLamp(){
+        return nextTimedLamp;
+    }
+
+    /**
+     * Sets how many timed lamps already had their turn in getNextLampToTurnOff, used to restore a saved game.
+     * Does NOT turn any lamp ON or OFF.
+     * @param nextTimedLamp the position in the timed lamps order of the next lamp to turn off.
+     */
+    public void setNextTimedLamp(int nextTimedLamp){
+        this.nextTimedLamp = nextTimedLamp;
+    }
+
+    /**
+     * Returns the turn after which the lamp on the given cell shuts OFF.
+     * @param id the cell id of the lamp.
+     * @return the turn after which the lamp shuts OFF, -1 if the lamp is not on a timer.
+     */
+    public int getLampOffTurn(int id){
+        Cell cell = grid[id / COLUMNS][id % COLUMNS];
+        return cell == null ? BoardTopology.getInitialLampOffTurn(id) : cell.getlampOffTurn();
+    }
+
     /**
      * Returns the cell at the given coordinates.
      * Assumes coordinates are valid.
@@ -172,8 +156,12 @@ public class Board {
      * @param column
      * @return the cell at the given coordinates.
      */
-    public static Cell getCell(int row, int column){
-        return getCell(new CellCoordinate(row, column));
+    public Cell getCell(int row, int column){
+        Cell cell = grid[row][column];
+        if(cell == null){
+            cell = placeCell(BoardTopology.getCellType(getCellId(row, column)), CellCoordinate.of(row, column));
+        }
+        return cell;
     }
 
     /**
@@ -182,97 +170,499 @@ public class Board {
      * @param cellCoordinate
      * @return the cell at the given coordinates.
      */
-    public static Cell getCell(final CellCoordinate cellCoordinate){
-        return grid[cellCoordinate.getRow()][cellCoordinate.getColumn()];
+    public Cell getCell(final CellCoordinate cellCoordinate){
+        return getCell(cellCoordinate.getRow(), cellCoordinate.getColumn());
     }
 
     /**
      * Returns all cells that have a hole.
+     * The returned set is shared and cannot be modified.
      * @return all cells that have a hole.
      */
     public static Set<CellCoordinate> getHoleCells(){
-        Set<CellCoordinate> holes = new HashSet<>();
-        holes.addAll(holeCells);
-        holes.addAll(exitHoleCells);
-        return holes;
+        return BoardTopology.getHoleCells();
     }
 
     /**
      * Returns all cells that have an exit.
+     * The returned set is shared and cannot be modified.
      * @return all cells that have an exit.
      */
     public static Set<CellCoordinate> getExitCells(){
-        Set<CellCoordinate> exits = new HashSet<>();
-        exits.addAll(exitHoleCells);
-        exits.addAll(exitCells);
-        return exits;
+        return BoardTopology.getExitCells();
     }
 
-    protected Cell placeCell(CellType cellType, final CellCoordinate coordinate){
-        if(getCell(coordinate) != null){
-            throw new IllegalStateException(
-                    String.format("Cell %s (%d,%d) already set", cellType, coordinate.getRow(), coordinate.getColumn()));
+    /**
+     * Returns all cells that currently have an open hole.
+     * The returned set is shared and cannot be modified, it is rebuilt only after a hole or an exit changed.
+     * @return all cells that currently have an open hole.
+     */
+    public Set<CellCoordinate> getOpenHoleCells(){
+        refreshHoleNetwork();
+        return openHoleCells;
+    }
+
+    /**
+     * Returns all cells that currently have an open exit.
+     * The returned set is shared and cannot be modified, it is rebuilt only after a hole or an exit changed.
+     * @return all cells that currently have an open exit.
+     */
+    public Set<CellCoordinate> getOpenExitCells(){
+        refreshHoleNetwork();
+        return openExitCells;
+    }
+
+    /**
+     * Returns a counter that changes every time a hole or an exit on the board is opened or closed.
+     * Can be used to invalidate anything derived from the state of holes and exits.
+     * @return the current modification count of holes and exits.
+     */
+    public int getModificationCount(){
+        return modificationCount;
+    }
+
+    private void refreshHoleNetwork(){
+        if(cachedModificationCount == modificationCount){
+            return;
         }
 
-        Cell c = new Cell(coordinate, cellType);
-        grid[coordinate.getRow()][coordinate.getColumn()] = c;
+        openHoleCells = BoardTopology.toCoordinateSet(openHoles);
+        openExitCells = BoardTopology.toCoordinateSet(openExits);
+        cachedModificationCount = modificationCount;
+    }
 
-        return c;
+    /**
+     * Returns the number of cells that can have a hole, open or closed.
+     * @return the number of cells that can have a hole.
+     */
+    public static int getNumHoles(){
+        return BoardTopology.getNumHoles();
+    }
+
+    /**
+     * Returns the bit tracking the given hole in the hole mask.
+     * @param cellCoordinate the hole coordinates.
+     * @return the bit tracking the given hole in the hole mask, -1 if there is no hole at the given coordinates.
+     */
+    public static int getHoleBit(final CellCoordinate cellCoordinate){
+        int id = getCellId(cellCoordinate);
+        return id == -1 ? -1 : BoardTopology.getHoleBit(id);
+    }
+
+    /**
+     * Returns the coordinates of the hole tracked by the given bit in the hole mask.
+     * @param bit the bit tracking the hole.
+     * @return the coordinates of the hole tracked by the given bit.
+     */
+    public static CellCoordinate getHoleCoordinate(int bit){
+        return BoardTopology.getHoleCoordinate(bit);
+    }
+
+    /**
+     * Returns the bitmask of the currently open holes, bit i is set if the hole returned by getHoleCoordinate(i) is open.
+     * @return the bitmask of the currently open holes.
+     */
+    public int getHoleMask(){
+        return holeMask;
+    }
+
+    /**
+     * Returns the bitmask of the lamps currently ON, bit i is set if the lamp BoardTopology.getLampCell(i) is ON.
+     * @return the bitmask of the lamps currently ON.
+     */
+    public int getLampMask(){
+        return lampMask;
     }
 
     /**
-     * Initializes the board setting all cells in the correct place.
-     * Additionally, adds the exitHole cells to the set of holes AFTER everything has been placed on the board.
+     * Returns the bitmask of the currently open exits, bit i is set if the exit BoardTopology.getExitCell(i) is open.
+     * @return the bitmask of the currently open exits.
      */
-    private void initBoard(){
-        //all holes that are NOT also an exit, initially open
-        for(CellCoordinate c : holeCells){
-            placeCell(CellType.HOLE, c).flipHole();
+    public int getExitMask(){
+        return exitMask;
+    }
+
+    /**
+     * Called by a cell every time its state changes, keeps the hole mask and the bitboards in sync.
+     * Cells that are not placed on the board are ignored.
+     * @param cell the cell whose state changed.
+     */
+    void onCellChanged(final Cell cell){
+        CellCoordinate c = cell.getCellCoordinate();
+        int id = getCellId(c);
+
+        if(id == -1 || grid[c.getRow()][c.getColumn()] != cell){
+            return;
         }
 
-        //lamps are added to the array in the order they will shut off
-        int lampOffTurn = 1;
-        for(CellCoordinate c : orderedOnLampCells){
-            Cell cell = placeCell(CellType.LAMP, c);
-            cell.flipLamp();
-            cell.setLampOffTurn(lampOffTurn);
+        CharacterToken token = cell.getCharacterToken();
+        if(journal != null && (openHoles.get(id) != cell.isHoleOpen() || litLamps.get(id) != cell.isLampOn()
+                || openExits.get(id) != cell.isExitOpen() || occupants[id] != token)){
+            journal.push(JOURNAL_CELL | (long)id << JOURNAL_ID | (openHoles.get(id) ? 1L << JOURNAL_HOLE : 0)
+                    | (litLamps.get(id) ? 1L << JOURNAL_LAMP : 0) | (openExits.get(id) ? 1L << JOURNAL_EXIT : 0)
+                    | (occupants[id] == null ? 0 : (long)(occupants[id].getCharacterType().getNumVal() + 1) << JOURNAL_OCCUPANT));
+        }
 
-            lampOffTurn++;
-            
-            timedLamps.add(cell);
+        int bit = BoardTopology.getHoleBit(id);
+        if(bit != -1 && openHoles.get(id) != cell.isHoleOpen()){
+            holeMask ^= 1 << bit;
+            hash ^= Zobrist.holes(1 << bit);
+        }
+        bit = BoardTopology.getLampBit(id);
+        if(bit != -1 && litLamps.get(id) != cell.isLampOn()){
+            lampMask ^= 1 << bit;
+            hash ^= Zobrist.lamps(1 << bit);
+        }
+        bit = BoardTopology.getExitBit(id);
+        if(bit != -1 && openExits.get(id) != cell.isExitOpen()){
+            exitMask ^= 1 << bit;
+            hash ^= Zobrist.exits(1 << bit);
+        }
+        if(occupants[id] != token){
+            if(occupants[id] != null){
+                hash ^= Zobrist.position(occupants[id].getCharacterType(), id);
+            }
+            if(token != null){
+                hash ^= Zobrist.position(token.getCharacterType(), id);
+            }
         }
 
-        for(CellCoordinate c : onLampCells){
-            placeCell(CellType.LAMP, c).flipLamp();
+        if(openHoles.get(id) != cell.isHoleOpen() || openExits.get(id) != cell.isExitOpen()){
+            modificationCount++;
         }
 
-        for(CellCoordinate c : offLampCells){
-            placeCell(CellType.LAMP, c);
+        if(occupied.get(id) != (token != null)){
+            this.visibility.onOccupiedChanged(id, token != null);
+        }
+        if(litLamps.get(id) != cell.isLampOn()){
+            this.visibility.onLampChanged(id, cell.isLampOn());
+        }
+        if(token != null){
+            this.threatMatrix.onCharacterPlaced(token.getCharacterType(), id);
+            tokens[token.getCharacterType().getNumVal()] = token;
+        }
+        if(token != null && token.getCharacterType() == CharacterType.WATSON){
+            onWatsonChanged(id, token.getLampDirection());
         }
+        else if(this.visibility.getWatsonCell() == id){
+            onWatsonChanged(-1, null);
+        }
+
+        openHoles.set(id, cell.isHoleOpen());
+        litLamps.set(id, cell.isLampOn());
+        openExits.set(id, cell.isExitOpen());
+        occupied.set(id, cell.getCharacterToken() != null);
+        occupants[id] = token;
+    }
 
-        //all exits that do NOT have a hole, initially open
-        for(CellCoordinate c : exitCells){
-            placeCell(CellType.EXIT, c).flipExit();
+    //WATSON's lamp is hashed only while he is on the board
+    private void onWatsonChanged(int id, Direction d){
+        if(this.visibility.getWatsonCell() != -1){
+            hash ^= Zobrist.watson(this.visibility.getWatsonDirection());
         }
+        if(id != -1){
+            hash ^= Zobrist.watson(d);
+        }
+        this.visibility.onWatsonChanged(id, d);
+    }
+
+    /**
+     * Called by a lamp cell every time the turn after which it shuts OFF changes, keeps the hash in sync and records
+     * the change in the journal.
+     * Cells that are not placed on the board are ignored.
+     * @param cell the cell whose lamp timer changed.
+     * @param oldLampOffTurn the previous turn after which the lamp would shut OFF.
+     */
+    void onLampOffTurnChanged(final Cell cell, int oldLampOffTurn){
+        CellCoordinate c = cell.getCellCoordinate();
+        int id = getCellId(c);
 
-        //these exits have an initially blocked hole AND are also blocked by police
-        for(CellCoordinate c : exitHoleCells){
-            placeCell(CellType.EXIT_HOLE, c);
+        if(id == -1 || grid[c.getRow()][c.getColumn()] != cell || oldLampOffTurn == cell.getlampOffTurn()){
+            return;
         }
 
-        for(CellCoordinate c : houseCells){
-            placeCell(CellType.HOUSE, c);
+        int lamp = BoardTopology.getLampBit(id);
+        hash ^= Zobrist.timer(lamp, oldLampOffTurn) ^ Zobrist.timer(lamp, cell.getlampOffTurn());
+
+        if(journal != null){
+            journal.push(JOURNAL_LAMP_OFF_TURN | (long)id << JOURNAL_ID | (long)(oldLampOffTurn + 1) << JOURNAL_LAMP_OFF_TURN_VALUE);
         }
+    }
 
-        //all other cells are PLAIN
-        for(int i = 0; i < ROWS; i++){
-            for(int j = 0; j < COLUMNS; j++){
-                if(grid[i][j] == null){
-                    grid[i][j] = new Cell(new CellCoordinate(i, j), CellType.PLAIN);
+    /**
+     * Returns the Zobrist hash of the state of this board: character positions, lamps, lamp timers, holes, exits and
+     * WATSON's lamp direction. It is kept up to date by every change, see Zobrist.
+     * @return the hash of the state of this board.
+     */
+    public long getHash(){
+        return hash;
+    }
+
+    /**
+     * Calculates the hash of the state of this board from scratch, reading every cell and character.
+     * Must always be equal to getHash(), used to verify it.
+     * @return the hash of the state of this board.
+     */
+    public long computeHash(){
+        long h = 0;
+
+        for(int lamp = 0; lamp < BoardTopology.getNumLamps(); lamp++){
+            int id = BoardTopology.getLampCell(lamp);
+            Cell cell = grid[id / COLUMNS][id % COLUMNS];
+            if(cell == null ? BoardTopology.getInitialLitLamps().get(id) : cell.isLampOn()){
+                h ^= Zobrist.lamps(1 << lamp);
+            }
+            h ^= Zobrist.timer(lamp, getLampOffTurn(id));
+        }
+        for(int hole = 0; hole < BoardTopology.getNumHoles(); hole++){
+            Cell cell = grid[BoardTopology.getHoleCoordinate(hole).getRow()][BoardTopology.getHoleCoordinate(hole).getColumn()];
+            if(cell == null ? (BoardTopology.getInitialHoleMask() & 1 << hole) != 0 : cell.isHoleOpen()){
+                h ^= Zobrist.holes(1 << hole);
+            }
+        }
+        for(int exit = 0; exit < BoardTopology.getNumExits(); exit++){
+            int id = BoardTopology.getExitCell(exit);
+            Cell cell = grid[id / COLUMNS][id % COLUMNS];
+            if(cell == null ? BoardTopology.getInitialOpenExits().get(id) : cell.isExitOpen()){
+                h ^= Zobrist.exits(1 << exit);
+            }
+        }
+
+        //only the characters that actually stand on this board
+        for(CharacterToken token : tokens){
+            if(token == null){
+                continue;
+            }
+            CellCoordinate c = token.getCurrentPosition();
+            Cell cell = grid[c.getRow()][c.getColumn()];
+            if(cell != null && cell.getCharacterToken() == token){
+                h ^= Zobrist.position(token.getCharacterType(), c.getId());
+                if(token.getCharacterType() == CharacterType.WATSON){
+                    h ^= Zobrist.watson(token.getLampDirection());
                 }
             }
         }
 
+        return h;
+    }
+
+    /**
+     * Starts or stops recording the previous state of every cell that changes on this board.
+     * Each change pushes one entry on the journal, popping them in order and passing them to undoJournalEntry
+     * brings the board back to the state it had before the changes.
+     * @param journal where to record the changes, null to stop recording.
+     */
+    public void setJournal(final LongStack journal){
+        this.journal = journal;
+    }
+
+    /**
+     * Brings a cell back to the state recorded in the given journal entry, the derived state is kept in sync.
+     * Entries must be undone in the opposite order they were recorded. Nothing is recorded while undoing.
+     * @param entry the journal entry, as recorded by this board.
+     * @throws IllegalStateException if the entry was not recorded by a board.
+     */
+    public void undoJournalEntry(long entry){
+        LongStack journal = this.journal;
+        this.journal = null;
+
+        Cell cell = getCell((int)(entry >>> JOURNAL_ID) & 0xFF);
+        switch((int)entry & ((1 << JOURNAL_TYPE_BITS) - 1)){
+            case JOURNAL_CELL:
+                if(cell.isHoleOpen() != ((entry >>> JOURNAL_HOLE & 1) == 1)){
+                    cell.flipHole();
+                }
+                if(cell.isLampOn() != ((entry >>> JOURNAL_LAMP & 1) == 1)){
+                    cell.flipLamp();
+                }
+                if(cell.isExitOpen() != ((entry >>> JOURNAL_EXIT & 1) == 1)){
+                    cell.flipExit();
+                }
+                int occupant = (int)(entry >>> JOURNAL_OCCUPANT) & 0xF;
+                CharacterToken token = occupant == 0 ? null : tokens[occupant - 1];
+                if(cell.getCharacterToken() != token){
+                    cell.setCharacterToken(token);
+                }
+                break;
+            case JOURNAL_LAMP_OFF_TURN:
+                cell.setLampOffTurn(((int)(entry >>> JOURNAL_LAMP_OFF_TURN_VALUE) & 0x7) - 1);
+                break;
+            default:
+                this.journal = journal;
+                throw new IllegalStateException(String.format("Not a board journal entry %x", entry));
+        }
+
+        this.journal = journal;
+    }
+
+    /**
+     * Called by a character every time its state relevant to the board changes, eg WATSON's lamp direction.
+     * Characters that are not placed on the board are ignored.
+     * @param characterToken the character whose state changed.
+     */
+    public void onCharacterChanged(final CharacterToken characterToken){
+        CellCoordinate c = characterToken.getCurrentPosition();
+
+        if(getCellId(c) == -1){
+            return;
+        }
+
+        Cell cell = grid[c.getRow()][c.getColumn()];
+        if(cell != null && cell.getCharacterToken() == characterToken){
+            onCellChanged(cell);
+        }
+    }
+
+    /**
+     * Returns the id of the cell at the given coordinates, ids go from 0 to NUM_CELLS - 1.
+     * Same as CellCoordinate.getId.
+     * @param row the cell row.
+     * @param column the cell column.
+     * @return the id of the cell at the given coordinates, -1 if coordinates are out of the board.
+     */
+    public static int getCellId(int row, int column){
+        if(row < 0 || row >= ROWS || column < 0 || column >= COLUMNS){
+            return -1;
+        }
+        return row * COLUMNS + column;
+    }
+
+    /**
+     * Returns the id of the cell at the given coordinates, ids go from 0 to NUM_CELLS - 1.
+     * @param cellCoordinate the cell coordinates.
+     * @return the id of the cell at the given coordinates, -1 if coordinates are out of the board.
+     */
+    public static int getCellId(final CellCoordinate cellCoordinate){
+        return cellCoordinate.getId();
+    }
+
+    /**
+     * Returns the cell with the given id.
+     * Assumes id is valid.
+     * @param id the cell id.
+     * @return the cell with the given id.
+     */
+    public Cell getCell(int id){
+        return getCell(id / COLUMNS, id % COLUMNS);
+    }
+
+    /**
+     * Returns all nearby cells of the given cell, always excluding out of bounds.
+     * The returned Bitboard is shared and must NOT be modified.
+     * @param id the cell id.
+     * @param canGoThroughObstacles true if cells that normally do not allow character movement should be included (HOUSE, LAMP).
+     * @return all nearby cells of the given cell.
+     */
+    public static Bitboard getNeighborMask(int id, boolean canGoThroughObstacles){
+        return BoardTopology.getNeighborMask(id, canGoThroughObstacles);
+    }
+
+    /**
+     * Returns all nearby cells of the given cell, always excluding out of bounds.
+     * The returned set is shared and cannot be modified.
+     * @param id the cell id.
+     * @param canGoThroughObstacles true if cells that normally do not allow character movement should be included (HOUSE, LAMP).
+     * @return all nearby cells of the given cell.
+     */
+    public static Set<CellCoordinate> getNeighbors(int id, boolean canGoThroughObstacles){
+        return BoardTopology.getNeighbors(id, canGoThroughObstacles);
+    }
+
+    /**
+     * Checks whether the given cell can accept a character: it is not an obstacle and it is not occupied.
+     * @param id the cell id.
+     * @return true if a character token can be placed on the given cell.
+     */
+    public boolean canAcceptCharacter(int id){
+        return !BoardTopology.getObstacles().get(id) && !occupied.get(id);
+    }
+
+    /**
+     * A character on the given cell is visible if it is near another character or near a lit lamp.
+     * WATSON's lamp light is not considered here.
+     * @param id the cell id.
+     * @return true if a character on the given cell would be visible.
+     */
+    public boolean isNearCharacterOrLitLamp(int id){
+        Bitboard neighbors = BoardTopology.getNeighborMask(id, true);
+        return neighbors.intersects(occupied) || neighbors.intersects(litLamps);
+    }
+
+    /**
+     * All returned Bitboards are shared and must NOT be modified.
+     */
+    public static Bitboard getObstacles(){
+        return BoardTopology.getObstacles();
+    }
+
+    public Bitboard getOpenHoles(){
+        return openHoles;
+    }
+
+    public Bitboard getLitLamps(){
+        return litLamps;
+    }
+
+    public Bitboard getOpenExits(){
+        return openExits;
+    }
+
+    public Bitboard getOccupied(){
+        return occupied;
+    }
+
+    /**
+     * Returns a compact copy of the current state of the board.
+     * @return a compact copy of the current state of the board.
+     */
+    public BoardBits getBits(){
+        return new BoardBits(openHoles, litLamps, openExits, occupied);
+    }
+
+    public Visibility getVisibility(){
+        return this.visibility;
+    }
+
+    public ThreatMatrix getThreatMatrix(){
+        return this.threatMatrix;
+    }
+
+    public ExitField getExitField(){
+        return this.exitField;
+    }
+
+    /**
+     * Calculates the distance between start and end cell using the current state of the holes on this board.
+     * The calculated distance is the shortest walking path between the two cells.
+     * @param start start cell.
+     * @param end end cell.
+     * @param useHoles if true, holes can be used to quick travel.
+     * @param canGoThroughObstacles if true, the path can go through obstacles eg HOUSE and LAMP.
+     * @return the distance between the two cells or -1 if no path exists.
+     */
+    public int distance(final CellCoordinate start, final CellCoordinate end, boolean useHoles, boolean canGoThroughObstacles){
+        return PathFinder.distance(start.getId(), end.getId(), this.holeMask, useHoles, canGoThroughObstacles, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates the cell at the given coordinates with the state it currently has on this board.
+     * @param cellType the cell type.
+     * @param coordinate the cell coordinates.
+     * @return the created cell.
+     * @throws IllegalStateException if the cell was already created.
+     */
+    protected Cell placeCell(CellType cellType, final CellCoordinate coordinate){
+        if(grid[coordinate.getRow()][coordinate.getColumn()] != null){
+            throw new IllegalStateException(
+                    String.format("Cell %s (%d,%d) already set", cellType, coordinate.getRow(), coordinate.getColumn()));
+        }
+
+        int id = getCellId(coordinate);
+        Cell c = new Cell(this, coordinate, cellType, openExits.get(id), openHoles.get(id), litLamps.get(id),
+                BoardTopology.getInitialLampOffTurn(id));
+        grid[coordinate.getRow()][coordinate.getColumn()] = c;
+
+        return c;
     }
 
     /**
@@ -308,7 +698,7 @@ public class Board {
      *  /###\ 0,1 /###\ 0,3 /   \ 0,5 /   \ 0,7 /###\ 0,9 /###\ 0,11/###\
      * /#### \___/#### \___/ WG  \___/     \___/#### \___/#### \___/#### \ 1
      */
-    public static void printBoard(){
+    public void printBoard(){
         //print column numbers of the grid for user reference
         for(int j = 0; j < COLUMNS; j++){
             System.out.print(String.format("%2c%-3d", ' ', j));
@@ -347,7 +737,7 @@ public class Board {
                     }
 
                     //then we print the cell content of THIS hexagon
-                    grid[i][j].printCellContent();
+                    getCell(i, j).printCellContent();
                 }
 
                 //print last output column
@@ -366,7 +756,7 @@ public class Board {
                     System.out.print(" \\___/");
 
                     //then print, if any, the character in THIS hexagon
-                    grid[i][j].printCellCharacter();
+                    getCell(i, j).printCellCharacter();
                 }
 
                 //print ROW numbers at end of the row for user reference
@@ -385,7 +775,7 @@ public class Board {
                     System.out.print("/");
 
                     //print content of THIS hexagon
-                    grid[i][j].printCellContent();
+                    getCell(i, j).printCellContent();
 
                     //then print coordinates of NEXT hexagon
                     if(j != 12){
@@ -402,7 +792,7 @@ public class Board {
                     System.out.print("/");
 
                     //print content of THIS hexagon
-                    grid[i][j].printCellCharacter();
+                    getCell(i, j).printCellCharacter();
 
                     //then close bottom of NEXT hexagon
                     System.out.print(" \\");
@@ -0,0 +1,51 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+/**
+ * Immutable copy of the state of the board as bitboards: open holes, lit lamps, open exits and occupied cells.
+ * Together with the character positions, this is all the mutable state of the board, in 16 longs.
+ * Can be compared and used as key.
+ */
+public final class BoardBits {
+
+    private final Bitboard openHoles, litLamps, openExits, occupied;
+
+    public BoardBits(final Bitboard openHoles, final Bitboard litLamps, final Bitboard openExits, final Bitboard occupied){
+        this.openHoles = new Bitboard(openHoles);
+        this.litLamps = new Bitboard(litLamps);
+        this.openExits = new Bitboard(openExits);
+        this.occupied = new Bitboard(occupied);
+    }
+
+    public boolean isHoleOpen(int id){
+        return this.openHoles.get(id);
+    }
+
+    public boolean isLampOn(int id){
+        return this.litLamps.get(id);
+    }
+
+    public boolean isExitOpen(int id){
+        return this.openExits.get(id);
+    }
+
+    public boolean isOccupied(int id){
+        return this.occupied.get(id);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = this.openHoles.hashCode();
+        h = h * 31 + this.litLamps.hashCode();
+        h = h * 31 + this.openExits.hashCode();
+        return h * 31 + this.occupied.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof BoardBits)) return false;
+        BoardBits other = (BoardBits)o;
+        return this.openHoles.equals(other.openHoles) && this.litLamps.equals(other.litLamps) &&
+                this.openExits.equals(other.openExits) && this.occupied.equals(other.occupied);
+    }
+}
@@ -0,0 +1,484 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import com.blogspot.groglogs.mrjack.structures.enums.CellType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.blogspot.groglogs.mrjack.structures.board.Board.COLUMNS;
+import static com.blogspot.groglogs.mrjack.structures.board.Board.NUM_CELLS;
+
+/**
+ * The fixed layout of the board: cell types, adjacency, lamp positions, timed lamps order and the initial state of
+ * lamps, holes and exits.
+ * The layout never changes during a game and is the same for every game, so it is built once and shared by all boards
+ * and threads. A Board only carries the state that changes on top of it.
+ * Cell ids are assigned by Board.getCellId.
+ */
+public final class BoardTopology {
+
+    /////// INITIAL BOARD STATE /////////
+
+    //we use sets for these to make handling easier later on since we query them often
+    //location of all holes that are NOT on an exit, they are open
+    static final Set<CellCoordinate> holeCells = new HashSet<>();
+    //location of all exists that do NOT have a hole, they are open
+    static final Set<CellCoordinate> exitCells = new HashSet<>();
+    //location of all exists that DO have a hole, both exit and hole are closed
+    static final Set<CellCoordinate> exitHoleCells = new HashSet<>();
+    static {
+        //holes
+        holeCells.add(CellCoordinate.of(0,5));
+        holeCells.add(CellCoordinate.of(4,1));
+        holeCells.add(CellCoordinate.of(7,10));
+        holeCells.add(CellCoordinate.of(9,2));
+        holeCells.add(CellCoordinate.of(9,6));
+        holeCells.add(CellCoordinate.of(12,11));
+        holeCells.add(CellCoordinate.of(16,7));
+        //exits
+        exitCells.add(CellCoordinate.of(2,1));
+        exitCells.add(CellCoordinate.of(14,11));
+        //exits with holes
+        exitHoleCells.add(CellCoordinate.of(2,11));
+        exitHoleCells.add(CellCoordinate.of(14,1));
+    }
+
+    //location of all lamps that are on a timer
+    //lamps are added to the array in the order they will shut off
+    static final CellCoordinate[] orderedOnLampCells = new CellCoordinate[]{
+            CellCoordinate.of(12,1),
+            CellCoordinate.of(4,11),
+            CellCoordinate.of(3,2),
+            CellCoordinate.of(13,10)
+    };
+
+    //location of all lamps that are ON and NOT on a timer
+    static final CellCoordinate[] onLampCells = new CellCoordinate[]{
+            CellCoordinate.of(6,7),
+            CellCoordinate.of(10,5)
+    };
+
+    //location of all lamps that are OFF
+    static final CellCoordinate[] offLampCells = new CellCoordinate[]{
+            CellCoordinate.of(2,5),
+            CellCoordinate.of(14,7)
+    };
+
+    //location of all houses
+    static final CellCoordinate[] houseCells = new CellCoordinate[]{
+            CellCoordinate.of(2,3),
+            CellCoordinate.of(4,5),
+            CellCoordinate.of(4,7),
+            CellCoordinate.of(6,1),
+            CellCoordinate.of(6,3),
+            CellCoordinate.of(6,9),
+            CellCoordinate.of(7,2),
+            CellCoordinate.of(8,1),
+            CellCoordinate.of(8,5),
+            CellCoordinate.of(8,7),
+            CellCoordinate.of(8,11),
+            CellCoordinate.of(9,10),
+            CellCoordinate.of(10,3),
+            CellCoordinate.of(10,9),
+            CellCoordinate.of(10,11),
+            CellCoordinate.of(12,5),
+            CellCoordinate.of(12,7),
+            CellCoordinate.of(14,9),
+            //these are all border houses
+            CellCoordinate.of(0,3),
+            CellCoordinate.of(3,0),
+            CellCoordinate.of(1,12),
+            CellCoordinate.of(0,1),
+            CellCoordinate.of(1,0),
+            CellCoordinate.of(1,2),
+            CellCoordinate.of(0,7),
+            CellCoordinate.of(0,9),
+            CellCoordinate.of(0,11),
+            CellCoordinate.of(1,10),
+            CellCoordinate.of(2,9),
+            CellCoordinate.of(1,8),
+            CellCoordinate.of(16,1),
+            CellCoordinate.of(15,0),
+            CellCoordinate.of(15,2),
+            CellCoordinate.of(14,3),
+            CellCoordinate.of(16,3),
+            CellCoordinate.of(15,4),
+            CellCoordinate.of(16,5),
+            CellCoordinate.of(16,9),
+            CellCoordinate.of(15,10),
+            CellCoordinate.of(16,11),
+            CellCoordinate.of(15,12),
+            CellCoordinate.of(13,12)
+
+    };
+    /////// END INITIAL BOARD STATE /////////
+
+    //location of all cells with a hole, open or closed, sorted by row then column
+    //the position of a hole in this array is the bit used to track it in the hole mask
+    static final CellCoordinate[] orderedHoleCells;
+    //location of all cells with a hole and of all cells with an exit, open or closed
+    private static final Set<CellCoordinate> allHoleCells;
+    private static final Set<CellCoordinate> allExitCells;
+    static {
+        List<CellCoordinate> holes = new ArrayList<>(holeCells);
+        holes.addAll(exitHoleCells);
+        holes.sort(Comparator.comparingInt(CellCoordinate::getRow).thenComparingInt(CellCoordinate::getColumn));
+        orderedHoleCells = holes.toArray(new CellCoordinate[0]);
+        allHoleCells = Collections.unmodifiableSet(new HashSet<>(holes));
+
+        Set<CellCoordinate> exits = new HashSet<>(exitCells);
+        exits.addAll(exitHoleCells);
+        allExitCells = Collections.unmodifiableSet(exits);
+    }
+
+    //for each cell id, its type and the bit tracking it in the hole, lamp and exit masks, -1 if it has none
+    private static final CellType[] cellTypes = new CellType[NUM_CELLS];
+    private static final int[] holeBits = new int[NUM_CELLS];
+    private static final int[] lampBits = new int[NUM_CELLS];
+    private static final int[] exitBits = new int[NUM_CELLS];
+    //ids of all lamps and of all exits, the position of a cell in these arrays is the bit used to track it in the masks
+    private static final int[] lampCells;
+    private static final int[] exitCellIds;
+    //ids of the lamps on a timer in the order they will shut off
+    private static final int[] timedLamps = new int[orderedOnLampCells.length];
+    //for each cell id, the turn after which its lamp shuts OFF at the start of the game, -1 if not on a timer
+    private static final int[] initialLampOffTurns = new int[NUM_CELLS];
+    //state of the cells at the start of the game
+    private static final Bitboard initialOpenHoles = new Bitboard();
+    private static final Bitboard initialLitLamps = new Bitboard();
+    private static final Bitboard initialOpenExits = new Bitboard();
+    private static final int initialHoleMask, initialLampMask, initialExitMask;
+    static {
+        for(int id = 0; id < NUM_CELLS; id++){
+            cellTypes[id] = CellType.PLAIN;
+            holeBits[id] = -1;
+            lampBits[id] = -1;
+            exitBits[id] = -1;
+            initialLampOffTurns[id] = -1;
+        }
+
+        //all holes that are NOT also an exit, initially open
+        for(CellCoordinate c : holeCells){
+            cellTypes[c.getId()] = CellType.HOLE;
+            initialOpenHoles.set(c.getId(), true);
+        }
+
+        for(int i = 0; i < orderedOnLampCells.length; i++){
+            int id = orderedOnLampCells[i].getId();
+            cellTypes[id] = CellType.LAMP;
+            initialLitLamps.set(id, true);
+            initialLampOffTurns[id] = i + 1;
+            timedLamps[i] = id;
+        }
+
+        for(CellCoordinate c : onLampCells){
+            cellTypes[c.getId()] = CellType.LAMP;
+            initialLitLamps.set(c.getId(), true);
+        }
+
+        for(CellCoordinate c : offLampCells){
+            cellTypes[c.getId()] = CellType.LAMP;
+        }
+
+        //all exits that do NOT have a hole, initially open
+        for(CellCoordinate c : exitCells){
+            cellTypes[c.getId()] = CellType.EXIT;
+            initialOpenExits.set(c.getId(), true);
+        }
+
+        //these exits have an initially blocked hole AND are also blocked by police
+        for(CellCoordinate c : exitHoleCells){
+            cellTypes[c.getId()] = CellType.EXIT_HOLE;
+        }
+
+        for(CellCoordinate c : houseCells){
+            cellTypes[c.getId()] = CellType.HOUSE;
+        }
+
+        int mask = 0;
+        for(int bit = 0; bit < orderedHoleCells.length; bit++){
+            int id = orderedHoleCells[bit].getId();
+            holeBits[id] = bit;
+            if(initialOpenHoles.get(id)){
+                mask |= 1 << bit;
+            }
+        }
+        initialHoleMask = mask;
+
+        List<Integer> lamps = new ArrayList<>();
+        List<Integer> exits = new ArrayList<>();
+        for(int id = 0; id < NUM_CELLS; id++){
+            if(cellTypes[id] == CellType.LAMP){
+                lamps.add(id);
+            }
+            if(cellTypes[id] == CellType.EXIT || cellTypes[id] == CellType.EXIT_HOLE){
+                exits.add(id);
+            }
+        }
+
+        lampCells = new int[lamps.size()];
+        mask = 0;
+        for(int bit = 0; bit < lampCells.length; bit++){
+            lampCells[bit] = lamps.get(bit);
+            lampBits[lampCells[bit]] = bit;
+            if(initialLitLamps.get(lampCells[bit])){
+                mask |= 1 << bit;
+            }
+        }
+        initialLampMask = mask;
+
+        exitCellIds = new int[exits.size()];
+        mask = 0;
+        for(int bit = 0; bit < exitCellIds.length; bit++){
+            exitCellIds[bit] = exits.get(bit);
+            exitBits[exitCellIds[bit]] = bit;
+            if(initialOpenExits.get(exitCellIds[bit])){
+                mask |= 1 << bit;
+            }
+        }
+        initialExitMask = mask;
+    }
+
+    //all HOUSE and LAMP cells, they never change
+    private static final Bitboard obstacles = new Bitboard();
+    //for each cell id, all nearby cells and only the nearby cells that are not obstacles
+    private static final Bitboard[] neighborMasks = new Bitboard[NUM_CELLS];
+    private static final Bitboard[] walkableNeighborMasks = new Bitboard[NUM_CELLS];
+    //same as the neighbor masks, as immutable sets of coordinates
+    private static final List<Set<CellCoordinate>> neighborSets = new ArrayList<>(NUM_CELLS);
+    private static final List<Set<CellCoordinate>> walkableNeighborSets = new ArrayList<>(NUM_CELLS);
+    static {
+        for(int id = 0; id < NUM_CELLS; id++){
+            if(cellTypes[id] == CellType.HOUSE || cellTypes[id] == CellType.LAMP){
+                obstacles.set(id, true);
+            }
+        }
+
+        for(int id = 0; id < NUM_CELLS; id++){
+            neighborMasks[id] = new Bitboard();
+            for(CellCoordinate delta : Cell.getNearbyCells().values()){
+                int neighbor = Board.getCellId(id / COLUMNS + delta.getRow(), id % COLUMNS + delta.getColumn());
+                if(neighbor != -1){
+                    neighborMasks[id].set(neighbor, true);
+                }
+            }
+
+            walkableNeighborMasks[id] = new Bitboard(neighborMasks[id]);
+            walkableNeighborMasks[id].andNot(obstacles);
+
+            neighborSets.add(toCoordinateSet(neighborMasks[id]));
+            walkableNeighborSets.add(toCoordinateSet(walkableNeighborMasks[id]));
+        }
+    }
+
+    private BoardTopology(){
+    }
+
+    /**
+     * Returns the type of the cell with the given id.
+     * @param id the cell id.
+     * @return the type of the cell with the given id.
+     */
+    public static CellType getCellType(int id){
+        return cellTypes[id];
+    }
+
+    /**
+     * Returns the bit tracking the hole on the given cell in the hole mask.
+     * @param id the cell id.
+     * @return the bit tracking the hole on the given cell, -1 if the cell has no hole.
+     */
+    public static int getHoleBit(int id){
+        return holeBits[id];
+    }
+
+    /**
+     * Returns the coordinates of the hole tracked by the given bit in the hole mask.
+     * @param bit the bit tracking the hole.
+     * @return the coordinates of the hole tracked by the given bit.
+     */
+    public static CellCoordinate getHoleCoordinate(int bit){
+        return orderedHoleCells[bit];
+    }
+
+    /**
+     * Returns the number of cells that can have a hole, open or closed.
+     * @return the number of cells that can have a hole.
+     */
+    public static int getNumHoles(){
+        return orderedHoleCells.length;
+    }
+
+    /**
+     * Returns the bit tracking the lamp on the given cell in the lamp mask, lamps are ordered by cell id.
+     * @param id the cell id.
+     * @return the bit tracking the lamp on the given cell, -1 if the cell has no lamp.
+     */
+    public static int getLampBit(int id){
+        return lampBits[id];
+    }
+
+    /**
+     * Returns the lamp tracked by the given bit in the lamp mask.
+     * @param bit the bit tracking the lamp.
+     * @return the cell id of the lamp.
+     */
+    public static int getLampCell(int bit){
+        return lampCells[bit];
+    }
+
+    /**
+     * Returns the number of lamps on the board, ON or OFF.
+     * @return the number of lamps on the board.
+     */
+    public static int getNumLamps(){
+        return lampCells.length;
+    }
+
+    /**
+     * Returns the bit tracking the exit on the given cell in the exit mask, exits are ordered by cell id.
+     * @param id the cell id.
+     * @return the bit tracking the exit on the given cell, -1 if the cell has no exit.
+     */
+    public static int getExitBit(int id){
+        return exitBits[id];
+    }
+
+    /**
+     * Returns the exit tracked by the given bit in the exit mask.
+     * @param bit the bit tracking the exit.
+     * @return the cell id of the exit.
+     */
+    public static int getExitCell(int bit){
+        return exitCellIds[bit];
+    }
+
+    /**
+     * Returns the number of exits on the board, open or blocked.
+     * @return the number of exits on the board.
+     */
+    public static int getNumExits(){
+        return exitCellIds.length;
+    }
+
+    /**
+     * Returns all cells that have a hole.
+     * The returned set is shared and cannot be modified.
+     * @return all cells that have a hole.
+     */
+    public static Set<CellCoordinate> getHoleCells(){
+        return allHoleCells;
+    }
+
+    /**
+     * Returns all cells that have an exit.
+     * The returned set is shared and cannot be modified.
+     * @return all cells that have an exit.
+     */
+    public static Set<CellCoordinate> getExitCells(){
+        return allExitCells;
+    }
+
+    /**
+     * Returns the number of lamps on a timer.
+     * @return the number of lamps on a timer.
+     */
+    public static int getNumTimedLamps(){
+        return timedLamps.length;
+    }
+
+    /**
+     * Returns the lamp on a timer that shuts OFF in the given position of the order.
+     * @param index the position in the order the lamps shut OFF, starting from 0.
+     * @return the cell id of the lamp.
+     */
+    public static int getTimedLamp(int index){
+        return timedLamps[index];
+    }
+
+    /**
+     * Returns the turn after which the lamp on the given cell shuts OFF at the start of the game.
+     * @param id the cell id.
+     * @return the turn after which the lamp shuts OFF, -1 if the lamp is not on a timer.
+     */
+    public static int getInitialLampOffTurn(int id){
+        return initialLampOffTurns[id];
+    }
+
+    /**
+     * Returns the bitmask of the holes open at the start of the game, see Board.getHoleMask.
+     * @return the bitmask of the holes open at the start of the game.
+     */
+    public static int getInitialHoleMask(){
+        return initialHoleMask;
+    }
+
+    /**
+     * Returns the bitmask of the lamps ON at the start of the game, see Board.getLampMask.
+     * @return the bitmask of the lamps ON at the start of the game.
+     */
+    public static int getInitialLampMask(){
+        return initialLampMask;
+    }
+
+    /**
+     * Returns the bitmask of the exits open at the start of the game, see Board.getExitMask.
+     * @return the bitmask of the exits open at the start of the game.
+     */
+    public static int getInitialExitMask(){
+        return initialExitMask;
+    }
+
+    /**
+     * All returned Bitboards are shared and must NOT be modified.
+     */
+    public static Bitboard getInitialOpenHoles(){
+        return initialOpenHoles;
+    }
+
+    public static Bitboard getInitialLitLamps(){
+        return initialLitLamps;
+    }
+
+    public static Bitboard getInitialOpenExits(){
+        return initialOpenExits;
+    }
+
+    public static Bitboard getObstacles(){
+        return obstacles;
+    }
+
+    /**
+     * Returns all nearby cells of the given cell, always excluding out of bounds.
+     * The returned Bitboard is shared and must NOT be modified.
+     * @param id the cell id.
+     * @param canGoThroughObstacles true if cells that normally do not allow character movement should be included (HOUSE, LAMP).
+     * @return all nearby cells of the given cell.
+     */
+    public static Bitboard getNeighborMask(int id, boolean canGoThroughObstacles){
+        return canGoThroughObstacles ? neighborMasks[id] : walkableNeighborMasks[id];
+    }
+
+    /**
+     * Returns all nearby cells of the given cell, always excluding out of bounds.
+     * The returned set is shared and cannot be modified.
+     * @param id the cell id.
+     * @param canGoThroughObstacles true if cells that normally do not allow character movement should be included (HOUSE, LAMP).
+     * @return all nearby cells of the given cell.
+     */
+    public static Set<CellCoordinate> getNeighbors(int id, boolean canGoThroughObstacles){
+        return canGoThroughObstacles ? neighborSets.get(id) : walkableNeighborSets.get(id);
+    }
+
+    static Set<CellCoordinate> toCoordinateSet(final Bitboard cells){
+        Set<CellCoordinate> coordinates = new HashSet<>();
+        for(int id = cells.nextSetBit(0); id >= 0; id = cells.nextSetBit(id + 1)){
+            coordinates.add(CellCoordinate.of(id));
+        }
+        return Collections.unmodifiableSet(coordinates);
+    }
+}
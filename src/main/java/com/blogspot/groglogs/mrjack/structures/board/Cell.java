@@ -42,6 +42,8 @@ public class Cell {
         return nearbyCells;
     }
 
+    //the board this cell is placed on, null if this cell is not on a board
+    private final Board board;
     private final CellCoordinate cellCoordinate;
     private final CellType cellType;
     private boolean isExitOpen, isHoleOpen, isLampOn;
@@ -57,12 +59,41 @@ public class Cell {
      * @param cellType
      */
     public Cell(final CellCoordinate cellCoordinate, CellType cellType){
+        this(null, cellCoordinate, cellType);
+    }
+
+    /**
+     * Creates a Cell with the given coordinate and type placed on the given board.
+     * Every change to this cell is reported to the board.
+     * @param board the board this cell is placed on.
+     * @param cellCoordinate
+     * @param cellType
+     */
+    Cell(final Board board, final CellCoordinate cellCoordinate, CellType cellType){
+        this(board, cellCoordinate, cellType, false, false, false, -1);
+    }
+
+    /**
+     * Creates a Cell with the given coordinate, type and state placed on the given board.
+     * The board is NOT notified, the given state must already match the board state.
+     * Sets NO character in this cell.
+     * @param board the board this cell is placed on.
+     * @param cellCoordinate
+     * @param cellType
+     * @param isExitOpen
+     * @param isHoleOpen
+     * @param isLampOn
+     * @param lampOffTurn
+     */
+    Cell(final Board board, final CellCoordinate cellCoordinate, CellType cellType, boolean isExitOpen,
+         boolean isHoleOpen, boolean isLampOn, int lampOffTurn){
+        this.board = board;
         this.cellCoordinate = cellCoordinate;
         this.cellType = cellType;
-        this.isExitOpen = false;
-        this.isHoleOpen = false;
-        this.isLampOn = false;
-        this.lampOffTurn = -1;
+        this.isExitOpen = isExitOpen;
+        this.isHoleOpen = isHoleOpen;
+        this.isLampOn = isLampOn;
+        this.lampOffTurn = lampOffTurn;
         this.characterToken = null;
     }
 
@@ -115,32 +146,12 @@ public class Cell {
 
     /**
      * Returns nearby cells always excluding out of bounds.
+     * The board layout never changes, so the returned set is shared and cannot be modified.
      * @param canGoThroughObstacles true if cells that normally do not allow character movement should be included (HOUSE, LAMP).
      * @return valid nearby cells to this one, given the specific input criteria.
      */
     public Set<CellCoordinate> getNeighbors(boolean canGoThroughObstacles){
-        Set<CellCoordinate> destinations = new HashSet<>();
-
-        for(CellCoordinate delta : nearbyCells.values()){
-            //always invalid cells
-            if(this.cellCoordinate.getRow() + delta.getRow() < 0 ||
-                    this.cellCoordinate.getRow() + delta.getRow() >= Board.ROWS ||
-                    this.cellCoordinate.getColumn() + delta.getColumn() < 0 ||
-                    this.cellCoordinate.getColumn() + delta.getColumn() >= Board.COLUMNS
-            ){
-                continue;
-            }
-
-            Cell dest = Board.getCell(this.cellCoordinate.getRow() + delta.getRow(), this.cellCoordinate.getColumn() + delta.getColumn());
-            
-            //skip cell if it's an obstacle and we are not allowed to go through them
-            if(!canGoThroughObstacles && !dest.canCharacterMoveThrough()){
-                continue;
-            }
-            
-            destinations.add(dest.getCellCoordinate());
-        }
-        return destinations;
+        return Board.getNeighbors(this.cellCoordinate.getId(), canGoThroughObstacles);
     }
 
     /**
@@ -154,16 +165,15 @@ public class Cell {
             return holes;
         }
 
-        //collect all valid exit holes, exclude this cell and blocked holes
-        for(CellCoordinate c : Board.getHoleCells()){
-            Cell dest = Board.getCell(c);
-            if(c.equals(this.cellCoordinate) || !dest.isHoleOpen()){
-                continue;
-            }
-
-            holes.add(c);
+        //a cell that is not on a board is not connected to anything
+        if(this.board == null){
+            return holes;
         }
 
+        //all open holes are tracked by the board, exclude this cell
+        holes.addAll(this.board.getOpenHoleCells());
+        holes.remove(this.cellCoordinate);
+
         return holes;
     }
 
@@ -193,6 +203,7 @@ public class Cell {
     public void flipExit(){
         this.checkIsValidCell(CellType.EXIT, CellType.EXIT_HOLE);
         this.isExitOpen = !this.isExitOpen;
+        this.notifyBoard();
     }
 
     /**
@@ -201,6 +212,7 @@ public class Cell {
     public void flipHole(){
         this.checkIsValidCell(CellType.HOLE, CellType.EXIT_HOLE);
         this.isHoleOpen = !this.isHoleOpen;
+        this.notifyBoard();
     }
 
     /**
@@ -209,6 +221,13 @@ public class Cell {
     public void flipLamp(){
         this.checkIsValidCell(CellType.LAMP);
         this.isLampOn = !this.isLampOn;
+        this.notifyBoard();
+    }
+
+    private void notifyBoard(){
+        if(this.board != null){
+            this.board.onCellChanged(this);
+        }
     }
 
     /**
@@ -216,7 +235,11 @@ public class Cell {
      */
     public void setLampOffTurn(int lampOffTurn){
         this.checkIsValidCell(CellType.LAMP);
+        int oldLampOffTurn = this.lampOffTurn;
         this.lampOffTurn = lampOffTurn;
+        if(this.board != null){
+            this.board.onLampOffTurnChanged(this, oldLampOffTurn);
+        }
     }
 
     /**
@@ -229,6 +252,7 @@ public class Cell {
         this.checkIsValidCell(CellType.PLAIN, CellType.HOLE, CellType.EXIT, CellType.EXIT_HOLE);
 
         this.characterToken = characterToken;
+        this.notifyBoard();
 
         if(characterToken != null) {
             this.characterToken.setCurrentPosition(this.cellCoordinate);
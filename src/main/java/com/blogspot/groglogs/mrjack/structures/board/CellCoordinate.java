@@ -1,23 +1,61 @@
 package com.blogspot.groglogs.mrjack.structures.board;
 
 import com.blogspot.groglogs.mrjack.input.Stdinputter;
-import com.blogspot.groglogs.mrjack.structures.common.Pair;
-
-import java.util.ArrayDeque;
-import java.util.HashSet;
-import java.util.Objects;
-import java.util.Queue;
-import java.util.Set;
 
 /**
  * Represents the coordinates of a cell.
+ * Coordinates of cells on the board are interned: CellCoordinate.of always returns the same instance for the same cell,
+ * so handling them allocates nothing and equality is usually decided by identity.
+ * The constructor is still available for coordinates that are not cells, eg deltas between cells.
  */
 public class CellCoordinate {
-    private int row, column;
+
+    //one canonical instance per cell on the board, indexed by cell id
+    private static final CellCoordinate[] cells = new CellCoordinate[Board.NUM_CELLS];
+    static {
+        for(int id = 0; id < Board.NUM_CELLS; id++){
+            cells[id] = new CellCoordinate(id / Board.COLUMNS, id % Board.COLUMNS);
+        }
+    }
+
+    private final int row, column;
+    //dense id of the cell, -1 if these coordinates are out of the board
+    private final int id;
 
     public CellCoordinate(int row, int column){
         this.row = row;
         this.column = column;
+
+        if(row < 0 || row >= Board.ROWS || column < 0 || column >= Board.COLUMNS){
+            this.id = -1;
+        }
+        else {
+            this.id = row * Board.COLUMNS + column;
+        }
+    }
+
+    /**
+     * Returns the canonical coordinates of the given cell.
+     * If the coordinates are out of the board, a new non canonical instance is returned.
+     * @param row the cell row.
+     * @param column the cell column.
+     * @return the canonical coordinates of the given cell.
+     */
+    public static CellCoordinate of(int row, int column){
+        if(row < 0 || row >= Board.ROWS || column < 0 || column >= Board.COLUMNS){
+            return new CellCoordinate(row, column);
+        }
+        return cells[row * Board.COLUMNS + column];
+    }
+
+    /**
+     * Returns the canonical coordinates of the cell with the given id.
+     * Assumes id is valid.
+     * @param id the cell id.
+     * @return the canonical coordinates of the cell with the given id.
+     */
+    public static CellCoordinate of(int id){
+        return cells[id];
     }
 
     public int getRow(){
@@ -29,89 +67,80 @@ public class CellCoordinate {
     }
 
     /**
-     * Method used to prompt the user for a valid pair of coordinates.
-     * Keeps asking for valid input until a proper set of coordinates can be retrieved.
-     * @return the user input coordinates.
+     * Returns the dense id of this cell, ids go from 0 to Board.NUM_CELLS - 1.
+     * @return the id of this cell, -1 if these coordinates are out of the board.
      */
-    public static CellCoordinate askInputCoordinate(){
-        int row = Stdinputter.getIntInput(0, Board.ROWS - 1, "Input row: ", "Invalid row");
-        int column = Stdinputter.getIntInput(0, Board.COLUMNS - 1, "Input column: ", "Invalid column");
-        return new CellCoordinate(row,column);
+    public int getId(){
+        return this.id;
     }
 
     /**
-     * Calculates the distance between start and end cell without crossing obstacles and using holes.
-     * The calculated distance is the shortest walking path between the two cells.
+     * Returns the q axial hex coordinate of this cell.
+     * Axial coordinates turn the offset grid of the board into a hex grid where each of the six neighbors differs by
+     * one step along q, r or the implicit third axis s = -q - r.
+     * @return the q axial coordinate of this cell.
+     */
+    public int getAxialQ(){
+        return this.column;
+    }
+
+    /**
+     * Returns the r axial hex coordinate of this cell, see getAxialQ.
+     * @return the r axial coordinate of this cell.
+     */
+    public int getAxialR(){
+        //moving North is two rows up, moving NE is one row up and one column right
+        return Math.floorDiv(this.row - this.column, 2);
+    }
+
+    /**
+     * Calculates in constant time the distance between start and end cell when the path can go through obstacles and
+     * holes are not used.
+     * Without obstacles the board is a plain hex grid, and a shortest path between two cells never needs to leave the
+     * rectangle having them as corners, so the distance is the hex distance in axial coordinates.
+     * Cells whose row + column parity differs are never connected.
      * @param start start cell.
      * @param end end cell.
      * @return the distance between the two cells or -1 if no path exists.
      */
-    public static int distance(final CellCoordinate start, final CellCoordinate end){
-        return CellCoordinate.distance(start, end, false, false);
+    public static int hexDistance(final CellCoordinate start, final CellCoordinate end){
+        if(((start.row + start.column - end.row - end.column) & 1) != 0){
+            return -1;
+        }
+
+        int dq = end.getAxialQ() - start.getAxialQ();
+        int dr = end.getAxialR() - start.getAxialR();
+
+        return (Math.abs(dq) + Math.abs(dr) + Math.abs(dq + dr)) / 2;
     }
 
     /**
-     * Calculates the distance between start and end cell.
+     * Method used to prompt the user for a valid pair of coordinates.
+     * Keeps asking for valid input until a proper set of coordinates can be retrieved.
+     * @param input the input of the current game.
+     * @return the user input coordinates.
+     */
+    public static CellCoordinate askInputCoordinate(final Stdinputter input){
+        int row = input.getIntInput(0, Board.ROWS - 1, "Input row: ", "Invalid row");
+        int column = input.getIntInput(0, Board.COLUMNS - 1, "Input column: ", "Invalid column");
+        return CellCoordinate.of(row, column);
+    }
+
+    /**
+     * Calculates the distance between start and end cell without crossing obstacles and using holes.
      * The calculated distance is the shortest walking path between the two cells.
      * @param start start cell.
      * @param end end cell.
-     * @param useHoles if true, holes can be used to quick travel.
-     * @param canGoThroughObstacles if true, the path can go through obstacles eg HOUSE and LAMP.
      * @return the distance between the two cells or -1 if no path exists.
      */
-    public static int distance(final CellCoordinate start, final CellCoordinate end, boolean useHoles, boolean canGoThroughObstacles){
-        Set<CellCoordinate> visited = new HashSet<>();
-        Queue<Pair<CellCoordinate,Integer>> cellsToVisit = new ArrayDeque<>();
-
-        Pair<CellCoordinate, Integer> init = new Pair<>(start, 0);
-
-        cellsToVisit.add(init);
-
-        while(!cellsToVisit.isEmpty()){
-            Pair<CellCoordinate, Integer> currPosition = cellsToVisit.poll();
-
-            //have we reached our destination?
-            if(currPosition.getFirst().equals(end)){
-                return currPosition.getSecond();
-            }
-
-            if(visited.contains(currPosition.getFirst())){
-                continue;
-            }
-
-            visited.add(currPosition.getFirst());
-
-            Cell cell = Board.getCell(currPosition.getFirst());
-
-            //visit all neighbors next
-            Set<CellCoordinate> neighbors = cell.getNeighbors(canGoThroughObstacles);
-
-            for(CellCoordinate c : neighbors){
-                if(!visited.contains(c)){
-                    Pair<CellCoordinate, Integer> nextCoordinate = new Pair<>(c, currPosition.getSecond() + 1);
-                    cellsToVisit.add(nextCoordinate);
-                }
-            }
-
-            //if we are on an open hole, and can use it, visit all valid connected destinations too
-            //going into a hole counts as a movement point
-            if(useHoles) {
-                Set<CellCoordinate> connectedHoles = cell.getConnectedHoles();
-                for (CellCoordinate c : connectedHoles) {
-                    if (!visited.contains(c)) {
-                        Pair<CellCoordinate, Integer> nextCoordinate = new Pair<>(c, currPosition.getSecond() + 1);
-                        cellsToVisit.add(nextCoordinate);
-                    }
-                }
-            }
-        }
-
-        return -1;
+    public static int distance(final CellCoordinate start, final CellCoordinate end){
+        return PathFinder.distance(start, end);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.row, this.column);
+        //unique for all cells on the board
+        return this.row * Board.COLUMNS + this.column;
     }
 
     @Override
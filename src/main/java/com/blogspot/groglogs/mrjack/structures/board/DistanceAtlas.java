@@ -0,0 +1,192 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Precomputed shortest path tables for the game board, turning distance queries into an array lookup.
+ * The board layout never changes, only the open/closed state of the holes does, therefore we keep:
+ * - one walking table (no holes) for each movement mode: normal and through obstacles.
+ * - one table using holes for each movement mode and each combination of open holes, selected by Board.getHoleMask().
+ * Walking tables are built once, hole tables are built the first time their hole combination is queried.
+ *
+ * Each table stores the distance between any two cells of the grid at index: start id * NUM_CELLS + end id,
+ * where the id of a cell is given by Board.getCellId. Unreachable cells have distance -1.
+ *
+ * Travelling through holes never needs more than one jump: all open holes are connected to each other, so two jumps
+ * can always be replaced by a single one. The shortest path using holes is therefore the minimum between the walking
+ * distance and: walking distance to the nearest open hole + 1 + walking distance from the nearest open hole.
+ */
+public final class DistanceAtlas {
+
+    private static final int NUM_CELLS = Board.NUM_CELLS;
+    private static final int UNREACHABLE = -1;
+    //no distance on the board can reach this
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    //index 0 is normal movement, index 1 is through obstacles
+    private static final byte[][] walkTables = new byte[2][];
+    //index is: holeMask * 2 + movement mode
+    private static final AtomicReferenceArray<byte[]> holeTables = new AtomicReferenceArray<>(2 << Board.getNumHoles());
+
+    static {
+        walkTables[0] = buildWalkTable(false);
+        walkTables[1] = buildWalkTable(true);
+    }
+
+    private DistanceAtlas(){
+    }
+
+    /**
+     * Returns the distance between start and end cell for the given combination of open holes.
+     * Same result as Board.distance on a board with those holes open.
+     * @param start start cell.
+     * @param end end cell.
+     * @param holeMask the bitmask of open holes, as returned by Board.getHoleMask().
+     * @param useHoles if true, holes can be used to quick travel.
+     * @param canGoThroughObstacles if true, the path can go through obstacles eg HOUSE and LAMP.
+     * @return the distance between the two cells or -1 if no path exists.
+     */
+    public static int distance(final CellCoordinate start, final CellCoordinate end, int holeMask, boolean useHoles, boolean canGoThroughObstacles){
+        return distance(Board.getCellId(start), Board.getCellId(end), holeMask, useHoles, canGoThroughObstacles);
+    }
+
+    /**
+     * Returns the distance between start and end cell for the given combination of open holes.
+     * @param start start cell id.
+     * @param end end cell id.
+     * @param holeMask the bitmask of open holes, as returned by Board.getHoleMask().
+     * @param useHoles if true, holes can be used to quick travel.
+     * @param canGoThroughObstacles if true, the path can go through obstacles eg HOUSE and LAMP.
+     * @return the distance between the two cells or -1 if no path exists.
+     */
+    public static int distance(int start, int end, int holeMask, boolean useHoles, boolean canGoThroughObstacles){
+        if(start < 0 || end < 0){
+            return UNREACHABLE;
+        }
+
+        return getTable(holeMask, useHoles, canGoThroughObstacles)[start * NUM_CELLS + end];
+    }
+
+    /**
+     * Returns the distance table for the given combination of open holes and movement mode.
+     * @param holeMask the bitmask of open holes, as returned by Board.getHoleMask().
+     * @param useHoles if true, holes can be used to quick travel.
+     * @param canGoThroughObstacles if true, the path can go through obstacles eg HOUSE and LAMP.
+     * @return the distance table, distance between start and end is at index start * NUM_CELLS + end.
+     */
+    private static byte[] getTable(int holeMask, boolean useHoles, boolean canGoThroughObstacles){
+        int mode = canGoThroughObstacles ? 1 : 0;
+
+        if(!useHoles){
+            return walkTables[mode];
+        }
+
+        int index = holeMask * 2 + mode;
+        byte[] table = holeTables.get(index);
+
+        //if two threads race here, both build the same table, no harm done
+        if(table == null){
+            table = buildHoleTable(walkTables[mode], holeMask);
+            holeTables.compareAndSet(index, null, table);
+        }
+
+        return table;
+    }
+
+    /**
+     * Runs a BFS from every cell, without using holes.
+     * Like CellCoordinate.distance, the start cell is always accepted even if it's an obstacle.
+     * @param canGoThroughObstacles if true, the path can go through obstacles eg HOUSE and LAMP.
+     * @return the walking distance table.
+     */
+    private static byte[] buildWalkTable(boolean canGoThroughObstacles){
+        byte[] table = new byte[NUM_CELLS * NUM_CELLS];
+        int[] queue = new int[NUM_CELLS];
+
+        for(int start = 0; start < NUM_CELLS; start++){
+            int offset = start * NUM_CELLS;
+
+            for(int i = 0; i < NUM_CELLS; i++){
+                table[offset + i] = UNREACHABLE;
+            }
+
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            table[offset + start] = 0;
+
+            while(head < tail){
+                int curr = queue[head++];
+                Bitboard neighbors = Board.getNeighborMask(curr, canGoThroughObstacles);
+
+                for(int next = neighbors.nextSetBit(0); next >= 0; next = neighbors.nextSetBit(next + 1)){
+                    if(table[offset + next] != UNREACHABLE){
+                        continue;
+                    }
+
+                    table[offset + next] = (byte)(table[offset + curr] + 1);
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Builds the distance table using holes from the walking table for the given combination of open holes.
+     * @param walkTable the walking table for the desired movement mode.
+     * @param holeMask the bitmask of open holes, as returned by Board.getHoleMask().
+     * @return the distance table using holes.
+     */
+    private static byte[] buildHoleTable(final byte[] walkTable, int holeMask){
+        //with less than two open holes there is nowhere to jump to
+        if(Integer.bitCount(holeMask) < 2){
+            return walkTable;
+        }
+
+        int[] openHoles = new int[Integer.bitCount(holeMask)];
+        for(int bit = 0, i = 0; bit < Board.getNumHoles(); bit++){
+            if((holeMask & (1 << bit)) != 0){
+                openHoles[i++] = Board.getCellId(Board.getHoleCoordinate(bit));
+            }
+        }
+
+        //walking distance from each cell to its nearest open hole and from the nearest open hole to each cell
+        int[] toHole = new int[NUM_CELLS];
+        int[] fromHole = new int[NUM_CELLS];
+        for(int cell = 0; cell < NUM_CELLS; cell++){
+            toHole[cell] = INFINITY;
+            fromHole[cell] = INFINITY;
+
+            for(int hole : openHoles){
+                int to = walkTable[cell * NUM_CELLS + hole];
+                if(to != UNREACHABLE && to < toHole[cell]){
+                    toHole[cell] = to;
+                }
+
+                int from = walkTable[hole * NUM_CELLS + cell];
+                if(from != UNREACHABLE && from < fromHole[cell]){
+                    fromHole[cell] = from;
+                }
+            }
+        }
+
+        byte[] table = new byte[NUM_CELLS * NUM_CELLS];
+        for(int start = 0; start < NUM_CELLS; start++){
+            for(int end = 0; end < NUM_CELLS; end++){
+                int index = start * NUM_CELLS + end;
+                int distance = walkTable[index];
+                //going into a hole counts as a movement point
+                int throughHoles = toHole[start] + 1 + fromHole[end];
+
+                if(throughHoles < INFINITY && (distance == UNREACHABLE || throughHoles < distance)){
+                    distance = throughHoles;
+                }
+
+                table[index] = (byte)distance;
+            }
+        }
+
+        return table;
+    }
+}
@@ -0,0 +1,84 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+/**
+ * Distance from every cell of a board to the nearest open exit, using holes.
+ * The field is rebuilt only when a hole or an exit is opened or closed, tracked by the board's modification count,
+ * therefore checking whether a character on any cell can escape is a single array lookup.
+ * Each cell gets the minimum over all open exits of its precomputed distance in the DistanceAtlas.
+ */
+public final class ExitField {
+
+    private static final int UNREACHABLE = -1;
+
+    private final Board board;
+    //index 0 is normal movement, index 1 is through obstacles, allocated the first time the field is built
+    private int[][] exitDistances;
+    //modification count of the board when the field was last built
+    private int fieldModificationCount = -1;
+
+    /**
+     * Creates the field for the given board, it is built the first time it is read.
+     * @param board the board.
+     */
+    ExitField(final Board board){
+        this.board = board;
+    }
+
+    /**
+     * Returns the distance from the given cell to the nearest open exit, using holes.
+     * @param id the cell id.
+     * @param canGoThroughObstacles if true, the path can go through obstacles eg HOUSE and LAMP.
+     * @return the distance to the nearest open exit, -1 if no open exit can be reached.
+     */
+    public int getExitDistance(int id, boolean canGoThroughObstacles){
+        if(id < 0){
+            return UNREACHABLE;
+        }
+
+        refresh();
+        return exitDistances[canGoThroughObstacles ? 1 : 0][id];
+    }
+
+    /**
+     * Checks whether a character on the given cell can escape: it must reach an open exit and make 1 EXTRA move to
+     * leave the board, all within its movement allowance.
+     * @param id the cell id.
+     * @param maxMovement the maximum movement allowed.
+     * @param canGoThroughObstacles if true, the path can go through obstacles eg HOUSE and LAMP.
+     * @return true if a character on the given cell can escape.
+     */
+    public boolean canEscape(int id, int maxMovement, boolean canGoThroughObstacles){
+        int distance = getExitDistance(id, canGoThroughObstacles);
+        return distance != UNREACHABLE && distance + 1 <= maxMovement;
+    }
+
+    private void refresh(){
+        if(fieldModificationCount == this.board.getModificationCount()){
+            return;
+        }
+
+        if(exitDistances == null){
+            exitDistances = new int[2][Board.NUM_CELLS];
+        }
+
+        int holeMask = this.board.getHoleMask();
+        Bitboard openExits = this.board.getOpenExits();
+
+        for(int mode = 0; mode < 2; mode++){
+            int[] field = exitDistances[mode];
+
+            for(int id = 0; id < Board.NUM_CELLS; id++){
+                field[id] = UNREACHABLE;
+
+                for(int exit = openExits.nextSetBit(0); exit >= 0; exit = openExits.nextSetBit(exit + 1)){
+                    int distance = DistanceAtlas.distance(id, exit, holeMask, true, mode == 1);
+                    if(distance != UNREACHABLE && (field[id] == UNREACHABLE || distance < field[id])){
+                        field[id] = distance;
+                    }
+                }
+            }
+        }
+
+        fieldModificationCount = this.board.getModificationCount();
+    }
+}
@@ -0,0 +1,104 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+
+/**
+ * Precomputed light rays of WATSON's lamp.
+ * The lamp light travels from WATSON's cell in his direction until it hits an obstacle: HOUSE or LAMP.
+ * Obstacles never change, so for every cell and direction we store once the cells lit by the lamp, both as an array of
+ * cell ids in the order the light reaches them and as a Bitboard.
+ * Cell ids are assigned by Board.getCellId.
+ */
+public final class LampRays {
+
+    private static final int NUM_DIRECTIONS = Direction.values().length;
+
+    //indexed by direction, then cell id
+    private static final int[][][] rays = new int[NUM_DIRECTIONS][Board.NUM_CELLS][];
+    private static final Bitboard[][] rayMasks = new Bitboard[NUM_DIRECTIONS][Board.NUM_CELLS];
+
+    static {
+        int[] ray = new int[Board.ROWS];
+
+        for(Direction d : Direction.values()){
+            CellCoordinate delta = Cell.getNearbyCells().get(d);
+
+            for(int id = 0; id < Board.NUM_CELLS; id++){
+                Bitboard mask = new Bitboard();
+                int length = 0;
+
+                for(int next = Board.getCellId(id / Board.COLUMNS + delta.getRow(), id % Board.COLUMNS + delta.getColumn());
+                    next != -1 && !Board.getObstacles().get(next);
+                    next = Board.getCellId(next / Board.COLUMNS + delta.getRow(), next % Board.COLUMNS + delta.getColumn())){
+                    ray[length++] = next;
+                    mask.set(next, true);
+                }
+
+                int[] cells = new int[length];
+                System.arraycopy(ray, 0, cells, 0, length);
+                rays[d.getNumVal()][id] = cells;
+                rayMasks[d.getNumVal()][id] = mask;
+            }
+        }
+    }
+
+    private LampRays(){
+    }
+
+    /**
+     * Returns the cells lit by a lamp on the given cell pointing in the given direction, in the order the light reaches
+     * them. The returned array is shared and must NOT be modified.
+     * @param id the cell id of the lamp.
+     * @param d the lamp direction.
+     * @return the ids of the lit cells.
+     */
+    public static int[] getRay(int id, Direction d){
+        return rays[d.getNumVal()][id];
+    }
+
+    /**
+     * Returns the cells lit by a lamp on the given cell pointing in the given direction.
+     * The returned Bitboard is shared and must NOT be modified.
+     * @param id the cell id of the lamp.
+     * @param d the lamp direction.
+     * @return the lit cells.
+     */
+    public static Bitboard getRayMask(int id, Direction d){
+        return rayMasks[d.getNumVal()][id];
+    }
+
+    /**
+     * Returns the cells with a character on them lit by a lamp on the given cell pointing in the given direction.
+     * @param id the cell id of the lamp.
+     * @param d the lamp direction.
+     * @param occupied the cells with a character on them, as returned by Board.getOccupied().
+     * @return the lit cells with a character on them.
+     */
+    public static Bitboard getLitCharacters(int id, Direction d, final Bitboard occupied){
+        Bitboard lit = new Bitboard(rayMasks[d.getNumVal()][id]);
+        lit.and(occupied);
+        return lit;
+    }
+
+    /**
+     * Returns the direction in which a lamp on the given cell lights the most of the given cells.
+     * On a tie, the first direction in Direction order is chosen.
+     * @param id the cell id of the lamp.
+     * @param targets the cells we want to light, eg the ones with a suspect on them.
+     * @return the direction lighting the most targets.
+     */
+    public static Direction getBestDirection(int id, final Bitboard targets){
+        Direction best = Direction.NORTH;
+        int bestCount = -1;
+
+        for(Direction d : Direction.values()){
+            int count = rayMasks[d.getNumVal()][id].andCardinality(targets);
+            if(count > bestCount){
+                best = d;
+                bestCount = count;
+            }
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,302 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+/**
+ * Allocation free BFS over the board.
+ * The board layout never changes, so the adjacency of all cells is built once as compressed int arrays:
+ * neighbors of cell id are adjacency[offsets[id]] to adjacency[offsets[id + 1] - 1].
+ * Each thread has its own scratch buffers: a ring queue of cell ids and a visited array stamped with a generation
+ * counter, so that starting a new search only requires incrementing the counter instead of clearing the array.
+ * Open holes are read from a hole mask, see Board.getHoleMask().
+ *
+ * When the path can go through obstacles the board is a plain hex grid and no search is needed, the distance has a
+ * closed form, see hexDistance. Since obstacles can only make paths longer, the same value is also a lower bound for
+ * normal movement and lets us skip searches that cannot end within the maximum distance.
+ */
+public final class PathFinder {
+
+    private static final int UNREACHABLE = -1;
+    //no distance on the board can reach this
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    //must be a power of 2 not smaller than the number of cells, each cell is queued at most once per search
+    private static final int QUEUE_SIZE = 256;
+
+    //index 0 is normal movement, index 1 is through obstacles
+    private static final int[][] offsets = new int[2][];
+    private static final int[][] adjacency = new int[2][];
+    //cell id of each hole, in hole mask bit order
+    private static final int[] holeIds = new int[Board.getNumHoles()];
+    //hole mask bit of each cell, -1 if the cell has no hole
+    private static final int[] holeBits = new int[Board.NUM_CELLS];
+
+    static {
+        for(int mode = 0; mode < 2; mode++){
+            offsets[mode] = new int[Board.NUM_CELLS + 1];
+
+            int size = 0;
+            for(int id = 0; id < Board.NUM_CELLS; id++){
+                size += Board.getNeighborMask(id, mode == 1).cardinality();
+            }
+            adjacency[mode] = new int[size];
+
+            int next = 0;
+            for(int id = 0; id < Board.NUM_CELLS; id++){
+                offsets[mode][id] = next;
+                Bitboard neighbors = Board.getNeighborMask(id, mode == 1);
+                for(int n = neighbors.nextSetBit(0); n >= 0; n = neighbors.nextSetBit(n + 1)){
+                    adjacency[mode][next++] = n;
+                }
+            }
+            offsets[mode][Board.NUM_CELLS] = next;
+        }
+
+        for(int id = 0; id < Board.NUM_CELLS; id++){
+            holeBits[id] = -1;
+        }
+        for(int bit = 0; bit < holeIds.length; bit++){
+            holeIds[bit] = Board.getCellId(Board.getHoleCoordinate(bit));
+            holeBits[holeIds[bit]] = bit;
+        }
+    }
+
+    /**
+     * Per thread buffers reused by every search.
+     */
+    private static final class Scratch {
+        private final int[] queue = new int[QUEUE_SIZE];
+        private final int[] distances = new int[Board.NUM_CELLS];
+        private final int[] visited = new int[Board.NUM_CELLS];
+        private int generation = 0;
+
+        /**
+         * Starts a new search, all cells become not visited.
+         */
+        private void nextGeneration(){
+            this.generation++;
+            //on overflow, reset the stamps so that old values cannot collide with new generations
+            if(this.generation == 0){
+                for(int i = 0; i < this.visited.length; i++){
+                    this.visited[i] = 0;
+                }
+                this.generation = 1;
+            }
+        }
+    }
+
+    private static final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    private PathFinder(){
+    }
+
+    /**
+     * Calculates the distance between start and end cell without crossing obstacles and using holes.
+     * Drop-in replacement for CellCoordinate.distance(start, end).
+     * @param start start cell.
+     * @param end end cell.
+     * @return the distance between the two cells or -1 if no path exists.
+     */
+    public static int distance(final CellCoordinate start, final CellCoordinate end){
+        return distance(start.getId(), end.getId(), 0, false, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Calculates the distance between start and end cell, without searching further than maxDistance steps.
+     * @param start start cell id.
+     * @param end end cell id.
+     * @param holeMask the bitmask of open holes, as returned by Board.getHoleMask().
+     * @param useHoles if true, holes can be used to quick travel.
+     * @param canGoThroughObstacles if true, the path can go through obstacles eg HOUSE and LAMP.
+     * @param maxDistance the maximum distance to search for.
+     * @return the distance between the two cells or -1 if no path within maxDistance exists.
+     */
+    public static int distance(int start, int end, int holeMask, boolean useHoles, boolean canGoThroughObstacles, int maxDistance){
+        if(start < 0 || end < 0){
+            return UNREACHABLE;
+        }
+
+        if(start == end){
+            return 0;
+        }
+
+        //exact when going through obstacles, otherwise the real distance can only be longer
+        int bound = hexDistance(start, end, holeMask, useHoles);
+        if(bound == UNREACHABLE || bound > maxDistance){
+            return UNREACHABLE;
+        }
+
+        if(canGoThroughObstacles){
+            return bound;
+        }
+
+        return search(start, end, holeMask, useHoles, false, maxDistance, null);
+    }
+
+    /**
+     * Calculates in constant time the distance between start and end cell when the path can go through obstacles.
+     * Using holes, the shortest path is the minimum between the walking distance and: distance to the nearest open
+     * hole + 1 + distance from the nearest open hole, since all open holes are connected to each other.
+     * For normal movement this is a lower bound of the real distance.
+     * @param start start cell id.
+     * @param end end cell id.
+     * @param holeMask the bitmask of open holes, as returned by Board.getHoleMask().
+     * @param useHoles if true, holes can be used to quick travel.
+     * @return the distance between the two cells going through obstacles or -1 if no path exists.
+     */
+    public static int hexDistance(int start, int end, int holeMask, boolean useHoles){
+        CellCoordinate s = CellCoordinate.of(start), e = CellCoordinate.of(end);
+        int distance = CellCoordinate.hexDistance(s, e);
+
+        if(!useHoles || Integer.bitCount(holeMask) < 2){
+            return distance;
+        }
+
+        //going into a hole counts as a movement point
+        int throughHoles = nearestOpenHole(s, holeMask) + 1 + nearestOpenHole(e, holeMask);
+        if(throughHoles < INFINITY && (distance == UNREACHABLE || throughHoles < distance)){
+            return throughHoles;
+        }
+
+        return distance;
+    }
+
+    /**
+     * Calculates the distance from the given cell to the nearest open hole going through obstacles.
+     * @param c the cell.
+     * @param holeMask the bitmask of open holes, as returned by Board.getHoleMask().
+     * @return the distance to the nearest open hole, INFINITY if none can be reached.
+     */
+    private static int nearestOpenHole(final CellCoordinate c, int holeMask){
+        int nearest = INFINITY;
+
+        for(int b = 0; b < holeIds.length; b++){
+            if((holeMask & (1 << b)) == 0){
+                continue;
+            }
+
+            int distance = CellCoordinate.hexDistance(c, CellCoordinate.of(holeIds[b]));
+            if(distance != UNREACHABLE && distance < nearest){
+                nearest = distance;
+            }
+        }
+
+        return nearest;
+    }
+
+    /**
+     * Collects in a single search all cells that can be reached from start within maxDistance steps.
+     * The start cell itself is not included.
+     * @param start start cell id.
+     * @param holeMask the bitmask of open holes, as returned by Board.getHoleMask().
+     * @param useHoles if true, holes can be used to quick travel.
+     * @param canGoThroughObstacles if true, the path can go through obstacles eg HOUSE and LAMP.
+     * @param maxDistance the maximum distance to search for.
+     * @param reached cleared and then filled with all reachable cells.
+     */
+    public static void reachable(int start, int holeMask, boolean useHoles, boolean canGoThroughObstacles, int maxDistance, final Bitboard reached){
+        reached.clear();
+
+        if(start < 0){
+            return;
+        }
+
+        search(start, -1, holeMask, useHoles, canGoThroughObstacles, maxDistance, reached);
+    }
+
+    /**
+     * BFS from start, stops when end is found or there are no more cells within maxDistance.
+     * @param start start cell id.
+     * @param end end cell id, -1 to visit all cells within maxDistance.
+     * @param holeMask the bitmask of open holes, as returned by Board.getHoleMask().
+     * @param useHoles if true, holes can be used to quick travel.
+     * @param canGoThroughObstacles if true, the path can go through obstacles eg HOUSE and LAMP.
+     * @param maxDistance the maximum distance to search for.
+     * @param reached if not null, all visited cells except start are added here.
+     * @return the distance between the two cells or -1 if no path within maxDistance exists.
+     */
+    private static int search(int start, int end, int holeMask, boolean useHoles, boolean canGoThroughObstacles, int maxDistance,
+                              final Bitboard reached){
+        int mode = canGoThroughObstacles ? 1 : 0;
+        int[] modeOffsets = offsets[mode];
+        int[] modeAdjacency = adjacency[mode];
+        boolean canJump = useHoles && Integer.bitCount(holeMask) >= 2;
+
+        Scratch s = scratch.get();
+        s.nextGeneration();
+        int[] queue = s.queue, distances = s.distances, visited = s.visited;
+        int generation = s.generation;
+
+        int head = 0, tail = 0;
+        queue[tail++ & (QUEUE_SIZE - 1)] = start;
+        visited[start] = generation;
+        distances[start] = 0;
+        //all open holes are connected to each other, once we jumped from one there is no need to jump again
+        boolean hasJumped = false;
+
+        while(head != tail){
+            int curr = queue[head++ & (QUEUE_SIZE - 1)];
+            int nextDistance = distances[curr] + 1;
+
+            if(nextDistance > maxDistance){
+                break;
+            }
+
+            for(int i = modeOffsets[curr]; i < modeOffsets[curr + 1]; i++){
+                int next = modeAdjacency[i];
+                if(visited[next] == generation){
+                    continue;
+                }
+                if(next == end){
+                    return nextDistance;
+                }
+                visited[next] = generation;
+                distances[next] = nextDistance;
+                queue[tail++ & (QUEUE_SIZE - 1)] = next;
+                if(reached != null){
+                    reached.set(next, true);
+                }
+            }
+
+            //going into a hole counts as a movement point
+            int bit = holeBits[curr];
+            if(canJump && !hasJumped && bit != -1 && (holeMask & (1 << bit)) != 0){
+                hasJumped = true;
+
+                for(int b = 0; b < holeIds.length; b++){
+                    int next = holeIds[b];
+                    if((holeMask & (1 << b)) == 0 || visited[next] == generation){
+                        continue;
+                    }
+                    if(next == end){
+                        return nextDistance;
+                    }
+                    visited[next] = generation;
+                    distances[next] = nextDistance;
+                    queue[tail++ & (QUEUE_SIZE - 1)] = next;
+                    if(reached != null){
+                        reached.set(next, true);
+                    }
+                }
+            }
+        }
+
+        return UNREACHABLE;
+    }
+
+    /**
+     * Attempts to move a character from start to dest cell within given allowed maxMovement.
+     * Character CANNOT use holes to travel and CANNOT pass through obstacles.
+     * Does NOT move the character, only calculates whether it can be done.
+     * Drop-in replacement for CharacterToken.moveCharacterNoHoles.
+     * @param board the board the character is on.
+     * @param start the current position of the character.
+     * @param dest the desired destination for the character.
+     * @param maxMovement the maximum movement allowed.
+     * @return total steps moved to complete the operation, -1 if operation could not be completed.
+     */
+    public static int moveCharacterNoHoles(final Board board, final CellCoordinate start, final CellCoordinate dest, int maxMovement){
+        if(dest.getId() < 0 || !board.canAcceptCharacter(dest.getId())){
+            return UNREACHABLE;
+        }
+
+        return distance(start.getId(), dest.getId(), board.getHoleMask(), false, false, maxMovement);
+    }
+}
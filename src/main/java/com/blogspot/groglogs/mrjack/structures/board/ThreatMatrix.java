@@ -0,0 +1,131 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Minimum number of steps between every pair of characters on a board, using holes.
+ * MissStealthy can pass through obstacles, so the matrix is not symmetric: the row of a character holds the distances
+ * it has to travel to reach each of the other characters.
+ * When a character is placed on a cell only its row and column are updated. When a hole or an exit changes, tracked by
+ * the board's modification count, the whole matrix is updated the next time it is read.
+ * Every entry is a lookup in the DistanceAtlas.
+ */
+public final class ThreatMatrix {
+
+    private static final int NUM_CHARACTERS = CharacterType.values().length;
+    private static final int UNREACHABLE = -1;
+
+    private final Board board;
+    //cell id where each character stands, -1 if not on the board
+    private final int[] positions = new int[NUM_CHARACTERS];
+    //indexed by the character moving, then the character to reach
+    private final int[][] distances = new int[NUM_CHARACTERS][NUM_CHARACTERS];
+    //modification count of the board when the matrix was last fully updated
+    private int matrixModificationCount = -1;
+
+    /**
+     * Creates the matrix for the given board, no character is on it yet.
+     * @param board the board.
+     */
+    ThreatMatrix(final Board board){
+        this.board = board;
+        for(int i = 0; i < NUM_CHARACTERS; i++){
+            this.positions[i] = -1;
+            for(int j = 0; j < NUM_CHARACTERS; j++){
+                this.distances[i][j] = UNREACHABLE;
+            }
+        }
+    }
+
+    /**
+     * A character was placed on the given cell.
+     * @param characterType the character.
+     * @param id the cell id.
+     */
+    void onCharacterPlaced(CharacterType characterType, int id){
+        int moved = characterType.getNumVal();
+
+        if(positions[moved] == id){
+            return;
+        }
+
+        positions[moved] = id;
+
+        //the rest of the matrix is still valid only if holes did not change in the meantime
+        if(matrixModificationCount != this.board.getModificationCount()){
+            return;
+        }
+
+        for(int other = 0; other < NUM_CHARACTERS; other++){
+            distances[moved][other] = computeDistance(moved, other);
+            distances[other][moved] = computeDistance(other, moved);
+        }
+    }
+
+    /**
+     * Returns the minimum number of steps the first character needs to reach the second one, using holes.
+     * @param from the character moving.
+     * @param to the character to reach.
+     * @return the distance between the two characters, -1 if either is not on the board or no path exists.
+     */
+    public int getDistance(CharacterType from, CharacterType to){
+        refresh();
+        return distances[from.getNumVal()][to.getNumVal()];
+    }
+
+    /**
+     * Checks whether the first character can reach the second one within the given movement allowance.
+     * @param from the character moving.
+     * @param to the character to reach.
+     * @param maxMovement the maximum movement allowed.
+     * @return true if the first character can reach the second one.
+     */
+    public boolean canReach(CharacterType from, CharacterType to, int maxMovement){
+        int distance = getDistance(from, to);
+        return distance > 0 && distance <= maxMovement;
+    }
+
+    /**
+     * Returns all characters the given character can reach within the given movement allowance.
+     * @param from the character moving.
+     * @param maxMovement the maximum movement allowed.
+     * @return all characters that can be reached.
+     */
+    public Set<CharacterType> getReachableCharacters(CharacterType from, int maxMovement){
+        Set<CharacterType> reachable = EnumSet.noneOf(CharacterType.class);
+
+        for(CharacterType to : CharacterType.values()){
+            if(canReach(from, to, maxMovement)){
+                reachable.add(to);
+            }
+        }
+
+        return reachable;
+    }
+
+    private void refresh(){
+        if(matrixModificationCount == this.board.getModificationCount()){
+            return;
+        }
+
+        for(int from = 0; from < NUM_CHARACTERS; from++){
+            for(int to = 0; to < NUM_CHARACTERS; to++){
+                distances[from][to] = computeDistance(from, to);
+            }
+        }
+
+        matrixModificationCount = this.board.getModificationCount();
+    }
+
+    private int computeDistance(int from, int to){
+        if(positions[from] == -1 || positions[to] == -1){
+            return UNREACHABLE;
+        }
+
+        boolean canGoThroughObstacles = from == CharacterType.STEALTHY.getNumVal();
+        return DistanceAtlas.distance(positions[from], positions[to], this.board.getHoleMask(), true, canGoThroughObstacles);
+    }
+}
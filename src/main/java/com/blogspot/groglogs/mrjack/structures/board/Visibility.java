@@ -0,0 +1,144 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+
+/**
+ * Tracks incrementally which cells of a board are visible, so that visibility can be queried at any time.
+ * A character is visible if it is nearby another character, nearby a lit lamp or under WATSON's lamp light.
+ * For each cell we keep the number of nearby characters and of nearby lit lamps, updated by Board every time a cell
+ * changes: moving a character or flipping a lamp only touches the 6 nearby cells.
+ * WATSON's light is read from the precomputed LampRays, updated every time he moves or points his lamp elsewhere.
+ */
+public final class Visibility {
+
+    //for each cell id, the ids of all nearby cells, obstacles included since the lamps are there
+    private static final int[][] neighbors = new int[Board.NUM_CELLS][];
+    static {
+        for(int id = 0; id < Board.NUM_CELLS; id++){
+            Bitboard mask = Board.getNeighborMask(id, true);
+            neighbors[id] = new int[mask.cardinality()];
+            for(int n = mask.nextSetBit(0), i = 0; n >= 0; n = mask.nextSetBit(n + 1)){
+                neighbors[id][i++] = n;
+            }
+        }
+    }
+
+    //number of nearby lit lamps for each cell at the start of the game, copied by every new board
+    private static final int[] initialNearbyLitLamps = new int[Board.NUM_CELLS];
+    static {
+        Bitboard lamps = BoardTopology.getInitialLitLamps();
+        for(int id = lamps.nextSetBit(0); id >= 0; id = lamps.nextSetBit(id + 1)){
+            for(int n : neighbors[id]){
+                initialNearbyLitLamps[n]++;
+            }
+        }
+    }
+
+    private final int[] nearbyCharacters = new int[Board.NUM_CELLS];
+    private final int[] nearbyLitLamps = initialNearbyLitLamps.clone();
+    //cell where WATSON stands, -1 if he is not on the board
+    private int watsonCell = -1;
+    private Direction watsonDirection = null;
+
+    /**
+     * Creates the tracker for a new board in its starting state: no character is on it and only the lamps are lit.
+     */
+    Visibility(){
+    }
+
+    /**
+     * A character entered or left the given cell.
+     * @param id the cell id.
+     * @param isOccupied true if the cell now has a character on it.
+     */
+    void onOccupiedChanged(int id, boolean isOccupied){
+        int delta = isOccupied ? 1 : -1;
+        for(int n : neighbors[id]){
+            nearbyCharacters[n] += delta;
+        }
+    }
+
+    /**
+     * The lamp in the given cell was turned ON or OFF.
+     * @param id the cell id.
+     * @param isLampOn true if the lamp is now ON.
+     */
+    void onLampChanged(int id, boolean isLampOn){
+        int delta = isLampOn ? 1 : -1;
+        for(int n : neighbors[id]){
+            nearbyLitLamps[n] += delta;
+        }
+    }
+
+    /**
+     * WATSON was placed on the given cell or pointed his lamp in a new direction.
+     * @param id the cell id, -1 if WATSON left the board.
+     * @param d the direction of WATSON's lamp.
+     */
+    void onWatsonChanged(int id, Direction d){
+        watsonCell = id;
+        watsonDirection = d;
+    }
+
+    /**
+     * Returns the direction of WATSON's lamp.
+     * @return the direction of WATSON's lamp, null if he is not on the board.
+     */
+    public Direction getWatsonDirection(){
+        return watsonDirection;
+    }
+
+    /**
+     * Returns the cell where WATSON stands.
+     * @return the id of the cell where WATSON stands, -1 if he is not on the board.
+     */
+    public int getWatsonCell(){
+        return watsonCell;
+    }
+
+    /**
+     * A character on the given cell would be visible if it is near another character or near a lit lamp.
+     * WATSON's lamp light is not considered here.
+     * @param id the cell id.
+     * @return true if a character on the given cell would be visible.
+     */
+    public boolean isNearCharacterOrLitLamp(int id){
+        return nearbyCharacters[id] > 0 || nearbyLitLamps[id] > 0;
+    }
+
+    /**
+     * Checks whether the given cell is under WATSON's lamp light.
+     * @param id the cell id.
+     * @return true if the given cell is under WATSON's lamp light.
+     */
+    public boolean isLitByWatson(int id){
+        return watsonCell != -1 && LampRays.getRayMask(watsonCell, watsonDirection).get(id);
+    }
+
+    /**
+     * Checks whether a character on the given cell would be visible.
+     * @param id the cell id.
+     * @return true if a character on the given cell would be visible.
+     */
+    public boolean isVisible(int id){
+        return isNearCharacterOrLitLamp(id) || isLitByWatson(id);
+    }
+
+    /**
+     * Returns the number of characters near the given cell.
+     * @param id the cell id.
+     * @return the number of characters near the given cell.
+     */
+    public int getNearbyCharacters(int id){
+        return nearbyCharacters[id];
+    }
+
+    /**
+     * Returns the number of lit lamps near the given cell.
+     * @param id the cell id.
+     * @return the number of lit lamps near the given cell.
+     */
+    public int getNearbyLitLamps(int id){
+        return nearbyLitLamps[id];
+    }
+}
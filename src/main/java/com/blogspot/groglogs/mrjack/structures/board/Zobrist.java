@@ -0,0 +1,192 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import com.blogspot.groglogs.mrjack.structures.deck.CharacterDeck;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+
+import java.util.Random;
+
+/**
+ * Random 64 bit keys to hash the state of a game, Zobrist style: the hash of a state is the XOR of the keys of all its
+ * parts, so changing one part only needs to XOR out its old key and XOR in the new one.
+ * Hashed parts are:
+ * - the cell each character stands on
+ * - lamps ON, open holes and open exits, one key per lamp, hole and exit
+ * - the turn after which each lamp shuts OFF
+ * - WATSON's lamp direction
+ * - turn, current player, JACK visible, attempted accusation
+ * - characters still available in the batch being played and in the next one
+ * The board keeps the hash of its part up to date, the game the hash of the rest.
+ * Keys are generated from a fixed seed, so equal states have equal hashes in every JVM.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x6d724a61636bL;
+    private static final int MAX_TURNS = 16, TIMER_VALUES = 8;
+
+    private static final long[][] positionKeys = new long[CharacterDeck.NUM_CHARACTERS][Board.NUM_CELLS];
+    private static final long[] lampKeys = new long[BoardTopology.getNumLamps()];
+    private static final long[] holeKeys = new long[BoardTopology.getNumHoles()];
+    private static final long[] exitKeys = new long[BoardTopology.getNumExits()];
+    //index is the turn after which the lamp shuts OFF + 1, 0 if the lamp is not on a timer
+    private static final long[][] timerKeys = new long[BoardTopology.getNumLamps()][TIMER_VALUES];
+    private static final long[] watsonKeys = new long[Direction.values().length];
+    private static final long[] turnKeys = new long[MAX_TURNS];
+    private static final long[] batchKeys = new long[CharacterDeck.NUM_CHARACTERS];
+    private static final long[] nextBatchKeys = new long[CharacterDeck.NUM_CHARACTERS];
+    private static final long playerKey, jackVisibleKey, accusedKey;
+    //hash of the board part of a new game, before any character is placed
+    private static final long initialBoardHash;
+    static {
+        Random gen = new Random(SEED);
+
+        for(long[] keys : positionKeys){
+            fill(keys, gen);
+        }
+        fill(lampKeys, gen);
+        fill(holeKeys, gen);
+        fill(exitKeys, gen);
+        for(long[] keys : timerKeys){
+            fill(keys, gen);
+        }
+        fill(watsonKeys, gen);
+        fill(turnKeys, gen);
+        fill(batchKeys, gen);
+        fill(nextBatchKeys, gen);
+        playerKey = gen.nextLong();
+        jackVisibleKey = gen.nextLong();
+        accusedKey = gen.nextLong();
+
+        long h = lamps(BoardTopology.getInitialLampMask()) ^ holes(BoardTopology.getInitialHoleMask())
+                ^ exits(BoardTopology.getInitialExitMask());
+        for(int lamp = 0; lamp < BoardTopology.getNumLamps(); lamp++){
+            h ^= timer(lamp, BoardTopology.getInitialLampOffTurn(BoardTopology.getLampCell(lamp)));
+        }
+        initialBoardHash = h;
+    }
+
+    private Zobrist(){
+    }
+
+    private static void fill(long[] keys, Random gen){
+        for(int i = 0; i < keys.length; i++){
+            keys[i] = gen.nextLong();
+        }
+    }
+
+    private static long xorBits(long[] keys, int mask){
+        long h = 0;
+        for(int m = mask; m != 0; m &= m - 1){
+            h ^= keys[Integer.numberOfTrailingZeros(m)];
+        }
+        return h;
+    }
+
+    public static long position(CharacterType characterType, int id){
+        return positionKeys[characterType.getNumVal()][id];
+    }
+
+    /**
+     * Returns the XOR of the keys of the given lamps.
+     * @param mask the lamps, as in Board.getLampMask.
+     * @return the XOR of the keys of the given lamps.
+     */
+    public static long lamps(int mask){
+        return xorBits(lampKeys, mask);
+    }
+
+    /**
+     * Returns the XOR of the keys of the given holes.
+     * @param mask the holes, as in Board.getHoleMask.
+     * @return the XOR of the keys of the given holes.
+     */
+    public static long holes(int mask){
+        return xorBits(holeKeys, mask);
+    }
+
+    /**
+     * Returns the XOR of the keys of the given exits.
+     * @param mask the exits, as in Board.getExitMask.
+     * @return the XOR of the keys of the given exits.
+     */
+    public static long exits(int mask){
+        return xorBits(exitKeys, mask);
+    }
+
+    /**
+     * Returns the key of the given lamp timer.
+     * @param lamp the bit tracking the lamp, see BoardTopology.getLampCell.
+     * @param lampOffTurn the turn after which the lamp shuts OFF, -1 if the lamp is not on a timer.
+     * @return the key of the lamp timer.
+     */
+    public static long timer(int lamp, int lampOffTurn){
+        return timerKeys[lamp][lampOffTurn + 1];
+    }
+
+    public static long watson(Direction d){
+        return watsonKeys[d.getNumVal()];
+    }
+
+    public static long turn(int turn){
+        return turnKeys[turn];
+    }
+
+    /**
+     * Returns the key of the current player, the INSPECTOR has a key and JACK has none.
+     * @param isInspector true if the INSPECTOR is the current player.
+     * @return the key of the current player.
+     */
+    public static long player(boolean isInspector){
+        return isInspector ? playerKey : 0;
+    }
+
+    public static long jackVisible(boolean isJackVisible){
+        return isJackVisible ? jackVisibleKey : 0;
+    }
+
+    public static long accused(boolean hasAttemptedToAccuseJack){
+        return hasAttemptedToAccuseJack ? accusedKey : 0;
+    }
+
+    /**
+     * Returns the XOR of the keys of the given characters in the batch being played.
+     * @param mask the characters, bit i is set for CharacterType.fromNumVal(i).
+     * @return the XOR of the keys of the given characters.
+     */
+    public static long batch(int mask){
+        return xorBits(batchKeys, mask);
+    }
+
+    /**
+     * Returns the XOR of the keys of the given characters in the next batch.
+     * @param mask the characters, bit i is set for CharacterType.fromNumVal(i).
+     * @return the XOR of the keys of the given characters.
+     */
+    public static long nextBatch(int mask){
+        return xorBits(nextBatchKeys, mask);
+    }
+
+    /**
+     * Returns the hash of the board part of a new game, before any character is placed.
+     * @return the hash of a new board.
+     */
+    public static long getInitialBoardHash(){
+        return initialBoardHash;
+    }
+
+    /**
+     * Returns the hash of the game part of the state, everything that is not on the board.
+     * @param turn the turn.
+     * @param isInspector true if the INSPECTOR is the current player.
+     * @param isJackVisible true if JACK was visible at the end of the last turn.
+     * @param hasAttemptedToAccuseJack true if the INSPECTOR attempted to accuse JACK this turn.
+     * @param batch the characters still available in the batch being played.
+     * @param nextBatch the characters of the next batch.
+     * @return the hash of the game part of the state.
+     */
+    public static long control(int turn, boolean isInspector, boolean isJackVisible, boolean hasAttemptedToAccuseJack,
+                               int batch, int nextBatch){
+        return turn(turn) ^ player(isInspector) ^ jackVisible(isJackVisible) ^ accused(hasAttemptedToAccuseJack)
+                ^ batch(batch) ^ nextBatch(nextBatch);
+    }
+}
@@ -1,11 +1,12 @@
 package com.blogspot.groglogs.mrjack.structures.characters;
 
+import com.blogspot.groglogs.mrjack.Action;
 import com.blogspot.groglogs.mrjack.Game;
-import com.blogspot.groglogs.mrjack.input.ChoicePrompts;
-import com.blogspot.groglogs.mrjack.input.Stdinputter;
+import com.blogspot.groglogs.mrjack.structures.board.Bitboard;
 import com.blogspot.groglogs.mrjack.structures.board.Board;
 import com.blogspot.groglogs.mrjack.structures.board.Cell;
 import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
+import com.blogspot.groglogs.mrjack.structures.board.PathFinder;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterAbilityType;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterActionType;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
@@ -17,9 +18,12 @@ import java.util.Set;
 
 /**
  * Represents a character token.
+ * A token belongs to a single game, board and player input are always resolved through it.
  */
 public abstract class CharacterToken {
 
+    //the game this token is played in
+    protected Game game;
     protected CharacterType characterType;
     protected String name, shortName;
     protected int maxMovement;
@@ -61,16 +65,25 @@ public abstract class CharacterToken {
         return this.shortName;
     }
 
+    public Game getGame(){
+        return this.game;
+    }
+
+    public void setGame(final Game game){
+        this.game = game;
+    }
+
     public CellCoordinate getCurrentPosition(){
         return this.currentPosition;
     }
 
     public void setCurrentPosition(int row, int column){
-        this.setCurrentPosition(new CellCoordinate(row, column));
+        this.setCurrentPosition(CellCoordinate.of(row, column));
     }
 
     public void setCurrentPosition(final CellCoordinate newPosition){
-        if(!Board.getCell(newPosition).canCharacterMoveThrough()){
+        //obstacles never change, no need to look at the board of the game
+        if(newPosition.getId() == -1 || Board.getObstacles().get(newPosition.getId())){
             throw new IllegalStateException(String.format("Coordinate: %s cannot accept a character token", newPosition));
         }
         this.currentPosition = newPosition;
@@ -89,7 +102,15 @@ public abstract class CharacterToken {
     }
 
     public void setJack(){
-        this.isJack = true;
+        this.setJack(true);
+    }
+
+    /**
+     * Marks this character as JACK or as innocent, eg when restoring a saved game.
+     * @param isJack true if this character is JACK.
+     */
+    public void setJack(boolean isJack){
+        this.isJack = isJack;
     }
 
     public boolean isVisible(){
@@ -111,33 +132,12 @@ public abstract class CharacterToken {
      * - under Watson's lamp light //calculated separately when evaluating Watson at end of turn
      */
     public void checkIsVisible(){
-        //set invisible by default, then if necessary it will be updated correctly
-        this.markInvisible();
-
-        //include also obstacle neighbors since the lamps are there
-        for(CellCoordinate c : Board.getCell(this.currentPosition).getNeighbors(true)){
-
-            Cell neighbor = Board.getCell(c);
-
-            //only mark visible here, flipping states is dangerous if not handled correctly eg: character close to an OFF lamp AND another character
-            switch(neighbor.getCellType()){
-                case LAMP:
-                    if(neighbor.isLampOn()){
-                        this.markVisible();
-                    }
-                    break;
-                case HOUSE:
-                    break;
-                default:
-                    if(neighbor.getCharacterToken() != null){
-                        this.markVisible();
-                    }
-            }
-
-            //if we already determined we are visible, no need to keep checking
-            if(this.isVisible){
-                break;
-            }
+        //nearby characters and lit lamps are tracked incrementally by the board
+        if(this.game.getBoard().isNearCharacterOrLitLamp(Board.getCellId(this.currentPosition))){
+            this.markVisible();
+        }
+        else {
+            this.markInvisible();
         }
     }
 
@@ -169,7 +169,9 @@ public abstract class CharacterToken {
                 action = this.askCharacterAction();
                 executeCharacterAction(action);
 
-                Game.printBoard();
+                if(this.game.isInteractive()){
+                    this.game.printBoard();
+                }
 
                 action = this.askCharacterAction();
                 executeCharacterAction(action);
@@ -178,7 +180,9 @@ public abstract class CharacterToken {
                 //ability must be used after moving
                 this.executeMoveCharacter();
 
-                Game.printBoard();
+                if(this.game.isInteractive()){
+                    this.game.printBoard();
+                }
 
                 if(!this.executeAbility()){
                     throw new IllegalStateException("Attempted to use ability which was not allowed.");
@@ -192,7 +196,29 @@ public abstract class CharacterToken {
             default:
                 throw new IllegalStateException(String.format("Unknown action %s", this.characterAbilityType));
         }
-        Game.printBoard();
+        if(this.game.isInteractive()){
+            this.game.printBoard();
+        }
+    }
+
+    /**
+     * Plays the given action without asking the player: moves and uses the ability in the order given by the action.
+     * Actions are trusted, as produced by the action generator, only cheap checks are done.
+     * Move and ability flags are NOT touched, this is meant to play hypothetical actions that can be taken back.
+     * @param action the action to play, see Action.
+     */
+    public void executeCharacterActions(long action){
+        int order = Action.getOrder(action);
+
+        if(order == Action.ABILITY || order == Action.ABILITY_MOVE){
+            this.useAbility(action);
+        }
+        if(Action.hasMove(order)){
+            this.moveTo(this.game.getBoard().getCell(Action.getDestination(action)));
+        }
+        if(order == Action.MOVE_ABILITY){
+            this.useAbility(action);
+        }
     }
 
     //Each character must perform BOTH MOVE and USE_ABILITY actions, except if character logic supersedes that
@@ -228,21 +254,18 @@ public abstract class CharacterToken {
         CharacterActionType action = null;
 
         while(action == null) {
-            try {
-                int choice = Stdinputter.getIntInput(0, CharacterActionType.values().length - 1, ChoicePrompts.promptCharacterAction(this), "Invalid action.");
-
-                action = CharacterActionType.fromNumVal(choice);
+            action = this.game.getPlayer().chooseCharacterAction(this);
 
-                if(!this.availableActions.contains(action)){
+            if(!this.availableActions.contains(action)){
+                if(this.game.isInteractive()){
                     System.out.println("Invalid action.");
-                    throw new IllegalArgumentException();
                 }
-
-                if (this.isTryingDoubleAction(action)) {
+                action = null;
+            }
+            else if(this.isTryingDoubleAction(action)){
+                if(this.game.isInteractive()){
                     System.out.println("Action cannot be performed twice in same turn.");
-                    throw new IllegalArgumentException();
                 }
-            } catch (Exception e) {
                 action = null;
             }
         }
@@ -263,22 +286,30 @@ public abstract class CharacterToken {
     }
 
     /**
-     * Prompts the player for valid coordinates and moves the character in the desired position.
+     * Asks the player a valid destination and moves the character in the desired position.
+     * If the character is boxed in and cannot reach any cell, the move is skipped.
      */
     private void executeMoveCharacter(){
         if(this.hasMoved){
             throw new IllegalStateException("Character has already moved.");
         }
 
-        System.out.println("Enter destination coordinates to move this character:");
-        CellCoordinate destCoordinate = CellCoordinate.askInputCoordinate();
+        //all valid destinations are calculated once, then the player chooses among them
+        Bitboard destinations = this.getMoveDestinations();
 
-        while(!this.moveCharacter(destCoordinate)){
-            System.out.println("Invalid move, enter valid coordinates within the reach of this character's movement:");
-
-            destCoordinate = CellCoordinate.askInputCoordinate();
+        if(destinations.isEmpty()){
+            if(this.game.isInteractive()){
+                System.out.println(String.format("%s cannot move anywhere.", this.name));
+            }
+            this.hasMoved = true;
+            return;
         }
 
+        CellCoordinate destCoordinate = this.game.getPlayer().chooseDestination(this, destinations);
+
+        if(!this.moveCharacter(destCoordinate, destinations)){
+            throw new IllegalStateException(String.format("%s cannot move to %s", this.name, destCoordinate));
+        }
     }
 
     /**
@@ -286,21 +317,16 @@ public abstract class CharacterToken {
      * Character can use holes to travel.
      * MissStealthy can pass through obstacles.
      * @param destCoordinate
+     * @param destinations all valid destinations for this character, as returned by getMoveDestinations.
      * @return false is movement is not allowed
      */
-    private boolean moveCharacter(final CellCoordinate destCoordinate){
+    private boolean moveCharacter(final CellCoordinate destCoordinate, final Bitboard destinations){
         if(!this.canMove()){
             return false;
         }
 
-        Cell dest = Board.getCell(destCoordinate);
-        if(!dest.canAcceptCharacter()){
-            return false;
-        }
-
-        if(isValidMove(destCoordinate, this.maxMovement)){
-            Board.getCell(this.currentPosition).setCharacterToken(null);
-            dest.setCharacterToken(this);
+        if(destinations.get(destCoordinate.getId())){
+            this.moveTo(this.game.getBoard().getCell(destCoordinate));
             this.hasMoved = true;
             return true;
         }
@@ -308,14 +334,61 @@ public abstract class CharacterToken {
     }
 
     /**
-     * Checks if this character can reach destination cell within the movement allowance and using holes.
-     * Miss Stealthy can cross obstacles.
-     * @param destCoordinate destination cell.
-     * @param maxMovement the maximum movement allowed to try and reach the given destination.
-     * @return true if destination could be reached, false otherwise.
+     * Moves this character from its current cell to the given one, no matter the distance.
+     * @param dest the destination cell.
+     * @throws IllegalStateException if the destination cannot accept a character.
+     */
+    protected void moveTo(final Cell dest){
+        if(!dest.canAcceptCharacter()){
+            throw new IllegalStateException(String.format("Coordinate: %s cannot accept a character token", dest.getCellCoordinate()));
+        }
+        this.game.getBoard().getCell(this.currentPosition).setCharacterToken(null);
+        dest.setCharacterToken(this);
+    }
+
+    /**
+     * Returns all cells this character can reach within its movement allowance, in a single search.
+     * Character can use holes to travel.
+     * MissStealthy can pass through obstacles.
+     * Cells are included even if they cannot accept a character, eg the ones occupied by other characters.
+     * @return all cells this character can reach, excluding its current position.
+     */
+    public Bitboard getReachableCells(){
+        Bitboard reachable = new Bitboard();
+        PathFinder.reachable(this.currentPosition.getId(), this.game.getBoard().getHoleMask(), true, this.characterType == CharacterType.STEALTHY,
+                this.maxMovement, reachable);
+        return reachable;
+    }
+
+    /**
+     * Returns all cells this character can move to within its movement allowance, in a single search.
+     * Character can use holes to travel.
+     * MissStealthy can pass through obstacles.
+     * @return all cells this character can move to.
+     */
+    public Bitboard getMoveDestinations(){
+        Bitboard destinations = this.getReachableCells();
+        //the current position is at distance 0, it is valid only if this character is not actually standing there
+        destinations.set(this.currentPosition.getId(), true);
+        destinations.andNot(Board.getObstacles());
+        destinations.andNot(this.game.getBoard().getOccupied());
+        return destinations;
+    }
+
+    /**
+     * Returns all cells this character can be forced to move to within the given movement allowance, in a single search.
+     * Character CANNOT use holes to travel.
+     * Miss Stealthy CANNOT pass through obstacles.
+     * This is the movement SergentGoodley can force on other characters.
+     * @param maxMovement the maximum movement allowed.
+     * @return all cells this character can be forced to move to.
      */
-    private boolean isValidMove(final CellCoordinate destCoordinate, int maxMovement){
-        return CellCoordinate.distance(this.currentPosition, destCoordinate, true, this.characterType == CharacterType.STEALTHY) <= maxMovement;
+    public Bitboard getMoveDestinationsNoHoles(int maxMovement){
+        Bitboard destinations = new Bitboard();
+        Board board = this.game.getBoard();
+        PathFinder.reachable(this.currentPosition.getId(), board.getHoleMask(), false, false, maxMovement, destinations);
+        destinations.andNot(board.getOccupied());
+        return destinations;
     }
 
     /**
@@ -327,19 +400,7 @@ public abstract class CharacterToken {
      * @return total steps moved to complete the operation, -1 if operation could not be completed.
      */
     protected int moveCharacterNoHoles(final CellCoordinate destCoordinate, int maxMovement){
-        Cell dest = Board.getCell(destCoordinate);
-
-        if(!dest.canAcceptCharacter()){
-            return -1;
-        }
-
-        int distance = CellCoordinate.distance(this.currentPosition, destCoordinate);
-
-        if(distance > maxMovement){
-            return -1;
-        }
-
-        return distance;
+        return PathFinder.moveCharacterNoHoles(this.game.getBoard(), this.currentPosition, destCoordinate, maxMovement);
     }
 
     /**
@@ -347,6 +408,13 @@ public abstract class CharacterToken {
      */
     protected abstract void useAbility();
 
+    /**
+     * Each character implements its own logic here for their special ability, the choices are read from the action
+     * instead of asking the player.
+     * @param action the action to play, see Action.
+     */
+    protected abstract void useAbility(long action);
+
     /**
      * Executes this character ability if possible
      * @return true if ability was used, false if it was not possible
@@ -380,40 +448,6 @@ public abstract class CharacterToken {
         }
     }
 
-    /**
-     * Used to prompt player to choose a character token among the given choices, without the excluded one.
-     * @param exclude the character token to exclude from available choices.
-     * @param allowCancel true if the player should be presented with the choice to cancel the action. In this case
-     *                    it returns null.
-     * @return the character token chosen by the player or null if player canceled the action.
-     */
-    public static CharacterToken askCharacterToken(CharacterType exclude, boolean allowCancel){
-        CharacterToken character = null;
-
-        while(character == null) {
-            //lower bound is either 0 or -1 depending on whether player can cancel the action or not
-            int lowerBound = 0;
-            if(allowCancel){
-                lowerBound--;
-            }
-
-            int choice = Stdinputter.getIntInput(lowerBound, CharacterType.values().length - 1, ChoicePrompts.promptCharacterChoice(exclude, allowCancel), "Invalid character.");
-
-            if (choice == -1 && allowCancel) {
-                return null;
-            }
-
-            character = Game.getCharacterToken(CharacterType.fromNumVal(choice));
-
-            if(character.getCharacterType().equals(exclude)){
-                System.out.println("This character cannot be chosen now.");
-                character = null;
-            }
-        }
-
-        return character;
-    }
-
     @Override
     public int hashCode() {
         return Objects.hash(this.name);
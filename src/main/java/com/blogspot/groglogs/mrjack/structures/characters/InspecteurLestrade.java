@@ -1,9 +1,9 @@
 package com.blogspot.groglogs.mrjack.structures.characters;
 
-import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.Action;
+import com.blogspot.groglogs.mrjack.structures.board.BoardTopology;
 import com.blogspot.groglogs.mrjack.structures.board.Cell;
 import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
-import com.blogspot.groglogs.mrjack.structures.enums.CellType;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterAbilityType;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
 
@@ -15,7 +15,7 @@ public class InspecteurLestrade extends CharacterToken {
 
     public InspecteurLestrade(){
         super(CharacterType.LESTRADE, "Inspecteur Lestrade", "IL", 3,
-                CharacterAbilityType.ANY_MOVE, true, new CellCoordinate(9,4));
+                CharacterAbilityType.ANY_MOVE, true, CellCoordinate.of(9,4));
     }
 
     /**
@@ -23,40 +23,33 @@ public class InspecteurLestrade extends CharacterToken {
      */
     @Override
     public void useAbility() {
-        Cell source = getSourceBarrier();
-        Cell dest = getDestBarrier();
-        //swap barriers
-        source.flipExit();
-        dest.flipExit();
+        //barriers go from a blocked exit to an open one
+        int exits = this.game.getBoard().getExitMask();
+        int source = this.game.getPlayer().chooseSwapSource(this, ~exits & ((1 << BoardTopology.getNumExits()) - 1));
+        int dest = this.game.getPlayer().chooseSwapDest(this, exits);
+
+        this.useAbility(Action.withSwap(Action.play(this.characterType, Action.ABILITY, 0), source, dest));
     }
 
-    //old barrier must be present where we want to remove it from
-    private Cell getSourceBarrier(){
-        System.out.println("Enter barrier coordinate of blocked exit to open:");
-        CellCoordinate oldBarrier = CellCoordinate.askInputCoordinate();
-        Cell c = Board.getCell(oldBarrier);
+    /**
+     * Moves a police barrier between the exits given in the action, see BoardTopology.getExitCell.
+     * @throws IllegalStateException if the barrier is not moved from a blocked exit to an open one.
+     */
+    @Override
+    protected void useAbility(long action) {
+        Cell source = this.game.getBoard().getCell(BoardTopology.getExitCell(Action.getParamA(action)));
+        Cell dest = this.game.getBoard().getCell(BoardTopology.getExitCell(Action.getParamB(action)));
 
-        while((c.getCellType() != CellType.EXIT && c.getCellType() != CellType.EXIT_HOLE) || c.isExitOpen()){
-            System.out.println("Barrier must be moved from a blocked exit:");
-            oldBarrier = CellCoordinate.askInputCoordinate();
-            c = Board.getCell(oldBarrier);
+        if(source.isExitOpen() || !dest.isExitOpen()){
+            throw new IllegalStateException("Barrier must be moved from a blocked exit to an open one");
         }
 
-        return c;
+        this.moveBarrier(source, dest);
     }
 
-    //new barrier must not be present where we want to place it
-    private Cell getDestBarrier(){
-        System.out.println("Enter barrier coordinate of open exit to close:");
-        CellCoordinate newBarrier = CellCoordinate.askInputCoordinate();
-        Cell c = Board.getCell(newBarrier);
-
-        while((c.getCellType() != CellType.EXIT && c.getCellType() != CellType.EXIT_HOLE) || !c.isExitOpen()){
-            System.out.println("Barrier must be moved to an open exit:");
-            newBarrier = CellCoordinate.askInputCoordinate();
-            c = Board.getCell(newBarrier);
-        }
-
-        return c;
+    private void moveBarrier(final Cell source, final Cell dest){
+        //swap barriers
+        source.flipExit();
+        dest.flipExit();
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,9 @@
 package com.blogspot.groglogs.mrjack.structures.characters;
 
+import com.blogspot.groglogs.mrjack.Action;
 import com.blogspot.groglogs.mrjack.structures.board.Board;
 import com.blogspot.groglogs.mrjack.structures.board.Cell;
 import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
-import com.blogspot.groglogs.mrjack.structures.enums.CellType;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterAbilityType;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
 
@@ -15,7 +15,7 @@ public class JeremyBert extends CharacterToken {
 
     public JeremyBert(){
         super(CharacterType.BERT, "Jeremy Bert", "JB", 3,
-                CharacterAbilityType.ANY_MOVE, true, new CellCoordinate(7,8));
+                CharacterAbilityType.ANY_MOVE, true, CellCoordinate.of(7,8));
     }
 
     /**
@@ -23,40 +23,33 @@ public class JeremyBert extends CharacterToken {
      */
     @Override
     public void useAbility() {
-        Cell source = getSourceCover();
-        Cell dest = getDestCover();
-        //swap covers
-        source.flipHole();
-        dest.flipHole();
+        //covers go from a closed hole to an open one
+        int holes = this.game.getBoard().getHoleMask();
+        int source = this.game.getPlayer().chooseSwapSource(this, ~holes & ((1 << Board.getNumHoles()) - 1));
+        int dest = this.game.getPlayer().chooseSwapDest(this, holes);
+
+        this.useAbility(Action.withSwap(Action.play(this.characterType, Action.ABILITY, 0), source, dest));
     }
 
-    //old hole must be on a covered
-    private Cell getSourceCover(){
-        System.out.println("Enter hole coordinate to move open:");
-        CellCoordinate oldCover = CellCoordinate.askInputCoordinate();
-        Cell c = Board.getCell(oldCover);
+    /**
+     * Moves a manhole cover between the holes given in the action, see Board.getHoleCoordinate.
+     * @throws IllegalStateException if the cover is not moved from a covered hole to an open one.
+     */
+    @Override
+    protected void useAbility(long action) {
+        Cell source = this.game.getBoard().getCell(Board.getHoleCoordinate(Action.getParamA(action)));
+        Cell dest = this.game.getBoard().getCell(Board.getHoleCoordinate(Action.getParamB(action)));
 
-        while((c.getCellType() != CellType.HOLE && c.getCellType() != CellType.EXIT_HOLE) || c.isHoleOpen()){
-            System.out.println("Cover must be moved from a closed hole:");
-            oldCover = CellCoordinate.askInputCoordinate();
-            c = Board.getCell(oldCover);
+        if(source.isHoleOpen() || !dest.isHoleOpen()){
+            throw new IllegalStateException("Cover must be moved from a closed hole to an open one");
         }
 
-        return c;
+        this.moveCover(source, dest);
     }
 
-    //new hole must not be covered
-    private Cell getDestCover(){
-        System.out.println("Enter hole coordinate to close:");
-        CellCoordinate newCover = CellCoordinate.askInputCoordinate();
-        Cell c = Board.getCell(newCover);
-
-        while((c.getCellType() != CellType.HOLE && c.getCellType() != CellType.EXIT_HOLE) || !c.isHoleOpen()){
-            System.out.println("Cover must be placed on an open hole:");
-            newCover = CellCoordinate.askInputCoordinate();
-            c = Board.getCell(newCover);
-        }
-
-        return c;
+    private void moveCover(final Cell source, final Cell dest){
+        //swap covers
+        source.flipHole();
+        dest.flipHole();
     }
 }
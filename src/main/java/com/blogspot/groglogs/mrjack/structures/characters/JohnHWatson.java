@@ -1,9 +1,6 @@
 package com.blogspot.groglogs.mrjack.structures.characters;
 
-import com.blogspot.groglogs.mrjack.input.ChoicePrompts;
-import com.blogspot.groglogs.mrjack.input.Stdinputter;
-import com.blogspot.groglogs.mrjack.structures.board.Board;
-import com.blogspot.groglogs.mrjack.structures.board.Cell;
+import com.blogspot.groglogs.mrjack.Action;
 import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterAbilityType;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
@@ -20,7 +17,7 @@ public class JohnHWatson extends CharacterToken {
 
     public JohnHWatson(){
         super(CharacterType.WATSON, "John H. Watson", "JW", 3,
-                CharacterAbilityType.AFTER_MOVE, true, new CellCoordinate(15,8));
+                CharacterAbilityType.AFTER_MOVE, true, CellCoordinate.of(15,8));
         this.direction = Direction.NORTHEAST;
     }
 
@@ -29,11 +26,12 @@ public class JohnHWatson extends CharacterToken {
     }
 
     /**
-     * Used only for testing.
+     * Points WATSON's lamp in the given direction without asking the player, eg when restoring a saved game.
      * @param d the new direction where to point WATSON's lamp.
      */
-    protected void setLampDirection(Direction d){
+    public void setLampDirection(Direction d){
         this.direction = d;
+        this.game.getBoard().onCharacterChanged(this);
     }
 
     /**
@@ -47,38 +45,21 @@ public class JohnHWatson extends CharacterToken {
 
     @Override
     public void useAbility() {
-        int choice = Stdinputter.getIntInput(0, Direction.values().length - 1, ChoicePrompts.promptLampDirection(), "Invalid direction");
-
-        Direction lampDirection = Direction.fromNumVal(choice);
-
-        this.direction = lampDirection;
+        this.setLampDirection(this.game.getPlayer().chooseLampDirection(this));
     }
 
     /**
-     * Lamp light travels in Watson's direction until it hits an obstacle.
-     * All characters under the light are visible.
+     * Points the lamp in the direction given in the action.
+     * @throws IllegalStateException if the direction is not valid.
      */
-    public void checkVisibleUnderLampRange(){
-        //get coordinate delta for Watson's lamp based on his current direction
-        CellCoordinate delta = Cell.getNearbyCells().get(this.direction);
-
-        for(int i = this.currentPosition.getRow() + delta.getRow(), j = this.currentPosition.getColumn() + delta.getColumn();
-        i >= 0 && i < Board.ROWS && j >= 0 && j < Board.COLUMNS;
-        i += delta.getRow(),
-        j += delta.getColumn()
-        ){
-            Cell neighbor = Board.getCell(i, j);
-            switch (neighbor.getCellType()) {
-                case HOUSE:
-                case LAMP:
-                    return;            
-                default:
-                    CharacterToken c = neighbor.getCharacterToken();
-                    if(c != null){
-                        c.markVisible();
-                    }
-            }
+    @Override
+    protected void useAbility(long action) {
+        Direction d = Direction.fromNumVal(Action.getParamA(action));
 
+        if(d == null){
+            throw new IllegalStateException(String.format("Invalid direction %d", Action.getParamA(action)));
         }
+
+        this.setLampDirection(d);
     }
 }
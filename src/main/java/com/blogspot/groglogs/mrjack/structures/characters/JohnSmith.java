@@ -1,9 +1,9 @@
 package com.blogspot.groglogs.mrjack.structures.characters;
 
-import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.Action;
+import com.blogspot.groglogs.mrjack.structures.board.BoardTopology;
 import com.blogspot.groglogs.mrjack.structures.board.Cell;
 import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
-import com.blogspot.groglogs.mrjack.structures.enums.CellType;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterAbilityType;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
 
@@ -15,7 +15,7 @@ public class JohnSmith extends CharacterToken {
 
     public JohnSmith(){
         super(CharacterType.SMITH, "John Smith", "JS", 3,
-                CharacterAbilityType.ANY_MOVE, true, new CellCoordinate(5,6));
+                CharacterAbilityType.ANY_MOVE, true, CellCoordinate.of(5,6));
     }
 
     /**
@@ -23,43 +23,36 @@ public class JohnSmith extends CharacterToken {
      */
     @Override
     public void useAbility() {
-        Cell source = getSourceLamp();
-        Cell dest = getDestLamp();
-        //swap lamps
-        source.flipLamp();
-        dest.flipLamp();
-        //the turn to switch off the lamp is tracked in a separate value, do not forget to carry this over too!
-        dest.setLampOffTurn(source.getlampOffTurn());
-        source.setLampOffTurn(-1);
+        //lamps go from ON to OFF
+        int lamps = this.game.getBoard().getLampMask();
+        int source = this.game.getPlayer().chooseSwapSource(this, lamps);
+        int dest = this.game.getPlayer().chooseSwapDest(this, ~lamps & ((1 << BoardTopology.getNumLamps()) - 1));
+
+        this.useAbility(Action.withSwap(Action.play(this.characterType, Action.ABILITY, 0), source, dest));
     }
 
-    //old lamp must be ON
-    private Cell getSourceLamp(){
-        System.out.println("Enter lamp coordinate to turn OFF:");
-        CellCoordinate oldLamp = CellCoordinate.askInputCoordinate();
-        Cell c = Board.getCell(oldLamp);
+    /**
+     * Swaps the lamps given in the action, see BoardTopology.getLampCell.
+     * @throws IllegalStateException if the first lamp is not ON or the second one is not OFF.
+     */
+    @Override
+    protected void useAbility(long action) {
+        Cell source = this.game.getBoard().getCell(BoardTopology.getLampCell(Action.getParamA(action)));
+        Cell dest = this.game.getBoard().getCell(BoardTopology.getLampCell(Action.getParamB(action)));
 
-        while(c.getCellType() != CellType.LAMP || !c.isLampOn()){
-            System.out.println("Lamp must be ON:");
-            oldLamp = CellCoordinate.askInputCoordinate();
-            c = Board.getCell(oldLamp);
+        if(!source.isLampOn() || dest.isLampOn()){
+            throw new IllegalStateException("Lamp must be moved from an ON lamp to an OFF one");
         }
 
-        return c;
+        this.swapLamps(source, dest);
     }
 
-    //new lamp must be OFF
-    private Cell getDestLamp(){
-        System.out.println("Enter lamp coordinate to turn ON:");
-        CellCoordinate newLamp = CellCoordinate.askInputCoordinate();
-        Cell c = Board.getCell(newLamp);
-
-        while(c.getCellType() != CellType.LAMP || c.isLampOn()){
-            System.out.println("Lamp must be OFF:");
-            newLamp = CellCoordinate.askInputCoordinate();
-            c = Board.getCell(newLamp);
-        }
-
-        return c;
+    private void swapLamps(final Cell source, final Cell dest){
+        //swap lamps
+        source.flipLamp();
+        dest.flipLamp();
+        //the turn to switch off the lamp is tracked in a separate value, do not forget to carry this over too!
+        dest.setLampOffTurn(source.getlampOffTurn());
+        source.setLampOffTurn(-1);
     }
 }
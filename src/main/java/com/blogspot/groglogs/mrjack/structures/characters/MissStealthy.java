@@ -12,7 +12,7 @@ public class MissStealthy extends CharacterToken {
 
     public MissStealthy(){
         super(CharacterType.STEALTHY, "Miss Stealthy", "MS",4,
-                CharacterAbilityType.ALWAYS, false, new CellCoordinate(9,0));
+                CharacterAbilityType.ALWAYS, false, CellCoordinate.of(9,0));
     }
 
     /**
@@ -31,4 +31,9 @@ public class MissStealthy extends CharacterToken {
     public void useAbility() {
         throw new UnsupportedOperationException("Cannot use Miss Stealthy ability, it is always active");
     }
+
+    @Override
+    protected void useAbility(long action) {
+        throw new UnsupportedOperationException("Cannot use Miss Stealthy ability, it is always active");
+    }
 }
@@ -1,8 +1,9 @@
 package com.blogspot.groglogs.mrjack.structures.characters;
 
-import com.blogspot.groglogs.mrjack.Game;
-import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.Action;
+import com.blogspot.groglogs.mrjack.structures.board.Bitboard;
 import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
+import com.blogspot.groglogs.mrjack.structures.board.DistanceAtlas;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterAbilityType;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
 
@@ -15,31 +16,36 @@ public class SergentGoodley extends CharacterToken {
 
     public SergentGoodley(){
         super(CharacterType.GOODLEY, "Sergent Goodley", "SG", 3,
-                CharacterAbilityType.ANY_MOVE, true, new CellCoordinate(7,12));
+                CharacterAbilityType.ANY_MOVE, true, CellCoordinate.of(7,12));
     }
 
     /**
      * Allocate 3 movement points and use them to move 1 max 3 characters CLOSER to him
      * Characters CANNOT use holes to travel
+     * Points that cannot pull any character closer are lost.
      */
     @Override
     public void useAbility() {
         int movementToDo = 3;
-        while(movementToDo > 0) {
-            Game.printBoard();
+        while(movementToDo > 0 && this.canPull(movementToDo)) {
+            if(this.game.isInteractive()){
+                this.game.printBoard();
 
-            System.out.println(String.format("\nRemaining moves: %d", movementToDo));
+                System.out.println(String.format("\nRemaining moves: %d", movementToDo));
+            }
 
             //get character to move and desired destination
-            CharacterToken c = this.askCharacterToken(this.characterType, false);
-            CellCoordinate dest = CellCoordinate.askInputCoordinate();
+            CharacterToken c = this.game.askCharacterToken(this.characterType, false);
+            CellCoordinate dest = this.game.getPlayer().choosePullDestination(this, c, movementToDo);
 
             //destination must be closer to SG than start position
-            int initDistance = CellCoordinate.distance(c.getCurrentPosition(), this.currentPosition);
-            int endDistance = CellCoordinate.distance(dest, this.currentPosition);
+            int initDistance = DistanceAtlas.distance(c.getCurrentPosition(), this.currentPosition, this.game.getBoard().getHoleMask(), false, false);
+            int endDistance = DistanceAtlas.distance(dest, this.currentPosition, this.game.getBoard().getHoleMask(), false, false);
 
             if(endDistance >= initDistance){
-                System.out.println(String.format("Move must end closer to %s", this.name));
+                if(this.game.isInteractive()){
+                    System.out.println(String.format("Move must end closer to %s", this.name));
+                }
                 continue;
             }
 
@@ -47,13 +53,50 @@ public class SergentGoodley extends CharacterToken {
             int moved = c.moveCharacterNoHoles(dest, movementToDo);
 
             if (moved == -1) {
-                System.out.println(String.format("Move cannot exceed %d steps", movementToDo));
+                if(this.game.isInteractive()){
+                    System.out.println(String.format("Move cannot exceed %d steps", movementToDo));
+                }
             } else {
-                Board.getCell(c.getCurrentPosition()).setCharacterToken(null);
-                Board.getCell(dest).setCharacterToken(c);
+                c.moveTo(this.game.getBoard().getCell(dest));
                 movementToDo -= moved;
             }
         }
 
     }
+
+    //true if at least one character can be pulled closer to him with the given movement points
+    private boolean canPull(int movement){
+        int holeMask = this.game.getBoard().getHoleMask();
+        int target = this.currentPosition.getId();
+
+        for(CharacterType t : CharacterType.values()){
+            CharacterToken c = this.game.getCharacterToken(t);
+            if(c == this){
+                continue;
+            }
+
+            int distance = DistanceAtlas.distance(c.getCurrentPosition().getId(), target, holeMask, false, false);
+            Bitboard destinations = c.getMoveDestinationsNoHoles(movement);
+            for(int id = destinations.nextSetBit(0); id >= 0; id = destinations.nextSetBit(id + 1)){
+                int closer = DistanceAtlas.distance(id, target, holeMask, false, false);
+                if(distance >= 0 && closer >= 0 && closer < distance){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pulls the characters given in the action, one after the other, to their destinations.
+     * The destinations are trusted to be closer to him and within the 3 movement points.
+     * @throws IllegalStateException if a destination cannot accept a character.
+     */
+    @Override
+    protected void useAbility(long action) {
+        for(int i = 0; i < Action.getNumPulls(action); i++){
+            CharacterToken c = this.game.getCharacterToken(Action.getPullCharacter(action, i));
+            c.moveTo(this.game.getBoard().getCell(Action.getPullDestination(action, i)));
+        }
+    }
 }
@@ -1,6 +1,5 @@
 package com.blogspot.groglogs.mrjack.structures.characters;
 
-import com.blogspot.groglogs.mrjack.Game;
 import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterAbilityType;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
@@ -13,7 +12,7 @@ public class SherlockHolmes extends CharacterToken {
 
     public SherlockHolmes(){
         super(CharacterType.HOLMES, "Sherlock Holmes", "SH", 3,
-                CharacterAbilityType.AFTER_MOVE, true, new CellCoordinate(11,6));
+                CharacterAbilityType.AFTER_MOVE, true, CellCoordinate.of(11,6));
     }
 
     /**
@@ -31,11 +30,19 @@ public class SherlockHolmes extends CharacterToken {
      */
     @Override
     public void useAbility() {
-        CharacterToken c = Game.revealInnocent();
-        if(c != null){
+        CharacterToken c = this.game.revealInnocent();
+        if(c != null && this.game.isInteractive()){
             System.out.println();
             System.out.println(String.format("Character %s is INNOCENT", c.getName()));
             System.out.println();
         }
     }
+
+    /**
+     * Picks a card from the innocent list, the player learns it from the game.
+     */
+    @Override
+    protected void useAbility(long action) {
+        this.game.revealInnocent();
+    }
 }
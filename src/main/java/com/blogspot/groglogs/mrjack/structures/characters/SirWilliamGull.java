@@ -1,6 +1,6 @@
 package com.blogspot.groglogs.mrjack.structures.characters;
 
-import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.Action;
 import com.blogspot.groglogs.mrjack.structures.board.Cell;
 import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterAbilityType;
@@ -14,7 +14,7 @@ public class SirWilliamGull extends CharacterToken {
 
     public SirWilliamGull(){
         super(CharacterType.GULL, "Sir William Gull", "WG", 3,
-                CharacterAbilityType.INSTEAD_OF_MOVE, false, new CellCoordinate(1,4));
+                CharacterAbilityType.INSTEAD_OF_MOVE, false, CellCoordinate.of(1,4));
     }
 
     /**
@@ -41,10 +41,27 @@ public class SirWilliamGull extends CharacterToken {
      */
     @Override
     public void useAbility() {
-        CharacterToken c = this.askCharacterToken(this.characterType, false);
+        this.swapWith(this.game.askCharacterToken(this.characterType, false));
+    }
+
+    /**
+     * Swaps place with the character given in the action.
+     * @throws IllegalStateException if the character is SirWilliamGull himself.
+     */
+    @Override
+    protected void useAbility(long action) {
+        CharacterType target = CharacterType.fromNumVal(Action.getParamA(action));
+
+        if(target == this.characterType){
+            throw new IllegalStateException(String.format("%s cannot swap place with himself", this.name));
+        }
+
+        this.swapWith(this.game.getCharacterToken(target));
+    }
 
-        Cell current = Board.getCell(this.currentPosition);
-        Cell target = Board.getCell(c.getCurrentPosition());
+    private void swapWith(final CharacterToken c){
+        Cell current = this.game.getBoard().getCell(this.currentPosition);
+        Cell target = this.game.getBoard().getCell(c.getCurrentPosition());
 
         CellCoordinate newPosition = c.getCurrentPosition();
 
@@ -0,0 +1,113 @@
+package com.blogspot.groglogs.mrjack.structures.common;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive longs with open addressing, backed by an array that grows when half full and is never shrunk.
+ * Adding and clearing never allocate once the set reached its working size.
+ */
+public final class LongHashSet {
+
+    private long[] keys;
+    //0 marks an empty slot, so it is tracked separately
+    private boolean hasZero;
+    private int size;
+
+    public LongHashSet(){
+        this(64);
+    }
+
+    /**
+     * Creates an empty set.
+     * @param capacity the initial capacity, rounded up to a power of 2.
+     */
+    public LongHashSet(int capacity){
+        this.keys = new long[Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1)];
+        this.hasZero = false;
+        this.size = 0;
+    }
+
+    private static int slot(long key, int mask){
+        //keys are often Zobrist hashes already, mixing protects the others from clustering
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ h >>> 32) & mask;
+    }
+
+    /**
+     * Adds the given value to the set.
+     * @param key the value.
+     * @return true if the value was not in the set.
+     */
+    public boolean add(long key){
+        if(key == 0){
+            if(this.hasZero){
+                return false;
+            }
+            this.hasZero = true;
+            this.size++;
+            return true;
+        }
+
+        if(this.size * 2 >= this.keys.length){
+            this.grow();
+        }
+
+        int mask = this.keys.length - 1;
+        for(int i = slot(key, mask); ; i = (i + 1) & mask){
+            if(this.keys[i] == key){
+                return false;
+            }
+            if(this.keys[i] == 0){
+                this.keys[i] = key;
+                this.size++;
+                return true;
+            }
+        }
+    }
+
+    public boolean contains(long key){
+        if(key == 0){
+            return this.hasZero;
+        }
+
+        int mask = this.keys.length - 1;
+        for(int i = slot(key, mask); this.keys[i] != 0; i = (i + 1) & mask){
+            if(this.keys[i] == key){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void grow(){
+        long[] old = this.keys;
+        this.keys = new long[old.length * 2];
+        int mask = this.keys.length - 1;
+
+        for(long key : old){
+            if(key != 0){
+                int i = slot(key, mask);
+                while(this.keys[i] != 0){
+                    i = (i + 1) & mask;
+                }
+                this.keys[i] = key;
+            }
+        }
+    }
+
+    public int size(){
+        return this.size;
+    }
+
+    public boolean isEmpty(){
+        return this.size == 0;
+    }
+
+    public void clear(){
+        if(this.size > 0){
+            Arrays.fill(this.keys, 0);
+            this.hasZero = false;
+            this.size = 0;
+        }
+    }
+}
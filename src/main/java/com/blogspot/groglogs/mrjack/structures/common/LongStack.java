@@ -0,0 +1,95 @@
+package com.blogspot.groglogs.mrjack.structures.common;
+
+import java.util.Arrays;
+
+/**
+ * A stack of primitive longs, backed by an array that grows when full and is never shrunk.
+ * Pushing and popping never allocate once the stack reached its working size.
+ */
+public final class LongStack {
+
+    private long[] entries;
+    private int size;
+
+    public LongStack(){
+        this(64);
+    }
+
+    /**
+     * Creates an empty stack.
+     * @param capacity the initial capacity.
+     */
+    public LongStack(int capacity){
+        this.entries = new long[Math.max(1, capacity)];
+        this.size = 0;
+    }
+
+    public void push(long value){
+        if(this.size == this.entries.length){
+            this.entries = Arrays.copyOf(this.entries, this.size * 2);
+        }
+        this.entries[this.size++] = value;
+    }
+
+    /**
+     * Removes and returns the last pushed value.
+     * @return the last pushed value.
+     * @throws IllegalStateException if the stack is empty.
+     */
+    public long pop(){
+        if(this.size == 0){
+            throw new IllegalStateException("Stack is empty");
+        }
+        return this.entries[--this.size];
+    }
+
+    /**
+     * Returns the last pushed value without removing it.
+     * @return the last pushed value.
+     * @throws IllegalStateException if the stack is empty.
+     */
+    public long peek(){
+        if(this.size == 0){
+            throw new IllegalStateException("Stack is empty");
+        }
+        return this.entries[this.size - 1];
+    }
+
+    /**
+     * Returns the value at the given position, 0 being the first pushed value.
+     * @param index the position.
+     * @return the value at the given position.
+     * @throws IllegalStateException if there is no value at the given position.
+     */
+    public long get(int index){
+        if(index < 0 || index >= this.size){
+            throw new IllegalStateException(String.format("Invalid index %d for size %d", index, this.size));
+        }
+        return this.entries[index];
+    }
+
+    /**
+     * Replaces the value at the given position, 0 being the first pushed value.
+     * @param index the position.
+     * @param value the new value.
+     * @throws IllegalStateException if there is no value at the given position.
+     */
+    public void set(int index, long value){
+        if(index < 0 || index >= this.size){
+            throw new IllegalStateException(String.format("Invalid index %d for size %d", index, this.size));
+        }
+        this.entries[index] = value;
+    }
+
+    public boolean isEmpty(){
+        return this.size == 0;
+    }
+
+    public int size(){
+        return this.size;
+    }
+
+    public void clear(){
+        this.size = 0;
+    }
+}
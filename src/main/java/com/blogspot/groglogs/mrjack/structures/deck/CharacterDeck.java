@@ -2,21 +2,32 @@ package com.blogspot.groglogs.mrjack.structures.deck;
 
 import com.blogspot.groglogs.mrjack.structures.characters.*;
 
-import java.util.ArrayDeque;
-import java.util.Queue;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Represents the full deck of 8 characters.
+ * Cards never move, shuffles only permute the order in which they are drawn, so shuffling and drawing allocate nothing.
+ * All shuffles are drawn from a single generator, a deck seeded the same way always deals the same cards.
+ * Each deck owns its generator: decks of concurrent games share nothing.
  */
 public class CharacterDeck {
 
     public final static int NUM_CHARACTERS = 8;
 
-    private CharacterToken[] characterCards;//use array format for Fisher-Yates shuffle
-    private final Random gen;
+    private final CharacterToken[] characterCards;
+    //draw order, order[i] is the position in characterCards of the i-th card drawn
+    private final int[] order;
+    private final SplittableRandom gen;
 
     public CharacterDeck(){
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Creates the deck, all shuffles are drawn from the given generator.
+     * @param gen the random generator, seed it to replay the same game.
+     */
+    public CharacterDeck(final SplittableRandom gen){
         this.characterCards = new CharacterToken[NUM_CHARACTERS];
         this.characterCards[0] = new InspecteurLestrade();
         this.characterCards[1] = new JeremyBert();
@@ -27,11 +38,16 @@ public class CharacterDeck {
         this.characterCards[6] = new SherlockHolmes();
         this.characterCards[7] = new SirWilliamGull();
 
-        this.gen = new Random();
+        this.order = new int[NUM_CHARACTERS];
+        for(int i = 0; i < NUM_CHARACTERS; i++){
+            this.order[i] = i;
+        }
+
+        this.gen = gen;
     }
 
     /**
-     * Gets the CharacterToken at the given array position.
+     * Gets the CharacterToken at the given array position, positions do not change when the deck is shuffled.
      * @param position the token position in the array.
      * @return the CharacterToken at the given array position.
      */
@@ -39,35 +55,40 @@ public class CharacterDeck {
         return this.characterCards[position];
     }
 
-    private void swap(int curr, int swapWith){
-        CharacterToken tmp = this.characterCards[curr];
-        this.characterCards[curr] = this.characterCards[swapWith];
-        this.characterCards[swapWith] = tmp;
-    }
-
-    private void fisherYatesShuffle(){
-        for(int curr = this.characterCards.length - 1; curr >= 0; curr--){
-            int swapWith = gen.nextInt(curr + 1);
+    /**
+     * Shuffles the deck using Fisher-Yates logic, only the draw order changes.
+     * Tests are here: https://gist.github.com/steghio/ea6d32381f2e589fd3f09cfed07d65a7#file-fisheryatesjtests-java
+     */
+    public void shuffle(){
+        for(int curr = this.order.length - 1; curr > 0; curr--){
+            int swapWith = this.gen.nextInt(curr + 1);
 
-            if(curr != swapWith){
-                swap(curr, swapWith);
-            }
+            int tmp = this.order[curr];
+            this.order[curr] = this.order[swapWith];
+            this.order[swapWith] = tmp;
         }
     }
 
     /**
-     * Shuffles the deck using Fisher-Yates logic and returns a queue of CharacterToken.
-     * Tests are here: https://gist.github.com/steghio/ea6d32381f2e589fd3f09cfed07d65a7#file-fisheryatesjtests-java
-     * @return the shuffled CharacterTokens.
+     * Returns the card drawn at the given place since the last shuffle.
+     * @param i the draw index, from 0 to NUM_CHARACTERS - 1.
+     * @return the i-th card drawn.
      */
-    public Queue<CharacterToken> shuffle(){
-        this.fisherYatesShuffle();
+    public CharacterToken draw(int i){
+        return this.characterCards[this.order[i]];
+    }
 
-        Queue<CharacterToken> q = new ArrayDeque<>();
-        for(int i = 0; i < this.characterCards.length; i++){
-            q.add(this.characterCards[i]);
+    /**
+     * Returns the cards drawn at the given places since the last shuffle.
+     * @param from the first draw index.
+     * @param count the number of cards.
+     * @return the drawn characters, bit i is set for CharacterType.fromNumVal(i).
+     */
+    public int draw(int from, int count){
+        int cards = 0;
+        for(int i = from; i < from + count; i++){
+            cards |= 1 << this.draw(i).getCharacterType().getNumVal();
         }
-
-        return q;
+        return cards;
     }
 }
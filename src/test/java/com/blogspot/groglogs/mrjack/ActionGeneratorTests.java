@@ -0,0 +1,285 @@
+package com.blogspot.groglogs.mrjack;
+
+import com.blogspot.groglogs.mrjack.input.RandomPlayer;
+import com.blogspot.groglogs.mrjack.structures.board.Bitboard;
+import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
+import com.blogspot.groglogs.mrjack.structures.board.DistanceAtlas;
+import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
+import com.blogspot.groglogs.mrjack.structures.common.LongHashSet;
+import com.blogspot.groglogs.mrjack.structures.common.LongStack;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ActionGeneratorTests {
+
+    //points WATSON's lamp in the given direction, every other choice is random
+    private static final class LampPlayer extends RandomPlayer {
+
+        private final Direction direction;
+
+        LampPlayer(final Direction direction){
+            super(0);
+            this.direction = direction;
+        }
+
+        @Override
+        public Direction chooseLampDirection(final CharacterToken watson){
+            return this.direction;
+        }
+    }
+
+    //closes all holes, then places the given character on the given cell and other characters on every cell it could
+    //move to
+    private static GameState boxIn(final Game g, CharacterType t, final CellCoordinate cell){
+        Board b = g.getBoard();
+        for(CellCoordinate hole : Board.getHoleCells()){
+            if(b.getCell(hole).isHoleOpen()){
+                b.getCell(hole).flipHole();
+            }
+        }
+
+        CharacterToken boxed = g.getCharacterToken(t);
+        b.getCell(boxed.getCurrentPosition()).setCharacterToken(null);
+        b.getCell(cell).setCharacterToken(boxed);
+
+        for(CharacterType other : CharacterType.values()){
+            Bitboard destinations = boxed.getMoveDestinations();
+            if(destinations.isEmpty()){
+                break;
+            }
+            CharacterToken c = g.getCharacterToken(other);
+            if(other == t || destinations.get(c.getCurrentPosition().getId())){
+                continue;
+            }
+            b.getCell(c.getCurrentPosition()).setCharacterToken(null);
+            b.getCell(destinations.nextSetBit(0)).setCharacterToken(c);
+        }
+
+        assertTrue("Character is boxed in", boxed.getMoveDestinations().isEmpty());
+        return g.getState();
+    }
+
+    //what the game tracks that a pick can change, other than the control flags
+    private static long outcome(final Game g){
+        return g.getBoard().getHash() ^ g.getRevealedInnocents(Game.PLAYER_INSPECTOR);
+    }
+
+    //every action of a character in the given position is legal and leads to a different position
+    private static void checkCharacter(final Game g, final ActionGenerator gen, CharacterType t){
+        LongStack actions = new LongStack();
+        LongHashSet hashes = new LongHashSet();
+        long before = g.getHash();
+
+        gen.generate(g, t, actions);
+        assertTrue("There is always an action", actions.size() > 0);
+
+        for(int i = 0; i < actions.size(); i++){
+            long action = actions.get(i);
+            assertEquals("Action plays the character", t, Action.getCharacter(action));
+            if(t == CharacterType.GOODLEY){
+                checkPulls(g, action);
+            }
+
+            g.apply(action);
+            assertTrue("Action has a new outcome " + Action.toString(action), hashes.add(g.getHash()));
+            g.undo();
+        }
+
+        assertEquals("Game is restored", before, g.getHash());
+    }
+
+    //each pull ends closer to GOODLEY and all pulls fit in his movement points
+    private static void checkPulls(final Game g, long action){
+        int[] positions = new int[CharacterType.values().length];
+        for(CharacterType t : CharacterType.values()){
+            positions[t.getNumVal()] = g.getCharacterToken(t).getCurrentPosition().getId();
+        }
+        int goodley = Action.getOrder(action) == Action.MOVE_ABILITY ? Action.getDestination(action)
+                : positions[CharacterType.GOODLEY.getNumVal()];
+        int holes = g.getBoard().getHoleMask(), movement = 0;
+
+        for(int i = 0; i < Action.getNumPulls(action); i++){
+            int c = Action.getPullCharacter(action, i).getNumVal(), dest = Action.getPullDestination(action, i);
+            assertTrue("Pull ends closer", DistanceAtlas.distance(dest, goodley, holes, false, false)
+                    < DistanceAtlas.distance(positions[c], goodley, holes, false, false));
+            movement += DistanceAtlas.distance(positions[c], dest, holes, false, false);
+            positions[c] = dest;
+        }
+        assertTrue("Pulls fit in the movement points", movement <= 3);
+    }
+
+    @Test
+    //every position of whole games, for every character
+    public void generatedActionsAreLegalAndDistinct(){
+        ActionGenerator gen = new ActionGenerator();
+
+        for(long seed = 40; seed < 43; seed++){
+            Game g = new Game(seed);
+            g.setHashVerification(true);
+
+            while(!g.isOver()){
+                if(g.getBatchCharacters() != 0){
+                    for(CharacterType t : CharacterType.values()){
+                        //JACK escapes whatever he plays
+                        if(!g.canJackEscape(g.getCharacterToken(t))){
+                            checkCharacter(g, gen, t);
+                        }
+                    }
+                }
+                g.apply(ScriptedActions.next(g));
+            }
+        }
+    }
+
+    @Test
+    //random actions lead to a position some generated action leads to
+    public void randomActionsAreGenerated(){
+        ActionGenerator gen = new ActionGenerator();
+        SplittableRandom random = new SplittableRandom(46);
+        LongStack actions = new LongStack(), scratch = new LongStack();
+        LongHashSet outcomes = new LongHashSet();
+
+        for(long seed = 46; seed < 48; seed++){
+            Game g = new Game(seed);
+
+            while(!g.isOver()){
+                if(g.getBatchCharacters() != 0){
+                    for(CharacterType t : CharacterType.values()){
+                        if(g.canJackEscape(g.getCharacterToken(t))){
+                            continue;
+                        }
+
+                        outcomes.clear();
+                        actions.clear();
+                        gen.generate(g, t, actions);
+                        for(int i = 0; i < actions.size(); i++){
+                            g.apply(actions.get(i));
+                            outcomes.add(g.getHash());
+                            g.undo();
+                        }
+
+                        for(int i = 0; i < 20; i++){
+                            long action = gen.randomAction(g, t, random, scratch);
+                            assertEquals("Action plays the character", t, Action.getCharacter(action));
+                            g.apply(action);
+                            assertTrue("Outcome is generated " + Action.toString(action), outcomes.contains(g.getHash()));
+                            g.undo();
+                        }
+                    }
+                }
+                g.apply(ScriptedActions.next(g));
+            }
+        }
+    }
+
+    @Test
+    public void movesMatchDestinations(){
+        Game g = new Game(44);
+        ActionGenerator gen = new ActionGenerator();
+        LongStack actions = new LongStack();
+
+        gen.generate(g, CharacterType.STEALTHY, actions);
+        assertEquals("One action per destination", g.getCharacterToken(CharacterType.STEALTHY).getMoveDestinations().cardinality(),
+                actions.size());
+
+        actions.clear();
+        gen.generate(g, CharacterType.GULL, actions);
+        assertEquals("One action per destination and one per swap",
+                g.getCharacterToken(CharacterType.GULL).getMoveDestinations().cardinality() + CharacterType.values().length - 1,
+                actions.size());
+
+        actions.clear();
+        gen.generate(g, CharacterType.WATSON, actions);
+        assertEquals("One action per destination and direction",
+                g.getCharacterToken(CharacterType.WATSON).getMoveDestinations().cardinality() * 6, actions.size());
+    }
+
+    @Test
+    public void generatesBatchAndAccusations(){
+        Game g = new Game(45);
+        ActionGenerator gen = new ActionGenerator();
+        LongStack actions = new LongStack();
+
+        assertEquals("Nothing before the deal", 0, gen.generate(g, actions));
+
+        g.apply(Action.deal(ScriptedActions.BATCH, ScriptedActions.NEXT_BATCH));
+        actions.push(42);
+        int count = gen.generate(g, actions);
+        assertEquals("Buffer is not cleared", 42, actions.get(0));
+        assertEquals("Actions are added", count + 1, actions.size());
+
+        int accusations = 0, played = 0;
+        for(int i = 1; i < actions.size(); i++){
+            long action = actions.get(i);
+            assertTrue("Only characters in the batch", (ScriptedActions.BATCH & 1 << Action.getCharacter(action).getNumVal()) != 0);
+            if(Action.getKind(action) == Action.ACCUSE){
+                accusations++;
+                g.apply(action);
+                assertTrue("Accusation ends the game", g.isOver());
+                g.undo();
+            }
+            else {
+                played |= 1 << Action.getCharacter(action).getNumVal();
+            }
+        }
+        assertEquals("Every character in the batch can be played", ScriptedActions.BATCH, played);
+        assertEquals("Each reachable character is accused once", accusations,
+                gen.generateAccusations(g, new LongStack()));
+
+        //JACK never accuses
+        g.apply(actions.get(1));
+        g.apply(ScriptedActions.next(g));
+        actions.clear();
+        gen.generate(g, actions);
+        for(int i = 0; i < actions.size(); i++){
+            assertEquals("JACK plays characters", Action.PLAY, Action.getKind(actions.get(i)));
+        }
+    }
+
+    @Test
+    //a character that cannot move still uses his ability, as when the game asks the player for every choice
+    public void boxedInCharactersUseTheirAbility(){
+        CharacterType[] boxed = {CharacterType.WATSON, CharacterType.HOLMES};
+        ActionGenerator gen = new ActionGenerator();
+        LongStack actions = new LongStack();
+
+        for(CharacterType t : boxed){
+            Game g = new Game(boxIn(new Game(49), t, CellCoordinate.of(2, 1)));
+            //WATSON is in the first batch, HOLMES in the second one
+            g.apply(t == CharacterType.WATSON ? Action.deal(ScriptedActions.BATCH, ScriptedActions.NEXT_BATCH)
+                    : Action.deal(ScriptedActions.NEXT_BATCH, ScriptedActions.BATCH));
+
+            LongHashSet generated = new LongHashSet();
+            actions.clear();
+            gen.generate(g, t, actions);
+            for(int i = 0; i < actions.size(); i++){
+                assertEquals("Boxed in character only uses his ability", Action.ABILITY, Action.getOrder(actions.get(i)));
+                g.apply(actions.get(i));
+                generated.add(outcome(g));
+                g.undo();
+            }
+
+            //every choice the game offers to the player
+            LongHashSet played = new LongHashSet();
+            Direction[] directions = t == CharacterType.WATSON ? Direction.values() : new Direction[]{Direction.NORTH};
+            for(Direction d : directions){
+                LampPlayer p = new LampPlayer(d);
+                Game interactive = new Game(0, p, p);
+                interactive.setState(g.getState());
+                interactive.getCharacterToken(t).executeCharacterActions();
+
+                long o = outcome(interactive);
+                played.add(o);
+                assertTrue("Choice is generated", generated.contains(o));
+            }
+            assertEquals("Every outcome can be chosen", played.size(), generated.size());
+        }
+    }
+}
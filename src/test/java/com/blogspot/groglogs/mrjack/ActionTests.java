@@ -0,0 +1,82 @@
+package com.blogspot.groglogs.mrjack;
+
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ActionTests {
+
+    @Test
+    public void playIsEncoded(){
+        long a = Action.withSwap(Action.play(CharacterType.SMITH, Action.ABILITY_MOVE, 220), 7, 9);
+
+        assertEquals("Kind is encoded", Action.PLAY, Action.getKind(a));
+        assertEquals("Character is encoded", CharacterType.SMITH, Action.getCharacter(a));
+        assertEquals("Order is encoded", Action.ABILITY_MOVE, Action.getOrder(a));
+        assertEquals("Destination is encoded", 220, Action.getDestination(a));
+        assertEquals("Source is encoded", 7, Action.getParamA(a));
+        assertEquals("Dest is encoded", 9, Action.getParamB(a));
+
+        a = Action.withDirection(Action.play(CharacterType.WATSON, Action.MOVE_ABILITY, 3), Direction.NORTHWEST);
+        assertEquals("Direction is encoded", Direction.NORTHWEST, Direction.fromNumVal(Action.getParamA(a)));
+        assertEquals("Destination is kept", 3, Action.getDestination(a));
+
+        a = Action.withTarget(Action.play(CharacterType.GULL, Action.ABILITY, 0), CharacterType.HOLMES);
+        assertEquals("Target is encoded", CharacterType.HOLMES, CharacterType.fromNumVal(Action.getParamA(a)));
+    }
+
+    @Test
+    public void pullsAreEncodedInOrder(){
+        long a = Action.play(CharacterType.GOODLEY, Action.MOVE_ABILITY, 100);
+        a = Action.withPull(a, CharacterType.GULL, 220);
+        a = Action.withPull(a, CharacterType.LESTRADE, 1);
+        a = Action.withPull(a, CharacterType.WATSON, 128);
+
+        assertEquals("Three pulls", 3, Action.getNumPulls(a));
+        assertEquals("First pull character", CharacterType.GULL, Action.getPullCharacter(a, 0));
+        assertEquals("First pull destination", 220, Action.getPullDestination(a, 0));
+        assertEquals("Second pull character", CharacterType.LESTRADE, Action.getPullCharacter(a, 1));
+        assertEquals("Second pull destination", 1, Action.getPullDestination(a, 1));
+        assertEquals("Third pull character", CharacterType.WATSON, Action.getPullCharacter(a, 2));
+        assertEquals("Third pull destination", 128, Action.getPullDestination(a, 2));
+        assertEquals("Character is kept", CharacterType.GOODLEY, Action.getCharacter(a));
+        assertEquals("Destination is kept", 100, Action.getDestination(a));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void withPullThrowsExceptionIfTooManyPulls(){
+        long a = Action.play(CharacterType.GOODLEY, Action.ABILITY, 0);
+        for(int i = 0; i <= Action.MAX_PULLS; i++){
+            a = Action.withPull(a, CharacterType.GULL, 0);
+        }
+    }
+
+    @Test
+    public void accuseAndDealAreEncoded(){
+        long a = Action.accuse(CharacterType.BERT, CharacterType.STEALTHY);
+        assertEquals("Kind is encoded", Action.ACCUSE, Action.getKind(a));
+        assertEquals("Character is encoded", CharacterType.BERT, Action.getCharacter(a));
+        assertEquals("Target is encoded", CharacterType.STEALTHY, CharacterType.fromNumVal(Action.getParamA(a)));
+
+        a = Action.deal(0b10110100, 0b01001011);
+        assertEquals("Kind is encoded", Action.DEAL, Action.getKind(a));
+        assertEquals("Batch is encoded", 0b10110100, Action.getBatch(a));
+        assertEquals("Next batch is encoded", 0b01001011, Action.getNextBatch(a));
+    }
+
+    @Test
+    public void orderTellsMoveAndAbility(){
+        assertFalse("NONE does not move", Action.hasMove(Action.NONE));
+        assertFalse("NONE has no ability", Action.hasAbility(Action.NONE));
+        assertTrue("MOVE moves", Action.hasMove(Action.MOVE));
+        assertFalse("MOVE has no ability", Action.hasAbility(Action.MOVE));
+        assertFalse("ABILITY does not move", Action.hasMove(Action.ABILITY));
+        assertTrue("ABILITY has ability", Action.hasAbility(Action.ABILITY));
+        assertTrue("MOVE_ABILITY has both", Action.hasMove(Action.MOVE_ABILITY) && Action.hasAbility(Action.MOVE_ABILITY));
+        assertTrue("ABILITY_MOVE has both", Action.hasMove(Action.ABILITY_MOVE) && Action.hasAbility(Action.ABILITY_MOVE));
+    }
+}
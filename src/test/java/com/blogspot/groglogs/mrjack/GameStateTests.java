@@ -0,0 +1,219 @@
+package com.blogspot.groglogs.mrjack;
+
+import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.structures.board.BoardBits;
+import com.blogspot.groglogs.mrjack.structures.board.BoardTopology;
+import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameStateTests {
+
+    private PrintStream out;
+
+    /**
+     * A random player recording the state of the game and of its board at every prompt.
+     */
+    private static class RecordingInputter extends RandomInputter {
+
+        private Game game;
+        private final List<GameState> states = new ArrayList<>();
+        private final List<BoardBits> bits = new ArrayList<>();
+
+        RecordingInputter(long seed){
+            super(seed);
+        }
+
+        @Override
+        public int getIntInput(int lowerBound, int upperBound, String askMessage, String errorMessage){
+            states.add(game.getState());
+            bits.add(game.getBoard().getBits());
+            return super.getIntInput(lowerBound, upperBound, askMessage, errorMessage);
+        }
+    }
+
+    @Before
+    //games print a lot, we do not need to see it
+    public void muteOutput(){
+        out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+
+    @After
+    public void restoreOutput(){
+        System.setOut(out);
+    }
+
+    private static RecordingInputter recordGame(long seed){
+        RecordingInputter input = new RecordingInputter(seed);
+        input.game = new Game(seed, input);
+        try {
+            input.game.play();
+        } catch (RandomInputter.StuckGameError e) {
+            //the states recorded so far are still valid
+        }
+        return input;
+    }
+
+    @Test
+    public void newGameIsEncoded(){
+        Game g = new Game(1);
+        GameState s = g.getState();
+
+        for(CharacterType t : CharacterType.values()){
+            assertEquals("Position is encoded", g.getCharacterToken(t).getCurrentPosition().getId(), s.getPosition(t));
+        }
+        assertEquals("Lamps are encoded", BoardTopology.getInitialLampMask(), s.getLampMask());
+        assertEquals("Holes are encoded", BoardTopology.getInitialHoleMask(), s.getHoleMask());
+        assertEquals("Exits are encoded", BoardTopology.getInitialExitMask(), s.getExitMask());
+        for(int lamp = 0; lamp < BoardTopology.getNumLamps(); lamp++){
+            assertEquals("Lamp timers are encoded", BoardTopology.getInitialLampOffTurn(BoardTopology.getLampCell(lamp)),
+                    s.getLampOffTurn(lamp));
+        }
+        assertEquals("Watson direction is encoded", Direction.NORTHEAST, s.getWatsonDirection());
+        assertEquals("Turn is encoded", 1, s.getTurn());
+        assertEquals("Inspector starts", Game.PLAYER_INSPECTOR, s.getCurrentPlayer());
+        assertTrue("Jack starts visible", s.isJackVisible());
+        assertFalse("Game is not over", s.isOver());
+        assertEquals("Batches are not drawn yet", 0, s.getBatchCharacters() | s.getNextBatchCharacters());
+        assertEquals("Jack is encoded", g.getJack().getCharacterType(), s.getJack());
+        assertEquals("All innocents are hidden", 7, s.getNumInnocents());
+        assertEquals("Nothing revealed", 0, s.getRevealedInnocents(Game.PLAYER_INSPECTOR));
+    }
+
+    @Test
+    public void innocentsAreRevealedInOrder(){
+        Game g = new Game(2);
+        GameState before = g.getState();
+
+        CharacterToken c = g.revealInnocent();
+        GameState after = g.getState();
+
+        assertEquals("First innocent revealed", before.getInnocent(0), c.getCharacterType());
+        assertEquals("One innocent less", before.getNumInnocents() - 1, after.getNumInnocents());
+        assertEquals("Next innocent is now first", before.getInnocent(1), after.getInnocent(0));
+        assertEquals("Revealed to the current player", 1 << c.getCharacterType().getNumVal(),
+                after.getRevealedInnocents(Game.PLAYER_INSPECTOR));
+        assertNotEquals("States differ", before, after);
+    }
+
+    @Test
+    public void sameStateSameEncoding(){
+        GameState s = new Game(3).getState();
+        GameState other = new Game(3).getState();
+
+        assertEquals("Same state, equal encoding", s, other);
+        assertEquals("Same state, same hash", s.hashCode(), other.hashCode());
+        assertEquals("Packed form round trip", s, GameState.fromLongs(s.toLongs()));
+
+        Game g = new Game(3);
+        g.getBoard().getCell(BoardTopology.getLampCell(0)).flipLamp();
+        assertNotEquals("Different state, different encoding", s, g.getState());
+    }
+
+    @Test
+    //every state of a game can be restored on any other game
+    public void statesRestoreOnAnotherGame(){
+        RecordingInputter recorded = recordGame(5);
+        Game g = new Game(6);
+
+        for(int i = 0; i < recorded.states.size(); i += 7){
+            GameState s = recorded.states.get(i);
+            g.setState(s);
+
+            assertEquals("Restored state encodes the same", s, g.getState());
+            assertEquals("Restored board matches", recorded.bits.get(i), g.getBoard().getBits());
+            assertEquals("Restored hole mask matches", s.getHoleMask(), g.getBoard().getHoleMask());
+        }
+    }
+
+    @Test
+    //restoring keeps the derived state of the board in sync, going back and forth in time
+    public void statesRestoreBackwards(){
+        RecordingInputter recorded = recordGame(8);
+        Game g = recorded.game;
+
+        for(int i = recorded.states.size() - 1; i >= 0; i -= 3){
+            GameState s = recorded.states.get(i);
+            g.setState(s);
+
+            assertEquals("Restored state encodes the same", s, g.getState());
+            Game fresh = new Game(9);
+            fresh.setState(s);
+            for(int id = 0; id < Board.NUM_CELLS; id++){
+                assertEquals("Visibility matches a freshly restored game",
+                        fresh.getBoard().getVisibility().isVisible(id), g.getBoard().getVisibility().isVisible(id));
+                assertEquals("Exit distances match a freshly restored game",
+                        fresh.getBoard().getExitField().getExitDistance(id, false),
+                        g.getBoard().getExitField().getExitDistance(id, false));
+            }
+        }
+    }
+
+    @Test
+    //snapshots follow the same rules as the game, for whole games
+    public void withActionFollowsGame(){
+        for(long seed = 20; seed < 28; seed++){
+            Game g = new Game(seed);
+            GameState s = g.getState();
+
+            while(!g.isOver()){
+                long action = ScriptedActions.next(g);
+                g.apply(action);
+                s = s.withAction(action);
+
+                assertEquals("Snapshot matches game after " + Action.toString(action), g.getState(), s);
+                assertEquals("Snapshot hash matches game after " + Action.toString(action), g.getHash(), s.getHash());
+            }
+        }
+    }
+
+    @Test
+    public void withLeavesOriginalUntouched(){
+        Game g = new Game(30);
+        GameState s = g.getState();
+        long[] packed = s.toLongs();
+
+        GameState moved = s.withPosition(CharacterType.GULL, 0);
+        GameState swapped = s.withCharactersSwapped(CharacterType.GULL, CharacterType.HOLMES);
+        GameState lamps = s.withLampsSwapped(BoardTopology.getLampBit(BoardTopology.getTimedLamp(0)),
+                Integer.numberOfTrailingZeros(~s.getLampMask()));
+        GameState revealed = s.withInnocentRevealed();
+
+        assertEquals("Original is untouched", GameState.fromLongs(packed), s);
+        assertEquals("Character moved", 0, moved.getPosition(CharacterType.GULL));
+        assertEquals("Characters swapped", s.getPosition(CharacterType.HOLMES), swapped.getPosition(CharacterType.GULL));
+        assertEquals("Characters swapped", s.getPosition(CharacterType.GULL), swapped.getPosition(CharacterType.HOLMES));
+        assertEquals("Timer moved with the lamp", 1,
+                lamps.getLampOffTurn(Integer.numberOfTrailingZeros(~s.getLampMask())));
+        assertEquals("Timer left the lamp", -1, lamps.getLampOffTurn(BoardTopology.getLampBit(BoardTopology.getTimedLamp(0))));
+        assertEquals("Innocent revealed", s.getNumInnocents() - 1, revealed.getNumInnocents());
+        assertEquals("Innocent revealed to current player", 1 << s.getInnocent(0).getNumVal(),
+                revealed.getRevealedInnocents(s.getCurrentPlayer()));
+        assertEquals("Only what changed differs", s.toLongs()[1], moved.toLongs()[1]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void withExitsSwappedThrowsExceptionIfExitIsOpen(){
+        GameState s = new Game(31).getState();
+        int open = Integer.numberOfTrailingZeros(s.getExitMask());
+        s.withExitsSwapped(open, open);
+    }
+}
@@ -0,0 +1,249 @@
+package com.blogspot.groglogs.mrjack;
+
+import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.structures.board.BoardBits;
+import com.blogspot.groglogs.mrjack.structures.board.BoardTopology;
+import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameTests {
+
+    private static final int NUM_GAMES = 64;
+
+    private PrintStream out;
+
+    @Before
+    //games print a lot, we do not need to see it
+    public void muteOutput(){
+        out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+
+    @After
+    public void restoreOutput(){
+        System.setOut(out);
+    }
+
+    //plays a full game with random players and returns everything that tells how it ended
+    private static List<Object> playGame(long seed){
+        Game g = new Game(seed, new RandomInputter(seed));
+
+        List<Object> result = new ArrayList<>();
+        try {
+            result.add(g.play());
+        } catch (RandomInputter.StuckGameError e) {
+            result.add("stuck");
+        }
+        result.add(g.getTurn());
+        result.add(g.getJack().getCharacterType());
+        for(CharacterType t : CharacterType.values()){
+            result.add(g.getCharacterToken(t).getCurrentPosition());
+        }
+        result.add(g.getBoard().getBits());
+
+        return result;
+    }
+
+    @Test
+    public void sameSeedSameGame(){
+        assertEquals("Same seed plays the same game", playGame(42), playGame(42));
+    }
+
+    @Test
+    //games share nothing, playing them concurrently must give the same results as playing them one after the other
+    public void parallelGamesDoNotInterfere() throws Exception {
+        List<List<Object>> expected = new ArrayList<>();
+        for(int seed = 0; seed < NUM_GAMES; seed++){
+            expected.add(playGame(seed));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Object>>> results = new ArrayList<>();
+            for(int seed = 0; seed < NUM_GAMES; seed++){
+                final long s = seed;
+                results.add(pool.submit(() -> playGame(s)));
+            }
+
+            for(int seed = 0; seed < NUM_GAMES; seed++){
+                assertEquals("Parallel game matches sequential game", expected.get(seed), results.get(seed).get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    //plays a whole turn with every ability, then takes it back one action at a time
+    public void undoRestoresEveryAction(){
+        Game g = new Game(11);
+        Board b = g.getBoard();
+        List<GameState> states = new ArrayList<>();
+        List<BoardBits> bits = new ArrayList<>();
+        states.add(g.getState());
+        bits.add(b.getBits());
+
+        int timedLamp = BoardTopology.getTimedLamp(0);
+        int offLamp = BoardTopology.getLampCell(Integer.numberOfTrailingZeros(~b.getLampMask()));
+
+        //deal and 8 characters
+        for(int i = 0; i <= CharacterType.values().length; i++){
+            g.apply(ScriptedActions.next(g));
+            states.add(g.getState());
+            bits.add(b.getBits());
+        }
+
+        assertEquals("Turn is over", 2, g.getTurn());
+        assertEquals("HOLMES revealed an innocent", 6, g.getState().getNumInnocents());
+        assertEquals("SMITH moved the timer", 1, b.getLampOffTurn(offLamp));
+        assertFalse("Lamp with the timer turned off", b.getCell(offLamp).isLampOn());
+        assertFalse("Lamp SMITH turned off stays off", b.getCell(timedLamp).isLampOn());
+
+        for(int i = states.size() - 1; i > 0; i--){
+            g.undo();
+
+            GameState s = states.get(i - 1);
+            assertEquals("Undo restores the state", s, g.getState());
+            assertEquals("Undo restores the board", bits.get(i - 1), b.getBits());
+            Game fresh = new Game(12);
+            fresh.setState(s);
+            for(int id = 0; id < Board.NUM_CELLS; id++){
+                assertEquals("Visibility matches a freshly restored game",
+                        fresh.getBoard().getVisibility().isVisible(id), b.getVisibility().isVisible(id));
+            }
+            for(CharacterType t : CharacterType.values()){
+                CellCoordinate position = g.getCharacterToken(t).getCurrentPosition();
+                assertEquals("Character is on its cell", g.getCharacterToken(t), b.getCell(position).getCharacterToken());
+            }
+        }
+        assertFalse("Nothing left to undo", g.canUndo());
+    }
+
+    @Test
+    public void undoTakesBackAccusation(){
+        Game g = new Game(13);
+        g.apply(Action.deal(0x0F, 0xF0));
+        GameState s = g.getState();
+
+        g.apply(Action.accuse(CharacterType.LESTRADE, g.getJack().getCharacterType()));
+        assertTrue("Game is over", g.isOver());
+        assertEquals("INSPECTOR caught JACK", Game.PLAYER_INSPECTOR, g.getWinner());
+
+        g.undo();
+        assertFalse("Game is not over", g.isOver());
+        assertEquals("Undo restores the state", s, g.getState());
+        assertTrue("Deal can be undone", g.canUndo());
+    }
+
+    @Test
+    //the incremental hash is verified after every pick of random games
+    public void hashIsKeptDuringRandomGames(){
+        for(long seed = 0; seed < NUM_GAMES / 4; seed++){
+            Game g = new Game(seed, new RandomInputter(seed));
+            g.setHashVerification(true);
+            try {
+                g.play();
+            } catch (RandomInputter.StuckGameError e) {
+                //stuck games were still verified up to this point
+            }
+            g.verifyHash();
+        }
+    }
+
+    @Test
+    //playing and taking back actions keeps the hash in sync with the state
+    public void hashFollowsApplyAndUndo(){
+        Game g = new Game(15);
+        g.setHashVerification(true);
+        List<Long> hashes = new ArrayList<>();
+        hashes.add(g.getHash());
+        assertEquals("Snapshot has the same hash", g.getState().getHash(), g.getHash());
+
+        while(!g.isOver()){
+            g.apply(ScriptedActions.next(g));
+            hashes.add(g.getHash());
+            assertEquals("Snapshot has the same hash", g.getState().getHash(), g.getHash());
+        }
+
+        for(int i = hashes.size() - 1; i > 0; i--){
+            g.undo();
+            assertEquals("Undo restores the hash", (long)hashes.get(i - 1), g.getHash());
+        }
+    }
+
+    @Test
+    //the same position reached with moves played in a different order has the same hash
+    public void transposedMovesSameHash(){
+        Game a = new Game(16), b = new Game(16);
+        for(Game g : new Game[]{a, b}){
+            g.apply(Action.deal(ScriptedActions.BATCH, ScriptedActions.NEXT_BATCH));
+            g.apply(ScriptedActions.play(g, CharacterType.fromNumVal(0)));
+        }
+
+        //2nd and 3rd picks of a batch belong to the same player
+        long first = ScriptedActions.play(a, CharacterType.fromNumVal(1));
+        a.apply(first);
+        long second = ScriptedActions.play(a, CharacterType.fromNumVal(2));
+        a.apply(second);
+        b.apply(second);
+        b.apply(first);
+
+        assertEquals("Same position", a.getState(), b.getState());
+        assertEquals("Same hash", a.getHash(), b.getHash());
+        assertNotEquals("Different position", new Game(16).getHash(), a.getHash());
+    }
+
+    @Test
+    //swapping JACK in place leads to the same state as rebuilding it, innocents revealed to both players included
+    public void setJackMatchesWithJack(){
+        Game g = new Game(17), h = new Game(17);
+        h.setHashVerification(true);
+
+        for(int pick = 0; pick < 12 && !g.isOver(); pick++){
+            g.apply(ScriptedActions.next(g));
+            GameState s = g.getState().withInnocentRevealed();
+
+            for(CharacterType t : CharacterType.values()){
+                if((s.getRevealedInnocents(Game.PLAYER_INSPECTOR) & 1 << t.getNumVal()) == 0){
+                    h.setState(s);
+                    long hash = h.getHash();
+                    h.setJack(t);
+                    assertEquals("Same state as withJack", s.withJack(t), h.getState());
+                    assertEquals("Hash does not change", hash, h.getHash());
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setJackThrowsExceptionIfActionsCanBeUndone(){
+        Game g = new Game(18);
+        g.apply(Action.deal(0x0F, 0xF0));
+        g.setJack(g.getJack().getCharacterType() == CharacterType.GULL ? CharacterType.HOLMES : CharacterType.GULL);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void undoThrowsExceptionIfNothingToUndo(){
+        new Game(14).undo();
+    }
+}
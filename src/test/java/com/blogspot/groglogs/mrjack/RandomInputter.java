@@ -0,0 +1,38 @@
+package com.blogspot.groglogs.mrjack;
+
+import com.blogspot.groglogs.mrjack.input.Stdinputter;
+
+import java.util.Random;
+
+/**
+ * A player choosing uniformly at random among the allowed values of each prompt.
+ */
+class RandomInputter extends Stdinputter {
+
+    static final int MAX_INPUTS = 20000;
+
+    /**
+     * Thrown when the player answered too many prompts.
+     * An Error and not an exception, since some prompts keep asking again on any exception.
+     */
+    static class StuckGameError extends Error {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private final Random gen;
+    private int inputs;
+
+    RandomInputter(long seed){
+        super("");
+        this.gen = new Random(seed);
+    }
+
+    @Override
+    public int getIntInput(int lowerBound, int upperBound, String askMessage, String errorMessage){
+        //random players can get stuck on a prompt with no valid answer, eg no lamp left to turn ON
+        if(++this.inputs > MAX_INPUTS){
+            throw new StuckGameError();
+        }
+        return lowerBound + this.gen.nextInt(upperBound - lowerBound + 1);
+    }
+}
@@ -0,0 +1,83 @@
+package com.blogspot.groglogs.mrjack;
+
+import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.structures.board.BoardTopology;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+
+/**
+ * Builds a fixed, valid action for each character from the current state of a game, using every ability.
+ */
+final class ScriptedActions {
+
+    //first batch and second batch of every turn, characters are played in CharacterType order
+    static final int BATCH = 0x0F, NEXT_BATCH = 0xF0;
+
+    private ScriptedActions(){
+    }
+
+    //first cell the given character can move to
+    private static int anyDestination(final Game g, CharacterType t){
+        return g.getCharacterToken(t).getMoveDestinations().nextSetBit(0);
+    }
+
+    //first bit that is set, or not set, in the given mask
+    private static int firstBit(int mask, boolean isSet){
+        return Integer.numberOfTrailingZeros(isSet ? mask : ~mask);
+    }
+
+    /**
+     * Returns the action for the given character in the current state of the game.
+     * @param g the game.
+     * @param t the character to play.
+     * @return the action.
+     */
+    static long play(final Game g, CharacterType t){
+        Board b = g.getBoard();
+
+        switch(t){
+            case LESTRADE:
+                return Action.withSwap(Action.play(t, Action.MOVE_ABILITY, anyDestination(g, t)),
+                        firstBit(b.getExitMask(), false), firstBit(b.getExitMask(), true));
+            case BERT:
+                return Action.withSwap(Action.play(t, Action.ABILITY_MOVE, anyDestination(g, t)),
+                        firstBit(b.getHoleMask(), false), firstBit(b.getHoleMask(), true));
+            case WATSON:
+                return Action.withDirection(Action.play(t, Action.MOVE_ABILITY, anyDestination(g, t)),
+                        Direction.fromNumVal(g.getTurn() % Direction.values().length));
+            case SMITH:
+                //prefer moving a lamp with a timer
+                int source = firstBit(b.getLampMask(), true);
+                for(int i = 0; i < BoardTopology.getNumTimedLamps(); i++){
+                    int lamp = BoardTopology.getLampBit(BoardTopology.getTimedLamp(i));
+                    if((b.getLampMask() & 1 << lamp) != 0 && b.getLampOffTurn(BoardTopology.getLampCell(lamp)) != -1){
+                        source = lamp;
+                        break;
+                    }
+                }
+                return Action.withSwap(Action.play(t, Action.ABILITY, 0), source, firstBit(b.getLampMask(), false));
+            case GOODLEY:
+                int dest = g.getCharacterToken(CharacterType.GULL).getMoveDestinationsNoHoles(1).nextSetBit(0);
+                long action = Action.play(t, Action.ABILITY, 0);
+                return dest == -1 ? action : Action.withPull(action, CharacterType.GULL, dest);
+            case GULL:
+                return Action.withTarget(Action.play(t, Action.ABILITY, 0), CharacterType.LESTRADE);
+            case HOLMES:
+                return Action.play(t, Action.MOVE_ABILITY, anyDestination(g, t));
+            default:
+                return Action.play(t, Action.MOVE, anyDestination(g, t));
+        }
+    }
+
+    /**
+     * Returns the next action to play in the current state of the game: the deal of a new turn or a character.
+     * @param g the game.
+     * @return the action.
+     */
+    static long next(final Game g){
+        if(g.getBatchCharacters() == 0){
+            return Action.deal(BATCH, NEXT_BATCH);
+        }
+        return play(g, CharacterType.fromNumVal(Integer.numberOfTrailingZeros(g.getBatchCharacters())));
+    }
+}
@@ -0,0 +1,62 @@
+package com.blogspot.groglogs.mrjack.input;
+
+import com.blogspot.groglogs.mrjack.Action;
+import com.blogspot.groglogs.mrjack.ActionGenerator;
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.GameState;
+import com.blogspot.groglogs.mrjack.structures.common.LongStack;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+
+public class ActionPlayerTests {
+
+    //plays random generated actions and records them, with the deals, in the order they are played
+    private static final class RecordingPlayer extends ActionPlayer {
+
+        private final LongStack played;
+        private final ActionGenerator generator = new ActionGenerator();
+        private final LongStack actions = new LongStack();
+        private final SplittableRandom gen;
+
+        RecordingPlayer(long seed, final LongStack played){
+            super(seed);
+            this.gen = new SplittableRandom(seed);
+            this.played = played;
+        }
+
+        @Override
+        protected long chooseAction(final Game game){
+            //first pick of the turn
+            if(Integer.bitCount(game.getBatchCharacters()) == 4 && Integer.bitCount(game.getNextBatchCharacters()) == 4){
+                this.played.push(Action.deal(game.getBatchCharacters(), game.getNextBatchCharacters()));
+            }
+
+            this.actions.clear();
+            this.generator.generate(game, this.actions);
+            long action = this.actions.get(this.gen.nextInt(this.actions.size()));
+            this.played.push(action);
+            return action;
+        }
+    }
+
+    @Test
+    //playing the actions through the player choices gives the same game as applying them
+    public void choicesFollowTheAction(){
+        for(long seed = 0; seed < 30; seed++){
+            LongStack played = new LongStack();
+            Game g = new Game(seed, new RecordingPlayer(seed * 2, played), new RecordingPlayer(seed * 2 + 1, played));
+            GameState start = g.getState();
+
+            g.play();
+
+            Game replay = new Game(start);
+            for(int i = 0; i < played.size(); i++){
+                replay.apply(played.get(i));
+            }
+            assertEquals("Same game", g.getState(), replay.getState());
+        }
+    }
+}
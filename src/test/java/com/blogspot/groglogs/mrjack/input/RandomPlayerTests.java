@@ -0,0 +1,51 @@
+package com.blogspot.groglogs.mrjack.input;
+
+import com.blogspot.groglogs.mrjack.Game;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RandomPlayerTests {
+
+    private static Game newGame(long seed){
+        return new Game(seed, new RandomPlayer(seed * 2), new RandomPlayer(seed * 2 + 1));
+    }
+
+    @Test
+    //whole games are played without any input and without printing anything
+    public void gamesArePlayedHeadless(){
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed));
+
+        try {
+            for(long seed = 0; seed < 50; seed++){
+                Game g = newGame(seed);
+                g.setHashVerification(true);
+
+                g.play();
+                assertTrue("Game is over", g.isOver());
+            }
+        }
+        finally {
+            System.setOut(out);
+        }
+
+        assertEquals("Nothing is printed", 0, printed.size());
+    }
+
+    @Test
+    public void sameSeedsSameGame(){
+        for(long seed = 100; seed < 110; seed++){
+            Game a = newGame(seed), b = newGame(seed);
+
+            assertEquals("Same winner", a.play(), b.play());
+            assertEquals("Same end position", a.getHash(), b.getHash());
+            assertEquals("Same turn", a.getTurn(), b.getTurn());
+        }
+    }
+}
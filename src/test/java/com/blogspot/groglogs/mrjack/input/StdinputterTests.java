@@ -11,8 +11,8 @@ public class StdinputterTests {
     public void wrongInputIsSkipped() {
         //we provide bad input 3 times then we have two subsequent valid inputs, we expect the first one
         String in = "2\n3\n2\n0\n1\n";
-        Stdinputter.setStringAsInputStream(in);
-        assertEquals("Wrong input is skipped", 0, Stdinputter.getIntInput(0, 1, "", ""));
+        Stdinputter input = new Stdinputter(in);
+        assertEquals("Wrong input is skipped", 0, input.getIntInput(0, 1, "", ""));
     }
 
 }
@@ -0,0 +1,112 @@
+package com.blogspot.groglogs.mrjack.search;
+
+import com.blogspot.groglogs.mrjack.Action;
+import com.blogspot.groglogs.mrjack.ActionGenerator;
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.structures.common.LongStack;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AlphaBetaSearchTests {
+
+    private static boolean contains(final LongStack actions, long action){
+        for(int i = 0; i < actions.size(); i++){
+            if(actions.get(i) == action){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //plays random deals and actions, without accusations, until JACK must pick with the given picks left in the game
+    private static Game playUntilJack(long seed, int picks){
+        Game g = new Game(seed);
+        SplittableRandom random = new SplittableRandom(seed);
+        ActionGenerator gen = new ActionGenerator();
+        LongStack actions = new LongStack();
+
+        while(!g.isOver()){
+            if(g.getBatchCharacters() == 0){
+                int batch = 0;
+                while(Integer.bitCount(batch) < 4){
+                    batch |= 1 << random.nextInt(8);
+                }
+                g.apply(Action.deal(batch, ~batch & 0xFF));
+                continue;
+            }
+            int left = Integer.bitCount(g.getBatchCharacters()) + Integer.bitCount(g.getNextBatchCharacters())
+                    + (Game.MAX_TURNS - g.getTurn()) * 8;
+            if(left <= picks && g.getCurrentPlayer() == Game.PLAYER_JACK){
+                return g;
+            }
+
+            actions.clear();
+            gen.generate(g, actions);
+            long action;
+            do {
+                action = actions.get(random.nextInt(actions.size()));
+            } while(Action.getKind(action) == Action.ACCUSE);
+            g.apply(action);
+        }
+        return g;
+    }
+
+    @Test
+    public void searchReturnsLegalActionInTime(){
+        Game g = playUntilJack(60, 64);
+        long hash = g.getHash();
+        LongStack actions = new LongStack();
+        new ActionGenerator().generate(g, actions);
+
+        AlphaBetaSearch search = new AlphaBetaSearch();
+        long start = System.nanoTime();
+        long action = search.search(g, 200);
+        long elapsed = (System.nanoTime() - start) / 1000000;
+
+        assertTrue("Action is legal", contains(actions, action));
+        assertEquals("Game is not changed", hash, g.getHash());
+        assertTrue("Time limit is honoured " + elapsed, elapsed < 300);
+        assertTrue("Some depth was completed", search.getDepth() > 0);
+        assertTrue("Nodes are counted", search.getNodes() > 0);
+    }
+
+    @Test
+    //in the last batch the whole rest of the game is searched
+    public void lastPicksAreSearchedToTheEnd(){
+        int searched = 0;
+
+        for(long seed = 61; seed < 100 && searched < 2; seed++){
+            Game g = playUntilJack(seed, 4);
+            if(g.isOver()){
+                continue;
+            }
+
+            AlphaBetaSearch search = new AlphaBetaSearch();
+            search.search(g, 10000);
+            if(search.getValue() == AlphaBetaSearch.WIN){
+                //JACK escaped right away
+                continue;
+            }
+
+            assertEquals("Every pick left is searched", Integer.bitCount(g.getBatchCharacters()), search.getDepth());
+            searched++;
+        }
+
+        assertTrue("Some positions were searched", searched > 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void searchThrowsExceptionForInspector(){
+        Game g = new Game(62);
+        g.apply(Action.deal(0x0F, 0xF0));
+        if(g.getCurrentPlayer() == Game.PLAYER_JACK){
+            g.apply(new ActionGenerator().randomAction(g, g.getBatchCharacterChoices().values().iterator().next().getCharacterType(),
+                    new SplittableRandom(62), new LongStack()));
+        }
+        new AlphaBetaSearch().search(g, 100);
+    }
+}
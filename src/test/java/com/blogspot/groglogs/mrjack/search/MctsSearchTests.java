@@ -0,0 +1,115 @@
+package com.blogspot.groglogs.mrjack.search;
+
+import com.blogspot.groglogs.mrjack.Action;
+import com.blogspot.groglogs.mrjack.ActionGenerator;
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.GameState;
+import com.blogspot.groglogs.mrjack.input.RandomPlayer;
+import com.blogspot.groglogs.mrjack.structures.common.LongStack;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MctsSearchTests {
+
+    private static final int BATCH = 0x0F, NEXT_BATCH = 0xF0;
+
+    private static Game newGame(long seed){
+        return new Game(seed, new RandomPlayer(seed), new RandomPlayer(seed));
+    }
+
+    private static boolean contains(final LongStack actions, long action){
+        for(int i = 0; i < actions.size(); i++){
+            if(actions.get(i) == action){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void searchReturnsLegalAction(){
+        Game g = newGame(50);
+        g.apply(Action.deal(BATCH, NEXT_BATCH));
+        long hash = g.getHash();
+        LongStack actions = new LongStack();
+        new ActionGenerator().generate(g, actions);
+
+        MctsSearch search = new MctsSearch(4, 1);
+        long action = search.search(g, 200);
+
+        assertTrue("Action is legal", contains(actions, action));
+        assertEquals("Game is not changed", hash, g.getHash());
+        assertTrue("Search iterated", search.getIterations() > 0);
+        assertTrue("Tree grew", search.getNodes() > 0);
+        assertTrue("Throughput is reported", search.getIterationsPerSecond() > 0);
+        assertTrue("Tree growth is reported", search.getNodesPerSecond() > 0);
+    }
+
+    @Test
+    //with every innocent revealed, the INSPECTOR accuses JACK as soon as he can reach him
+    public void accusesLastSuspect(){
+        LongStack accusations = new LongStack();
+        int searched = 0;
+
+        for(long seed = 0; seed < 20 && searched < 3; seed++){
+            Game g = newGame(seed);
+            GameState s = g.getState();
+            for(int i = 0; i < 7; i++){
+                s = s.withInnocentRevealed();
+            }
+            g.setState(s);
+            g.apply(Action.deal(BATCH, NEXT_BATCH));
+
+            accusations.clear();
+            new ActionGenerator().generateAccusations(g, accusations);
+            long accuseJack = -1;
+            for(int i = 0; i < accusations.size(); i++){
+                if(Action.getParamA(accusations.get(i)) == g.getJack().getCharacterType().getNumVal()){
+                    accuseJack = accusations.get(i);
+                }
+            }
+            if(accuseJack == -1){
+                continue;
+            }
+
+            long action = new MctsSearch(2, seed).search(g, 200);
+            assertEquals("JACK is accused", Action.ACCUSE, Action.getKind(action));
+            assertEquals("The right character is accused", g.getJack().getCharacterType().getNumVal(), Action.getParamA(action));
+            searched++;
+        }
+
+        assertTrue("Some positions were searched", searched > 0);
+    }
+
+    @Test
+    //each thread searches its own JACK, the root visits of all trees are merged
+    public void determinizedSearchReturnsLegalAction(){
+        Game g = newGame(52);
+        g.apply(Action.deal(BATCH, NEXT_BATCH));
+        long hash = g.getHash();
+        LongStack actions = new LongStack();
+        new ActionGenerator().generate(g, actions);
+
+        MctsSearch search = new MctsSearch(4, 3, true);
+        long action = search.search(g, 200);
+
+        assertTrue("Action is legal", contains(actions, action));
+        assertEquals("Game is not changed", hash, g.getHash());
+        assertEquals("Every iteration visits a root", search.getIterations(), search.getRootVisits());
+    }
+
+    @Test
+    public void treeIsReused(){
+        Game g = newGame(51);
+        g.apply(Action.deal(BATCH, NEXT_BATCH));
+        MctsSearch search = new MctsSearch(2, 2);
+
+        search.search(g, 100);
+        long first = search.getIterations();
+        search.search(g, 100);
+
+        assertEquals("Root keeps the visits of both searches", first + search.getIterations(), search.getRootVisits());
+    }
+}
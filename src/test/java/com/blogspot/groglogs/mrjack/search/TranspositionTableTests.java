@@ -0,0 +1,125 @@
+package com.blogspot.groglogs.mrjack.search;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TranspositionTableTests {
+
+    //hashes that land on the same slot of a table of this size
+    private static final int CAPACITY = 1024;
+    private static final long HASH = 0x1234_5678_9abc_def0L, SAME_SLOT = HASH + ((long)CAPACITY << 32 | CAPACITY);
+
+    @Test
+    public void storedEntryIsFound(){
+        TranspositionTable tt = new TranspositionTable(CAPACITY, TranspositionTable.ReplacementPolicy.ALWAYS);
+        TranspositionTable.Entry e = new TranspositionTable.Entry();
+
+        assertFalse("Empty table has nothing", tt.probe(HASH, e));
+
+        tt.store(HASH, 7, TranspositionTable.LOWER, -42, Long.MIN_VALUE | 5);
+        assertTrue("Entry is found", tt.probe(HASH, e));
+        assertEquals("Depth is stored", 7, e.getDepth());
+        assertEquals("Bound is stored", TranspositionTable.LOWER, e.getBound());
+        assertEquals("Negative value is stored", -42, e.getValue());
+        assertEquals("Action is stored", Long.MIN_VALUE | 5, e.getAction());
+        assertFalse("Other position on the same slot is not found", tt.probe(SAME_SLOT, e));
+
+        tt.clear();
+        assertFalse("Cleared table has nothing", tt.probe(HASH, e));
+    }
+
+    @Test
+    public void capacityIsRoundedUp(){
+        assertEquals("Next power of 2", 1024, new TranspositionTable(1000, TranspositionTable.ReplacementPolicy.ALWAYS).getCapacity());
+        assertEquals("Power of 2 is kept", 1024, new TranspositionTable(1024, TranspositionTable.ReplacementPolicy.ALWAYS).getCapacity());
+    }
+
+    @Test
+    public void alwaysReplaces(){
+        TranspositionTable tt = new TranspositionTable(CAPACITY, TranspositionTable.ReplacementPolicy.ALWAYS);
+        TranspositionTable.Entry e = new TranspositionTable.Entry();
+
+        tt.store(HASH, 10, TranspositionTable.EXACT, 1, 1);
+        tt.store(SAME_SLOT, 1, TranspositionTable.EXACT, 2, 2);
+        assertFalse("Deep entry was replaced", tt.probe(HASH, e));
+        assertTrue("Shallow entry is stored", tt.probe(SAME_SLOT, e));
+    }
+
+    @Test
+    public void depthPreferredKeepsDeeperEntry(){
+        TranspositionTable tt = new TranspositionTable(CAPACITY, TranspositionTable.ReplacementPolicy.DEPTH_PREFERRED);
+        TranspositionTable.Entry e = new TranspositionTable.Entry();
+
+        tt.store(HASH, 10, TranspositionTable.EXACT, 1, 1);
+        tt.store(SAME_SLOT, 1, TranspositionTable.EXACT, 2, 2);
+        assertTrue("Deep entry is kept", tt.probe(HASH, e));
+        assertFalse("Shallow entry is not stored", tt.probe(SAME_SLOT, e));
+
+        tt.store(HASH, 2, TranspositionTable.UPPER, 3, 3);
+        assertTrue("Same position is always replaced", tt.probe(HASH, e));
+        assertEquals("New depth is stored", 2, e.getDepth());
+
+        tt.store(HASH, 10, TranspositionTable.EXACT, 1, 1);
+        tt.newSearch();
+        tt.store(SAME_SLOT, 1, TranspositionTable.EXACT, 2, 2);
+        assertTrue("Entry from an older search is replaced", tt.probe(SAME_SLOT, e));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void storeThrowsExceptionIfDepthTooBig(){
+        new TranspositionTable(CAPACITY, TranspositionTable.ReplacementPolicy.ALWAYS)
+                .store(HASH, TranspositionTable.MAX_DEPTH + 1, TranspositionTable.EXACT, 0, 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void constructorThrowsExceptionIfCapacityNotPositive(){
+        new TranspositionTable(0, TranspositionTable.ReplacementPolicy.ALWAYS);
+    }
+
+    @Test
+    //many threads hammering a small table never read an entry mixed with another one
+    public void concurrentWritesAreNeverReadTorn() throws Exception {
+        final TranspositionTable tt = new TranspositionTable(64, TranspositionTable.ReplacementPolicy.ALWAYS);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for(int t = 0; t < 8; t++){
+                final long seed = t;
+                results.add(pool.submit(() -> {
+                    Random r = new Random(seed);
+                    TranspositionTable.Entry e = new TranspositionTable.Entry();
+                    int hits = 0;
+                    for(int i = 0; i < 200_000; i++){
+                        //every field is derived from the hash, so a hit must match it
+                        long hash = r.nextInt(512) * 0x9E3779B97F4A7C15L;
+                        if(tt.probe(hash, e)){
+                            assertEquals("Value matches", (int)hash, e.getValue());
+                            assertEquals("Depth matches", (int)(hash >>> 56), e.getDepth());
+                            assertEquals("Action matches", ~hash, e.getAction());
+                            hits++;
+                        }
+                        tt.store(hash, (int)(hash >>> 56), TranspositionTable.EXACT, (int)hash, ~hash);
+                    }
+                    return hits;
+                }));
+            }
+
+            for(Future<Integer> f : results){
+                assertTrue("Threads share entries", f.get() > 0);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.blogspot.groglogs.mrjack.simulation;
+
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.input.HeuristicPlayer;
+import com.blogspot.groglogs.mrjack.input.RandomPlayer;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SimulationTests {
+
+    private static void assertSameResult(final SimulationResult expected, final SimulationResult actual){
+        assertEquals("Same games", expected.getGames(), actual.getGames());
+        assertEquals("Same INSPECTOR wins", expected.getInspectorWins(), actual.getInspectorWins());
+        assertEquals("Same game length", expected.getAverageTurns(), actual.getAverageTurns(), 0);
+        for(CharacterType t : CharacterType.values()){
+            assertEquals("Same JACK games", expected.getJackGames(t), actual.getJackGames(t));
+            assertEquals("Same JACK wins", expected.getJackWins(t), actual.getJackWins(t));
+        }
+        for(int turn = 1; turn <= Game.MAX_TURNS; turn++){
+            assertEquals("Same INSPECTOR wins by turn", expected.getWinsByTurn(Game.PLAYER_INSPECTOR, turn),
+                    actual.getWinsByTurn(Game.PLAYER_INSPECTOR, turn));
+            assertEquals("Same JACK wins by turn", expected.getWinsByTurn(Game.PLAYER_JACK, turn),
+                    actual.getWinsByTurn(Game.PLAYER_JACK, turn));
+        }
+    }
+
+    @Test
+    //games are played in parallel with the same outcome as one after the other
+    public void parallelMatchesSequential(){
+        ForkJoinPool single = new ForkJoinPool(1), parallel = new ForkJoinPool(4);
+
+        try {
+            SimulationResult expected = new Simulation(single, HeuristicPlayer::new, RandomPlayer::new).run(200, 7);
+            SimulationResult actual = new Simulation(parallel, HeuristicPlayer::new, RandomPlayer::new).run(200, 7);
+
+            assertSameResult(expected, actual);
+            assertTrue("Simulation is timed", actual.getGamesPerSecond() > 0);
+        }
+        finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    public void everyGameIsCounted(){
+        ForkJoinPool pool = new ForkJoinPool(3);
+
+        try {
+            SimulationResult result = new Simulation(pool, RandomPlayer::new, HeuristicPlayer::new).run(101, 11);
+            assertEquals("Every game is counted", 101, result.getGames());
+
+            long jackGames = 0, jackWins = 0, byTurn = 0;
+            for(CharacterType t : CharacterType.values()){
+                jackGames += result.getJackGames(t);
+                jackWins += result.getJackWins(t);
+            }
+            for(int turn = 1; turn <= Game.MAX_TURNS; turn++){
+                byTurn += result.getWinsByTurn(Game.PLAYER_INSPECTOR, turn) + result.getWinsByTurn(Game.PLAYER_JACK, turn);
+            }
+
+            assertEquals("One JACK per game", 101, jackGames);
+            assertEquals("JACK wins match", result.getJackWins(), jackWins);
+            assertEquals("Every game ends in a turn", 101, byTurn);
+            assertTrue("Games last at least a turn", result.getAverageTurns() >= 1);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    //the heuristic INSPECTOR only accuses the real JACK, so he never loses by a wrong accusation
+    public void heuristicInspectorAccusesJack(){
+        Simulation s = new Simulation(ForkJoinPool.commonPool(), HeuristicPlayer::new, RandomPlayer::new);
+
+        for(int i = 0; i < 100; i++){
+            Game g = s.play(3, i);
+            if(g.hasAttemptedToAccuseJack()){
+                assertEquals("Accusation is right", Game.PLAYER_INSPECTOR, g.getWinner());
+            }
+        }
+    }
+}
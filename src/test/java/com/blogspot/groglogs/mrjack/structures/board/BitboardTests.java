@@ -0,0 +1,100 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BitboardTests {
+
+    @Test
+    public void setAndGet() {
+        Bitboard b = new Bitboard();
+        assertTrue("New bitboard is empty", b.isEmpty());
+
+        //cells in each of the 4 words, including the very last cell on the board
+        int[] ids = new int[]{0, 63, 64, 130, 200, Board.NUM_CELLS - 1};
+        for(int id : ids){
+            b.set(id, true);
+        }
+
+        for(int id = 0; id < Board.NUM_CELLS; id++){
+            boolean expected = false;
+            for(int i : ids){
+                expected |= i == id;
+            }
+            assertEquals("Cell is in the set only if it was added", expected, b.get(id));
+        }
+        assertEquals("Set has all added cells", ids.length, b.cardinality());
+
+        b.set(63, false);
+        assertFalse("Removed cell is not in the set", b.get(63));
+        assertEquals("Set has one cell less", ids.length - 1, b.cardinality());
+    }
+
+    @Test
+    public void andCardinality() {
+        Bitboard a = new Bitboard(), b = new Bitboard();
+        a.set(3, true);
+        a.set(100, true);
+        a.set(200, true);
+        b.set(100, true);
+        b.set(200, true);
+        b.set(201, true);
+
+        assertEquals("Two cells in common", 2, a.andCardinality(b));
+        assertEquals("Sets are not modified", 3, a.cardinality());
+        assertEquals("Sets are not modified", 3, b.cardinality());
+    }
+
+    @Test
+    public void nextSetBit() {
+        Bitboard b = new Bitboard();
+        assertEquals("Empty set has no cells", -1, b.nextSetBit(0));
+
+        b.set(5, true);
+        b.set(64, true);
+        b.set(220, true);
+
+        assertEquals("First cell", 5, b.nextSetBit(0));
+        assertEquals("Search starts from given cell", 5, b.nextSetBit(5));
+        assertEquals("Next cell is in next word", 64, b.nextSetBit(6));
+        assertEquals("Last cell", 220, b.nextSetBit(65));
+        assertEquals("No more cells", -1, b.nextSetBit(221));
+    }
+
+    @Test
+    public void setOperations() {
+        Bitboard a = new Bitboard();
+        Bitboard b = new Bitboard();
+        a.set(1, true);
+        a.set(100, true);
+        b.set(100, true);
+        b.set(200, true);
+
+        assertTrue("Sets intersect", a.intersects(b));
+
+        Bitboard c = new Bitboard(a);
+        assertEquals("Copy is equal", a, c);
+        assertEquals("Copy has same hash", a.hashCode(), c.hashCode());
+
+        c.and(b);
+        assertEquals("AND keeps common cells", 1, c.cardinality());
+        assertTrue("AND keeps common cells", c.get(100));
+
+        c = new Bitboard(a);
+        c.or(b);
+        assertEquals("OR keeps all cells", 3, c.cardinality());
+
+        c.andNot(b);
+        assertEquals("ANDNOT removes other cells", 1, c.cardinality());
+        assertTrue("ANDNOT keeps own cells", c.get(1));
+        assertFalse("Sets do not intersect anymore", c.intersects(b));
+        assertNotEquals("Different sets are not equal", a, c);
+
+        c.clear();
+        assertTrue("Cleared set is empty", c.isEmpty());
+    }
+}
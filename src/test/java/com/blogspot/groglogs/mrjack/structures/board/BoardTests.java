@@ -1,5 +1,8 @@
 package com.blogspot.groglogs.mrjack.structures.board;
 
+import com.blogspot.groglogs.mrjack.structures.characters.InspecteurLestrade;
+import com.blogspot.groglogs.mrjack.structures.characters.JeremyBert;
+import com.blogspot.groglogs.mrjack.structures.common.LongStack;
 import com.blogspot.groglogs.mrjack.structures.enums.CellType;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -9,7 +12,9 @@ import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 
@@ -61,20 +66,18 @@ public class BoardTests {
     private Board b;
 
     @Before
-    //since we track static state in the board, we need to reinitialize correctly for each test
     public void initBoard(){
-        Board.clearBoard();
         b = new Board();
     }
 
     @Test
     //there are 4 lamps that are on a timer, we need to track them in the correct order
     public void timedLampsAreCorrectlyOrdered() {
-        for(int i = 0; i < b.orderedOnLampCells.length; i++){
+        for(int i = 0; i < BoardTopology.orderedOnLampCells.length; i++){
             Cell c = b.getNextLampToTurnOff();
             assertEquals("Cell is LAMP", CellType.LAMP, c.getCellType());
             assertEquals("Lamp should turn off this turn", i + 1, c.getlampOffTurn());
-            assertEquals("Lamp has expected coordinates", b.orderedOnLampCells[i], c.getCellCoordinate());
+            assertEquals("Lamp has expected coordinates", BoardTopology.orderedOnLampCells[i], c.getCellCoordinate());
             assertTrue("Lamp is ON", c.isLampOn());
             assertFalse("Exit is CLOSED", c.isExitOpen());
             assertFalse("Hole is CLOSED", c.isHoleOpen());
@@ -83,10 +86,10 @@ public class BoardTests {
 
     @Test
     public void onLampsAreON() {
-        for(int i = 0; i < b.onLampCells.length; i++){
-            Cell c = Board.getCell(b.onLampCells[i]);
+        for(int i = 0; i < BoardTopology.onLampCells.length; i++){
+            Cell c = b.getCell(BoardTopology.onLampCells[i]);
             assertEquals("Cell is LAMP", CellType.LAMP, c.getCellType());
-            assertEquals("Lamp has expected coordinates", b.onLampCells[i], c.getCellCoordinate());
+            assertEquals("Lamp has expected coordinates", BoardTopology.onLampCells[i], c.getCellCoordinate());
             assertTrue("Lamp is ON", c.isLampOn());
             assertFalse("Exit is CLOSED", c.isExitOpen());
             assertFalse("Hole is CLOSED", c.isHoleOpen());
@@ -95,10 +98,10 @@ public class BoardTests {
 
     @Test
     public void offLampsAreOFF() {
-        for(int i = 0; i < b.offLampCells.length; i++){
-            Cell c = Board.getCell(b.offLampCells[i]);
+        for(int i = 0; i < BoardTopology.offLampCells.length; i++){
+            Cell c = b.getCell(BoardTopology.offLampCells[i]);
             assertEquals("Cell is LAMP", CellType.LAMP, c.getCellType());
-            assertEquals("Lamp has expected coordinates", b.offLampCells[i], c.getCellCoordinate());
+            assertEquals("Lamp has expected coordinates", BoardTopology.offLampCells[i], c.getCellCoordinate());
             assertFalse("Lamp is OFF", c.isLampOn());
             assertFalse("Exit is CLOSED", c.isExitOpen());
             assertFalse("Hole is CLOSED", c.isHoleOpen());
@@ -107,8 +110,8 @@ public class BoardTests {
 
     @Test
     public void holesAreOpen() {
-        for(CellCoordinate cellCoordinate : b.holeCells){
-            Cell c = Board.getCell(cellCoordinate);
+        for(CellCoordinate cellCoordinate : BoardTopology.holeCells){
+            Cell c = b.getCell(cellCoordinate);
             assertEquals("Cell is HOLE", CellType.HOLE, c.getCellType());
             assertEquals("Hole has expected coordinates", cellCoordinate, c.getCellCoordinate());
             assertTrue("Hole is OPEN", c.isHoleOpen());
@@ -119,8 +122,8 @@ public class BoardTests {
 
     @Test
     public void exitsAreOpen() {
-        for(CellCoordinate cellCoordinate : b.exitCells){
-            Cell c = Board.getCell(cellCoordinate);
+        for(CellCoordinate cellCoordinate : BoardTopology.exitCells){
+            Cell c = b.getCell(cellCoordinate);
             assertEquals("Cell is EXIT", CellType.EXIT, c.getCellType());
             assertEquals("Exit has expected coordinates", cellCoordinate, c.getCellCoordinate());
             assertTrue("Exit is OPEN", c.isExitOpen());
@@ -131,8 +134,8 @@ public class BoardTests {
 
     @Test
     public void holeExitsAreClosed() {
-        for(CellCoordinate cellCoordinate : b.exitHoleCells){
-            Cell c = Board.getCell(cellCoordinate);
+        for(CellCoordinate cellCoordinate : BoardTopology.exitHoleCells){
+            Cell c = b.getCell(cellCoordinate);
             assertEquals("Cell is EXIT_HOLE", CellType.EXIT_HOLE, c.getCellType());
             assertEquals("ExitHole has expected coordinates", cellCoordinate, c.getCellCoordinate());
             assertFalse("Exit is CLOSED", c.isExitOpen());
@@ -143,8 +146,8 @@ public class BoardTests {
 
     @Test
     public void housesAreCorrect() {
-        for(CellCoordinate cellCoordinate : b.houseCells){
-            Cell c = Board.getCell(cellCoordinate);
+        for(CellCoordinate cellCoordinate : BoardTopology.houseCells){
+            Cell c = b.getCell(cellCoordinate);
             assertEquals("Cell is HOUSE", CellType.HOUSE, c.getCellType());
             assertEquals("House has expected coordinates", cellCoordinate, c.getCellCoordinate());
             assertFalse("Exit is CLOSED", c.isExitOpen());
@@ -157,21 +160,215 @@ public class BoardTests {
     public void getHoleCellsReturnsAllCellsWithAHole() {
         Set<CellCoordinate> cellCoordinates = Board.getHoleCells();
 
-        assertTrue("Result contains all holes", cellCoordinates.containsAll(b.holeCells));
-        assertTrue("Result contains all exit holes", cellCoordinates.containsAll(b.exitHoleCells));
+        assertTrue("Result contains all holes", cellCoordinates.containsAll(BoardTopology.holeCells));
+        assertTrue("Result contains all exit holes", cellCoordinates.containsAll(BoardTopology.exitHoleCells));
     }
 
     @Test
     public void getExitCellsReturnsAllCellsWithAnExit() {
         Set<CellCoordinate> cellCoordinates = Board.getExitCells();
 
-        assertTrue("Result contains all exits", cellCoordinates.containsAll(b.exitCells));
-        assertTrue("Result contains all exit holes", cellCoordinates.containsAll(b.exitHoleCells));
+        assertTrue("Result contains all exits", cellCoordinates.containsAll(BoardTopology.exitCells));
+        assertTrue("Result contains all exit holes", cellCoordinates.containsAll(BoardTopology.exitHoleCells));
+    }
+
+    @Test
+    public void openHolesAndExitsAreCachedUntilModified() {
+        Set<CellCoordinate> openHoles = b.getOpenHoleCells();
+        Set<CellCoordinate> openExits = b.getOpenExitCells();
+        int modificationCount = b.getModificationCount();
+
+        assertEquals("Initially 7 holes are open", 7, openHoles.size());
+        assertEquals("Initially 2 exits are open", 2, openExits.size());
+        assertTrue("Open exits are exits", BoardTopology.exitCells.containsAll(openExits));
+        assertSame("Open holes are cached", openHoles, b.getOpenHoleCells());
+
+        //a lamp does not change the hole network
+        b.getCell(6, 7).flipLamp();
+        assertEquals("Lamp change does not modify the holes", modificationCount, b.getModificationCount());
+        assertSame("Open holes are still cached", openHoles, b.getOpenHoleCells());
+
+        b.getCell(0, 5).flipHole();
+        assertNotEquals("Hole change modifies the holes", modificationCount, b.getModificationCount());
+        assertFalse("Closed hole is not open", b.getOpenHoleCells().contains(CellCoordinate.of(0, 5)));
+        assertEquals("6 holes are open", 6, b.getOpenHoleCells().size());
+
+        b.getCell(14, 11).flipExit();
+        assertFalse("Blocked exit is not open", b.getOpenExitCells().contains(CellCoordinate.of(14, 11)));
+    }
+
+    @Test
+    public void holeMaskTracksOpenHoles() {
+        assertEquals("Board has 9 holes", BoardTopology.holeCells.size() + BoardTopology.exitHoleCells.size(), Board.getNumHoles());
+
+        for(int bit = 0; bit < Board.getNumHoles(); bit++){
+            CellCoordinate c = Board.getHoleCoordinate(bit);
+            assertEquals("Hole bit is consistent", bit, Board.getHoleBit(c));
+            assertEquals("Hole mask matches hole state", b.getCell(c).isHoleOpen(), (b.getHoleMask() & (1 << bit)) != 0);
+        }
+
+        b.getCell(2, 11).flipHole();
+        assertTrue("Opened hole is in the mask", (b.getHoleMask() & (1 << Board.getHoleBit(new CellCoordinate(2, 11)))) != 0);
+
+        //cells that are not on the board do not affect the mask
+        int mask = b.getHoleMask();
+        new Cell(new CellCoordinate(2, 11), CellType.EXIT_HOLE).flipHole();
+        assertEquals("Cell not on the board does not change the mask", mask, b.getHoleMask());
+
+        assertEquals("Non hole cell has no bit", -1, Board.getHoleBit(new CellCoordinate(2, 2)));
+    }
+
+    @Test
+    public void bitsTrackCellState() {
+        for(int id = 0; id < Board.NUM_CELLS; id++){
+            Cell c = b.getCell(id);
+            assertEquals("Cell id matches coordinates", id, Board.getCellId(c.getCellCoordinate()));
+            assertEquals("Obstacle bit matches cell type", !c.canCharacterMoveThrough(), Board.getObstacles().get(id));
+            assertEquals("Hole bit matches cell state", c.isHoleOpen(), b.getOpenHoles().get(id));
+            assertEquals("Lamp bit matches cell state", c.isLampOn(), b.getLitLamps().get(id));
+            assertEquals("Exit bit matches cell state", c.isExitOpen(), b.getOpenExits().get(id));
+            assertFalse("Empty board has no occupied cells", b.getOccupied().get(id));
+            assertEquals("Cell can accept character", c.canAcceptCharacter(), b.canAcceptCharacter(id));
+        }
+
+        BoardBits initial = b.getBits();
+
+        int id = Board.getCellId(4, 2);
+        b.getCell(id).setCharacterToken(new InspecteurLestrade());
+        assertTrue("Cell is occupied", b.getOccupied().get(id));
+        assertFalse("Occupied cell cannot accept character", b.canAcceptCharacter(id));
+        assertNotEquals("Board state changed", initial, b.getBits());
+
+        b.getCell(id).setCharacterToken(null);
+        assertFalse("Cell is not occupied", b.getOccupied().get(id));
+        assertEquals("Board state is back to initial", initial, b.getBits());
+
+        b.getCell(10, 5).flipLamp();
+        assertFalse("Lamp is OFF", b.getLitLamps().get(Board.getCellId(10, 5)));
+        b.getCell(2, 1).flipExit();
+        assertFalse("Exit is BLOCKED", b.getOpenExits().get(Board.getCellId(2, 1)));
+    }
+
+    @Test
+    //every change recorded in the journal can be taken back, in reverse order
+    public void journalUndoesCellChanges() {
+        InspecteurLestrade il = new InspecteurLestrade();
+        JeremyBert jb = new JeremyBert();
+        b.getCell(4, 2).setCharacterToken(il);
+        b.getCell(6, 2).setCharacterToken(jb);
+        BoardBits initial = b.getBits();
+        int holes = b.getHoleMask(), lamps = b.getLampMask(), exits = b.getExitMask();
+
+        LongStack journal = new LongStack();
+        b.setJournal(journal);
+        b.getCell(4, 2).setCharacterToken(null);
+        b.getCell(6, 2).setCharacterToken(il);
+        b.getCell(4, 2).setCharacterToken(jb);
+        b.getCell(2, 11).flipHole();
+        b.getCell(12, 1).flipLamp();
+        b.getCell(12, 1).setLampOffTurn(-1);
+        b.getCell(2, 1).flipExit();
+        b.setJournal(null);
+
+        assertEquals("One entry per change", 7, journal.size());
+        assertNotEquals("Board state changed", initial, b.getBits());
+
+        while(!journal.isEmpty()){
+            b.undoJournalEntry(journal.pop());
+        }
+
+        assertEquals("Board state is back to initial", initial, b.getBits());
+        assertEquals("Holes are back to initial", holes, b.getHoleMask());
+        assertEquals("Lamps are back to initial", lamps, b.getLampMask());
+        assertEquals("Exits are back to initial", exits, b.getExitMask());
+        assertEquals("Lamp timer is back", 1, b.getCell(12, 1).getlampOffTurn());
+        assertSame("IL is back", il, b.getCell(4, 2).getCharacterToken());
+        assertSame("JB is back", jb, b.getCell(6, 2).getCharacterToken());
+        assertEquals("IL position is back", CellCoordinate.of(4, 2), il.getCurrentPosition());
+        assertEquals("JB position is back", CellCoordinate.of(6, 2), jb.getCurrentPosition());
+    }
+
+    @Test
+    //the hash is updated with every change and goes back to its old value when the change is taken back
+    public void hashFollowsCellChanges() {
+        InspecteurLestrade il = new InspecteurLestrade();
+        JeremyBert jb = new JeremyBert();
+        b.getCell(4, 2).setCharacterToken(il);
+        b.getCell(6, 2).setCharacterToken(jb);
+        long initial = b.getHash();
+        assertEquals("Hash matches a full recompute", b.computeHash(), initial);
+
+        LongStack journal = new LongStack();
+        b.setJournal(journal);
+        b.getCell(4, 2).setCharacterToken(null);
+        b.getCell(6, 2).setCharacterToken(il);
+        b.getCell(4, 2).setCharacterToken(jb);
+        b.getCell(2, 11).flipHole();
+        b.getCell(12, 1).flipLamp();
+        b.getCell(12, 1).setLampOffTurn(-1);
+        b.getCell(2, 1).flipExit();
+        b.setJournal(null);
+
+        assertNotEquals("Hash changed", initial, b.getHash());
+        assertEquals("Hash matches a full recompute", b.computeHash(), b.getHash());
+
+        while(!journal.isEmpty()){
+            b.undoJournalEntry(journal.pop());
+            assertEquals("Hash matches a full recompute", b.computeHash(), b.getHash());
+        }
+
+        assertEquals("Hash is back to initial", initial, b.getHash());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void undoJournalEntryThrowsExceptionIfNotBoardEntry() {
+        b.undoJournalEntry(Board.JOURNAL_OWNER_ENTRY);
+    }
+
+    @Test
+    //SMITH moves the timers with the lamps, the timed lamps follow them
+    public void timedLampsFollowTheirTimer() {
+        Cell timed = b.getCell(BoardTopology.getTimedLamp(0));
+        Cell off = b.getCell(2, 5);
+        timed.flipLamp();
+        off.flipLamp();
+        off.setLampOffTurn(timed.getlampOffTurn());
+        timed.setLampOffTurn(-1);
+
+        assertSame("Lamp with the timer turns off first", off, b.getNextLampToTurnOff());
+        assertEquals("Second timed lamp is next", BoardTopology.getTimedLamp(1), b.getNextLampToTurnOff().getCellCoordinate().getId());
+    }
+
+    @Test
+    public void neighborMasksFollowNearbyCells() {
+        for(int id = 0; id < Board.NUM_CELLS; id++){
+            CellCoordinate c = b.getCell(id).getCellCoordinate();
+            int expected = 0, expectedWalkable = 0;
+
+            for(CellCoordinate delta : Cell.getNearbyCells().values()){
+                int neighbor = Board.getCellId(c.getRow() + delta.getRow(), c.getColumn() + delta.getColumn());
+                if(neighbor == -1){
+                    continue;
+                }
+                expected++;
+                assertTrue("Neighbor is in the mask", Board.getNeighborMask(id, true).get(neighbor));
+
+                boolean walkable = b.getCell(neighbor).canCharacterMoveThrough();
+                if(walkable){
+                    expectedWalkable++;
+                }
+                assertEquals("Neighbor is in the walkable mask only if not an obstacle", walkable, Board.getNeighborMask(id, false).get(neighbor));
+            }
+
+            assertEquals("Mask has only nearby cells", expected, Board.getNeighborMask(id, true).cardinality());
+            assertEquals("Walkable mask has only nearby walkable cells", expectedWalkable, Board.getNeighborMask(id, false).cardinality());
+        }
     }
 
     @Test
     public void placeCellPlacesCellIfAllowed() {
-        Board.clearBoard();
+        //free the cell, cells are created the first time they are read
+        b.grid[2][2] = null;
 
         CellCoordinate cellCoordinates = new CellCoordinate(2,2);
 
@@ -180,7 +377,7 @@ public class BoardTests {
         assertEquals("Cell has correct type", CellType.PLAIN, cell.getCellType());
         assertEquals("Cell has correct coordinates", cellCoordinates, cell.getCellCoordinate());
 
-        Cell cellOnBoard = Board.getCell(cell.getCellCoordinate());
+        Cell cellOnBoard = b.getCell(cell.getCellCoordinate());
         assertNotNull("Cell is on board", cellOnBoard);
         assertEquals("Cell on board correct type", cell.getCellType(), cellOnBoard.getCellType());
 
@@ -189,7 +386,8 @@ public class BoardTests {
 
     @Test(expected = IllegalStateException.class)
     public void placeCellThrowsExceptionIfCellCannotBePlaced() {
-        //on a normal board we already have a cell in 2,2 therefore we expect exception
+        //reading the cell creates it, therefore we expect exception
+        b.getCell(2,2);
         b.placeCell(CellType.PLAIN, new CellCoordinate(2,2));
     }
 
@@ -197,6 +395,6 @@ public class BoardTests {
     @Test
     //ignored since a human must look at it for imperfections
     public void printBoard() {
-        Board.printBoard();
+        b.printBoard();
     }
 }
@@ -0,0 +1,83 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import com.blogspot.groglogs.mrjack.structures.enums.CellType;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class BoardTopologyTests {
+
+    Board b;
+
+    @Before
+    public void initBoard(){
+        b = new Board();
+    }
+
+    @Test
+    //the topology must describe exactly the cells a board creates
+    public void cellsMatchTopology(){
+        for(int id = 0; id < Board.NUM_CELLS; id++){
+            Cell c = b.getCell(id);
+            assertEquals("Cell type matches topology", BoardTopology.getCellType(id), c.getCellType());
+            assertEquals("Hole state matches topology", BoardTopology.getInitialOpenHoles().get(id), c.isHoleOpen());
+            assertEquals("Lamp state matches topology", BoardTopology.getInitialLitLamps().get(id), c.isLampOn());
+            assertEquals("Exit state matches topology", BoardTopology.getInitialOpenExits().get(id), c.isExitOpen());
+            assertEquals("Lamp timer matches topology", BoardTopology.getInitialLampOffTurn(id), c.getlampOffTurn());
+
+            boolean isObstacle = c.getCellType() == CellType.HOUSE || c.getCellType() == CellType.LAMP;
+            assertEquals("Obstacles match cell types", isObstacle, BoardTopology.getObstacles().get(id));
+        }
+    }
+
+    @Test
+    public void initialHoleMaskMatchesOpenHoles(){
+        for(int bit = 0; bit < BoardTopology.getNumHoles(); bit++){
+            int id = BoardTopology.getHoleCoordinate(bit).getId();
+            assertEquals("Hole bit matches cell", bit, BoardTopology.getHoleBit(id));
+            assertEquals("Hole mask matches open holes", BoardTopology.getInitialOpenHoles().get(id),
+                    (BoardTopology.getInitialHoleMask() & 1 << bit) != 0);
+        }
+        assertEquals("New board has initial hole mask", BoardTopology.getInitialHoleMask(), b.getHoleMask());
+    }
+
+    @Test
+    public void timedLampsFollowOrder(){
+        assertEquals("4 timed lamps", BoardTopology.orderedOnLampCells.length, BoardTopology.getNumTimedLamps());
+        for(int i = 0; i < BoardTopology.getNumTimedLamps(); i++){
+            int id = BoardTopology.getTimedLamp(i);
+            assertEquals("Lamp in expected order", BoardTopology.orderedOnLampCells[i].getId(), id);
+            assertEquals("Lamp shuts off in order", i + 1, BoardTopology.getInitialLampOffTurn(id));
+        }
+    }
+
+    @Test
+    //cells are created only when read, with the state the board has at that time
+    public void cellsAreCreatedLazily(){
+        assertNull("Cell not created yet", b.grid[2][2]);
+
+        Cell c = b.getCell(2, 2);
+        assertNotNull("Cell created when read", b.grid[2][2]);
+        assertSame("Cell created once", c, b.getCell(2, 2));
+    }
+
+    @Test
+    //new boards are independent from each other and start from the same state
+    public void newBoardsStartFromTopology(){
+        b.getCell(BoardTopology.holeCells.iterator().next()).flipHole();
+        b.getCell(BoardTopology.offLampCells[0]).flipLamp();
+
+        Board other = new Board();
+        assertEquals("New boards have the same state", new Board().getBits(), other.getBits());
+        assertEquals("Changes on a board do not leak to new boards", BoardTopology.getInitialHoleMask(), other.getHoleMask());
+        for(int id = 0; id < Board.NUM_CELLS; id++){
+            assertEquals("Visibility starts from the initial lamps",
+                    Board.getNeighborMask(id, true).andCardinality(BoardTopology.getInitialLitLamps()),
+                    other.getVisibility().getNearbyLitLamps(id));
+        }
+    }
+}
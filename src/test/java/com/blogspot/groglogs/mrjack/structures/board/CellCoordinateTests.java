@@ -6,6 +6,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class CellCoordinateTests {
 
@@ -13,9 +15,7 @@ public class CellCoordinateTests {
     CellCoordinate start, end;
 
     @Before
-    //since we track static state in the board, we need to reinitialize correctly for each test
     public void initBoard(){
-        Board.clearBoard();
         b = new Board();
     }
 
@@ -24,10 +24,28 @@ public class CellCoordinateTests {
         //we pass out of range values, which the inputter needs to skip and prompt player for again
         //stops when a valid value is given, we expect 3,0
         String in = "-1\n3\n50\n0\n1\n";
-        Stdinputter.setStringAsInputStream(in);
         CellCoordinate expected = new CellCoordinate(3, 0);
-        CellCoordinate input = CellCoordinate.askInputCoordinate();
+        CellCoordinate input = CellCoordinate.askInputCoordinate(new Stdinputter(in));
         assertEquals("Input coordinates are as expected skipping bad values", expected, input);
+        assertSame("Input coordinates are canonical", CellCoordinate.of(3, 0), input);
+    }
+
+    @Test
+    public void of(){
+        for(int id = 0; id < Board.NUM_CELLS; id++){
+            CellCoordinate c = CellCoordinate.of(id);
+            assertEquals("Canonical coordinates have given id", id, c.getId());
+            assertSame("Same cell has same instance", c, CellCoordinate.of(c.getRow(), c.getColumn()));
+            assertEquals("Non canonical coordinates are equal", c, new CellCoordinate(c.getRow(), c.getColumn()));
+            assertEquals("Non canonical coordinates have same hash", c.hashCode(), new CellCoordinate(c.getRow(), c.getColumn()).hashCode());
+            assertSame("Board cell has canonical coordinates", c, b.getCell(id).getCellCoordinate());
+        }
+
+        CellCoordinate outOfBoard = CellCoordinate.of(50, 50);
+        assertEquals("Out of board coordinates have no id", -1, outOfBoard.getId());
+        assertEquals("Out of board coordinates are kept", 50, outOfBoard.getRow());
+        assertNotSame("Out of board coordinates are not canonical", outOfBoard, CellCoordinate.of(50, 50));
+        assertEquals("Out of board coordinates are equal", outOfBoard, CellCoordinate.of(50, 50));
     }
 
     @Test
@@ -40,35 +58,58 @@ public class CellCoordinateTests {
         start = new CellCoordinate(3, 6);
         for(CellCoordinate delta : Cell.getNearbyCells().values()) {
             end = new CellCoordinate(start.getRow() + delta.getRow(), start.getColumn() + delta.getColumn());
-            assertEquals("Distance of a cell to immediate neighbor is 1", 1, CellCoordinate.distance(start, end, true, true));
+            assertEquals("Distance of a cell to immediate neighbor is 1", 1, b.distance(start, end, true, true));
         }
 
         //SW of our start, it's a house
         end = new CellCoordinate(4, 7);
-        assertEquals("Distance to obstacle neighbor without going through obstacles is -1", -1, CellCoordinate.distance(start, end, false, false));
+        assertEquals("Distance to obstacle neighbor without going through obstacles is -1", -1, b.distance(start, end, false, false));
 
         //a real open hole cell
         start = new CellCoordinate(0, 5);
         //another real open hole cell
         end = new CellCoordinate(4, 1);
-        assertEquals("Distance to hole cell without going through holes is 5", 5, CellCoordinate.distance(start, end, false, false));
-        assertEquals("Distance to connected hole cell going through holes is 1", 1, CellCoordinate.distance(start, end, true, false));
+        assertEquals("Distance to hole cell without going through holes is 5", 5, b.distance(start, end, false, false));
+        assertEquals("Distance to connected hole cell going through holes is 1", 1, b.distance(start, end, true, false));
 
         //a neighbor of another real open hole cell
         end = new CellCoordinate(5, 0);
-        assertEquals("Distance to hole cell without going through holes is 6", 6, CellCoordinate.distance(start, end, false, false));
-        assertEquals("Distance to connected hole cell going through holes is 2", 2, CellCoordinate.distance(start, end, true, false));
+        assertEquals("Distance to hole cell without going through holes is 6", 6, b.distance(start, end, false, false));
+        assertEquals("Distance to connected hole cell going through holes is 2", 2, b.distance(start, end, true, false));
 
         //Miss Stealthy start position
         start = new MissStealthy().getCurrentPosition();
         //this end is just after 3 houses NW of MS start position
         end = new CellCoordinate(5, 4);
-        assertEquals("Distance through houses without going through obstacles is 5", 5, CellCoordinate.distance(start, end, false, false));
-        assertEquals("Distance through houses going through obstacles is 4", 4, CellCoordinate.distance(start, end, false, true));
+        assertEquals("Distance through houses without going through obstacles is 5", 5, b.distance(start, end, false, false));
+        assertEquals("Distance through houses going through obstacles is 4", 4, b.distance(start, end, false, true));
 
         //a cell that does not exist, is unreachable
         end = new CellCoordinate(50, 50);
-        assertEquals("Distance to unreachable dest is -1", -1, CellCoordinate.distance(start, end, false, false));
+        assertEquals("Distance to unreachable dest is -1", -1, b.distance(start, end, false, false));
+    }
+
+    @Test
+    public void hexDistance(){
+        start = CellCoordinate.of(9, 4);
+        assertEquals("Hex distance of a cell to itself is 0", 0, CellCoordinate.hexDistance(start, start));
+
+        for(CellCoordinate delta : Cell.getNearbyCells().values()) {
+            end = CellCoordinate.of(start.getRow() + delta.getRow(), start.getColumn() + delta.getColumn());
+            assertEquals("Hex distance of a cell to immediate neighbor is 1", 1, CellCoordinate.hexDistance(start, end));
+        }
+
+        //no obstacles and no holes, every cell is at the same distance as the walking path through obstacles
+        for(int s = 0; s < Board.NUM_CELLS; s++){
+            for(int e = 0; e < Board.NUM_CELLS; e++){
+                assertEquals("Hex distance matches walking distance through obstacles",
+                        DistanceAtlas.distance(s, e, b.getHoleMask(), false, true),
+                        CellCoordinate.hexDistance(CellCoordinate.of(s), CellCoordinate.of(e)));
+            }
+        }
+
+        end = CellCoordinate.of(9, 5);
+        assertEquals("Cells with different parity are not connected", -1, CellCoordinate.hexDistance(start, end));
     }
 
 }
@@ -22,9 +22,7 @@ public class CellTests {
     CellCoordinate coordinate;
 
     @Before
-    //since we track static state in the board, we need to reinitialize correctly for each test
     public void initBoard(){
-        Board.clearBoard();
         b = new Board();
     }
 
@@ -58,11 +56,11 @@ public class CellTests {
     //we use actual board cells for this since the logic will look at other board cells
     public void getNeighbors() {
         //this cell is the top left exit, it neighbors 6 cells: 2 houses, 1 lamp, 1 hole, 2 extra houses that just block the path
-        cell = Board.getCell(2, 1);
+        cell = b.getCell(2, 1);
         Set<CellCoordinate> neighbors = cell.getNeighbors(false);
         assertEquals("Neighbors of corner cell without going through obstacles are 1", 1, neighbors.size());
 
-        Cell neighbor = Board.getCell((CellCoordinate)neighbors.toArray()[0]);
+        Cell neighbor = b.getCell((CellCoordinate)neighbors.toArray()[0]);
         assertEquals("Neighbor is hole", CellType.HOLE, neighbor.getCellType());
         CellCoordinate neigbhorCoordinates = new CellCoordinate(4,1);
         assertEquals("Neighbor coordinates are correct", neigbhorCoordinates, neighbor.getCellCoordinate());
@@ -71,7 +69,7 @@ public class CellTests {
         assertEquals("Neighbors of corner cell going through obstacles are 6", 6, neighbors.size());
 
         //this cell is the only cell in its row, it neighbors 3 cells: 1 lamp, 2 plain
-        cell = Board.getCell(0, 5);
+        cell = b.getCell(0, 5);
         neighbors = cell.getNeighbors(false);
         assertEquals("Neighbors of only top row cell without going through obstacles are 2", 2, neighbors.size());
 
@@ -86,7 +84,7 @@ public class CellTests {
         assertTrue("Non hole cell has no connected holes", cell.getConnectedHoles().isEmpty());
 
         //this is a real open hole. We need it because the logic checks other hole cell status on the board
-        cell = Board.getCell(new CellCoordinate(0,5));
+        cell = b.getCell(new CellCoordinate(0,5));
         assertEquals("Open hole cell has 6 connected holes", 6, cell.getConnectedHoles().size());
 
         cell = new Cell(coordinate, CellType.HOLE);
@@ -182,7 +180,7 @@ public class CellTests {
     public void setCharacterToken() {
         CharacterToken characterToken = new InspecteurLestrade();
 
-        cell = Board.getCell(4, 2);//this is a plain cell with no character in it
+        cell = b.getCell(4, 2);//this is a plain cell with no character in it
         assertNull("dest cell is empty initially", cell.getCharacterToken());
 
         cell.setCharacterToken(characterToken);
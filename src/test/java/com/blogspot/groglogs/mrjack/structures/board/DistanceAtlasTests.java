@@ -0,0 +1,152 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import com.blogspot.groglogs.mrjack.structures.characters.MissStealthy;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class DistanceAtlasTests {
+
+    Board b;
+    CellCoordinate start, end;
+
+    @Before
+    public void initBoard(){
+        b = new Board();
+    }
+
+    @Test
+    public void distance(){
+        //same cases as the BFS distance
+        start = new CellCoordinate(5, 0);
+        assertEquals("Distance of a cell to itself is 0", 0, DistanceAtlas.distance(start, start, b.getHoleMask(), false, false));
+
+        start = new CellCoordinate(3, 6);
+        end = new CellCoordinate(4, 7);
+        assertEquals("Distance to obstacle neighbor going through obstacles is 1", 1, DistanceAtlas.distance(start, end, b.getHoleMask(), true, true));
+        assertEquals("Distance to obstacle neighbor without going through obstacles is -1", -1, DistanceAtlas.distance(start, end, b.getHoleMask(), false, false));
+
+        start = new CellCoordinate(0, 5);
+        end = new CellCoordinate(5, 0);
+        assertEquals("Distance without going through holes is 6", 6, DistanceAtlas.distance(start, end, b.getHoleMask(), false, false));
+        assertEquals("Distance going through holes is 2", 2, DistanceAtlas.distance(start, end, b.getHoleMask(), true, false));
+
+        start = new MissStealthy().getCurrentPosition();
+        end = new CellCoordinate(5, 4);
+        assertEquals("Distance through houses without going through obstacles is 5", 5, DistanceAtlas.distance(start, end, b.getHoleMask(), false, false));
+        assertEquals("Distance through houses going through obstacles is 4", 4, DistanceAtlas.distance(start, end, b.getHoleMask(), false, true));
+
+        end = new CellCoordinate(50, 50);
+        assertEquals("Distance to unreachable dest is -1", -1, DistanceAtlas.distance(start, end, b.getHoleMask(), false, false));
+    }
+
+    @Test
+    //closing a hole must be reflected in the atlas
+    public void distanceFollowsHoleMask(){
+        start = new CellCoordinate(0, 5);
+        end = new CellCoordinate(5, 0);
+
+        b.getCell(4, 1).flipHole();
+        assertEquals("Distance using closed hole is the shortest remaining path", b.distance(start, end, true, false), DistanceAtlas.distance(start, end, b.getHoleMask(), true, false));
+
+        b.getCell(4, 1).flipHole();
+        assertEquals("Distance going through reopened hole is 2", 2, DistanceAtlas.distance(start, end, b.getHoleMask(), true, false));
+    }
+
+    @Test
+    public void verifyInitialBoard(){
+        verify(b.getHoleMask());
+    }
+
+    @Test
+    //Bert moves the cover from an exit hole to a normal hole
+    public void verifyAfterCoverIsMoved(){
+        int originalMask = b.getHoleMask();
+        int mask = originalMask;
+        mask ^= 1 << Board.getHoleBit(new CellCoordinate(2, 11));
+        mask ^= 1 << Board.getHoleBit(new CellCoordinate(9, 6));
+
+        verify(mask);
+        assertEquals("Verification does not change the board holes", originalMask, b.getHoleMask());
+    }
+
+    @Test
+    public void verifySampleOfHoleMasks(){
+        for(int holeMask = 0; holeMask < 1 << Board.getNumHoles(); holeMask += 37){
+            verify(holeMask);
+        }
+    }
+
+    /**
+     * Verifies, for the given combination of open holes, that every distance in the atlas between every pair of cells
+     * matches the one calculated by the reference BFS in all movement modes.
+     * @param holeMask the bitmask of open holes to verify.
+     */
+    private static void verify(int holeMask){
+        for(int start = 0; start < Board.NUM_CELLS; start++){
+            for(int mode = 0; mode < 4; mode++){
+                boolean useHoles = (mode & 1) != 0, canGoThroughObstacles = (mode & 2) != 0;
+                int[] expected = referenceDistances(start, holeMask, useHoles, canGoThroughObstacles);
+
+                for(int end = 0; end < Board.NUM_CELLS; end++){
+                    assertEquals(String.format("Distance %s -> %s (holes: %b, obstacles: %b, mask: %d)",
+                            CellCoordinate.of(start), CellCoordinate.of(end), useHoles, canGoThroughObstacles, holeMask),
+                            expected[end], DistanceAtlas.distance(start, end, holeMask, useHoles, canGoThroughObstacles));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reference BFS, kept independent from the atlas and the PathFinder kernel to check both of them.
+     * Walks the neighbor sets and, when standing on an open hole, jumps to every other open hole in the mask.
+     * The start cell is always accepted even if it's an obstacle.
+     * @param start start cell id.
+     * @param holeMask the bitmask of open holes.
+     * @param useHoles if true, holes can be used to quick travel.
+     * @param canGoThroughObstacles if true, the path can go through obstacles eg HOUSE and LAMP.
+     * @return the distance from start to every cell, indexed by cell id, -1 if no path exists.
+     */
+    static int[] referenceDistances(int start, int holeMask, boolean useHoles, boolean canGoThroughObstacles){
+        int[] distances = new int[Board.NUM_CELLS];
+        Arrays.fill(distances, -1);
+
+        Queue<CellCoordinate> cellsToVisit = new ArrayDeque<>();
+        cellsToVisit.add(CellCoordinate.of(start));
+        distances[start] = 0;
+
+        Set<CellCoordinate> holeCells = Board.getHoleCells();
+
+        while(!cellsToVisit.isEmpty()){
+            CellCoordinate curr = cellsToVisit.poll();
+            int next = distances[curr.getId()] + 1;
+
+            for(CellCoordinate c : Board.getNeighbors(curr.getId(), canGoThroughObstacles)){
+                if(distances[c.getId()] == -1){
+                    distances[c.getId()] = next;
+                    cellsToVisit.add(c);
+                }
+            }
+
+            //going into a hole counts as a movement point
+            if(useHoles && holeCells.contains(curr) && (holeMask & (1 << Board.getHoleBit(curr))) != 0){
+                for(int bit = 0; bit < Board.getNumHoles(); bit++){
+                    CellCoordinate hole = Board.getHoleCoordinate(bit);
+
+                    if((holeMask & (1 << bit)) != 0 && distances[hole.getId()] == -1){
+                        distances[hole.getId()] = next;
+                        cellsToVisit.add(hole);
+                    }
+                }
+            }
+        }
+
+        return distances;
+    }
+}
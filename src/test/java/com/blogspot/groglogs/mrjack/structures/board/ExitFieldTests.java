@@ -0,0 +1,62 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExitFieldTests {
+
+    Board b;
+
+    @Before
+    public void initBoard(){
+        b = new Board();
+    }
+
+    //the field must match the distance to the nearest open exit for every cell
+    private void assertMatchesSearch(){
+        for(int id = 0; id < Board.NUM_CELLS; id++){
+            for(int mode = 0; mode < 2; mode++){
+                int expected = -1;
+                for(CellCoordinate exit : b.getOpenExitCells()){
+                    int distance = b.distance(CellCoordinate.of(id), exit, true, mode == 1);
+                    if(distance != -1 && (expected == -1 || distance < expected)){
+                        expected = distance;
+                    }
+                }
+                assertEquals("Exit distance matches search", expected, b.getExitField().getExitDistance(id, mode == 1));
+            }
+        }
+    }
+
+    @Test
+    public void getExitDistance(){
+        assertEquals("Open exit is at distance 0", 0, b.getExitField().getExitDistance(Board.getCellId(2, 1), false));
+        assertEquals("Out of board cell cannot reach exits", -1, b.getExitField().getExitDistance(-1, false));
+        assertMatchesSearch();
+
+        //close an exit and a hole, the field must follow
+        b.getCell(2, 1).flipExit();
+        b.getCell(4, 1).flipHole();
+        assertTrue("Closed exit is not at distance 0", b.getExitField().getExitDistance(Board.getCellId(2, 1), false) > 0);
+        assertMatchesSearch();
+
+        //close all exits
+        b.getCell(14, 11).flipExit();
+        assertEquals("No exit can be reached", -1, b.getExitField().getExitDistance(Board.getCellId(2, 1), false));
+    }
+
+    @Test
+    public void canEscape(){
+        //4,1 is next to exit 2,1
+        int id = Board.getCellId(4, 1);
+        assertTrue("Can escape with 2 moves", b.getExitField().canEscape(id, 2, false));
+        assertFalse("Cannot escape with 1 move", b.getExitField().canEscape(id, 1, false));
+
+        b.getCell(2, 1).flipExit();
+        assertFalse("Cannot escape through blocked exit", b.getExitField().canEscape(id, 2, false));
+    }
+}
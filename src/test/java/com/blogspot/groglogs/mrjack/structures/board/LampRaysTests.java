@@ -0,0 +1,73 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import com.blogspot.groglogs.mrjack.structures.characters.InspecteurLestrade;
+import com.blogspot.groglogs.mrjack.structures.characters.SherlockHolmes;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LampRaysTests {
+
+    Board b;
+
+    @Before
+    public void initBoard(){
+        b = new Board();
+    }
+
+    @Test
+    public void getRay(){
+        //from 12,9 pointing NW the light stops at the house in 8,5
+        int start = Board.getCellId(12, 9);
+        assertArrayEquals("Light stops before the first house",
+                new int[]{Board.getCellId(11, 8), Board.getCellId(10, 7), Board.getCellId(9, 6)},
+                LampRays.getRay(start, Direction.NORTHWEST));
+
+        //from 11,12 pointing N the light stops at the border house in 1,12
+        start = Board.getCellId(11, 12);
+        assertEquals("Light reaches 4 cells", 4, LampRays.getRay(start, Direction.NORTH).length);
+        assertTrue("Light reaches 3,12", LampRays.getRayMask(start, Direction.NORTH).get(Board.getCellId(3, 12)));
+        assertFalse("Light does not reach the house", LampRays.getRayMask(start, Direction.NORTH).get(Board.getCellId(1, 12)));
+
+        //the light stops at the edge of the board
+        assertEquals("No light out of the board", 0, LampRays.getRay(Board.getCellId(0, 5), Direction.NORTH).length);
+    }
+
+    @Test
+    //every ray must match walking the grid cell by cell
+    public void getRayMatchesGrid(){
+        for(Direction d : Direction.values()){
+            CellCoordinate delta = Cell.getNearbyCells().get(d);
+
+            for(int id = 0; id < Board.NUM_CELLS; id++){
+                int length = 0;
+                for(int i = id / Board.COLUMNS + delta.getRow(), j = id % Board.COLUMNS + delta.getColumn();
+                    i >= 0 && i < Board.ROWS && j >= 0 && j < Board.COLUMNS && b.getCell(i, j).canCharacterMoveThrough();
+                    i += delta.getRow(), j += delta.getColumn()){
+                    assertEquals("Ray has the expected cell", Board.getCellId(i, j), LampRays.getRay(id, d)[length++]);
+                }
+                assertEquals("Ray has the expected length", length, LampRays.getRay(id, d).length);
+                assertEquals("Ray mask matches ray", length, LampRays.getRayMask(id, d).cardinality());
+            }
+        }
+    }
+
+    @Test
+    public void getLitCharactersAndBestDirection(){
+        int start = Board.getCellId(12, 9);
+        b.getCell(10, 7).setCharacterToken(new SherlockHolmes());
+        b.getCell(9, 6).setCharacterToken(new InspecteurLestrade());
+
+        Bitboard lit = LampRays.getLitCharacters(start, Direction.NORTHWEST, b.getOccupied());
+        assertEquals("Two characters are lit", 2, lit.cardinality());
+        assertTrue("Character in 10,7 is lit", lit.get(Board.getCellId(10, 7)));
+        assertTrue("Nobody is lit pointing S", LampRays.getLitCharacters(start, Direction.SOUTH, b.getOccupied()).isEmpty());
+
+        assertEquals("Best direction lights both characters", Direction.NORTHWEST, LampRays.getBestDirection(start, b.getOccupied()));
+    }
+}
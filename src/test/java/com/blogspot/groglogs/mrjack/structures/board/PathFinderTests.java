@@ -0,0 +1,102 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import com.blogspot.groglogs.mrjack.structures.characters.InspecteurLestrade;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PathFinderTests {
+
+    Board b;
+    CellCoordinate start, end;
+
+    @Before
+    public void initBoard(){
+        b = new Board();
+    }
+
+    @Test
+    //the kernel must agree with the reference BFS on every pair of cells in every movement mode
+    public void distanceMatchesReference(){
+        //sample of hole masks that includes the one of the initial board
+        for(int holeMask = b.getHoleMask() % 37; holeMask < 1 << Board.getNumHoles(); holeMask += 37){
+            for(int s = 0; s < Board.NUM_CELLS; s++){
+                for(int mode = 0; mode < 4; mode++){
+                    boolean useHoles = (mode & 1) != 0, canGoThroughObstacles = (mode & 2) != 0;
+                    int[] expected = DistanceAtlasTests.referenceDistances(s, holeMask, useHoles, canGoThroughObstacles);
+
+                    for(int e = 0; e < Board.NUM_CELLS; e++){
+                        assertEquals("Distance matches reference", expected[e],
+                                PathFinder.distance(s, e, holeMask, useHoles, canGoThroughObstacles, Integer.MAX_VALUE));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    //the closed form going through obstacles must be exact for any combination of open holes
+    public void hexDistanceMatchesAtlas(){
+        for(int holeMask = 0; holeMask < 1 << Board.getNumHoles(); holeMask += 37){
+            for(int s = 0; s < Board.NUM_CELLS; s++){
+                for(int e = 0; e < Board.NUM_CELLS; e++){
+                    assertEquals("Hex distance with holes matches atlas",
+                            DistanceAtlas.distance(s, e, holeMask, true, true),
+                            PathFinder.hexDistance(s, e, holeMask, true));
+                    //obstacles only make paths longer
+                    int walk = DistanceAtlas.distance(s, e, holeMask, true, false);
+                    assertTrue("Hex distance is a lower bound", walk == -1 || PathFinder.hexDistance(s, e, holeMask, true) <= walk);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void distanceWithinMaxDistance(){
+        start = CellCoordinate.of(0, 5);
+        end = CellCoordinate.of(5, 0);
+
+        assertEquals("Destination within max distance is found", 6, PathFinder.distance(start.getId(), end.getId(), b.getHoleMask(), false, false, 6));
+        assertEquals("Destination beyond max distance is not found", -1, PathFinder.distance(start.getId(), end.getId(), b.getHoleMask(), false, false, 5));
+        assertEquals("Destination through holes within max distance is found", 2, PathFinder.distance(start.getId(), end.getId(), b.getHoleMask(), true, false, 2));
+
+        //with a single open hole there is nowhere to jump to
+        int singleHole = 1 << Board.getHoleBit(start);
+        assertEquals("Cannot jump with a single open hole", 6, PathFinder.distance(start.getId(), end.getId(), singleHole, true, false, 10));
+
+        assertEquals("Out of board destination is unreachable", -1, b.distance(start, CellCoordinate.of(50, 50), true, true));
+    }
+
+    @Test
+    //a single search must find exactly the cells whose distance is within the limit
+    public void reachableMatchesAtlas(){
+        Bitboard reached = new Bitboard();
+
+        for(int s = 0; s < Board.NUM_CELLS; s += 7){
+            for(int mode = 0; mode < 4; mode++){
+                boolean useHoles = (mode & 1) != 0, canGoThroughObstacles = (mode & 2) != 0;
+                PathFinder.reachable(s, b.getHoleMask(), useHoles, canGoThroughObstacles, 3, reached);
+
+                for(int e = 0; e < Board.NUM_CELLS; e++){
+                    int distance = DistanceAtlas.distance(s, e, b.getHoleMask(), useHoles, canGoThroughObstacles);
+                    assertEquals("Cell is reachable only if within limit", distance > 0 && distance <= 3, reached.get(e));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void moveCharacterNoHoles(){
+        //occupy 11,6
+        b.getCell(11, 6).setCharacterToken(new InspecteurLestrade());
+        start = CellCoordinate.of(9, 4);
+
+        assertEquals("Obstacle destination returns -1", -1, PathFinder.moveCharacterNoHoles(b, start, CellCoordinate.of(10, 5), 10));
+        assertEquals("Occupied destination returns -1", -1, PathFinder.moveCharacterNoHoles(b, start, CellCoordinate.of(11, 6), 10));
+        assertEquals("Destination too far returns -1", -1, PathFinder.moveCharacterNoHoles(b, start, CellCoordinate.of(5, 4), 1));
+        assertEquals("Destination within reach returns distance", 2, PathFinder.moveCharacterNoHoles(b, start, CellCoordinate.of(5, 4), 2));
+        assertEquals("Holes cannot be used", -1, PathFinder.moveCharacterNoHoles(b, start, CellCoordinate.of(10, 7), 4));
+    }
+}
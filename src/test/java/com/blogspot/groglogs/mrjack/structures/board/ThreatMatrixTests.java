@@ -0,0 +1,76 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ThreatMatrixTests {
+
+    Game g;
+    Board b;
+
+    @Before
+    //we need to initialize a game since the matrix tracks the characters on the board
+    public void initGame(){
+        g = new Game();
+        b = g.getBoard();
+    }
+
+    //the matrix must match a search between every pair of characters
+    private void assertMatchesSearch(){
+        for(CharacterType from : CharacterType.values()){
+            for(CharacterType to : CharacterType.values()){
+                CharacterToken f = g.getCharacterToken(from), t = g.getCharacterToken(to);
+                assertEquals("Distance matches search",
+                        b.distance(f.getCurrentPosition(), t.getCurrentPosition(), true, from == CharacterType.STEALTHY),
+                        b.getThreatMatrix().getDistance(from, to));
+            }
+        }
+    }
+
+    @Test
+    public void getDistance(){
+        assertEquals("Character is at distance 0 from itself", 0, b.getThreatMatrix().getDistance(CharacterType.BERT, CharacterType.BERT));
+        assertMatchesSearch();
+
+        //move a character next to another one
+        CharacterToken c = g.getCharacterToken(CharacterType.LESTRADE);
+        b.getCell(c.getCurrentPosition()).setCharacterToken(null);
+        b.getCell(13, 2).setCharacterToken(c);
+        assertMatchesSearch();
+
+        //close a hole
+        b.getCell(0, 5).flipHole();
+        assertMatchesSearch();
+
+        //move after the hole change, before anyone read the matrix
+        b.getCell(13, 2).setCharacterToken(null);
+        b.getCell(5, 4).setCharacterToken(c);
+        b.getCell(4, 1).flipHole();
+        assertMatchesSearch();
+    }
+
+    @Test
+    public void getReachableCharacters(){
+        for(CharacterType from : CharacterType.values()){
+            CharacterToken f = g.getCharacterToken(from);
+
+            for(CharacterType to : CharacterType.values()){
+                int distance = b.distance(f.getCurrentPosition(), g.getCharacterToken(to).getCurrentPosition(), true, from == CharacterType.STEALTHY);
+                boolean expected = from != to && distance != -1 && distance <= f.getMaxMovement();
+
+                assertEquals("Reachability matches search", expected, b.getThreatMatrix().canReach(from, to, f.getMaxMovement()));
+                assertEquals("Reachable characters match search", expected, b.getThreatMatrix().getReachableCharacters(from, f.getMaxMovement()).contains(to));
+            }
+        }
+
+        assertFalse("Character cannot reach itself", b.getThreatMatrix().canReach(CharacterType.BERT, CharacterType.BERT, 10));
+        assertTrue("Every character can be reached with enough movement", b.getThreatMatrix().canReach(CharacterType.BERT, CharacterType.GULL, 100));
+    }
+}
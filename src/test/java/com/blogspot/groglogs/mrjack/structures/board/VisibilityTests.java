@@ -0,0 +1,103 @@
+package com.blogspot.groglogs.mrjack.structures.board;
+
+import com.blogspot.groglogs.mrjack.Game;
+import com.blogspot.groglogs.mrjack.structures.characters.CharacterToken;
+import com.blogspot.groglogs.mrjack.structures.characters.InspecteurLestrade;
+import com.blogspot.groglogs.mrjack.structures.characters.JohnHWatson;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import com.blogspot.groglogs.mrjack.structures.enums.Direction;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VisibilityTests {
+
+    Board b;
+
+    @Before
+    public void initBoard(){
+        b = new Board();
+    }
+
+    //the counters must always agree with a full scan of the board
+    private void assertMatchesBoard(){
+        for(int id = 0; id < Board.NUM_CELLS; id++){
+            assertEquals("Incremental visibility matches board", b.isNearCharacterOrLitLamp(id), b.getVisibility().isNearCharacterOrLitLamp(id));
+        }
+    }
+
+    @Test
+    public void nearbyCounters(){
+        int id = Board.getCellId(9, 4);
+        assertEquals("Nobody near 9,4", 0, b.getVisibility().getNearbyCharacters(id));
+        //10,5 is a lamp always on
+        assertEquals("One lit lamp near 9,4", 1, b.getVisibility().getNearbyLitLamps(id));
+        assertMatchesBoard();
+
+        CharacterToken c = new InspecteurLestrade();
+        b.getCell(7, 4).setCharacterToken(c);
+        assertEquals("One character near 9,4", 1, b.getVisibility().getNearbyCharacters(id));
+        assertMatchesBoard();
+
+        //move the character away
+        b.getCell(7, 4).setCharacterToken(null);
+        b.getCell(3, 4).setCharacterToken(c);
+        assertEquals("Nobody near 9,4 after move", 0, b.getVisibility().getNearbyCharacters(id));
+        assertMatchesBoard();
+
+        b.getCell(10, 5).flipLamp();
+        assertEquals("No lit lamp near 9,4", 0, b.getVisibility().getNearbyLitLamps(id));
+        assertFalse("9,4 is not visible", b.getVisibility().isVisible(id));
+        assertMatchesBoard();
+    }
+
+    @Test
+    public void watsonLight(){
+        //WATSON's ability reads the input of his game
+        Game g = new Game();
+        b = g.getBoard();
+
+        JohnHWatson jw = (JohnHWatson)g.getCharacterToken(CharacterType.WATSON);
+        b.getCell(jw.getCurrentPosition()).setCharacterToken(null);
+        b.getCell(12, 9).setCharacterToken(jw);
+        assertEquals("Watson is tracked", Board.getCellId(12, 9), b.getVisibility().getWatsonCell());
+
+        //Watson points NE by default
+        for(int id : LampRays.getRay(Board.getCellId(12, 9), Direction.NORTHEAST)){
+            assertTrue("Cell is lit by Watson", b.getVisibility().isLitByWatson(id));
+        }
+
+        g.getInput().setStringAsInputStream("5\n");
+        jw.useAbility();
+        assertTrue("Direction change is tracked", b.getVisibility().isLitByWatson(Board.getCellId(10, 7)));
+
+        b.getCell(12, 9).setCharacterToken(null);
+        assertEquals("Watson left the board", -1, b.getVisibility().getWatsonCell());
+        assertFalse("Nothing is lit by Watson", b.getVisibility().isLitByWatson(Board.getCellId(10, 7)));
+    }
+
+    @Test
+    public void matchesGameVisibility(){
+        Game g = new Game();
+        b = g.getBoard();
+
+        for(CharacterType t : CharacterType.values()){
+            CharacterToken c = g.getCharacterToken(t);
+            c.checkIsVisible();
+            boolean expected = c.isVisible();
+            if(!expected){
+                //WATSON's light is checked separately
+                JohnHWatson jw = (JohnHWatson)g.getCharacterToken(CharacterType.WATSON);
+                for(int id : LampRays.getRay(jw.getCurrentPosition().getId(), jw.getLampDirection())){
+                    expected |= id == c.getCurrentPosition().getId();
+                }
+            }
+
+            assertEquals("Visibility matches full check", expected, b.getVisibility().isVisible(c.getCurrentPosition().getId()));
+        }
+        assertMatchesBoard();
+    }
+}
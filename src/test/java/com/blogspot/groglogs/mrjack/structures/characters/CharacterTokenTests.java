@@ -1,7 +1,7 @@
 package com.blogspot.groglogs.mrjack.structures.characters;
 
 import com.blogspot.groglogs.mrjack.Game;
-import com.blogspot.groglogs.mrjack.input.Stdinputter;
+import com.blogspot.groglogs.mrjack.structures.board.Bitboard;
 import com.blogspot.groglogs.mrjack.structures.board.Board;
 import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterActionType;
@@ -21,14 +21,15 @@ import static org.junit.Assert.assertTrue;
 
 public class CharacterTokenTests {
 
+    private Game g;
     private Board b;
     CharacterToken characterToken;
 
     @Before
-    //since we track static state in the board, we need to reinitialize correctly for each test
+    //characters reach the board and the player input through the game they are played in
     public void initGame(){
-        Board.clearBoard();
-        b = new Board();
+        g = new Game();
+        b = g.getBoard();
     }
 
     @Test
@@ -50,6 +51,40 @@ public class CharacterTokenTests {
         assertEquals("Character is in new position", newPosition, characterToken.getCurrentPosition());
     }
 
+    @Test
+    public void getMoveDestinations(){
+        //IL starts in 9,4
+        characterToken = g.getCharacterToken(CharacterType.LESTRADE);
+        //occupy 11,4
+        b.getCell(11, 4).setCharacterToken(new SirWilliamGull());
+
+        Bitboard reachable = characterToken.getReachableCells();
+        Bitboard destinations = characterToken.getMoveDestinations();
+
+        assertFalse("Current position is not reachable", reachable.get(Board.getCellId(9, 4)));
+        assertFalse("Current position is not a destination", destinations.get(Board.getCellId(9, 4)));
+        assertTrue("Occupied cell is reachable", reachable.get(Board.getCellId(11, 4)));
+        assertFalse("Occupied cell is not a destination", destinations.get(Board.getCellId(11, 4)));
+        assertFalse("Obstacle is not a destination", destinations.get(Board.getCellId(10, 5)));
+        assertTrue("Cell within reach is a destination", destinations.get(Board.getCellId(5, 4)));
+        assertFalse("Cell out of reach is not a destination", characterToken.getMoveDestinationsNoHoles(1).get(Board.getCellId(5, 4)));
+        //9,4 -> 8,3 -> hole 9,2 -> jump to hole 16,7
+        assertTrue("Cell reachable through holes is a destination", destinations.get(Board.getCellId(16, 7)));
+        assertFalse("Cell reachable through holes is not a destination without holes", characterToken.getMoveDestinationsNoHoles(3).get(Board.getCellId(16, 7)));
+    }
+
+    @Test
+    public void getMoveDestinationsStealthy(){
+        characterToken = g.getCharacterToken(CharacterType.STEALTHY);
+        characterToken.setCurrentPosition(9, 4);
+
+        Bitboard reachable = characterToken.getReachableCells();
+        Bitboard destinations = characterToken.getMoveDestinations();
+
+        assertTrue("Stealthy can reach obstacles", reachable.get(Board.getCellId(10, 5)));
+        assertFalse("Stealthy cannot stop on obstacles", destinations.get(Board.getCellId(10, 5)));
+    }
+
     @Test(expected = IllegalStateException.class)
     public void setCurrentPositionThrowsExceptionIfNewPositionCannotAcceptCharacter(){
         characterToken = new InspecteurLestrade();
@@ -60,24 +95,24 @@ public class CharacterTokenTests {
 
     @Test
     public void checkIsVisible(){
-        characterToken = new InspecteurLestrade();
+        characterToken = g.getCharacterToken(CharacterType.LESTRADE);
 
         //initially IL is close to a lamp so it must report being visible
         characterToken.checkIsVisible();
         assertTrue("Character is visible", characterToken.isVisible());
 
         //if we turn off the lamp and recalculate, he must report being hidden
-        Board.getCell(10, 5).flipLamp();
+        b.getCell(10, 5).flipLamp();
         characterToken.checkIsVisible();
         assertFalse("Character is hidden", characterToken.isVisible());
 
         //if we place a character near him and recalculate, he must report being visible
-        Board.getCell(7, 4).setCharacterToken(new SherlockHolmes());
+        b.getCell(7, 4).setCharacterToken(new SherlockHolmes());
         characterToken.checkIsVisible();
         assertTrue("Character is visible", characterToken.isVisible());
 
         //if we turn on the lamp and recalculate, he must stay visible
-        Board.getCell(10, 5).flipLamp();
+        b.getCell(10, 5).flipLamp();
         characterToken.checkIsVisible();
         assertTrue("Character is visible", characterToken.isVisible());
     }
@@ -97,10 +132,10 @@ public class CharacterTokenTests {
 
     @Test
     public void executeCharacterActionsAlwaysAbilityType(){
-        characterToken = new MissStealthy();
+        characterToken = g.getCharacterToken(CharacterType.STEALTHY);
         //MS can only move so input will be coordinates of the new location
         String actions = "5\n0\n";
-        Stdinputter.setStringAsInputStream(actions);
+        g.getInput().setStringAsInputStream(actions);
         characterToken.executeCharacterActions();
         assertFalse("MS cannot move anymore", characterToken.canMove());
         assertEquals("MS is at new coordinates 5,0", new CellCoordinate(5,0), characterToken.getCurrentPosition());
@@ -108,38 +143,39 @@ public class CharacterTokenTests {
 
     @Test
     public void executeCharacterActionsAnyMoveAbilityType(){
-        characterToken = new InspecteurLestrade();
+        characterToken = g.getCharacterToken(CharacterType.LESTRADE);
         //IL can move or use his ability any time, must use both
         //we first move him to 7,4 then use his ability to swap barrier from 14,1 to 14,11
         String actions = "0\n7\n4\n1\n14\n1\n14\n11\n";
-        Stdinputter.setStringAsInputStream(actions);
+        g.getInput().setStringAsInputStream(actions);
         characterToken.executeCharacterActions();
         assertFalse("IL cannot move anymore", characterToken.canMove());
         assertFalse("IL cannot use ability anymore", characterToken.canUseAbility());
         assertEquals("IL is at new coordinates 7,4", new CellCoordinate(7,4), characterToken.getCurrentPosition());
-        assertTrue("Exit 14,1 is open", Board.getCell(14,1).isExitOpen());
-        assertFalse("Exit 14,11 is blocked", Board.getCell(14,11).isExitOpen());
+        assertTrue("Exit 14,1 is open", b.getCell(14,1).isExitOpen());
+        assertFalse("Exit 14,11 is blocked", b.getCell(14,11).isExitOpen());
 
         //now try opposite, first use ability and then move
         characterToken = new InspecteurLestrade();
+        characterToken.setGame(g);
         //we first swap barrier from 14,11 to 14,1 then move him to 9,4
         actions = "1\n14\n11\n14\n1\n0\n9\n4\n";
-        Stdinputter.setStringAsInputStream(actions);
+        g.getInput().setStringAsInputStream(actions);
         characterToken.executeCharacterActions();
         assertFalse("IL cannot move anymore", characterToken.canMove());
         assertFalse("IL cannot use ability anymore", characterToken.canUseAbility());
         assertEquals("IL is at new coordinates 9,4", new CellCoordinate(9,4), characterToken.getCurrentPosition());
-        assertTrue("Exit 14,11 is open", Board.getCell(14,11).isExitOpen());
-        assertFalse("Exit 14,1 is blocked", Board.getCell(14,1).isExitOpen());
+        assertTrue("Exit 14,11 is open", b.getCell(14,11).isExitOpen());
+        assertFalse("Exit 14,1 is blocked", b.getCell(14,1).isExitOpen());
     }
 
     @Test
     public void executeCharacterActionsAfterMoveAbilityType(){
-        characterToken = new JohnHWatson();
+        characterToken = g.getCharacterToken(CharacterType.WATSON);
         //JW must move before he uses his ability
         //we first move him to 13,8 then use his ability to point the lamp North
         String actions = "13\n8\n0\n";
-        Stdinputter.setStringAsInputStream(actions);
+        g.getInput().setStringAsInputStream(actions);
         characterToken.executeCharacterActions();
         assertFalse("JW cannot move anymore", characterToken.canMove());
         //This check is linked to whether he moved, so it will be true even AFTER the move
@@ -153,10 +189,10 @@ public class CharacterTokenTests {
     @Test
     public void executeCharacterActionsInsteadOfMoveAbilityType(){
         //WG can either move OR use his ability
-        characterToken = new SirWilliamGull();
+        characterToken = g.getCharacterToken(CharacterType.GULL);
         //we try to move him
         String actions = "0\n3\n4\n";
-        Stdinputter.setStringAsInputStream(actions);
+        g.getInput().setStringAsInputStream(actions);
         characterToken.executeCharacterActions();
         //this check is linked to whether he used his ability so it will be true even after he moved
         //this is because the logic to govern this is within the executeCharacterActions method itself which forces
@@ -165,24 +201,24 @@ public class CharacterTokenTests {
         assertFalse("WG cannot use ability", characterToken.canUseAbility());
         assertEquals("WG is at new coordinates 3,4", new CellCoordinate(3,4), characterToken.getCurrentPosition());
 
-        //we need to clear the board and initialize a game since the logic will check for valid data in the context
-        Board.clearBoard();
-        Game g = new Game();
+        //start a new game to have all characters back in their initial position
+        g = new Game();
+        b = g.getBoard();
         //now we try to use his ability
-        characterToken = new SirWilliamGull();
+        characterToken = g.getCharacterToken(CharacterType.GULL);
         //we try to swap him with IL at 9,4
         actions = "1\n0\n";
-        Stdinputter.setStringAsInputStream(actions);
+        g.getInput().setStringAsInputStream(actions);
         characterToken.executeCharacterActions();
         assertFalse("WG cannot move", characterToken.canMove());
         assertTrue("WG can use ability", characterToken.canUseAbility());
         assertEquals("WG is at IL coordinates 9,4", new CellCoordinate(9,4), characterToken.getCurrentPosition());
-        assertEquals("IL is at WG coordinates 1,4", CharacterType.LESTRADE, Board.getCell(1, 4).getCharacterToken().getCharacterType());
+        assertEquals("IL is at WG coordinates 1,4", CharacterType.LESTRADE, b.getCell(1, 4).getCharacterToken().getCharacterType());
     }
 
     @Test(expected = IllegalStateException.class)
     public void executeCharacterActionsThrowsExceptionIfCharacterHasAlreadyMovedAndMovesAgain(){
-        characterToken = new MissStealthy();
+        characterToken = g.getCharacterToken(CharacterType.STEALTHY);
         characterToken.hasMoved = true;
         characterToken.executeCharacterActions();
     }
@@ -190,27 +226,24 @@ public class CharacterTokenTests {
     @Test
     public void askCharacterAction(){
         characterToken = new InspecteurLestrade();
+        characterToken.setGame(g);
 
         //try to select move action after some invalid ones
         String actions = "-1\n30\n0\n";
-        Stdinputter.setStringAsInputStream(actions);
+        g.getInput().setStringAsInputStream(actions);
         assertEquals("Action is MOVE", CharacterActionType.MOVE, characterToken.askCharacterAction());
         assertFalse("Character cannot choose move anymore", characterToken.getAvailableActions().contains(CharacterActionType.MOVE));
 
         //now if we attempt to move again we get prompted again for a valid action
         actions = "0\n1\n";
-        Stdinputter.setStringAsInputStream(actions);
+        g.getInput().setStringAsInputStream(actions);
         assertEquals("Action is USE_ABILITY", CharacterActionType.USE_ABILITY, characterToken.askCharacterAction());
         assertTrue("Character has no more available actions", characterToken.getAvailableActions().isEmpty());
     }
 
     @Test
     public void moveCharacterNoHoles(){
-        //we need to clear the board and initialize a game since the logic will check for valid data in the context
-        Board.clearBoard();
-        Game g = new Game();
-
-        characterToken = new InspecteurLestrade();
+        characterToken = g.getCharacterToken(CharacterType.LESTRADE);
         //try to move to 10,5 which is a lamp so not allowed
         assertEquals("Trying to move more to obstacle cell returns -1", -1, characterToken.moveCharacterNoHoles(new CellCoordinate(10, 5), 10));
 
@@ -257,24 +290,20 @@ public class CharacterTokenTests {
 
     @Test
     public void askCharacterToken(){
-        //we need to clear the board and initialize a game since the logic will check for valid data in the context
-        Board.clearBoard();
-        Game g = new Game();
-
         //if allowCancel is true, we can back out of the choice, we skip invalid input and accept -1
         String choices = "100\n-1\n";
-        Stdinputter.setStringAsInputStream(choices);
-        assertNull("Canceled character choice returns null", CharacterToken.askCharacterToken(CharacterType.BERT, true));
+        g.getInput().setStringAsInputStream(choices);
+        assertNull("Canceled character choice returns null", g.askCharacterToken(CharacterType.BERT, true));
 
         //if instead we do not allow cancelling, then -1 is also treated as invalid input
         choices = "100\n-1\n0\n";
-        Stdinputter.setStringAsInputStream(choices);
-        assertNotNull("Non cancellable character choice returns a character", CharacterToken.askCharacterToken(CharacterType.BERT, false));
+        g.getInput().setStringAsInputStream(choices);
+        assertNotNull("Non cancellable character choice returns a character", g.askCharacterToken(CharacterType.BERT, false));
 
         //the character we give to exclude is not selectable
         choices = "1\n0\n";
-        Stdinputter.setStringAsInputStream(choices);
-        CharacterToken c = CharacterToken.askCharacterToken(CharacterType.BERT, false);
+        g.getInput().setStringAsInputStream(choices);
+        CharacterToken c = g.askCharacterToken(CharacterType.BERT, false);
         assertNotNull("Excluded character is not selectable", c);
         assertEquals("Chosen character was selected", CharacterType.LESTRADE, c.getCharacterType());
     }
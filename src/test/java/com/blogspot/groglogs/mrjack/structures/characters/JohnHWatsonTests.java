@@ -1,9 +1,9 @@
 package com.blogspot.groglogs.mrjack.structures.characters;
 
 import com.blogspot.groglogs.mrjack.Game;
-import com.blogspot.groglogs.mrjack.input.Stdinputter;
 import com.blogspot.groglogs.mrjack.structures.board.Board;
 import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
 import com.blogspot.groglogs.mrjack.structures.enums.Direction;
 import org.junit.Test;
 
@@ -15,62 +15,53 @@ public class JohnHWatsonTests {
 
     @Test
     public void useAbility() {
-        //we need to clear the board and initialize a game since the logic will check for valid data in the context
-        Board.clearBoard();
+        //we need to initialize a game since the logic will check for valid data in the context
         Game g = new Game();
+        Board b = g.getBoard();
 
         JohnHWatson jw = new JohnHWatson();
+        jw.setGame(g);
         //use his ability to point the lamp North, ignoring invalid input
         String actions = "100\n0\n";
-        Stdinputter.setStringAsInputStream(actions);
+        g.getInput().setStringAsInputStream(actions);
         jw.useAbility();
         assertEquals("JW lamp points north", Direction.NORTH, jw.getLampDirection());
     }
 
     @Test
-    public void checkVisibleUnderLampRange() {
-        //we need to clear the board and initialize a game since the logic will check for valid data in the context
-        Board.clearBoard();
+    public void lampLightsCharactersInRange() {
+        //the light is tracked by the board of the game Watson is placed on
         Game g = new Game();
+        Board b = g.getBoard();
 
-        JohnHWatson jw = new JohnHWatson();
+        JohnHWatson jw = (JohnHWatson)g.getCharacterToken(CharacterType.WATSON);
         //move Watson to cell 12,9 then have him point NW
+        b.getCell(jw.getCurrentPosition()).setCharacterToken(null);
         CellCoordinate newLocation = new CellCoordinate(12, 9);
-        jw.setCurrentPosition(newLocation);
-        Board.getCell(newLocation).setCharacterToken(jw);
+        b.getCell(newLocation).setCharacterToken(jw);
         jw.setLampDirection(Direction.NORTHWEST);
 
         //add a character in the range of the lamp in 10,7 and a character behind a house in 7,4
         CellCoordinate visibleCharacter = new CellCoordinate(10, 7);
         CellCoordinate hiddenCharacter = new CellCoordinate(7, 4);
-        Board.getCell(visibleCharacter).setCharacterToken(new SherlockHolmes());
-        Board.getCell(hiddenCharacter).setCharacterToken(new InspecteurLestrade());
-        //mark both of them initially invisible
-        Board.getCell(visibleCharacter).getCharacterToken().markInvisible();
-        Board.getCell(hiddenCharacter).getCharacterToken().markInvisible();
-
-        jw.checkVisibleUnderLampRange();
+        b.getCell(visibleCharacter).setCharacterToken(new SherlockHolmes());
+        b.getCell(hiddenCharacter).setCharacterToken(new InspecteurLestrade());
 
-        assertTrue("Character under light is visible", Board.getCell(visibleCharacter).getCharacterToken().isVisible());
-        assertFalse("Character behind house is not visible", Board.getCell(hiddenCharacter).getCharacterToken().isVisible());
+        assertTrue("Character under light is visible", b.getVisibility().isVisible(visibleCharacter.getId()));
+        assertFalse("Character behind house is not under light", b.getVisibility().isLitByWatson(hiddenCharacter.getId()));
 
         //move Watson to 11,12 and make him point N
+        b.getCell(newLocation).setCharacterToken(null);
         newLocation = new CellCoordinate(11, 12);
-        jw.setCurrentPosition(newLocation);
-        Board.getCell(newLocation).setCharacterToken(jw);
+        b.getCell(newLocation).setCharacterToken(jw);
         jw.setLampDirection(Direction.NORTH);
 
         //add two characters normally not visible but both under Watson's lamp range
         CellCoordinate c1 = new CellCoordinate(3, 12);
         CellCoordinate c2 = new CellCoordinate(7, 12);//SG is here already
-        Board.getCell(c1).setCharacterToken(new InspecteurLestrade());
-        //mark both of the initially invisible
-        Board.getCell(c1).getCharacterToken().markInvisible();
-        Board.getCell(c2).getCharacterToken().markInvisible();
-
-        jw.checkVisibleUnderLampRange();
+        b.getCell(c1).setCharacterToken(new InspecteurLestrade());
 
-        assertTrue("c1 under light is visible", Board.getCell(c1).getCharacterToken().isVisible());
-        assertTrue("c2 under light is visible", Board.getCell(c2).getCharacterToken().isVisible());
+        assertTrue("c1 under light is visible", b.getVisibility().isVisible(c1.getId()));
+        assertTrue("c2 under light is visible", b.getVisibility().isVisible(c2.getId()));
     }
 }
@@ -1,8 +1,11 @@
 package com.blogspot.groglogs.mrjack.structures.characters;
 
+import com.blogspot.groglogs.mrjack.Action;
 import com.blogspot.groglogs.mrjack.Game;
-import com.blogspot.groglogs.mrjack.input.Stdinputter;
 import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.structures.board.BoardTopology;
+import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -13,17 +16,42 @@ public class JohnSmithTests {
 
     @Test
     public void useAbility(){
-        //we need to clear the board and initialize a game since the logic will check for valid data in the context
-        Board.clearBoard();
+        //we need to initialize a game since the logic will check for valid data in the context
         Game g = new Game();
+        Board b = g.getBoard();
 
         JohnSmith js = new JohnSmith();
+        js.setGame(g);
         //can turn off a lamp and turn on another one, will skip invalid input and off holes
         String actions = "9\n6\n7\n2\n12\n1\n2\n5\n";
-        Stdinputter.setStringAsInputStream(actions);
+        g.getInput().setStringAsInputStream(actions);
         js.useAbility();
-        assertTrue("Lamp 2,5 is on", Board.getCell(2,5).isLampOn());
-        assertFalse("Lamp 12,1 is off", Board.getCell(12,1).isLampOn());
-        assertEquals("Lamp 2,5 off turn is 1", 1, Board.getCell(2,5).getlampOffTurn());
+        assertTrue("Lamp 2,5 is on", b.getCell(2,5).isLampOn());
+        assertFalse("Lamp 12,1 is off", b.getCell(12,1).isLampOn());
+        assertEquals("Lamp 2,5 off turn is 1", 1, b.getCell(2,5).getlampOffTurn());
+    }
+
+    @Test
+    public void useAbilityFromAction(){
+        Game g = new Game(1);
+        Board b = g.getBoard();
+
+        //same swap as above, without asking the player
+        long action = Action.withSwap(Action.play(CharacterType.SMITH, Action.ABILITY, 0),
+                BoardTopology.getLampBit(CellCoordinate.of(12,1).getId()), BoardTopology.getLampBit(CellCoordinate.of(2,5).getId()));
+        g.getCharacterToken(CharacterType.SMITH).useAbility(action);
+        assertTrue("Lamp 2,5 is on", b.getCell(2,5).isLampOn());
+        assertFalse("Lamp 12,1 is off", b.getCell(12,1).isLampOn());
+        assertEquals("Lamp 2,5 off turn is 1", 1, b.getCell(2,5).getlampOffTurn());
+        assertEquals("Lamp 12,1 is not on a timer", -1, b.getCell(12,1).getlampOffTurn());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void useAbilityFromActionThrowsExceptionIfLampIsOff(){
+        Game g = new Game(1);
+
+        long action = Action.withSwap(Action.play(CharacterType.SMITH, Action.ABILITY, 0),
+                BoardTopology.getLampBit(CellCoordinate.of(2,5).getId()), BoardTopology.getLampBit(CellCoordinate.of(14,7).getId()));
+        g.getCharacterToken(CharacterType.SMITH).useAbility(action);
     }
 }
@@ -10,13 +10,14 @@ public class SherlockHolmesTests {
 
     @Test
     public void useAbility() {
-        //we need to clear the board and initialize a game since the logic will check for valid data in the context
-        Board.clearBoard();
+        //we need to initialize a game since the logic will check for valid data in the context
         Game g = new Game();
+        Board b = g.getBoard();
 
         SherlockHolmes sh = new SherlockHolmes();
+        sh.setGame(g);
         sh.useAbility();
-        assertFalse("Innocents for the current player is not empty", Game.getPlayerInnocents().isEmpty());
+        assertFalse("Innocents for the current player is not empty", g.getPlayerInnocents().isEmpty());
         //we have no way of knowing which innocent was picked since cards are randomized each game
     }
 }
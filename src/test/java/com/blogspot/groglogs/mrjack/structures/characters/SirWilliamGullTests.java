@@ -1,8 +1,9 @@
 package com.blogspot.groglogs.mrjack.structures.characters;
 
+import com.blogspot.groglogs.mrjack.Action;
 import com.blogspot.groglogs.mrjack.Game;
-import com.blogspot.groglogs.mrjack.input.Stdinputter;
 import com.blogspot.groglogs.mrjack.structures.board.Board;
+import com.blogspot.groglogs.mrjack.structures.board.CellCoordinate;
 import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
 import org.junit.Test;
 
@@ -12,18 +13,33 @@ public class SirWilliamGullTests {
 
     @Test
     public void useAbility() {
-        //we need to clear the board and initialize a game since the logic will check for valid data in the context
-        Board.clearBoard();
+        //we need to initialize a game since the logic will check for valid data in the context
         Game g = new Game();
+        Board b = g.getBoard();
 
         SirWilliamGull wg = new SirWilliamGull();
+        wg.setGame(g);
         //attempt to swap places with SG, ignoring invalid input
         //SG is number 5 since we do not offer WG as potential choice
         String actions = "100\n5\n";
-        Stdinputter.setStringAsInputStream(actions);
+        g.getInput().setStringAsInputStream(actions);
         wg.useAbility();
 
-        assertEquals("WG is in place of SG", CharacterType.GULL, Board.getCell(7, 12).getCharacterToken().getCharacterType());
-        assertEquals("SG is in place of WG", CharacterType.GOODLEY, Board.getCell(1, 4).getCharacterToken().getCharacterType());
+        assertEquals("WG is in place of SG", CharacterType.GULL, b.getCell(7, 12).getCharacterToken().getCharacterType());
+        assertEquals("SG is in place of WG", CharacterType.GOODLEY, b.getCell(1, 4).getCharacterToken().getCharacterType());
+    }
+
+    @Test
+    public void useAbilityFromAction() {
+        Game g = new Game(1);
+        Board b = g.getBoard();
+
+        //same swap as above, without asking the player
+        g.getCharacterToken(CharacterType.GULL).useAbility(
+                Action.withTarget(Action.play(CharacterType.GULL, Action.ABILITY, 0), CharacterType.GOODLEY));
+
+        assertEquals("WG is in place of SG", CharacterType.GULL, b.getCell(7, 12).getCharacterToken().getCharacterType());
+        assertEquals("SG is in place of WG", CharacterType.GOODLEY, b.getCell(1, 4).getCharacterToken().getCharacterType());
+        assertEquals("SG position is updated", CellCoordinate.of(1, 4), g.getCharacterToken(CharacterType.GOODLEY).getCurrentPosition());
     }
 }
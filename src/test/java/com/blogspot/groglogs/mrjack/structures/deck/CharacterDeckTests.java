@@ -0,0 +1,72 @@
+package com.blogspot.groglogs.mrjack.structures.deck;
+
+import com.blogspot.groglogs.mrjack.structures.enums.CharacterType;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class CharacterDeckTests {
+
+    private static final int ALL = (1 << CharacterDeck.NUM_CHARACTERS) - 1;
+
+    @Test
+    //every shuffle draws each card once, cards keep their position
+    public void shuffleIsPermutation(){
+        CharacterDeck deck = new CharacterDeck(new SplittableRandom(1));
+
+        for(int s = 0; s < 100; s++){
+            deck.shuffle();
+
+            int drawn = 0;
+            for(int i = 0; i < CharacterDeck.NUM_CHARACTERS; i++){
+                drawn |= 1 << deck.draw(i).getCharacterType().getNumVal();
+            }
+            assertEquals("Every card is drawn", ALL, drawn);
+            assertEquals("Batches split the deck", ALL, deck.draw(0, 4) | deck.draw(4, 4));
+            assertEquals("Batches do not overlap", 0, deck.draw(0, 4) & deck.draw(4, 4));
+
+            for(int i = 0; i < CharacterDeck.NUM_CHARACTERS; i++){
+                assertSame("Positions do not change", CharacterType.fromNumVal(i), deck.getCharacterTokenAtPosition(i).getCharacterType());
+            }
+        }
+    }
+
+    @Test
+    public void sameSeedSameDraws(){
+        CharacterDeck a = new CharacterDeck(new SplittableRandom(42)), b = new CharacterDeck(new SplittableRandom(42));
+
+        for(int s = 0; s < 100; s++){
+            a.shuffle();
+            b.shuffle();
+
+            for(int i = 0; i < CharacterDeck.NUM_CHARACTERS; i++){
+                assertEquals("Same draws", a.draw(i).getCharacterType(), b.draw(i).getCharacterType());
+            }
+        }
+    }
+
+    @Test
+    //all orders are drawn about as often
+    public void shuffleIsUniform(){
+        CharacterDeck deck = new CharacterDeck(new SplittableRandom(7));
+        int[][] counts = new int[CharacterDeck.NUM_CHARACTERS][CharacterDeck.NUM_CHARACTERS];
+        int shuffles = 80000;
+
+        for(int s = 0; s < shuffles; s++){
+            deck.shuffle();
+            for(int i = 0; i < CharacterDeck.NUM_CHARACTERS; i++){
+                counts[i][deck.draw(i).getCharacterType().getNumVal()]++;
+            }
+        }
+
+        int expected = shuffles / CharacterDeck.NUM_CHARACTERS;
+        for(int[] place : counts){
+            for(int count : place){
+                assertEquals("Each card is drawn at each place as often", expected, count, expected / 10);
+            }
+        }
+    }
+}